@@ -0,0 +1,140 @@
+/**
+ * pwlf-milp: Piecewise linear approximations for the static-dynamic 
+ *            uncertainty strategy in stochastic lot-sizing"
+ * 
+ * MIT License
+ * 
+ * Copyright (c) 2016 Roberto Rossi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import mip_model.backorders.PlanningItem;
+import umontreal.ssj.probdist.Distribution;
+
+/**
+ * Streams {@link PlanningItem}s from a file written by {@link BinaryForecastWriter}. The file 
+ * is read through a direct buffer that is refilled from the channel as records are decoded, 
+ * so only the buffer and the next item are held in memory.
+ */
+public class BinaryForecastReader implements Iterator<PlanningItem>, Closeable {
+	
+	FileChannel channel;
+	ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+	boolean eof;
+	PlanningItem next;
+	long records;
+	
+	public BinaryForecastReader(Path path) throws IOException{
+		this.channel = FileChannel.open(path, StandardOpenOption.READ);
+		buffer.flip();
+		if(!ensure(8) || buffer.getInt() != BinaryForecastWriter.MAGIC) 
+			throw new IOException("Not a binary forecast file: "+path);
+		int version = buffer.getInt();
+		if(version != BinaryForecastWriter.VERSION) 
+			throw new IOException("Unsupported binary forecast version "+version);
+		advance();
+	}
+	
+	/**
+	 * Makes at least {@code bytes} bytes available; false at the end of the file.
+	 */
+	private boolean ensure(int bytes) throws IOException{
+		if(buffer.remaining() >= bytes) return true;
+		if(buffer.capacity() < bytes){
+			ByteBuffer larger = ByteBuffer.allocateDirect(Integer.highestOneBit(bytes) << 1);
+			larger.put(buffer);
+			buffer = larger;
+		}else{
+			buffer.compact();
+		}
+		while(buffer.position() < bytes && !eof){
+			if(channel.read(buffer) < 0) eof = true;
+		}
+		buffer.flip();
+		return buffer.remaining() >= bytes;
+	}
+	
+	private void require(int bytes) throws IOException{
+		if(!ensure(bytes)) throw new EOFException("Truncated record "+(records + 1));
+	}
+	
+	private void advance(){
+		next = null;
+		try{
+			if(!ensure(4)) return;
+			int idLength = buffer.getInt();
+			require(idLength + 1 + 5*8 + 4);
+			byte[] id = new byte[idLength];
+			buffer.get(id);
+			ForecastFamily family = ForecastFamily.values()[buffer.get()];
+			double ordercost = buffer.getDouble();
+			double holdingcost = buffer.getDouble();
+			double penaltycost = buffer.getDouble();
+			double unitcost = buffer.getDouble();
+			double initialStock = buffer.getDouble();
+			int horizon = buffer.getInt();
+			Distribution[] demand = new Distribution[horizon];
+			for(int t = 0; t < horizon; t++){
+				int arity = family.arity();
+				if(arity < 0){
+					require(4);
+					arity = buffer.getInt();
+				}
+				require(8*arity);
+				double[] parameters = new double[arity];
+				for(int i = 0; i < arity; i++) parameters[i] = buffer.getDouble();
+				demand[t] = family.distribution(parameters);
+			}
+			records++;
+			next = new PlanningItem(new String(id, StandardCharsets.UTF_8), demand, ordercost, holdingcost, penaltycost, unitcost, initialStock);
+		}catch(IOException e){
+			throw new UncheckedIOException(e);
+		}
+	}
+	
+	public boolean hasNext(){
+		return next != null;
+	}
+	
+	public PlanningItem next(){
+		if(next == null) throw new NoSuchElementException();
+		PlanningItem item = next;
+		advance();
+		return item;
+	}
+	
+	public void close() throws IOException{
+		channel.close();
+	}
+}
@@ -0,0 +1,102 @@
+/**
+ * pwlf-milp: Piecewise linear approximations for the static-dynamic 
+ *            uncertainty strategy in stochastic lot-sizing"
+ * 
+ * MIT License
+ * 
+ * Copyright (c) 2016 Roberto Rossi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import mip_model.backorders.PlanningItem;
+import umontreal.ssj.probdist.Distribution;
+
+/**
+ * Writes items in the binary forecast format read by {@link BinaryForecastReader}: the file 
+ * starts with {@link #MAGIC} and {@link #VERSION}; each record holds the UTF-8 id (length as 
+ * an int), the family ordinal (byte), the five cost parameters, the horizon (int) and the 
+ * per-period parameters of {@link ForecastFamily} as doubles, big-endian.
+ */
+public class BinaryForecastWriter implements Closeable {
+	
+	public static final int MAGIC = 0x50574C46;
+	public static final int VERSION = 1;
+	
+	FileChannel channel;
+	ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+	
+	public BinaryForecastWriter(Path path) throws IOException{
+		this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		buffer.putInt(MAGIC).putInt(VERSION);
+	}
+	
+	private void ensure(int bytes) throws IOException{
+		if(buffer.remaining() >= bytes) return;
+		flush();
+		if(buffer.capacity() < bytes){
+			buffer = ByteBuffer.allocateDirect(Integer.highestOneBit(bytes) << 1);
+		}
+	}
+	
+	private void flush() throws IOException{
+		buffer.flip();
+		while(buffer.hasRemaining()) channel.write(buffer);
+		buffer.clear();
+	}
+	
+	public void write(PlanningItem item) throws IOException{
+		Distribution[] demand = item.getDemand();
+		ForecastFamily family = ForecastFamily.of(demand);
+		byte[] id = item.getId().getBytes(StandardCharsets.UTF_8);
+		double[][] parameters = new double[demand.length][];
+		int bytes = 4 + id.length + 1 + 5*8 + 4;
+		for(int t = 0; t < demand.length; t++){
+			parameters[t] = family.parameters(demand[t]);
+			bytes += 8*parameters[t].length + (family.arity() < 0 ? 4 : 0);
+		}
+		ensure(bytes);
+		buffer.putInt(id.length).put(id).put((byte) family.ordinal());
+		buffer.putDouble(item.getOrderCost()).putDouble(item.getHoldingCost()).putDouble(item.getPenaltyCost())
+			.putDouble(item.getUnitCost()).putDouble(item.getInitialStock());
+		buffer.putInt(demand.length);
+		for(double[] values : parameters){
+			if(family.arity() < 0) buffer.putInt(values.length);
+			for(double value : values) buffer.putDouble(value);
+		}
+	}
+	
+	public void close() throws IOException{
+		try{
+			flush();
+		}finally{
+			channel.close();
+		}
+	}
+}
@@ -0,0 +1,115 @@
+/**
+ * pwlf-milp: Piecewise linear approximations for the static-dynamic 
+ *            uncertainty strategy in stochastic lot-sizing"
+ * 
+ * MIT License
+ * 
+ * Copyright (c) 2016 Roberto Rossi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import mip_model.backorders.PlanningItem;
+import umontreal.ssj.probdist.Distribution;
+
+/**
+ * Streams {@link PlanningItem}s from a CSV forecast file, one item per line:
+ * 
+ * {@code id,family,ordercost,holdingcost,penaltycost,unitcost,initialStock,horizon,parameters...}
+ * 
+ * where the per-period parameters follow {@link ForecastFamily}. Blank lines, lines starting 
+ * with {@code #} and a header line starting with {@code id,} are skipped. Only the next item 
+ * is held in memory.
+ */
+public class CsvForecastReader implements Iterator<PlanningItem>, Closeable {
+	
+	BufferedReader reader;
+	PlanningItem next;
+	long line;
+	
+	public CsvForecastReader(Path path) throws IOException{
+		this.reader = Files.newBufferedReader(path, StandardCharsets.UTF_8);
+		advance();
+	}
+	
+	private void advance(){
+		next = null;
+		try{
+			String text;
+			while((text = reader.readLine()) != null){
+				line++;
+				text = text.trim();
+				if(text.isEmpty() || text.startsWith("#") || text.startsWith("id,")) continue;
+				next = parse(text);
+				return;
+			}
+		}catch(IOException e){
+			throw new UncheckedIOException(e);
+		}catch(RuntimeException e){
+			throw new IllegalArgumentException("Line "+line+": "+e.getMessage(), e);
+		}
+	}
+	
+	static PlanningItem parse(String text){
+		String[] fields = text.split(",");
+		if(fields.length < 8) throw new IllegalArgumentException("Expected at least 8 fields, found "+fields.length);
+		ForecastFamily family = ForecastFamily.valueOf(fields[1].trim().toUpperCase());
+		int horizon = Integer.parseInt(fields[7].trim());
+		Distribution[] demand = new Distribution[horizon];
+		int k = 8;
+		for(int t = 0; t < horizon; t++){
+			int arity = family.arity();
+			if(arity < 0) arity = Integer.parseInt(fields[k++].trim());
+			double[] parameters = new double[arity];
+			for(int i = 0; i < arity; i++) parameters[i] = Double.parseDouble(fields[k++]);
+			demand[t] = family.distribution(parameters);
+		}
+		if(k != fields.length) throw new IllegalArgumentException("Expected "+k+" fields, found "+fields.length);
+		return new PlanningItem(fields[0].trim(), demand, 
+				Double.parseDouble(fields[2]), Double.parseDouble(fields[3]), Double.parseDouble(fields[4]), 
+				Double.parseDouble(fields[5]), Double.parseDouble(fields[6]));
+	}
+	
+	public boolean hasNext(){
+		return next != null;
+	}
+	
+	public PlanningItem next(){
+		if(next == null) throw new NoSuchElementException();
+		PlanningItem item = next;
+		advance();
+		return item;
+	}
+	
+	public void close() throws IOException{
+		reader.close();
+	}
+}
@@ -0,0 +1,77 @@
+/**
+ * pwlf-milp: Piecewise linear approximations for the static-dynamic 
+ *            uncertainty strategy in stochastic lot-sizing"
+ * 
+ * MIT License
+ * 
+ * Copyright (c) 2016 Roberto Rossi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import mip_model.backorders.PlanningItem;
+import umontreal.ssj.probdist.Distribution;
+
+/**
+ * Writes items in the format read by {@link CsvForecastReader}.
+ */
+public class CsvForecastWriter implements Closeable {
+	
+	BufferedWriter writer;
+	
+	public CsvForecastWriter(Path path) throws IOException{
+		this.writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8);
+		writer.write("id,family,ordercost,holdingcost,penaltycost,unitcost,initialStock,horizon,parameters");
+		writer.newLine();
+	}
+	
+	public void write(PlanningItem item) throws IOException{
+		if(item.getId().indexOf(',') >= 0) throw new IllegalArgumentException("Item id contains a comma: "+item.getId());
+		Distribution[] demand = item.getDemand();
+		ForecastFamily family = ForecastFamily.of(demand);
+		StringBuilder line = new StringBuilder(item.getId());
+		line.append(',').append(family)
+			.append(',').append(item.getOrderCost())
+			.append(',').append(item.getHoldingCost())
+			.append(',').append(item.getPenaltyCost())
+			.append(',').append(item.getUnitCost())
+			.append(',').append(item.getInitialStock())
+			.append(',').append(demand.length);
+		for(Distribution d : demand){
+			double[] parameters = family.parameters(d);
+			if(family.arity() < 0) line.append(',').append(parameters.length);
+			for(double value : parameters) line.append(',').append(value);
+		}
+		writer.append(line);
+		writer.newLine();
+	}
+	
+	public void close() throws IOException{
+		writer.close();
+	}
+}
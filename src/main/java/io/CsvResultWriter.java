@@ -0,0 +1,90 @@
+/**
+ * pwlf-milp: Piecewise linear approximations for the static-dynamic 
+ *            uncertainty strategy in stochastic lot-sizing"
+ * 
+ * MIT License
+ * 
+ * Copyright (c) 2016 Roberto Rossi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import mip_model.backorders.PlanningResult;
+
+/**
+ * Writes one CSV line per result: objective, simulation estimate, stage times, the error 
+ * message of failed items, and the policy as a string of 0/1 review flags followed by the 
+ * order-up-to levels separated by semicolons.
+ */
+public class CsvResultWriter implements ResultSink {
+	
+	public static final String HEADER = "id,horizon,objective,optimal,simulatedCost,halfWidth,simulationRuns,simulationStop,"
+			+ "buildTime,solveTime,simulationTime,threads,error,R,S";
+	
+	BufferedWriter writer;
+	
+	public CsvResultWriter(Path path) throws IOException{
+		this.writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8);
+		writer.write(HEADER);
+		writer.newLine();
+	}
+	
+	public void write(PlanningResult result) throws IOException{
+		StringBuilder line = new StringBuilder(result.getItem().getId());
+		line.append(',').append(result.getItem().getHorizon())
+			.append(',').append(result.getObjective())
+			.append(',').append(result.isOptimal())
+			.append(',').append(result.getSimulatedCost())
+			.append(',').append(result.getHalfWidth())
+			.append(',').append(result.getSimulationRuns())
+			.append(',').append(result.getSimulationStopReason() == null ? "" : result.getSimulationStopReason())
+			.append(',').append(result.getBuildTime())
+			.append(',').append(result.getSolveTime())
+			.append(',').append(result.getSimulationTime())
+			.append(',').append(result.getThreads())
+			.append(',');
+		if(result.getError() != null) 
+			line.append(String.valueOf(result.getError()).replace(',', ';').replace('\n', ' ').replace('\r', ' '));
+		line.append(',');
+		if(result.getR() != null) 
+			for(boolean review : result.getR()) line.append(review ? '1' : '0');
+		line.append(',');
+		if(result.getS() != null){
+			double[] S = result.getS();
+			for(int t = 0; t < S.length; t++){
+				if(t > 0) line.append(';');
+				line.append(S[t]);
+			}
+		}
+		writer.append(line);
+		writer.newLine();
+	}
+	
+	public void close() throws IOException{
+		writer.close();
+	}
+}
@@ -0,0 +1,94 @@
+/**
+ * pwlf-milp: Piecewise linear approximations for the static-dynamic 
+ *            uncertainty strategy in stochastic lot-sizing"
+ * 
+ * MIT License
+ * 
+ * Copyright (c) 2016 Roberto Rossi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io;
+
+import umontreal.ssj.probdist.Distribution;
+import umontreal.ssj.probdist.EmpiricalDist;
+import umontreal.ssj.probdist.NormalDist;
+import umontreal.ssj.probdist.PoissonDist;
+
+/**
+ * Demand distribution family of a forecast file record; all periods of an item share the 
+ * family. Per period, POISSON stores the rate, NORMAL the mean and standard deviation and 
+ * EMPIRICAL the number of observations followed by the observation history.
+ */
+public enum ForecastFamily {
+	
+	POISSON, NORMAL, EMPIRICAL;
+	
+	public static ForecastFamily of(Distribution[] demand){
+		ForecastFamily family = null;
+		for(Distribution d : demand){
+			ForecastFamily f = d instanceof PoissonDist ? POISSON : 
+				(d instanceof NormalDist ? NORMAL : (d instanceof EmpiricalDist ? EMPIRICAL : null));
+			if(f == null) throw new IllegalArgumentException("Unsupported demand distribution "+d.getClass().getSimpleName());
+			if(family != null && f != family) throw new IllegalArgumentException("Mixed demand distribution families");
+			family = f;
+		}
+		return family;
+	}
+	
+	/**
+	 * Stored parameters of one period; for EMPIRICAL the observations, without their count.
+	 */
+	double[] parameters(Distribution d){
+		switch(this){
+		case POISSON:
+			return new double[]{((PoissonDist) d).getLambda()};
+		case NORMAL:
+			return new double[]{((NormalDist) d).getMu(), ((NormalDist) d).getSigma()};
+		default:
+			EmpiricalDist empirical = (EmpiricalDist) d;
+			double[] observations = new double[empirical.getN()];
+			for(int i = 0; i < observations.length; i++) observations[i] = empirical.getObs(i);
+			return observations;
+		}
+	}
+	
+	/**
+	 * Number of stored parameters per period, -1 if variable.
+	 */
+	int arity(){
+		switch(this){
+		case POISSON: return 1;
+		case NORMAL: return 2;
+		default: return -1;
+		}
+	}
+	
+	Distribution distribution(double[] parameters){
+		switch(this){
+		case POISSON:
+			return new PoissonDist(parameters[0]);
+		case NORMAL:
+			return new NormalDist(parameters[0], parameters[1]);
+		default:
+			return new EmpiricalDist(parameters);
+		}
+	}
+}
@@ -0,0 +1,149 @@
+/**
+ * pwlf-milp: Piecewise linear approximations for the static-dynamic 
+ *            uncertainty strategy in stochastic lot-sizing"
+ * 
+ * MIT License
+ * 
+ * Copyright (c) 2016 Roberto Rossi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+import mip_model.backorders.BatchPlanner;
+import mip_model.backorders.PlanningItem;
+import mip_model.backorders.PlanningResult;
+
+/**
+ * Streams a forecast catalog through a {@link BatchPlanner} into a {@link ResultSink}.
+ * 
+ * The calling thread reads items and submits them to the planner, which runs parameter 
+ * build, solve and simulation of each item under its core budget and blocks while the maximum 
+ * number of items is pending. Futures pass through a bounded queue to a writer thread that 
+ * writes the results in item order as they complete; when the queue is full, reading stops 
+ * until the oldest result is written. Memory therefore depends on the queue capacity and 
+ * the planner's pending limit, not on the catalog size.
+ */
+public class ForecastPipeline {
+	
+	BatchPlanner planner;
+	int capacity;
+	
+	/**
+	 * @param capacity maximum number of submitted items whose result is not yet written
+	 */
+	public ForecastPipeline(BatchPlanner planner, int capacity){
+		this.planner = planner;
+		this.capacity = capacity;
+	}
+	
+	/**
+	 * Plans every item and writes its result to {@code sink}, which is not closed. Failed items 
+	 * are written with their error; an exception of the sink, or an {@code Error} thrown while 
+	 * planning, stops the pipeline.
+	 */
+	public Summary run(Iterator<PlanningItem> items, final ResultSink sink) throws IOException, InterruptedException{
+		long begin = System.nanoTime();
+		final BlockingQueue<Future<PlanningResult>> queue = new ArrayBlockingQueue<Future<PlanningResult>>(capacity);
+		final FutureTask<PlanningResult> end = new FutureTask<PlanningResult>(new Callable<PlanningResult>(){
+			public PlanningResult call(){
+				return null;
+			}
+		});
+		end.run();
+		final Summary summary = new Summary();
+		FutureTask<Void> writer = new FutureTask<Void>(new Callable<Void>(){
+			public Void call() throws Exception{
+				Future<PlanningResult> future;
+				while((future = queue.take()) != end){
+					PlanningResult result = future.get();
+					sink.write(result);
+					summary.written++;
+					if(result.getError() != null) summary.failed++;
+				}
+				return null;
+			}
+		});
+		Thread thread = new Thread(writer, "forecast-pipeline-writer");
+		thread.setDaemon(true);
+		thread.start();
+		try{
+			while(items.hasNext() && !writer.isDone()){
+				Future<PlanningResult> future = planner.submit(items.next());
+				summary.read++;
+				while(!queue.offer(future, 100, TimeUnit.MILLISECONDS)){
+					if(writer.isDone()) break;
+				}
+			}
+			while(!writer.isDone() && !queue.offer(end, 100, TimeUnit.MILLISECONDS));
+			writer.get();
+		}catch(ExecutionException e){
+			Throwable cause = e.getCause();
+			if(cause instanceof IOException) throw (IOException) cause;
+			if(cause instanceof Error) throw (Error) cause;
+			throw new IllegalStateException("Result writing failed", cause);
+		}finally{
+			if(!writer.isDone()) thread.interrupt();
+		}
+		summary.time = (System.nanoTime() - begin)*1e-9;
+		return summary;
+	}
+	
+	public static class Summary {
+		
+		long read;
+		long written;
+		long failed;
+		double time;
+		
+		public long getRead(){
+			return read;
+		}
+		
+		public long getWritten(){
+			return written;
+		}
+		
+		public long getFailed(){
+			return failed;
+		}
+		
+		public double getTime(){
+			return time;
+		}
+		
+		/**
+		 * Written items per second.
+		 */
+		public double getThroughput(){
+			return written/time;
+		}
+	}
+}
@@ -0,0 +1,320 @@
+/**
+ * pwlf-milp: Piecewise linear approximations for the static-dynamic 
+ *            uncertainty strategy in stochastic lot-sizing"
+ * 
+ * MIT License
+ * 
+ * Copyright (c) 2016 Roberto Rossi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package linearization;
+
+import java.util.Arrays;
+
+import RS.RSCycleLinearizationParameters;
+import umontreal.ssj.probdist.DiscreteDistributionInt;
+import umontreal.ssj.probdist.Distribution;
+import umontreal.ssj.probdist.NormalDist;
+import umontreal.ssj.probdist.PoissonDist;
+
+/**
+ * Deterministic linearization parameters: equal probability masses 1/N as in 
+ * {@code RSCycleLinearizationParameters}, with conditional expectations and maximum 
+ * approximation errors computed from the exact cycle demand distribution instead of samples.
+ * 
+ * Normal demand scales standard normal tables; Poisson demand uses the Poisson distribution 
+ * of the summed rate; other integer demand is convolved period by period. Any other demand 
+ * falls back to sampling.
+ */
+public class AnalyticLinearizationParameters {
+	
+	/**
+	 * Tail probability discarded when truncating the support of a discrete distribution.
+	 */
+	public static final double TAIL = 1e-14;
+	
+	/**
+	 * Largest support of a truncated cycle distribution.
+	 */
+	public static final int MAX_SUPPORT = 1 << 24;
+	
+	public static LinearizationParameters compute(Distribution[] demand, long[] seed, int nbSamples, int population, int partitions){
+		LinearizationParameters parameters = compute(demand, partitions);
+		if(parameters == null){
+			RSCycleLinearizationParameters sampled = new RSCycleLinearizationParameters(demand, seed, nbSamples, population, partitions);
+			parameters = new SampledLinearizationParameters(sampled, demand.length, partitions);
+		}
+		return parameters;
+	}
+	
+	/**
+	 * Returns {@code null} if no analytic route applies to {@code demand}.
+	 */
+	public static TabulatedLinearizationParameters compute(Distribution[] demand, int partitions){
+		if(all(demand, NormalDist.class))
+			return normal(demand, partitions);
+		else if(all(demand, PoissonDist.class))
+			return poisson(demand, partitions);
+		else if(all(demand, DiscreteDistributionInt.class))
+			return discrete(demand, partitions);
+		else
+			return null;
+	}
+	
+	public static boolean isAnalytic(Distribution[] demand){
+		return all(demand, NormalDist.class) || all(demand, DiscreteDistributionInt.class);
+	}
+	
+	private static boolean all(Distribution[] demand, Class<?> type){
+		for(Distribution d : demand)
+			if(!type.isInstance(d)) return false;
+		return true;
+	}
+	
+	private static double[] masses(int partitions){
+		double[] masses = new double[partitions];
+		Arrays.fill(masses, 1.0/partitions);
+		return masses;
+	}
+	
+	static TabulatedLinearizationParameters normal(Distribution[] demand, int partitions){
+		int T = demand.length;
+		int N = partitions;
+		double[] e = new double[N];
+		double maxError = standardNormal(e);
+		double[] conditionalExpectations = new double[T*T*N];
+		double[] maximumApproximationErrors = new double[T*T];
+		for(int i = 0; i < T; i++){
+			double mu = 0, variance = 0;
+			for(int j = i; j < T; j++){
+				NormalDist d = (NormalDist) demand[j];
+				mu += d.getMu();
+				variance += d.getSigma()*d.getSigma();
+				double sigma = Math.sqrt(variance);
+				for(int k = 0; k < N; k++) 
+					conditionalExpectations[(i*T+j)*N+k] = mu + sigma*e[k];
+				maximumApproximationErrors[i*T+j] = sigma*maxError;
+			}
+		}
+		return new TabulatedLinearizationParameters(T, N, masses(N), conditionalExpectations, maximumApproximationErrors);
+	}
+	
+	/**
+	 * Conditional expectations of the standard normal over N equal-mass regions, stored in 
+	 * {@code e}; returns the maximum approximation error.
+	 */
+	static double standardNormal(double[] e){
+		int N = e.length;
+		double[] z = new double[N+1];
+		z[0] = Double.NEGATIVE_INFINITY;
+		z[N] = Double.POSITIVE_INFINITY;
+		for(int k = 1; k < N; k++) z[k] = NormalDist.inverseF01((double)k/N);
+		for(int k = 0; k < N; k++) e[k] = N*(density(z[k]) - density(z[k+1]));
+		double maxError = 0;
+		double sum = 0;
+		for(int i = 0; i < N; i++){
+			double error = e[i]*NormalDist.cdf01(e[i]) + NormalDist.density01(e[i]) - (i*e[i] - sum)/N;
+			maxError = Math.max(maxError, error);
+			sum += e[i];
+		}
+		return maxError;
+	}
+	
+	/**
+	 * Conditional expectations and maximum approximation errors of the cycles (i, T-1) ending 
+	 * in the last period, i = 0..T-1, obtained by accumulating demand backwards from the last 
+	 * period. Returns false if no analytic route applies to {@code demand}.
+	 */
+	public static boolean trailing(Distribution[] demand, double[][] conditionalExpectations, double[] maximumApproximationErrors){
+		int T = demand.length;
+		int N = conditionalExpectations[0].length;
+		if(all(demand, NormalDist.class)){
+			double[] e = new double[N];
+			double maxError = standardNormal(e);
+			double mu = 0, variance = 0;
+			for(int i = T-1; i >= 0; i--){
+				NormalDist d = (NormalDist) demand[i];
+				mu += d.getMu();
+				variance += d.getSigma()*d.getSigma();
+				double sigma = Math.sqrt(variance);
+				for(int k = 0; k < N; k++) conditionalExpectations[i][k] = mu + sigma*e[k];
+				maximumApproximationErrors[i] = sigma*maxError;
+			}
+		}else if(all(demand, PoissonDist.class)){
+			double lambda = 0;
+			int[] offset = new int[1];
+			for(int i = T-1; i >= 0; i--){
+				lambda += ((PoissonDist) demand[i]).getLambda();
+				double[] pmf = truncate(new PoissonDist(lambda), offset);
+				maximumApproximationErrors[i] = partition(pmf, offset[0], conditionalExpectations[i]);
+			}
+		}else if(all(demand, DiscreteDistributionInt.class)){
+			double[] pmf = null;
+			int lo = 0;
+			int[] offset = new int[1];
+			for(int i = T-1; i >= 0; i--){
+				double[] period = truncate((DiscreteDistributionInt) demand[i], offset);
+				if(pmf == null){
+					pmf = period;
+					lo = offset[0];
+				}else{
+					if((long)pmf.length + period.length > MAX_SUPPORT) 
+						throw new IllegalArgumentException("Cycle demand support exceeds "+MAX_SUPPORT);
+					pmf = Convolution.convolve(period, pmf);
+					lo += offset[0];
+				}
+				maximumApproximationErrors[i] = partition(pmf, lo, conditionalExpectations[i]);
+			}
+		}else{
+			return false;
+		}
+		return true;
+	}
+	
+	private static double density(double z){
+		return Double.isInfinite(z) ? 0 : NormalDist.density01(z);
+	}
+	
+	static TabulatedLinearizationParameters poisson(Distribution[] demand, int partitions){
+		int T = demand.length;
+		int N = partitions;
+		double[] conditionalExpectations = new double[T*T*N];
+		double[] maximumApproximationErrors = new double[T*T];
+		double[] e = new double[N];
+		for(int i = 0; i < T; i++){
+			double lambda = 0;
+			for(int j = i; j < T; j++){
+				lambda += ((PoissonDist) demand[j]).getLambda();
+				int[] offset = new int[1];
+				double[] pmf = truncate(new PoissonDist(lambda), offset);
+				maximumApproximationErrors[i*T+j] = partition(pmf, offset[0], e);
+				System.arraycopy(e, 0, conditionalExpectations, (i*T+j)*N, N);
+			}
+		}
+		return new TabulatedLinearizationParameters(T, N, masses(N), conditionalExpectations, maximumApproximationErrors);
+	}
+	
+	/**
+	 * Cycle distributions starting in period i are obtained by convolving the truncated period 
+	 * distributions one at a time, i.e. T-i convolutions per starting period.
+	 */
+	static TabulatedLinearizationParameters discrete(Distribution[] demand, int partitions){
+		int T = demand.length;
+		int N = partitions;
+		double[][] pmfs = new double[T][];
+		int[] offsets = new int[T];
+		int[] offset = new int[1];
+		for(int t = 0; t < T; t++){
+			pmfs[t] = truncate((DiscreteDistributionInt) demand[t], offset);
+			offsets[t] = offset[0];
+		}
+		double[] conditionalExpectations = new double[T*T*N];
+		double[] maximumApproximationErrors = new double[T*T];
+		double[] e = new double[N];
+		for(int i = 0; i < T; i++){
+			double[] pmf = pmfs[i];
+			int lo = offsets[i];
+			for(int j = i; j < T; j++){
+				if(j > i){
+					if((long)pmf.length + pmfs[j].length > MAX_SUPPORT) 
+						throw new IllegalArgumentException("Cycle demand support exceeds "+MAX_SUPPORT);
+					pmf = Convolution.convolve(pmf, pmfs[j]);
+					lo += offsets[j];
+				}
+				maximumApproximationErrors[i*T+j] = partition(pmf, lo, e);
+				System.arraycopy(e, 0, conditionalExpectations, (i*T+j)*N, N);
+			}
+		}
+		return new TabulatedLinearizationParameters(T, N, masses(N), conditionalExpectations, maximumApproximationErrors);
+	}
+	
+	/**
+	 * Probability mass function of {@code d} on [lo, hi], discarding tails of mass {@link #TAIL}, 
+	 * renormalised; lo is stored in {@code offset[0]}.
+	 */
+	public static double[] truncate(DiscreteDistributionInt d, int[] offset){
+		int lo = Math.max(d.getXinf(), d.inverseFInt(TAIL));
+		int hi = Math.min(d.getXsup(), d.inverseFInt(1 - TAIL));
+		if((long)hi - lo + 1 > MAX_SUPPORT) 
+			throw new IllegalArgumentException("Demand support exceeds "+MAX_SUPPORT);
+		double[] pmf = new double[hi - lo + 1];
+		double total = 0;
+		for(int x = lo; x <= hi; x++){
+			pmf[x-lo] = d.prob(x);
+			total += pmf[x-lo];
+		}
+		for(int x = 0; x < pmf.length; x++) pmf[x] /= total;
+		offset[0] = lo;
+		return pmf;
+	}
+	
+	/**
+	 * Splits the distribution into N consecutive equal-mass regions, splitting atoms where 
+	 * needed, stores the conditional expectation of each region in {@code e} and returns the 
+	 * maximum approximation error max_i L(e_i) - sum_{k<i} (e_i - e_k)/N, where L(x) = E[max(x - D, 0)].
+	 */
+	static double partition(double[] pmf, int lo, double[] e){
+		int N = e.length;
+		double mass = 1.0/N;
+		int k = 0;
+		double filled = 0, moment = 0;
+		for(int x = 0; x < pmf.length && k < N; x++){
+			double p = pmf[x];
+			while(p > 0 && k < N){
+				double take = Math.min(p, mass - filled);
+				if(k == N-1) take = p;
+				filled += take;
+				moment += take*(x + lo);
+				p -= take;
+				if(filled >= mass*(1 - 1e-12) && k < N-1){
+					e[k++] = moment/filled;
+					filled = 0;
+					moment = 0;
+				}
+			}
+		}
+		if(k < N) e[k] = filled > 0 ? moment/filled : (k > 0 ? e[k-1] : lo);
+		/* Prefix sums for L(x) = x F(floor(x)) - sum_{d <= floor(x)} d p(d) */
+		double[] cdf = new double[pmf.length];
+		double[] partial = new double[pmf.length];
+		double c = 0, m = 0;
+		for(int x = 0; x < pmf.length; x++){
+			c += pmf[x];
+			m += (x + lo)*pmf[x];
+			cdf[x] = c;
+			partial[x] = m;
+		}
+		double maxError = 0;
+		double sum = 0;
+		for(int i = 0; i < N; i++){
+			int x = (int)Math.floor(e[i]) - lo;
+			double loss = 0;
+			if(x >= pmf.length) 
+				loss = e[i] - partial[pmf.length-1];
+			else if(x >= 0) 
+				loss = e[i]*cdf[x] - partial[x];
+			double error = loss - (i*e[i] - sum)/N;
+			maxError = Math.max(maxError, error);
+			sum += e[i];
+		}
+		return maxError;
+	}
+}
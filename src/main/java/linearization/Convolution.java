@@ -0,0 +1,112 @@
+/**
+ * pwlf-milp: Piecewise linear approximations for the static-dynamic 
+ *            uncertainty strategy in stochastic lot-sizing"
+ * 
+ * MIT License
+ * 
+ * Copyright (c) 2016 Roberto Rossi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package linearization;
+
+/**
+ * Convolution of probability mass functions on consecutive integers; large supports are convolved by FFT.
+ */
+public class Convolution {
+	
+	/**
+	 * Products of support sizes above this threshold are convolved by FFT.
+	 */
+	public static final int FFT_THRESHOLD = 1 << 15;
+	
+	public static double[] convolve(double[] f, double[] g){
+		if((long)f.length*g.length > FFT_THRESHOLD) 
+			return convolveFFT(f, g);
+		else
+			return convolveDirect(f, g);
+	}
+	
+	public static double[] convolveDirect(double[] f, double[] g){
+		double[] h = new double[f.length + g.length - 1];
+		for(int a = 0; a < f.length; a++){
+			double fa = f[a];
+			if(fa == 0) continue;
+			for(int b = 0; b < g.length; b++){
+				h[a+b] += fa*g[b];
+			}
+		}
+		return h;
+	}
+	
+	/**
+	 * FFT convolution; round-off can produce tiny negative masses, which are set to zero.
+	 */
+	public static double[] convolveFFT(double[] f, double[] g){
+		int length = f.length + g.length - 1;
+		int n = Integer.highestOneBit(length);
+		if(n < length) n <<= 1;
+		double[] fr = new double[n], fi = new double[n];
+		double[] gr = new double[n], gi = new double[n];
+		System.arraycopy(f, 0, fr, 0, f.length);
+		System.arraycopy(g, 0, gr, 0, g.length);
+		fft(fr, fi, false);
+		fft(gr, gi, false);
+		for(int k = 0; k < n; k++){
+			double re = fr[k]*gr[k] - fi[k]*gi[k];
+			double im = fr[k]*gi[k] + fi[k]*gr[k];
+			fr[k] = re;
+			fi[k] = im;
+		}
+		fft(fr, fi, true);
+		double[] h = new double[length];
+		for(int k = 0; k < length; k++) h[k] = Math.max(fr[k]/n, 0);
+		return h;
+	}
+	
+	/**
+	 * In-place iterative radix-2 FFT; the inverse transform is not scaled.
+	 */
+	static void fft(double[] re, double[] im, boolean inverse){
+		int n = re.length;
+		for(int i = 1, j = 0; i < n; i++){
+			int bit = n >> 1;
+			for(; (j & bit) != 0; bit >>= 1) j ^= bit;
+			j ^= bit;
+			if(i < j){
+				double t = re[i]; re[i] = re[j]; re[j] = t;
+				t = im[i]; im[i] = im[j]; im[j] = t;
+			}
+		}
+		for(int len = 2; len <= n; len <<= 1){
+			double angle = 2*Math.PI/len*(inverse ? 1 : -1);
+			for(int k = 0; k < len/2; k++){
+				double cr = Math.cos(angle*k), ci = Math.sin(angle*k);
+				for(int i = 0; i < n; i += len){
+					int a = i+k, b = i+k+len/2;
+					double xr = re[b]*cr - im[b]*ci;
+					double xi = re[b]*ci + im[b]*cr;
+					re[b] = re[a] - xr; im[b] = im[a] - xi;
+					re[a] += xr; im[a] += xi;
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,103 @@
+/**
+ * pwlf-milp: Piecewise linear approximations for the static-dynamic 
+ *            uncertainty strategy in stochastic lot-sizing"
+ * 
+ * MIT License
+ * 
+ * Copyright (c) 2016 Roberto Rossi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package linearization;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+
+import RS.RSCycleLinearizationParameters;
+import umontreal.ssj.probdist.Distribution;
+
+/**
+ * How linearization parameters are obtained. Methods that fan out over several threads run 
+ * their tasks on the executor passed to {@link #build(Distribution[], long[], int, int, int, ExecutorService)}, 
+ * by default the common fork-join pool; the others ignore it.
+ */
+public enum LinearizationMethod {
+	/**
+	 * Sampling, as in {@code RSCycleLinearizationParameters}.
+	 */
+	SAMPLING {
+		public LinearizationParameters build(Distribution[] demand, long[] seed, int nbSamples, int population, int partitions, ExecutorService executor){
+			RSCycleLinearizationParameters sampled = new RSCycleLinearizationParameters(demand, seed, nbSamples, population, partitions);
+			return new SampledLinearizationParameters(sampled, demand.length, partitions);
+		}
+	},
+	/**
+	 * Sampling with one substream per cycle, fanned out over the executor, see 
+	 * {@link ParallelLinearizationParameters}.
+	 */
+	PARALLEL {
+		public LinearizationParameters build(Distribution[] demand, long[] seed, int nbSamples, int population, int partitions, ExecutorService executor){
+			return ParallelLinearizationParameters.build(demand, seed, nbSamples, partitions, executor);
+		}
+		
+		public boolean isParallel(){
+			return true;
+		}
+	},
+	/**
+	 * Exact cycle demand distributions where available, see {@link AnalyticLinearizationParameters}; 
+	 * sampling otherwise.
+	 */
+	ANALYTIC {
+		public LinearizationParameters build(Distribution[] demand, long[] seed, int nbSamples, int population, int partitions, ExecutorService executor){
+			return AnalyticLinearizationParameters.compute(demand, seed, nbSamples, population, partitions);
+		}
+	},
+	/**
+	 * Sampling with {@code population} samples per period kept in a memory-mapped file, for 
+	 * long horizons, one task per starting period on the executor, see 
+	 * {@link MappedLinearizationParameters}; {@code nbSamples} is not used.
+	 */
+	MAPPED {
+		public LinearizationParameters build(Distribution[] demand, long[] seed, int nbSamples, int population, int partitions, ExecutorService executor){
+			return MappedLinearizationParameters.build(demand, seed, population, partitions, executor);
+		}
+		
+		public boolean isParallel(){
+			return true;
+		}
+	};
+	
+	/**
+	 * Whether the build fans out over the executor; otherwise it runs on the calling thread.
+	 */
+	public boolean isParallel(){
+		return false;
+	}
+	
+	/**
+	 * Builds the parameters, running any parallel tasks on the common fork-join pool.
+	 */
+	public LinearizationParameters build(Distribution[] demand, long[] seed, int nbSamples, int population, int partitions){
+		return build(demand, seed, nbSamples, population, partitions, ForkJoinPool.commonPool());
+	}
+	
+	public abstract LinearizationParameters build(Distribution[] demand, long[] seed, int nbSamples, int population, int partitions, ExecutorService executor);
+}
@@ -0,0 +1,50 @@
+/**
+ * pwlf-milp: Piecewise linear approximations for the static-dynamic 
+ *            uncertainty strategy in stochastic lot-sizing"
+ * 
+ * MIT License
+ * 
+ * Copyright (c) 2016 Roberto Rossi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package linearization;
+
+/**
+ * Linearization parameters of the first order loss functions of the cycle demands d_i+...+d_j, 
+ * as consumed by {@code MILPModelPenalty}: probability masses of the partitions, conditional 
+ * expectations of each cycle demand over each partition and maximum approximation errors.
+ * 
+ * Periods are indexed from 0; only cycles with i <= j are meaningful.
+ */
+public interface LinearizationParameters {
+	
+	public int getPeriods();
+	
+	public int getPartitions();
+	
+	public double[] getProbabilityMasses();
+	
+	public double[] getConditionalExpectation(int i, int j);
+	
+	public double getConditionalExpectation(int i, int j, int k);
+	
+	public double getMaximumApproximationError(int i, int j);
+}
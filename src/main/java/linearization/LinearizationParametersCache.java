@@ -0,0 +1,279 @@
+/**
+ * pwlf-milp: Piecewise linear approximations for the static-dynamic 
+ *            uncertainty strategy in stochastic lot-sizing"
+ * 
+ * MIT License
+ * 
+ * Copyright (c) 2016 Roberto Rossi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package linearization;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+import RS.RSCycleLinearizationParameters;
+import umontreal.ssj.probdist.Distribution;
+
+/**
+ * Content-addressed cache of sampling-based linearization parameters.
+ * 
+ * Entries are keyed by a SHA-256 hash of the distribution class and parameters of each period, the seed, 
+ * the number of samples, the population and the number of partitions, so that instances sharing a demand 
+ * profile share their parameters. The cache has an in-memory LRU tier and an optional on-disk tier: one 
+ * binary file per key, holding probability masses, conditional expectations and maximum approximation 
+ * errors of the cycles i <= j as flat arrays of doubles. A reloaded file is memory-mapped and served 
+ * directly from the mapping, see {@link MappedLinearizationParameters}. A hit in either tier 
+ * skips sampling entirely. Concurrent requests for a key that is being loaded or sampled wait for 
+ * that load instead of repeating it, and count as hits. A disk entry that cannot be read is resampled 
+ * and rewritten; read and write failures do not fail {@code get}, they are counted and the last one 
+ * is kept, see {@link #getFailures()}.
+ */
+public class LinearizationParametersCache {
+	
+	static final int MAGIC = 0x50574C46;
+	static final int VERSION = 2;
+	static final int HEADER_BYTES = 16;
+	
+	File directory;
+	Map<String, LinearizationParameters> memory;
+	ConcurrentHashMap<String, CompletableFuture<LinearizationParameters>> loading = new ConcurrentHashMap<String, CompletableFuture<LinearizationParameters>>();
+	
+	int hits;
+	int diskHits;
+	int misses;
+	int failures;
+	IOException lastFailure;
+	
+	/**
+	 * @param capacity number of entries kept in memory.
+	 * @param directory on-disk tier, or {@code null} for an in-memory cache.
+	 */
+	public LinearizationParametersCache(final int capacity, File directory){
+		this.directory = directory;
+		this.memory = new LinkedHashMap<String, LinearizationParameters>(16, 0.75f, true){
+			private static final long serialVersionUID = 1L;
+			protected boolean removeEldestEntry(Map.Entry<String, LinearizationParameters> eldest){
+				return size() > capacity;
+			}
+		};
+		if(directory != null) directory.mkdirs();
+	}
+	
+	public LinearizationParameters get(Distribution[] demand, long[] seed, int nbSamples, int population, int partitions){
+		String key = key(demand, seed, nbSamples, population, partitions);
+		LinearizationParameters parameters = cached(key);
+		if(parameters != null) return parameters;
+		CompletableFuture<LinearizationParameters> load = new CompletableFuture<LinearizationParameters>();
+		CompletableFuture<LinearizationParameters> pending = loading.putIfAbsent(key, load);
+		if(pending != null){
+			try{
+				parameters = pending.join();
+			}catch(CompletionException e){
+				if(e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+				if(e.getCause() instanceof Error) throw (Error) e.getCause();
+				throw e;
+			}
+			synchronized(memory){ hits++; }
+			return parameters;
+		}
+		try{
+			/* Another load may have completed between the lookup and the registration */
+			parameters = cached(key);
+			if(parameters == null) parameters = load(key, demand, seed, nbSamples, population, partitions);
+			load.complete(parameters);
+			return parameters;
+		}catch(RuntimeException | Error e){
+			load.completeExceptionally(e);
+			throw e;
+		}finally{
+			loading.remove(key, load);
+		}
+	}
+	
+	private LinearizationParameters cached(String key){
+		synchronized(memory){
+			LinearizationParameters parameters = memory.get(key);
+			if(parameters != null) hits++;
+			return parameters;
+		}
+	}
+	
+	private LinearizationParameters load(String key, Distribution[] demand, long[] seed, int nbSamples, int population, int partitions){
+		LinearizationParameters parameters = null;
+		File file = directory == null ? null : new File(directory, key+".lin");
+		if(file != null && file.exists()){
+			try{
+				parameters = read(file);
+				synchronized(memory){ diskHits++; }
+			}catch(IOException e){
+				failed(e);
+			}
+		}
+		if(parameters == null){
+			RSCycleLinearizationParameters sampled = new RSCycleLinearizationParameters(demand, seed, nbSamples, population, partitions);
+			MappedLinearizationParameters copy = MappedLinearizationParameters.copyOf(new SampledLinearizationParameters(sampled, demand.length, partitions));
+			parameters = copy;
+			synchronized(memory){ misses++; }
+			if(file != null){
+				try{
+					write(copy, file);
+				}catch(IOException e){
+					failed(e);
+				}
+			}
+		}
+		synchronized(memory){
+			memory.put(key, parameters);
+		}
+		return parameters;
+	}
+	
+	private void failed(IOException e){
+		synchronized(memory){
+			failures++;
+			lastFailure = e;
+		}
+	}
+	
+	public int getHits(){
+		return hits;
+	}
+	
+	public int getDiskHits(){
+		return diskHits;
+	}
+	
+	public int getMisses(){
+		return misses;
+	}
+	
+	/**
+	 * @return the number of on-disk entries that could not be read or written.
+	 */
+	public int getFailures(){
+		return failures;
+	}
+	
+	/**
+	 * @return the last on-disk read or write failure, {@code null} if none.
+	 */
+	public IOException getLastFailure(){
+		return lastFailure;
+	}
+	
+	/**
+	 * Canonical key: hex SHA-256 digest of the distribution classes and parameters, seed, 
+	 * number of samples, population and number of partitions.
+	 */
+	public static String key(Distribution[] demand, long[] seed, int nbSamples, int population, int partitions){
+		try{
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			DataOutputStream out = new DataOutputStream(bytes);
+			out.writeInt(demand.length);
+			for(Distribution d : demand){
+				out.writeUTF(d.getClass().getName());
+				double[] params = d.getParams();
+				out.writeInt(params.length);
+				for(double param : params) out.writeLong(Double.doubleToLongBits(param));
+			}
+			out.writeInt(seed.length);
+			for(long s : seed) out.writeLong(s);
+			out.writeInt(nbSamples);
+			out.writeInt(population);
+			out.writeInt(partitions);
+			out.flush();
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes.toByteArray());
+			StringBuilder key = new StringBuilder();
+			for(byte b : digest) key.append(String.format("%02x", b));
+			return key.toString();
+		}catch(IOException | NoSuchAlgorithmException e){
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	/**
+	 * File layout: magic, version, periods, partitions (ints), then probability masses [partitions], 
+	 * conditional expectations [cycles*partitions] and maximum approximation errors [cycles] (doubles), 
+	 * for the cycles i <= j in the order of {@link MappedLinearizationParameters#index(int, int, int)}. 
+	 * The file is written to a temporary file first and then moved in place.
+	 */
+	static void write(MappedLinearizationParameters parameters, File file) throws IOException {
+		int periods = parameters.getPeriods();
+		int partitions = parameters.getPartitions();
+		long cycles = MappedLinearizationParameters.cycles(periods);
+		ByteBuffer buffer = ByteBuffer.allocate((int)(HEADER_BYTES + 8*(partitions + cycles*partitions + cycles)));
+		buffer.putInt(MAGIC).putInt(VERSION).putInt(periods).putInt(partitions);
+		DoubleBuffer doubles = buffer.asDoubleBuffer();
+		doubles.put(parameters.getProbabilityMasses());
+		doubles.put(parameters.getConditionalExpectations());
+		doubles.put(parameters.getMaximumApproximationErrors());
+		File temp = File.createTempFile(file.getName(), ".tmp", file.getParentFile());
+		try(FileChannel channel = new RandomAccessFile(temp, "rw").getChannel()){
+			buffer.rewind();
+			while(buffer.hasRemaining()) channel.write(buffer);
+		}
+		Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+	
+	/**
+	 * Maps {@code file}; the returned parameters read from the mapping, which stays valid after 
+	 * the channel is closed.
+	 */
+	static MappedLinearizationParameters read(File file) throws IOException {
+		try(FileChannel channel = new RandomAccessFile(file, "r").getChannel()){
+			if(channel.size() < HEADER_BYTES) 
+				throw new IOException("Not a linearization parameters file: "+file);
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if(buffer.getInt() != MAGIC || buffer.getInt() != VERSION) 
+				throw new IOException("Not a linearization parameters file: "+file);
+			int periods = buffer.getInt();
+			int partitions = buffer.getInt();
+			int cycles = MappedLinearizationParameters.cycles(periods);
+			if(channel.size() != HEADER_BYTES + 8L*(partitions + (long)cycles*partitions + cycles)) 
+				throw new IOException("Truncated linearization parameters file: "+file);
+			DoubleBuffer doubles = buffer.asDoubleBuffer();
+			double[] probabilityMasses = new double[partitions];
+			doubles.get(probabilityMasses);
+			doubles.limit(partitions + cycles*partitions);
+			DoubleBuffer conditionalExpectations = doubles.slice();
+			doubles.limit(doubles.capacity()).position(partitions + cycles*partitions);
+			DoubleBuffer maximumApproximationErrors = doubles.slice();
+			return new MappedLinearizationParameters(periods, partitions, probabilityMasses, conditionalExpectations, maximumApproximationErrors);
+		}
+	}
+}
@@ -0,0 +1,248 @@
+/**
+ * pwlf-milp: Piecewise linear approximations for the static-dynamic 
+ *            uncertainty strategy in stochastic lot-sizing"
+ * 
+ * MIT License
+ * 
+ * Copyright (c) 2016 Roberto Rossi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package linearization;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import umontreal.ssj.probdist.Distribution;
+
+/**
+ * Sampled linearization parameters for long horizons. Period demand samples are kept in a 
+ * {@link SampleStore}; the cycles starting in period i are obtained from running sums over the 
+ * store, one period at a time, so the heap holds two arrays of {@code population} doubles per 
+ * worker whatever the horizon. Probability masses are 1/N, as in 
+ * {@code RSCycleLinearizationParameters}.
+ * 
+ * Only cycles i <= j are stored, in flat direct buffers indexed by {@link #index(int, int, int)}; 
+ * as in the dense implementations, the getters return 0 for i > j.
+ */
+public class MappedLinearizationParameters implements LinearizationParameters {
+	
+	int periods;
+	int partitions;
+	double[] probabilityMasses;
+	DoubleBuffer conditionalExpectations;
+	DoubleBuffer maximumApproximationErrors;
+	
+	MappedLinearizationParameters(int periods, int partitions){
+		this(periods, partitions, new double[partitions], allocate((long)cycles(periods)*partitions), allocate(cycles(periods)));
+		Arrays.fill(this.probabilityMasses, 1.0/partitions);
+	}
+	
+	/**
+	 * Wraps existing buffers, e.g. mapped from a file, laid out as {@link #getConditionalExpectations()} 
+	 * and {@link #getMaximumApproximationErrors()}; they are not copied.
+	 */
+	MappedLinearizationParameters(int periods, int partitions, double[] probabilityMasses, DoubleBuffer conditionalExpectations, DoubleBuffer maximumApproximationErrors){
+		this.periods = periods;
+		this.partitions = partitions;
+		this.probabilityMasses = probabilityMasses;
+		this.conditionalExpectations = conditionalExpectations;
+		this.maximumApproximationErrors = maximumApproximationErrors;
+	}
+	
+	/**
+	 * Copies the cycles i <= j of {@code parameters} to direct buffers.
+	 */
+	public static MappedLinearizationParameters copyOf(LinearizationParameters parameters){
+		int periods = parameters.getPeriods();
+		int partitions = parameters.getPartitions();
+		MappedLinearizationParameters copy = new MappedLinearizationParameters(periods, partitions, 
+				parameters.getProbabilityMasses().clone(), allocate((long)cycles(periods)*partitions), allocate(cycles(periods)));
+		for(int i = 0; i < periods; i++){
+			for(int j = i; j < periods; j++){
+				int index = index(periods, i, j);
+				copy.conditionalExpectations.position(index*partitions);
+				copy.conditionalExpectations.put(parameters.getConditionalExpectation(i, j));
+				copy.maximumApproximationErrors.put(index, parameters.getMaximumApproximationError(i, j));
+			}
+		}
+		copy.conditionalExpectations.rewind();
+		return copy;
+	}
+	
+	/**
+	 * @return the number of cycles i <= j of a horizon of T periods.
+	 */
+	public static int cycles(int T){
+		return T*(T+1)/2;
+	}
+	
+	private static DoubleBuffer allocate(long size){
+		if(size > Integer.MAX_VALUE/8) 
+			throw new IllegalArgumentException("Too many cycles for a flat buffer: "+size);
+		return ByteBuffer.allocateDirect((int)size*8).order(ByteOrder.nativeOrder()).asDoubleBuffer();
+	}
+	
+	/**
+	 * @return the position of cycle (i,j), i <= j, among the cycles of a horizon of T periods, 
+	 * stored row by row: (0,0), ..., (0,T-1), (1,1), ..., (T-1,T-1).
+	 */
+	public static int index(int T, int i, int j){
+		return i*T - i*(i-1)/2 + j - i;
+	}
+	
+	public static MappedLinearizationParameters build(Distribution[] demand, long[] seed, int population, int partitions, ExecutorService executor){
+		SampleStore store;
+		try{
+			store = new SampleStore(demand, seed, population);
+		}catch(IOException e){
+			throw new IllegalStateException("Could not map demand samples", e);
+		}
+		return build(store, partitions, executor);
+	}
+	
+	public static MappedLinearizationParameters build(final SampleStore store, int partitions, ExecutorService executor){
+		final int T = store.getPeriods();
+		final MappedLinearizationParameters parameters = new MappedLinearizationParameters(T, partitions);
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(T);
+		for(int i = 0; i < T; i++){
+			final int first = i;
+			tasks.add(new Callable<Void>(){
+				public Void call(){
+					parameters.computeCycles(store, first);
+					return null;
+				}
+			});
+		}
+		try{
+			for(Future<Void> f : executor.invokeAll(tasks)) f.get();
+		}catch(InterruptedException | ExecutionException e){
+			throw new IllegalStateException("Mapped linearization failed", e);
+		}
+		return parameters;
+	}
+	
+	/**
+	 * Cycles (i, i..T-1); each start writes to its own positions of the buffers.
+	 */
+	void computeCycles(SampleStore store, int i){
+		double[] sums = new double[store.getPopulation()];
+		double[] sorted = new double[sums.length];
+		double[] e = new double[partitions];
+		for(int j = i; j < periods; j++){
+			store.add(j, sums);
+			System.arraycopy(sums, 0, sorted, 0, sums.length);
+			Arrays.sort(sorted);
+			int index = index(periods, i, j);
+			maximumApproximationErrors.put(index, partition(sorted, e));
+			for(int k = 0; k < partitions; k++) 
+				conditionalExpectations.put(index*partitions+k, e[k]);
+		}
+	}
+	
+	/**
+	 * Splits the sorted samples into N consecutive equal-mass regions, splitting samples where 
+	 * needed, stores the conditional expectation of each region in {@code e} and returns the 
+	 * maximum approximation error, as in {@link AnalyticLinearizationParameters}.
+	 */
+	static double partition(double[] sorted, double[] e){
+		int P = sorted.length;
+		int N = e.length;
+		double size = (double)P/N;
+		double total = 0, previous = 0;
+		int m = 0;
+		for(int k = 0; k < N; k++){
+			double bound = k == N-1 ? P : (k+1)*size;
+			int whole = (int)bound;
+			while(m < whole) total += sorted[m++];
+			double moment = whole < P ? total + (bound - whole)*sorted[whole] : total;
+			e[k] = (moment - previous)/size;
+			previous = moment;
+		}
+		/* L(x) = (x c(x) - sum_{s <= x} s)/P, with c(x) the number of samples s <= x */
+		double maxError = 0;
+		double sum = 0, below = 0;
+		int c = 0;
+		for(int i = 0; i < N; i++){
+			while(c < P && sorted[c] <= e[i]) below += sorted[c++];
+			double loss = (e[i]*c - below)/P;
+			double error = loss - (i*e[i] - sum)/N;
+			maxError = Math.max(maxError, error);
+			sum += e[i];
+		}
+		return maxError;
+	}
+	
+	public int getPeriods(){
+		return periods;
+	}
+	
+	public int getPartitions(){
+		return partitions;
+	}
+	
+	public double[] getProbabilityMasses(){
+		return probabilityMasses;
+	}
+	
+	/**
+	 * @return a copy of the conditional expectations of cycle (i,j), zeros if i > j.
+	 */
+	public double[] getConditionalExpectation(int i, int j){
+		double[] e = new double[partitions];
+		if(i > j) return e;
+		int offset = index(periods, i, j)*partitions;
+		for(int k = 0; k < partitions; k++) e[k] = conditionalExpectations.get(offset+k);
+		return e;
+	}
+	
+	public double getConditionalExpectation(int i, int j, int k){
+		if(i > j) return 0;
+		return conditionalExpectations.get(index(periods, i, j)*partitions+k);
+	}
+	
+	public double getMaximumApproximationError(int i, int j){
+		if(i > j) return 0;
+		return maximumApproximationErrors.get(index(periods, i, j));
+	}
+	
+	/**
+	 * @return the conditional expectations, N per cycle in the order of {@link #index(int, int, int)}.
+	 */
+	public DoubleBuffer getConditionalExpectations(){
+		return conditionalExpectations.asReadOnlyBuffer();
+	}
+	
+	/**
+	 * @return the maximum approximation errors, one per cycle in the order of {@link #index(int, int, int)}.
+	 */
+	public DoubleBuffer getMaximumApproximationErrors(){
+		return maximumApproximationErrors.asReadOnlyBuffer();
+	}
+}
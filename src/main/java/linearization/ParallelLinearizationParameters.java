@@ -0,0 +1,128 @@
+/**
+ * pwlf-milp: Piecewise linear approximations for the static-dynamic 
+ *            uncertainty strategy in stochastic lot-sizing"
+ * 
+ * MIT License
+ * 
+ * Copyright (c) 2016 Roberto Rossi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package linearization;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import lossfunction.PiecewiseComplementaryFirstOrderLossFunction;
+import umontreal.ssj.probdist.Distribution;
+import umontreal.ssj.rng.MRG32k3aL;
+
+/**
+ * Sampling-based linearization parameters computed as in {@code RSCycleLinearizationParameters}, 
+ * with the cycles (i, j) fanned out over an executor. 
+ * 
+ * Cycle (i, j) samples from its own MRG32k3a substream: the cycles are numbered row by row, 
+ * (0,0), (0,1), ..., (T-1,T-1), and cycle p uses the p-th substream of {@code seed}. Results 
+ * therefore depend on the seed only, not on the number of threads or on scheduling. 
+ * Probability masses are uniform, as in {@code LocalSearch.uniformPartitioning}.
+ */
+public class ParallelLinearizationParameters implements LinearizationParameters {
+	
+	int periods;
+	int partitions;
+	double[] probabilityMasses;
+	double[][][] conditionalExpectation;
+	double[][] maximumApproximationError;
+	
+	ParallelLinearizationParameters(int periods, int partitions){
+		this.periods = periods;
+		this.partitions = partitions;
+		this.probabilityMasses = new double[partitions];
+		Arrays.fill(this.probabilityMasses, 1.0/partitions);
+		this.conditionalExpectation = new double[periods][periods][partitions];
+		this.maximumApproximationError = new double[periods][periods];
+	}
+	
+	public static ParallelLinearizationParameters build(final Distribution[] demand, long[] seed, final int nbSamples, int partitions, ExecutorService executor){
+		final int T = demand.length;
+		final ParallelLinearizationParameters parameters = new ParallelLinearizationParameters(T, partitions);
+		MRG32k3aL stream = new MRG32k3aL();
+		stream.setSeed(seed);
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(T*(T+1)/2);
+		for(int i = 0; i < T; i++){
+			for(int j = i; j < T; j++){
+				final int first = i, last = j;
+				final long[] substream = stream.getState();
+				stream.resetNextSubstream();
+				tasks.add(new Callable<Void>(){
+					public Void call(){
+						parameters.computeCycle(demand, first, last, substream, nbSamples);
+						return null;
+					}
+				});
+			}
+		}
+		try{
+			for(Future<Void> f : executor.invokeAll(tasks)) f.get();
+		}catch(InterruptedException | ExecutionException e){
+			throw new IllegalStateException("Parallel linearization failed", e);
+		}
+		return parameters;
+	}
+	
+	/**
+	 * Each cycle writes to its own rows of the arrays, so no synchronisation is needed.
+	 */
+	void computeCycle(Distribution[] demand, int i, int j, long[] seed, int nbSamples){
+		Distribution[] cycle = Arrays.copyOfRange(demand, i, j+1);
+		PiecewiseComplementaryFirstOrderLossFunction lossFunction = new PiecewiseComplementaryFirstOrderLossFunction(cycle, seed);
+		conditionalExpectation[i][j] = lossFunction.getConditionalExpectations(probabilityMasses, nbSamples);
+		maximumApproximationError[i][j] = lossFunction.getMaxApproximationError(probabilityMasses, nbSamples);
+	}
+	
+	public int getPeriods(){
+		return periods;
+	}
+	
+	public int getPartitions(){
+		return partitions;
+	}
+	
+	public double[] getProbabilityMasses(){
+		return probabilityMasses;
+	}
+	
+	public double[] getConditionalExpectation(int i, int j){
+		return conditionalExpectation[i][j];
+	}
+	
+	public double getConditionalExpectation(int i, int j, int k){
+		return conditionalExpectation[i][j][k];
+	}
+	
+	public double getMaximumApproximationError(int i, int j){
+		return maximumApproximationError[i][j];
+	}
+}
@@ -0,0 +1,85 @@
+/**
+ * pwlf-milp: Piecewise linear approximations for the static-dynamic 
+ *            uncertainty strategy in stochastic lot-sizing"
+ * 
+ * MIT License
+ * 
+ * Copyright (c) 2016 Roberto Rossi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package linearization;
+
+import java.util.Arrays;
+
+import lossfunction.PiecewiseComplementaryFirstOrderLossFunction;
+import umontreal.ssj.probdist.Distribution;
+
+/**
+ * Linearization parameters for a horizon shifted by one period. Cycle (i, j) of the new 
+ * horizon is cycle (i+1, j+1) of the previous one, so only the T cycles ending in the new last 
+ * period are computed.
+ * 
+ * With {@link LinearizationMethod#SAMPLING}, every cycle is sampled from the same seed, as in 
+ * {@code RSCycleLinearizationParameters}, and the result equals a full rebuild; the same holds 
+ * for {@link LinearizationMethod#ANALYTIC}. {@link LinearizationMethod#PARALLEL} numbers its 
+ * substreams by cycle position, which a shift changes, so new cycles are sampled from the seed 
+ * as with {@link LinearizationMethod#SAMPLING}; so are those of {@link LinearizationMethod#MAPPED}.
+ */
+public class RollingLinearizationParameters {
+	
+	/**
+	 * @param previous parameters of the previous horizon
+	 * @param demand demand of the new horizon, i.e. the previous demand without its first period 
+	 * and with one new last period
+	 */
+	public static TabulatedLinearizationParameters shift(LinearizationParameters previous, Distribution[] demand, LinearizationMethod method, long[] seed, int nbSamples){
+		int T = previous.getPeriods();
+		int N = previous.getPartitions();
+		if(demand.length != T) 
+			throw new IllegalArgumentException("Shifted demand must have "+T+" periods");
+		double[] conditionalExpectations = new double[T*T*N];
+		double[] maximumApproximationErrors = new double[T*T];
+		for(int i = 0; i < T-1; i++){
+			for(int j = i; j < T-1; j++){
+				for(int k = 0; k < N; k++)
+					conditionalExpectations[(i*T+j)*N+k] = previous.getConditionalExpectation(i+1, j+1, k);
+				maximumApproximationErrors[i*T+j] = previous.getMaximumApproximationError(i+1, j+1);
+			}
+		}
+		
+		double[][] trailingExpectations = new double[T][N];
+		double[] trailingErrors = new double[T];
+		boolean analytic = method == LinearizationMethod.ANALYTIC 
+				&& AnalyticLinearizationParameters.trailing(demand, trailingExpectations, trailingErrors);
+		double[] masses = previous.getProbabilityMasses().clone();
+		for(int i = 0; i < T; i++){
+			if(!analytic){
+				Distribution[] cycle = Arrays.copyOfRange(demand, i, T);
+				PiecewiseComplementaryFirstOrderLossFunction lossFunction = new PiecewiseComplementaryFirstOrderLossFunction(cycle, seed);
+				trailingExpectations[i] = lossFunction.getConditionalExpectations(masses, nbSamples);
+				trailingErrors[i] = lossFunction.getMaxApproximationError(masses, nbSamples);
+			}
+			System.arraycopy(trailingExpectations[i], 0, conditionalExpectations, (i*T+T-1)*N, N);
+			maximumApproximationErrors[i*T+T-1] = trailingErrors[i];
+		}
+		return new TabulatedLinearizationParameters(T, N, masses, conditionalExpectations, maximumApproximationErrors);
+	}
+}
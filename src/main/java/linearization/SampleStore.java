@@ -0,0 +1,125 @@
+/**
+ * pwlf-milp: Piecewise linear approximations for the static-dynamic 
+ *            uncertainty strategy in stochastic lot-sizing"
+ * 
+ * MIT License
+ * 
+ * Copyright (c) 2016 Roberto Rossi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package linearization;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import umontreal.ssj.probdist.Distribution;
+import umontreal.ssj.rng.MRG32k3aL;
+
+/**
+ * Demand samples of every period kept off the heap in a memory-mapped temporary file, period 
+ * by period: {@code population} samples of period 0, then of period 1, and so on. Period t is 
+ * sampled from substream t of the seed, so the samples do not depend on the horizon beyond t.
+ * 
+ * The file is deleted as soon as it is mapped; its pages are released when the store is 
+ * garbage collected. Each mapped segment holds whole periods and stays below 2GB.
+ */
+public class SampleStore {
+	
+	int periods;
+	int population;
+	int periodsPerSegment;
+	DoubleBuffer[] segments;
+	
+	public SampleStore(Distribution[] demand, long[] seed, int population) throws IOException {
+		this(demand, seed, population, null);
+	}
+	
+	/**
+	 * @param directory directory of the temporary file, {@code null} for the default one
+	 */
+	public SampleStore(Distribution[] demand, long[] seed, int population, Path directory) throws IOException {
+		if(population <= 0 || population > Integer.MAX_VALUE/8) 
+			throw new IllegalArgumentException("Population must be in [1, "+Integer.MAX_VALUE/8+"]");
+		this.periods = demand.length;
+		this.population = population;
+		this.periodsPerSegment = Integer.MAX_VALUE/8/population;
+		this.segments = new DoubleBuffer[(periods + periodsPerSegment - 1)/periodsPerSegment];
+		Path file = directory == null ? Files.createTempFile("samples", ".bin") : Files.createTempFile(directory, "samples", ".bin");
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+		try{
+			for(int s = 0; s < segments.length; s++){
+				long first = (long)s*periodsPerSegment;
+				int count = (int)Math.min(periodsPerSegment, periods - first);
+				segments[s] = channel.map(FileChannel.MapMode.READ_WRITE, first*population*8, (long)count*population*8)
+						.order(ByteOrder.nativeOrder()).asDoubleBuffer();
+			}
+		}finally{
+			channel.close();
+		}
+		MRG32k3aL stream = new MRG32k3aL();
+		stream.setSeed(seed);
+		for(int t = 0; t < periods; t++){
+			DoubleBuffer segment = segments[t/periodsPerSegment];
+			int offset = (t%periodsPerSegment)*population;
+			for(int s = 0; s < population; s++) 
+				segment.put(offset+s, demand[t].inverseF(stream.nextDouble()));
+			stream.resetNextSubstream();
+		}
+	}
+	
+	public int getPeriods(){
+		return periods;
+	}
+	
+	public int getPopulation(){
+		return population;
+	}
+	
+	/**
+	 * @return sample s of period t.
+	 */
+	public double get(int t, int s){
+		return segments[t/periodsPerSegment].get((t%periodsPerSegment)*population+s);
+	}
+	
+	/**
+	 * Adds the samples of period t to {@code sums}, i.e. advances running cycle demand sums by 
+	 * one period. Safe to call from several threads.
+	 */
+	public void add(int t, double[] sums){
+		DoubleBuffer segment = segments[t/periodsPerSegment];
+		int offset = (t%periodsPerSegment)*population;
+		for(int s = 0; s < population; s++) 
+			sums[s] += segment.get(offset+s);
+	}
+	
+	/**
+	 * @return the size of the mapped samples in bytes.
+	 */
+	public long getBytes(){
+		return (long)periods*population*8;
+	}
+}
@@ -0,0 +1,70 @@
+/**
+ * pwlf-milp: Piecewise linear approximations for the static-dynamic 
+ *            uncertainty strategy in stochastic lot-sizing"
+ * 
+ * MIT License
+ * 
+ * Copyright (c) 2016 Roberto Rossi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package linearization;
+
+import RS.RSCycleLinearizationParameters;
+
+/**
+ * Sampling-based linearization parameters computed by pwlf's {@code RSCycleLinearizationParameters}.
+ */
+public class SampledLinearizationParameters implements LinearizationParameters {
+	
+	RSCycleLinearizationParameters parameters;
+	int periods;
+	int partitions;
+	
+	public SampledLinearizationParameters(RSCycleLinearizationParameters parameters, int periods, int partitions){
+		this.parameters = parameters;
+		this.periods = periods;
+		this.partitions = partitions;
+	}
+	
+	public int getPeriods(){
+		return periods;
+	}
+	
+	public int getPartitions(){
+		return partitions;
+	}
+	
+	public double[] getProbabilityMasses(){
+		return parameters.getProbabilityMasses();
+	}
+	
+	public double[] getConditionalExpectation(int i, int j){
+		return parameters.getConditionalExpectation(i, j);
+	}
+	
+	public double getConditionalExpectation(int i, int j, int k){
+		return parameters.getConditionalExpectation(i, j)[k];
+	}
+	
+	public double getMaximumApproximationError(int i, int j){
+		return parameters.getMaximumApproximationError(i, j);
+	}
+}
@@ -0,0 +1,104 @@
+/**
+ * pwlf-milp: Piecewise linear approximations for the static-dynamic 
+ *            uncertainty strategy in stochastic lot-sizing"
+ * 
+ * MIT License
+ * 
+ * Copyright (c) 2016 Roberto Rossi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package linearization;
+
+import java.util.Arrays;
+
+/**
+ * Linearization parameters stored as flat arrays: conditional expectations in (i, j, k) order, 
+ * maximum approximation errors in (i, j) order.
+ */
+public class TabulatedLinearizationParameters implements LinearizationParameters {
+	
+	int periods;
+	int partitions;
+	double[] probabilityMasses;
+	double[] conditionalExpectations;
+	double[] maximumApproximationErrors;
+	
+	public TabulatedLinearizationParameters(int periods, int partitions, double[] probabilityMasses, double[] conditionalExpectations, double[] maximumApproximationErrors){
+		this.periods = periods;
+		this.partitions = partitions;
+		this.probabilityMasses = probabilityMasses;
+		this.conditionalExpectations = conditionalExpectations;
+		this.maximumApproximationErrors = maximumApproximationErrors;
+	}
+	
+	/**
+	 * Copies the cycles i <= j of {@code parameters}; the remaining entries are zero.
+	 */
+	public static TabulatedLinearizationParameters copyOf(LinearizationParameters parameters){
+		int periods = parameters.getPeriods();
+		int partitions = parameters.getPartitions();
+		double[] conditionalExpectations = new double[periods*periods*partitions];
+		double[] maximumApproximationErrors = new double[periods*periods];
+		for(int i = 0; i < periods; i++){
+			for(int j = i; j < periods; j++){
+				System.arraycopy(parameters.getConditionalExpectation(i, j), 0, conditionalExpectations, (i*periods+j)*partitions, partitions);
+				maximumApproximationErrors[i*periods+j] = parameters.getMaximumApproximationError(i, j);
+			}
+		}
+		return new TabulatedLinearizationParameters(periods, partitions, parameters.getProbabilityMasses().clone(), conditionalExpectations, maximumApproximationErrors);
+	}
+	
+	public int getPeriods(){
+		return periods;
+	}
+	
+	public int getPartitions(){
+		return partitions;
+	}
+	
+	public double[] getProbabilityMasses(){
+		return probabilityMasses;
+	}
+	
+	/**
+	 * @return a copy of the conditional expectations of cycle (i,j).
+	 */
+	public double[] getConditionalExpectation(int i, int j){
+		int offset = (i*periods+j)*partitions;
+		return Arrays.copyOfRange(conditionalExpectations, offset, offset+partitions);
+	}
+	
+	public double getConditionalExpectation(int i, int j, int k){
+		return conditionalExpectations[(i*periods+j)*partitions+k];
+	}
+	
+	public double getMaximumApproximationError(int i, int j){
+		return maximumApproximationErrors[i*periods+j];
+	}
+	
+	public double[] getConditionalExpectations(){
+		return conditionalExpectations;
+	}
+	
+	public double[] getMaximumApproximationErrors(){
+		return maximumApproximationErrors;
+	}
+}
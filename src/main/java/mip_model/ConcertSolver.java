@@ -0,0 +1,179 @@
+/**
+ * pwlf-milp: Piecewise linear approximations for the static-dynamic 
+ *            uncertainty strategy in stochastic lot-sizing"
+ * 
+ * MIT License
+ * 
+ * Copyright (c) 2016 Roberto Rossi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package mip_model;
+
+import ilog.concert.IloException;
+import ilog.concert.IloLPMatrix;
+import ilog.concert.IloNumVar;
+import ilog.concert.IloNumVarType;
+import ilog.opl.IloCplex;
+import monitoring.ConsoleListener;
+import monitoring.Instrumentation;
+import monitoring.Instrumentation.Timer;
+import monitoring.Stage;
+
+/**
+ * {@link MILPSolver} backed by CPLEX Concert. Regular rows are passed to CPLEX as one 
+ * {@code IloLPMatrix}; indicator rows become {@code ifThen} constraints. The time to the first 
+ * incumbent is recorded by a {@link MIPProgressCallback}.
+ */
+public class ConcertSolver implements MILPSolver {
+	
+	int threads;
+	double timeLimit = Double.POSITIVE_INFINITY;
+	
+	public ConcertSolver(int threads){
+		this.threads = threads;
+	}
+	
+	/**
+	 * Wall-clock limit in seconds; on expiry the best incumbent, if any, is returned as a 
+	 * feasible but not optimal solution.
+	 */
+	public void setTimeLimit(double timeLimit){
+		this.timeLimit = timeLimit;
+	}
+	
+	public MILPSolution solve(MILPModel model){
+		return solve(model, null);
+	}
+	
+	/**
+	 * The start is passed as a MIP start; continuous values are completed by CPLEX when all 
+	 * integer columns are given.
+	 */
+	public MILPSolution solve(MILPModel model, double[] start){
+		IloCplex cplex = null;
+		Timer timer = null;
+		try{
+			timer = Instrumentation.start(Stage.MODEL_GENERATE);
+			cplex = new IloCplex();
+			if(!Instrumentation.hasListener(ConsoleListener.class)) cplex.setOut(null);
+			cplex.setParam(IloCplex.IntParam.Threads, threads);
+			cplex.setParam(IloCplex.IntParam.MIPDisplay, 2);
+			if(timeLimit < Double.POSITIVE_INFINITY) 
+				cplex.setParam(IloCplex.DoubleParam.TiLim, timeLimit);
+			
+			int n = model.getColumns();
+			double[] lower = new double[n];
+			double[] upper = new double[n];
+			double[] cost = new double[n];
+			IloNumVarType[] types = new IloNumVarType[n];
+			String[] names = new String[n];
+			for(int j = 0; j < n; j++){
+				lower[j] = bound(model.getLowerBound(j));
+				upper[j] = bound(model.getUpperBound(j));
+				cost[j] = model.getObjective(j);
+				types[j] = type(model.getType(j));
+				names[j] = model.getColumnName(j);
+			}
+			IloNumVar[] x = cplex.numVarArray(n, lower, upper, types, names);
+			
+			int[] rowStart = model.getRowStart();
+			int[] columnIndex = model.getColumnIndex();
+			double[] rowValues = model.getRowValues();
+			int regular = 0;
+			for(int r = 0; r < model.getRows(); r++) 
+				if(model.getIndicatorVariable(r) < 0) regular++;
+			double[] rowLower = new double[regular];
+			double[] rowUpper = new double[regular];
+			int[][] indices = new int[regular][];
+			double[][] coefficients = new double[regular][];
+			int row = 0;
+			for(int r = 0; r < model.getRows(); r++){
+				int from = rowStart[r], to = rowStart[r+1];
+				int[] index = new int[to - from];
+				double[] value = new double[to - from];
+				System.arraycopy(columnIndex, from, index, 0, to - from);
+				System.arraycopy(rowValues, from, value, 0, to - from);
+				double lo = model.getSense(r) == MILPModel.Sense.LE ? -Double.MAX_VALUE : model.getRightHandSide(r);
+				double hi = model.getSense(r) == MILPModel.Sense.GE ? Double.MAX_VALUE : model.getRightHandSide(r);
+				int indicator = model.getIndicatorVariable(r);
+				if(indicator < 0){
+					rowLower[row] = lo;
+					rowUpper[row] = hi;
+					indices[row] = index;
+					coefficients[row] = value;
+					row++;
+				}else{
+					IloNumVar[] vars = new IloNumVar[index.length];
+					for(int p = 0; p < index.length; p++) vars[p] = x[index[p]];
+					cplex.add(cplex.ifThen(cplex.eq(x[indicator], model.getIndicatorValue(r)), 
+							cplex.range(lo, cplex.scalProd(value, vars), hi), model.getRowName(r)));
+				}
+			}
+			IloLPMatrix matrix = cplex.addLPMatrix();
+			matrix.addCols(x);
+			matrix.addRows(rowLower, rowUpper, indices, coefficients);
+			cplex.addMinimize(cplex.sum(cplex.scalProd(cost, x), model.getObjectiveOffset()));
+			
+			if(start != null){
+				int given = 0;
+				for(int j = 0; j < n; j++) if(!Double.isNaN(start[j])) given++;
+				IloNumVar[] startVars = new IloNumVar[given];
+				double[] startValues = new double[given];
+				for(int j = 0, p = 0; j < n; j++){
+					if(Double.isNaN(start[j])) continue;
+					startVars[p] = x[j];
+					startValues[p++] = start[j];
+				}
+				cplex.addMIPStart(startVars, startValues, IloCplex.MIPStartEffort.SolveFixed);
+			}
+			MIPProgressCallback progress = new MIPProgressCallback();
+			cplex.use(progress);
+			timer.stop();
+			
+			timer = Instrumentation.start(Stage.SOLVE);
+			boolean status = cplex.solve();
+			double time = timer.stop();
+			double firstIncumbentTime = Double.isNaN(progress.getFirstIncumbentTime()) && status ? time : progress.getFirstIncumbentTime();
+			if(status)
+				return new MILPSolution(true, cplex.getStatus() == IloCplex.Status.Optimal, cplex.getObjValue(), cplex.getValues(x), time, firstIncumbentTime);
+			else
+				return MILPSolution.infeasible(time);
+		}catch(IloException e){
+			throw new IllegalStateException("CPLEX solve failed", e);
+		}finally{
+			/* Stops the timer of the stage that failed, if any */
+			if(timer != null) timer.stop();
+			if(cplex != null) cplex.end();
+		}
+	}
+	
+	private static double bound(double value){
+		return Math.max(-Double.MAX_VALUE, Math.min(Double.MAX_VALUE, value));
+	}
+	
+	private static IloNumVarType type(MILPModel.VariableType type){
+		switch(type){
+		case BINARY: return IloNumVarType.Bool;
+		case INTEGER: return IloNumVarType.Int;
+		default: return IloNumVarType.Float;
+		}
+	}
+}
@@ -0,0 +1,149 @@
+/**
+ * pwlf-milp: Piecewise linear approximations for the static-dynamic 
+ *            uncertainty strategy in stochastic lot-sizing"
+ * 
+ * MIT License
+ * 
+ * Copyright (c) 2016 Roberto Rossi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package mip_model;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes a {@link MILPModel} in CPLEX LP format, row by row from the transposed matrix. 
+ * Expressions are broken over several lines to stay within line length limits of LP readers.
+ */
+public class LPWriter {
+	
+	static final int TERMS_PER_LINE = 8;
+	
+	public static void write(MILPModel model, File file) throws IOException{
+		try(Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.US_ASCII), 1 << 16)){
+			write(model, out);
+		}
+	}
+	
+	public static void write(MILPModel model, Writer out) throws IOException{
+		int[] rowStart = model.getRowStart();
+		int[] columnIndex = model.getColumnIndex();
+		double[] rowValues = model.getRowValues();
+		
+		out.write("\\ "+model.getName()+"\n");
+		out.write("Minimize\n");
+		out.write(" obj:");
+		int terms = 0;
+		for(int j = 0; j < model.getColumns(); j++){
+			if(model.getObjective(j) == 0) continue;
+			term(out, model.getObjective(j), model.getColumnName(j), terms++);
+		}
+		if(model.getObjectiveOffset() != 0 || terms == 0) 
+			constant(out, model.getObjectiveOffset(), terms);
+		out.write('\n');
+		
+		out.write("Subject To\n");
+		for(int r = 0; r < model.getRows(); r++){
+			out.write(' ');
+			out.write(model.getRowName(r));
+			out.write(':');
+			int indicator = model.getIndicatorVariable(r);
+			if(indicator >= 0) 
+				out.write(" "+model.getColumnName(indicator)+" = "+model.getIndicatorValue(r)+" ->");
+			terms = 0;
+			for(int p = rowStart[r]; p < rowStart[r+1]; p++) 
+				term(out, rowValues[p], model.getColumnName(columnIndex[p]), terms++);
+			if(terms == 0) 
+				out.write(" 0 "+model.getColumnName(0));
+			out.write(' ');
+			out.write(sense(model.getSense(r)));
+			out.write(' ');
+			out.write(MPSWriter.format(model.getRightHandSide(r)));
+			out.write('\n');
+		}
+		
+		out.write("Bounds\n");
+		for(int j = 0; j < model.getColumns(); j++){
+			if(model.getType(j) == MILPModel.VariableType.BINARY) continue;
+			String column = model.getColumnName(j);
+			double lower = model.getLowerBound(j);
+			double upper = model.getUpperBound(j);
+			if(lower == upper) 
+				out.write(" "+column+" = "+MPSWriter.format(lower)+"\n");
+			else if(lower == Double.NEGATIVE_INFINITY && upper == Double.POSITIVE_INFINITY) 
+				out.write(" "+column+" free\n");
+			else if(lower != 0 || upper != Double.POSITIVE_INFINITY) 
+				out.write(" "+bound(lower)+" <= "+column+" <= "+bound(upper)+"\n");
+		}
+		
+		section(out, model, MILPModel.VariableType.BINARY, "Binaries");
+		section(out, model, MILPModel.VariableType.INTEGER, "Generals");
+		out.write("End\n");
+	}
+	
+	private static void section(Writer out, MILPModel model, MILPModel.VariableType type, String title) throws IOException{
+		int count = 0;
+		for(int j = 0; j < model.getColumns(); j++){
+			if(model.getType(j) != type) continue;
+			if(count == 0) out.write(title+"\n");
+			out.write(' ');
+			out.write(model.getColumnName(j));
+			if(++count % TERMS_PER_LINE == 0) out.write('\n');
+		}
+		if(count % TERMS_PER_LINE != 0) out.write('\n');
+	}
+	
+	private static void term(Writer out, double value, String column, int index) throws IOException{
+		if(index > 0 && index % TERMS_PER_LINE == 0) out.write("\n   ");
+		out.write(value < 0 ? " - " : (index == 0 ? " " : " + "));
+		double magnitude = Math.abs(value);
+		if(magnitude != 1){
+			out.write(MPSWriter.format(magnitude));
+			out.write(' ');
+		}
+		out.write(column);
+	}
+	
+	private static void constant(Writer out, double value, int index) throws IOException{
+		out.write(value < 0 ? " - " : (index == 0 ? " " : " + "));
+		out.write(MPSWriter.format(Math.abs(value)));
+	}
+	
+	private static String bound(double value){
+		if(value == Double.NEGATIVE_INFINITY) return "-inf";
+		if(value == Double.POSITIVE_INFINITY) return "+inf";
+		return MPSWriter.format(value);
+	}
+	
+	private static String sense(MILPModel.Sense sense){
+		switch(sense){
+		case LE: return "<=";
+		case GE: return ">=";
+		default: return "=";
+		}
+	}
+}
@@ -0,0 +1,362 @@
+/**
+ * pwlf-milp: Piecewise linear approximations for the static-dynamic 
+ *            uncertainty strategy in stochastic lot-sizing"
+ * 
+ * MIT License
+ * 
+ * Copyright (c) 2016 Roberto Rossi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package mip_model;
+
+import java.util.Arrays;
+
+/**
+ * Solver-agnostic mixed integer linear program: minimise c'x + offset subject to rows 
+ * a_r'x (<=, >=, =) b_r and bounds l <= x <= u. Rows may be indicator constraints, which only 
+ * hold when a binary variable takes a given value.
+ * 
+ * Coefficients are added as (row, column, value) triplets while rows are built and compressed 
+ * into a sparse column-major (CSC) matrix on first access; duplicate entries are summed.
+ */
+public class MILPModel {
+	
+	public enum VariableType { CONTINUOUS, INTEGER, BINARY }
+	
+	public enum Sense { LE, GE, EQ }
+	
+	String name;
+	
+	int columns;
+	String[] columnNames = new String[16];
+	double[] lowerBounds = new double[16];
+	double[] upperBounds = new double[16];
+	double[] objective = new double[16];
+	VariableType[] types = new VariableType[16];
+	double objectiveOffset;
+	
+	int rows;
+	String[] rowNames = new String[16];
+	Sense[] senses = new Sense[16];
+	double[] rightHandSides = new double[16];
+	int[] indicatorVariables = new int[16];
+	int[] indicatorValues = new int[16];
+	
+	int triplets;
+	int[] tripletRows = new int[64];
+	int[] tripletColumns = new int[64];
+	double[] tripletValues = new double[64];
+	
+	int[] columnStart;
+	int[] rowIndex;
+	double[] values;
+	
+	int[] rowStart;
+	int[] columnIndex;
+	double[] rowValues;
+	
+	public MILPModel(String name){
+		this.name = name;
+	}
+	
+	public String getName(){
+		return name;
+	}
+	
+	public int addVariable(String name, double lowerBound, double upperBound, VariableType type, double cost){
+		if(columns == columnNames.length){
+			int capacity = 2*columns;
+			columnNames = Arrays.copyOf(columnNames, capacity);
+			lowerBounds = Arrays.copyOf(lowerBounds, capacity);
+			upperBounds = Arrays.copyOf(upperBounds, capacity);
+			objective = Arrays.copyOf(objective, capacity);
+			types = Arrays.copyOf(types, capacity);
+		}
+		columnNames[columns] = name;
+		lowerBounds[columns] = type == VariableType.BINARY ? Math.max(lowerBound, 0) : lowerBound;
+		upperBounds[columns] = type == VariableType.BINARY ? Math.min(upperBound, 1) : upperBound;
+		objective[columns] = cost;
+		types[columns] = type;
+		invalidate();
+		return columns++;
+	}
+	
+	/**
+	 * Adds {@code cost} to the objective coefficient of {@code column}.
+	 */
+	public void addObjective(int column, double cost){
+		objective[column] += cost;
+	}
+	
+	public void addObjectiveOffset(double offset){
+		objectiveOffset += offset;
+	}
+	
+	/**
+	 * Replaces the objective coefficient of {@code column}; the constraint matrix is unaffected.
+	 */
+	public void setObjective(int column, double cost){
+		objective[column] = cost;
+	}
+	
+	public void setObjectiveOffset(double offset){
+		objectiveOffset = offset;
+	}
+	
+	public int addRow(String name, Sense sense, double rightHandSide){
+		if(rows == rowNames.length){
+			int capacity = 2*rows;
+			rowNames = Arrays.copyOf(rowNames, capacity);
+			senses = Arrays.copyOf(senses, capacity);
+			rightHandSides = Arrays.copyOf(rightHandSides, capacity);
+			indicatorVariables = Arrays.copyOf(indicatorVariables, capacity);
+			indicatorValues = Arrays.copyOf(indicatorValues, capacity);
+		}
+		rowNames[rows] = name;
+		senses[rows] = sense;
+		rightHandSides[rows] = rightHandSide;
+		indicatorVariables[rows] = -1;
+		invalidate();
+		return rows++;
+	}
+	
+	/**
+	 * Adds {@code value} to the coefficient of {@code column} in {@code row}.
+	 */
+	public void add(int row, int column, double value){
+		if(value == 0) return;
+		if(triplets == tripletRows.length){
+			int capacity = 2*triplets;
+			tripletRows = Arrays.copyOf(tripletRows, capacity);
+			tripletColumns = Arrays.copyOf(tripletColumns, capacity);
+			tripletValues = Arrays.copyOf(tripletValues, capacity);
+		}
+		tripletRows[triplets] = row;
+		tripletColumns[triplets] = column;
+		tripletValues[triplets] = value;
+		triplets++;
+		invalidate();
+	}
+	
+	/**
+	 * Turns {@code row} into an indicator constraint: it must hold only when binary variable 
+	 * {@code column} equals {@code value}.
+	 */
+	public void setIndicator(int row, int column, int value){
+		if(types[column] != VariableType.BINARY)
+			throw new IllegalArgumentException("Indicator variable "+columnNames[column]+" is not binary");
+		indicatorVariables[row] = column;
+		indicatorValues[row] = value;
+	}
+	
+	private void invalidate(){
+		columnStart = null;
+		rowStart = null;
+	}
+	
+	/**
+	 * Counting sort of the triplets by column; since triplets are mostly added row by row, 
+	 * duplicates end up adjacent within a column and are summed.
+	 */
+	private void compress(){
+		int[] count = new int[columns+1];
+		for(int e = 0; e < triplets; e++) count[tripletColumns[e]+1]++;
+		for(int j = 0; j < columns; j++) count[j+1] += count[j];
+		int[] position = Arrays.copyOf(count, columns);
+		int[] rowIndex = new int[triplets];
+		double[] values = new double[triplets];
+		for(int e = 0; e < triplets; e++){
+			int p = position[tripletColumns[e]]++;
+			rowIndex[p] = tripletRows[e];
+			values[p] = tripletValues[e];
+		}
+		/* Sort each column by row and merge duplicates */
+		int[] columnStart = new int[columns+1];
+		int nonZeros = 0;
+		for(int j = 0; j < columns; j++){
+			int from = count[j], to = count[j+1];
+			sortByRow(rowIndex, values, from, to);
+			columnStart[j] = nonZeros;
+			for(int p = from; p < to; p++){
+				if(nonZeros > columnStart[j] && rowIndex[nonZeros-1] == rowIndex[p]){
+					values[nonZeros-1] += values[p];
+				}else{
+					rowIndex[nonZeros] = rowIndex[p];
+					values[nonZeros] = values[p];
+					nonZeros++;
+				}
+			}
+		}
+		columnStart[columns] = nonZeros;
+		this.columnStart = columnStart;
+		this.rowIndex = Arrays.copyOf(rowIndex, nonZeros);
+		this.values = Arrays.copyOf(values, nonZeros);
+	}
+	
+	private static void sortByRow(int[] rowIndex, double[] values, int from, int to){
+		for(int p = from + 1; p < to; p++){
+			int r = rowIndex[p];
+			double v = values[p];
+			int q = p - 1;
+			for(; q >= from && rowIndex[q] > r; q--){
+				rowIndex[q+1] = rowIndex[q];
+				values[q+1] = values[q];
+			}
+			rowIndex[q+1] = r;
+			values[q+1] = v;
+		}
+	}
+	
+	/**
+	 * Row-major (CSR) copy of the matrix, used by writers and solvers that add rows.
+	 */
+	private void transpose(){
+		if(columnStart == null) compress();
+		int nonZeros = columnStart[columns];
+		int[] rowStart = new int[rows+1];
+		for(int p = 0; p < nonZeros; p++) rowStart[rowIndex[p]+1]++;
+		for(int r = 0; r < rows; r++) rowStart[r+1] += rowStart[r];
+		int[] position = Arrays.copyOf(rowStart, rows);
+		int[] columnIndex = new int[nonZeros];
+		double[] rowValues = new double[nonZeros];
+		for(int j = 0; j < columns; j++){
+			for(int p = columnStart[j]; p < columnStart[j+1]; p++){
+				int q = position[rowIndex[p]]++;
+				columnIndex[q] = j;
+				rowValues[q] = values[p];
+			}
+		}
+		this.rowStart = rowStart;
+		this.columnIndex = columnIndex;
+		this.rowValues = rowValues;
+	}
+	
+	public int getColumns(){
+		return columns;
+	}
+	
+	public int getRows(){
+		return rows;
+	}
+	
+	public int getNonZeros(){
+		return getColumnStart()[columns];
+	}
+	
+	public int[] getColumnStart(){
+		if(columnStart == null) compress();
+		return columnStart;
+	}
+	
+	public int[] getRowIndex(){
+		if(columnStart == null) compress();
+		return rowIndex;
+	}
+	
+	public double[] getValues(){
+		if(columnStart == null) compress();
+		return values;
+	}
+	
+	public int[] getRowStart(){
+		if(rowStart == null) transpose();
+		return rowStart;
+	}
+	
+	public int[] getColumnIndex(){
+		if(rowStart == null) transpose();
+		return columnIndex;
+	}
+	
+	public double[] getRowValues(){
+		if(rowStart == null) transpose();
+		return rowValues;
+	}
+	
+	public String getColumnName(int column){
+		return columnNames[column];
+	}
+	
+	public double getLowerBound(int column){
+		return lowerBounds[column];
+	}
+	
+	public double getUpperBound(int column){
+		return upperBounds[column];
+	}
+	
+	public VariableType getType(int column){
+		return types[column];
+	}
+	
+	public double getObjective(int column){
+		return objective[column];
+	}
+	
+	public double getObjectiveOffset(){
+		return objectiveOffset;
+	}
+	
+	public String getRowName(int row){
+		return rowNames[row];
+	}
+	
+	public Sense getSense(int row){
+		return senses[row];
+	}
+	
+	public double getRightHandSide(int row){
+		return rightHandSides[row];
+	}
+	
+	/**
+	 * Indicator variable of {@code row}, or -1 if the row always holds.
+	 */
+	public int getIndicatorVariable(int row){
+		return indicatorVariables[row];
+	}
+	
+	public int getIndicatorValue(int row){
+		return indicatorValues[row];
+	}
+	
+	/**
+	 * Objective value c'x + offset of {@code x}.
+	 */
+	public double evaluateObjective(double[] x){
+		double value = objectiveOffset;
+		for(int j = 0; j < columns; j++) value += objective[j]*x[j];
+		return value;
+	}
+	
+	/**
+	 * Row activities a_r'x of {@code x}.
+	 */
+	public double[] evaluateRows(double[] x){
+		double[] activity = new double[rows];
+		int[] columnStart = getColumnStart();
+		for(int j = 0; j < columns; j++){
+			if(x[j] == 0) continue;
+			for(int p = columnStart[j]; p < columnStart[j+1]; p++) activity[rowIndex[p]] += values[p]*x[j];
+		}
+		return activity;
+	}
+}
@@ -0,0 +1,94 @@
+/**
+ * pwlf-milp: Piecewise linear approximations for the static-dynamic 
+ *            uncertainty strategy in stochastic lot-sizing"
+ * 
+ * MIT License
+ * 
+ * Copyright (c) 2016 Roberto Rossi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package mip_model;
+
+/**
+ * Outcome of a {@link MILPSolver}: objective value and variable values of the incumbent, 
+ * if any, the solution time and, where the solver reports it, the time to the first 
+ * incumbent, in seconds.
+ */
+public class MILPSolution {
+	
+	boolean feasible;
+	boolean optimal;
+	double objective;
+	double[] values;
+	double time;
+	double firstIncumbentTime;
+	
+	public MILPSolution(boolean feasible, double objective, double[] values, double time){
+		this(feasible, feasible, objective, values, time, Double.NaN);
+	}
+	
+	public MILPSolution(boolean feasible, boolean optimal, double objective, double[] values, double time, double firstIncumbentTime){
+		this.feasible = feasible;
+		this.optimal = optimal;
+		this.objective = objective;
+		this.values = values;
+		this.time = time;
+		this.firstIncumbentTime = firstIncumbentTime;
+	}
+	
+	public static MILPSolution infeasible(double time){
+		return new MILPSolution(false, Double.NaN, null, time);
+	}
+	
+	public boolean isFeasible(){
+		return feasible;
+	}
+	
+	/**
+	 * False if the solver stopped, e.g. on a time limit, before proving optimality.
+	 */
+	public boolean isOptimal(){
+		return optimal;
+	}
+	
+	public double getObjective(){
+		return objective;
+	}
+	
+	public double[] getValues(){
+		return values;
+	}
+	
+	public double getValue(int column){
+		return values[column];
+	}
+	
+	public double getTime(){
+		return time;
+	}
+	
+	/**
+	 * Time to the first incumbent, NaN if not reported.
+	 */
+	public double getFirstIncumbentTime(){
+		return firstIncumbentTime;
+	}
+}
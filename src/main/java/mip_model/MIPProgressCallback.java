@@ -0,0 +1,61 @@
+/**
+ * pwlf-milp: Piecewise linear approximations for the static-dynamic 
+ *            uncertainty strategy in stochastic lot-sizing"
+ * 
+ * MIT License
+ * 
+ * Copyright (c) 2016 Roberto Rossi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package mip_model;
+
+import ilog.concert.IloException;
+import ilog.opl.IloCplex;
+import monitoring.Instrumentation;
+
+/**
+ * Records the solver time at which an incumbent is first available, and reports incumbent, 
+ * best bound and relative gap to {@link Instrumentation} whenever one of them changes.
+ */
+public class MIPProgressCallback extends IloCplex.MIPInfoCallback {
+	
+	double firstIncumbentTime = Double.NaN;
+	double incumbent = Double.NaN;
+	double bound = Double.NaN;
+	
+	protected void main() throws IloException{
+		double time = getCplexTime() - getStartTime();
+		if(Double.isNaN(firstIncumbentTime) && hasIncumbent()) firstIncumbentTime = time;
+		double currentIncumbent = hasIncumbent() ? getIncumbentObjValue() : Double.NaN;
+		double currentBound = getBestObjValue();
+		if(Double.compare(currentIncumbent, incumbent) == 0 && Double.compare(currentBound, bound) == 0) return;
+		incumbent = currentIncumbent;
+		bound = currentBound;
+		Instrumentation.mipProgress(time, incumbent, bound, hasIncumbent() ? getMIPRelativeGap() : Double.NaN);
+	}
+	
+	/**
+	 * Seconds from the start of the solve to the first incumbent, NaN if none was found.
+	 */
+	public double getFirstIncumbentTime(){
+		return firstIncumbentTime;
+	}
+}
@@ -0,0 +1,158 @@
+/**
+ * pwlf-milp: Piecewise linear approximations for the static-dynamic 
+ *            uncertainty strategy in stochastic lot-sizing"
+ * 
+ * MIT License
+ * 
+ * Copyright (c) 2016 Roberto Rossi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package mip_model;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes a {@link MILPModel} in free MPS format, column by column from the CSC matrix. Integer 
+ * columns are enclosed in MARKER lines, indicator rows are listed in an INDICATORS section and 
+ * the objective offset is written as the negated right-hand side of the objective row.
+ */
+public class MPSWriter {
+	
+	static final String OBJECTIVE = "obj";
+	
+	public static void write(MILPModel model, File file) throws IOException{
+		try(Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.US_ASCII), 1 << 16)){
+			write(model, out);
+		}
+	}
+	
+	public static void write(MILPModel model, Writer out) throws IOException{
+		int[] columnStart = model.getColumnStart();
+		int[] rowIndex = model.getRowIndex();
+		double[] values = model.getValues();
+		
+		out.write("NAME "+model.getName()+"\n");
+		out.write("ROWS\n");
+		out.write(" N "+OBJECTIVE+"\n");
+		for(int r = 0; r < model.getRows(); r++){
+			out.write(' ');
+			out.write(sense(model.getSense(r)));
+			out.write(' ');
+			out.write(model.getRowName(r));
+			out.write('\n');
+		}
+		
+		out.write("COLUMNS\n");
+		boolean integer = false;
+		int markers = 0;
+		for(int j = 0; j < model.getColumns(); j++){
+			boolean isInteger = model.getType(j) != MILPModel.VariableType.CONTINUOUS;
+			if(isInteger != integer){
+				out.write(" MARKER"+(markers++)+" 'MARKER' "+(isInteger ? "'INTORG'" : "'INTEND'")+"\n");
+				integer = isInteger;
+			}
+			String column = model.getColumnName(j);
+			if(model.getObjective(j) != 0) 
+				entry(out, column, OBJECTIVE, model.getObjective(j));
+			for(int p = columnStart[j]; p < columnStart[j+1]; p++) 
+				entry(out, column, model.getRowName(rowIndex[p]), values[p]);
+			if(model.getObjective(j) == 0 && columnStart[j] == columnStart[j+1])
+				entry(out, column, OBJECTIVE, 0);
+		}
+		if(integer) out.write(" MARKER"+markers+" 'MARKER' 'INTEND'\n");
+		
+		out.write("RHS\n");
+		if(model.getObjectiveOffset() != 0) 
+			entry(out, "RHS", OBJECTIVE, -model.getObjectiveOffset());
+		for(int r = 0; r < model.getRows(); r++){
+			if(model.getRightHandSide(r) != 0) 
+				entry(out, "RHS", model.getRowName(r), model.getRightHandSide(r));
+		}
+		
+		out.write("BOUNDS\n");
+		for(int j = 0; j < model.getColumns(); j++){
+			String column = model.getColumnName(j);
+			double lower = model.getLowerBound(j);
+			double upper = model.getUpperBound(j);
+			if(model.getType(j) == MILPModel.VariableType.BINARY && lower == 0 && upper == 1){
+				out.write(" BV BND "+column+"\n");
+			}else if(lower == upper){
+				out.write(" FX BND "+column+" "+format(lower)+"\n");
+			}else if(lower == Double.NEGATIVE_INFINITY && upper == Double.POSITIVE_INFINITY){
+				out.write(" FR BND "+column+"\n");
+			}else{
+				if(lower == Double.NEGATIVE_INFINITY) 
+					out.write(" MI BND "+column+"\n");
+				else if(lower != 0 || model.getType(j) != MILPModel.VariableType.CONTINUOUS) 
+					out.write(" LO BND "+column+" "+format(lower)+"\n");
+				if(upper != Double.POSITIVE_INFINITY) 
+					out.write(" UP BND "+column+" "+format(upper)+"\n");
+				else if(model.getType(j) != MILPModel.VariableType.CONTINUOUS) 
+					out.write(" PL BND "+column+"\n");
+			}
+		}
+		
+		boolean indicators = false;
+		for(int r = 0; r < model.getRows(); r++){
+			int column = model.getIndicatorVariable(r);
+			if(column < 0) continue;
+			if(!indicators){
+				out.write("INDICATORS\n");
+				indicators = true;
+			}
+			out.write(" IF "+model.getRowName(r)+" "+model.getColumnName(column)+" "+model.getIndicatorValue(r)+"\n");
+		}
+		out.write("ENDATA\n");
+	}
+	
+	private static void entry(Writer out, String column, String row, double value) throws IOException{
+		out.write("    ");
+		out.write(column);
+		out.write(' ');
+		out.write(row);
+		out.write(' ');
+		out.write(format(value));
+		out.write('\n');
+	}
+	
+	private static String sense(MILPModel.Sense sense){
+		switch(sense){
+		case LE: return "L";
+		case GE: return "G";
+		default: return "E";
+		}
+	}
+	
+	/**
+	 * Shortest round-trip representation; integral values are written without a fraction.
+	 */
+	static String format(double value){
+		if(value == Math.rint(value) && Math.abs(value) < 1e15) 
+			return Long.toString((long)value);
+		return Double.toString(value);
+	}
+}
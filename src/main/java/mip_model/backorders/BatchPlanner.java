@@ -0,0 +1,439 @@
+/**
+ * pwlf-milp: Piecewise linear approximations for the static-dynamic 
+ *            uncertainty strategy in stochastic lot-sizing"
+ * 
+ * MIT License
+ * 
+ * Copyright (c) 2016 Roberto Rossi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package mip_model.backorders;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.DoubleAdder;
+
+import linearization.LinearizationMethod;
+import linearization.LinearizationParameters;
+import mip_model.ConcertSolver;
+import mip_model.MILPSolution;
+import monitoring.Instrumentation;
+import simulation.SimulatePoliciesBackorders;
+import simulation.SimulationBudget;
+import simulation.SimulationResult;
+
+/**
+ * Plans a stream of independent items. Each item goes through three stages: linearization 
+ * parameters, solve and simulation of the resulting policy.
+ * 
+ * A global budget of cores is shared by all stages. Each item runs on one of {@code cores} 
+ * planner threads, which wait for permits without holding any computation. Stages that fan 
+ * out, parallel parameter builds ({@link LinearizationMethod#isParallel()}) and solves, take 
+ * one permit per thread they use: up to the per-item maximum for items longer than the 
+ * small-horizon threshold, one otherwise. Their tasks run on a shared work-stealing pool, at 
+ * most as many at a time as the permits held, so the pool never uses more cores than the 
+ * budget. Other builds and simulations take one permit. Submission blocks while the maximum 
+ * number of items is in flight.
+ * 
+ * The per-item time limit runs from the moment the solve permits are held and covers the 
+ * solve and the simulation. {@link Solver#CPLEX} returns the best incumbent on expiry; 
+ * {@link Solver#SHORTEST_PATH} cannot be interrupted, its time is charged to the limit. The 
+ * simulation gets the remaining time as wall-clock limit, see 
+ * {@link SimulationBudget#withMaxTime(double)}, and stops with 
+ * {@link SimulationResult.StopReason#MAX_TIME} when it runs out. Parameter builds are not 
+ * limited.
+ * 
+ * Instrumented stages of an item are labelled with its id, see {@link Instrumentation#setLabel(String)}.
+ */
+public class BatchPlanner {
+	
+	public enum Solver { SHORTEST_PATH, CPLEX }
+	
+	int cores;
+	int maxThreadsPerItem;
+	int smallHorizon = 24;
+	Solver solver = Solver.SHORTEST_PATH;
+	boolean upperBound;
+	double timeLimit = Double.POSITIVE_INFINITY;
+	
+	LinearizationMethod method = LinearizationMethod.ANALYTIC;
+	long[] seed = {1,2,3,4,5,6};
+	int nbSamples = 1000;
+	int population = 100000;
+	int partitions = 10;
+	
+	boolean simulate = true;
+	SimulationBudget simulation = new SimulationBudget(0.95, 0.0001);
+	
+	ExecutorService planners;
+	ForkJoinPool pool;
+	Semaphore budget;
+	Semaphore inFlight;
+	
+	AtomicInteger submitted = new AtomicInteger();
+	AtomicInteger completed = new AtomicInteger();
+	AtomicInteger failed = new AtomicInteger();
+	AtomicInteger suboptimal = new AtomicInteger();
+	DoubleAdder buildTime = new DoubleAdder();
+	DoubleAdder solveTime = new DoubleAdder();
+	DoubleAdder simulationTime = new DoubleAdder();
+	long start = System.nanoTime();
+	
+	/**
+	 * @param cores global core budget
+	 * @param maxPending maximum number of submitted items not yet completed
+	 */
+	public BatchPlanner(int cores, int maxPending){
+		this.cores = cores;
+		this.maxThreadsPerItem = cores;
+		this.planners = Executors.newFixedThreadPool(cores);
+		this.pool = new ForkJoinPool(cores, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+		this.budget = new Semaphore(cores, true);
+		this.inFlight = new Semaphore(maxPending);
+	}
+	
+	public void setSolver(Solver solver, boolean upperBound){
+		this.solver = solver;
+		this.upperBound = upperBound;
+	}
+	
+	/**
+	 * Items with horizon up to {@code smallHorizon} are solved on one thread, longer ones on 
+	 * up to {@code maxThreadsPerItem}.
+	 */
+	public void setThreads(int smallHorizon, int maxThreadsPerItem){
+		this.smallHorizon = smallHorizon;
+		this.maxThreadsPerItem = Math.min(maxThreadsPerItem, cores);
+	}
+	
+	/**
+	 * Per-item time limit in seconds for solve and simulation; only {@link Solver#CPLEX} solves 
+	 * can be interrupted.
+	 */
+	public void setTimeLimit(double timeLimit){
+		this.timeLimit = timeLimit;
+	}
+	
+	public void setLinearization(LinearizationMethod method, long[] seed, int nbSamples, int population, int partitions){
+		this.method = method;
+		this.seed = seed;
+		this.nbSamples = nbSamples;
+		this.population = population;
+		this.partitions = partitions;
+	}
+	
+	/**
+	 * Simulation of each policy, see {@code SimulatePoliciesBackorders.simulatePenalty}; disabled if 
+	 * {@code simulate} is false.
+	 */
+	public void setSimulation(boolean simulate, double confidence, double error){
+		setSimulation(simulate, new SimulationBudget(confidence, error));
+	}
+	
+	/**
+	 * Simulation of each policy under {@code simulation}; a wall-clock or replication limit bounds 
+	 * the simulation time of each item, see {@link PlanningResult#getSimulationStopReason()}.
+	 */
+	public void setSimulation(boolean simulate, SimulationBudget simulation){
+		this.simulate = simulate;
+		this.simulation = simulation;
+	}
+	
+	int threadsFor(PlanningItem item){
+		return item.getHorizon() <= smallHorizon ? 1 : maxThreadsPerItem;
+	}
+	
+	/**
+	 * Schedules {@code item}, blocking while the maximum number of items is in flight.
+	 */
+	public Future<PlanningResult> submit(final PlanningItem item) throws InterruptedException{
+		inFlight.acquire();
+		submitted.incrementAndGet();
+		try{
+			return planners.submit(new Callable<PlanningResult>(){
+				public PlanningResult call(){
+					try{
+						return plan(item);
+					}finally{
+						inFlight.release();
+					}
+				}
+			});
+		}catch(RuntimeException e){
+			inFlight.release();
+			throw e;
+		}
+	}
+	
+	/**
+	 * Submits all items, subject to backpressure, and returns their results in submission order. 
+	 * Exceptions of an item are recorded in its result; {@code Error}s are rethrown.
+	 */
+	public List<PlanningResult> planAll(Iterator<PlanningItem> items) throws InterruptedException{
+		List<Future<PlanningResult>> futures = new ArrayList<Future<PlanningResult>>();
+		while(items.hasNext()) futures.add(submit(items.next()));
+		List<PlanningResult> results = new ArrayList<PlanningResult>(futures.size());
+		try{
+			for(Future<PlanningResult> f : futures) results.add(f.get());
+		}catch(ExecutionException e){
+			if(e.getCause() instanceof Error) throw (Error) e.getCause();
+			throw new IllegalStateException("Planning failed", e);
+		}
+		return results;
+	}
+	
+	PlanningResult plan(PlanningItem item){
+		PlanningResult result = new PlanningResult(item);
+		String label = Instrumentation.setLabel(item.getId());
+		try{
+			int threads = threadsFor(item);
+			result.threads = threads;
+			
+			MILPModelPenalty model;
+			int buildThreads = method.isParallel() ? threads : 1;
+			budget.acquire(buildThreads);
+			long begin = System.nanoTime();
+			try{
+				LinearizationParameters parameters = method.build(item.demand, seed, nbSamples, population, partitions, 
+						new BoundedExecutor(pool, buildThreads));
+				model = new MILPModelPenalty(item.getHorizon(), item.demand, item.ordercost, item.holdingcost, 
+						item.penaltycost, item.unitcost, item.initialStock, partitions, parameters);
+			}finally{
+				budget.release(buildThreads);
+			}
+			result.buildTime = (System.nanoTime() - begin)*1e-9;
+			
+			budget.acquire(threads);
+			long solveStart = System.nanoTime();
+			try{
+				solve(model, result, threads);
+			}finally{
+				budget.release(threads);
+			}
+			result.solveTime = (System.nanoTime() - solveStart)*1e-9;
+			
+			if(simulate && result.R != null){
+				budget.acquire();
+				begin = System.nanoTime();
+				try{
+					double remaining = timeLimit - (begin - solveStart)*1e-9;
+					SimulationResult simulated = SimulatePoliciesBackorders.simulatePenalty(item.demand, result.R, result.S, item.ordercost, 
+							item.holdingcost, item.penaltycost, item.unitcost, item.initialStock, simulation.withMaxTime(Math.max(remaining, 0)));
+					result.simulatedCost = simulated.getMean();
+					result.halfWidth = simulated.getHalfWidth();
+					result.simulationRuns = simulated.getRuns();
+					result.simulationStopReason = simulated.getStopReason();
+					result.riskProfile = simulated.getRiskProfile();
+				}finally{
+					budget.release();
+				}
+				result.simulationTime = (System.nanoTime() - begin)*1e-9;
+			}
+			if(!result.optimal) suboptimal.incrementAndGet();
+			buildTime.add(result.buildTime);
+			solveTime.add(result.solveTime);
+			simulationTime.add(result.simulationTime);
+			completed.incrementAndGet();
+		}catch(Exception e){
+			if(e instanceof InterruptedException) Thread.currentThread().interrupt();
+			result.error = e;
+			failed.incrementAndGet();
+		}finally{
+			Instrumentation.setLabel(label);
+		}
+		return result;
+	}
+	
+	private void solve(MILPModelPenalty model, PlanningResult result, int threads){
+		int T = model.Nbmonths;
+		if(solver == Solver.SHORTEST_PATH){
+			ShortestPathPolicy policy = new ShortestPathPolicy(model, upperBound, threads == 1 ? null : new BoundedExecutor(pool, threads));
+			result.R = policy.getR();
+			result.S = policy.getS();
+			result.objective = policy.getObjective();
+			result.optimal = policy.isExact();
+		}else{
+			PiecewisePenaltyFormulation formulation = new PiecewisePenaltyFormulation(model, upperBound);
+			ConcertSolver concert = new ConcertSolver(threads);
+			concert.setTimeLimit(timeLimit);
+			MILPSolution solution = concert.solve(formulation.getModel());
+			if(!solution.isFeasible()) return;
+			result.R = new boolean[T];
+			result.S = new double[T];
+			for(int t = 0; t < T; t++){
+				result.R[t] = Math.round(solution.getValue(formulation.getPurchase(t+1))) == 1;
+				result.S[t] = solution.getValue(formulation.getStock(t+1)) + model.expDemand[t];
+			}
+			result.objective = solution.getObjective();
+			result.optimal = solution.isOptimal();
+		}
+	}
+	
+	public void shutdown(){
+		planners.shutdown();
+		pool.shutdown();
+	}
+	
+	public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException{
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		return planners.awaitTermination(timeout, unit) 
+				&& pool.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+	}
+	
+	public int getSubmitted(){
+		return submitted.get();
+	}
+	
+	public int getCompleted(){
+		return completed.get();
+	}
+	
+	public int getFailed(){
+		return failed.get();
+	}
+	
+	/**
+	 * Completed items whose policy is not proven optimal: time limit reached or, for 
+	 * {@link Solver#SHORTEST_PATH}, repaired order quantities.
+	 */
+	public int getSuboptimal(){
+		return suboptimal.get();
+	}
+	
+	/**
+	 * Completed items per second since the planner was created.
+	 */
+	public double getThroughput(){
+		return completed.get()/((System.nanoTime() - start)*1e-9);
+	}
+	
+	public double getAverageBuildTime(){
+		return buildTime.sum()/Math.max(completed.get(), 1);
+	}
+	
+	public double getAverageSolveTime(){
+		return solveTime.sum()/Math.max(completed.get(), 1);
+	}
+	
+	public double getAverageSimulationTime(){
+		return simulationTime.sum()/Math.max(completed.get(), 1);
+	}
+	
+	/**
+	 * Runs at most {@code limit} tasks at a time on {@code pool}, so that a stage holding 
+	 * {@code limit} permits uses no more cores than it was charged for. Queued tasks are 
+	 * drained by up to {@code limit} runners; shutting down does not affect the pool.
+	 */
+	static class BoundedExecutor extends AbstractExecutorService {
+		
+		final ExecutorService pool;
+		final int limit;
+		final Queue<Runnable> queue = new ConcurrentLinkedQueue<Runnable>();
+		final AtomicInteger active = new AtomicInteger();
+		volatile boolean shutdown;
+		
+		BoundedExecutor(ExecutorService pool, int limit){
+			this.pool = pool;
+			this.limit = limit;
+		}
+		
+		public void execute(Runnable task){
+			if(shutdown) throw new RejectedExecutionException("Executor shut down");
+			queue.add(task);
+			drain();
+		}
+		
+		private void drain(){
+			int n;
+			do{
+				n = active.get();
+				if(n >= limit || queue.isEmpty()) return;
+			}while(!active.compareAndSet(n, n + 1));
+			try{
+				pool.execute(new Runnable(){
+					public void run(){
+						try{
+							Runnable task;
+							while((task = queue.poll()) != null) task.run();
+						}finally{
+							finished();
+						}
+					}
+				});
+			}catch(RuntimeException e){
+				finished();
+				throw e;
+			}
+		}
+		
+		private void finished(){
+			active.decrementAndGet();
+			if(!queue.isEmpty()) drain();
+			synchronized(this){
+				notifyAll();
+			}
+		}
+		
+		public void shutdown(){
+			shutdown = true;
+		}
+		
+		public List<Runnable> shutdownNow(){
+			shutdown = true;
+			List<Runnable> pending = new ArrayList<Runnable>();
+			Runnable task;
+			while((task = queue.poll()) != null) pending.add(task);
+			return pending;
+		}
+		
+		public boolean isShutdown(){
+			return shutdown;
+		}
+		
+		public boolean isTerminated(){
+			return shutdown && active.get() == 0 && queue.isEmpty();
+		}
+		
+		public synchronized boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException{
+			long deadline = System.nanoTime() + unit.toNanos(timeout);
+			while(!isTerminated()){
+				long left = deadline - System.nanoTime();
+				if(left <= 0) return false;
+				TimeUnit.NANOSECONDS.timedWait(this, left);
+			}
+			return true;
+		}
+	}
+}
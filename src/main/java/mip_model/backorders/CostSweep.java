@@ -0,0 +1,273 @@
+/**
+ * pwlf-milp: Piecewise linear approximations for the static-dynamic 
+ *            uncertainty strategy in stochastic lot-sizing"
+ * 
+ * MIT License
+ * 
+ * Copyright (c) 2016 Roberto Rossi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package mip_model.backorders;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import linearization.LinearizationMethod;
+import linearization.LinearizationParameters;
+import mip_model.MILPSolution;
+import mip_model.MILPSolver;
+import umontreal.ssj.probdist.Distribution;
+
+/**
+ * Sensitivity study over a grid of ordering, holding, penalty and unit costs for one demand 
+ * forecast. The linearization parameters and cumulative tables depend on the demand only, so 
+ * they are built once and shared by every grid point.
+ * 
+ * The grid is visited in boustrophedon order, a reflected mixed-radix Gray code in which 
+ * consecutive points differ by one step in one cost, and the sequence is split into 
+ * contiguous chunks, one per worker. With a {@link MILPSolver}, each worker generates the 
+ * model once and only replaces its objective coefficients from point to point; every point 
+ * but the first of a chunk is warm started from the replenishment plan of its predecessor. 
+ * Without a solver, points are solved by {@link ShortestPathPolicy}.
+ */
+public class CostSweep {
+	
+	MILPModelPenalty base;
+	MILPSolver solver;
+	boolean upperBound;
+	int workers = Runtime.getRuntime().availableProcessors();
+	
+	public CostSweep(Distribution[] demand, double initialStock, int partitions, LinearizationMethod method, long[] seed, int nbSamples, int population){
+		this(demand, initialStock, partitions, method.build(demand, seed, nbSamples, population, partitions));
+	}
+	
+	public CostSweep(Distribution[] demand, double initialStock, int partitions, LinearizationParameters parameters){
+		this.base = new MILPModelPenalty(demand.length, demand, 0, 0, 0, 0, initialStock, partitions, parameters);
+	}
+	
+	/**
+	 * Solver of the grid points, which must be thread safe if there is more than one worker; 
+	 * {@code null} selects {@link ShortestPathPolicy}. {@code upperBound} selects the upper 
+	 * bound model.
+	 */
+	public void setSolver(MILPSolver solver, boolean upperBound){
+		this.solver = solver;
+		this.upperBound = upperBound;
+	}
+	
+	public void setWorkers(int workers){
+		this.workers = workers;
+	}
+	
+	/**
+	 * Solves every combination of the given costs.
+	 */
+	public Surface sweep(double[] ordercost, double[] holdingcost, double[] penaltycost, double[] unitcost){
+		long begin = System.nanoTime();
+		final Surface surface = new Surface(ordercost, holdingcost, penaltycost, unitcost, base.Nbmonths);
+		final int[] order = order(surface.dimensions);
+		base.getCumulativeTables();
+		int chunks = Math.max(1, Math.min(workers, order.length));
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(chunks);
+		for(int w = 0; w < chunks; w++){
+			final int from = (int)((long) order.length*w/chunks);
+			final int to = (int)((long) order.length*(w+1)/chunks);
+			tasks.add(new Callable<Void>(){
+				public Void call(){
+					solve(surface, order, from, to);
+					return null;
+				}
+			});
+		}
+		if(chunks == 1){
+			solve(surface, order, 0, order.length);
+		}else{
+			ForkJoinPool pool = new ForkJoinPool(chunks);
+			try{
+				for(Future<Void> f : pool.invokeAll(tasks)) f.get();
+			}catch(InterruptedException | ExecutionException e){
+				throw new IllegalStateException("Cost sweep failed", e);
+			}finally{
+				pool.shutdown();
+			}
+		}
+		surface.time = (System.nanoTime() - begin)*1e-9;
+		return surface;
+	}
+	
+	/**
+	 * Solves the points order[from..to-1] in sequence.
+	 */
+	void solve(Surface surface, int[] order, int from, int to){
+		PiecewisePenaltyFormulation formulation = null;
+		boolean[] previous = null;
+		int T = base.Nbmonths;
+		for(int k = from; k < to; k++){
+			long begin = System.nanoTime();
+			int point = order[k];
+			double[] costs = surface.costs(point);
+			MILPModelPenalty data = base.withCosts(costs[0], costs[1], costs[2], costs[3]);
+			boolean[] R = null;
+			double[] S = null;
+			if(solver == null){
+				ShortestPathPolicy policy = new ShortestPathPolicy(data, upperBound, 1);
+				R = policy.getR();
+				S = policy.getS();
+				surface.objective[point] = policy.getObjective();
+				surface.optimal[point] = policy.isExact();
+			}else{
+				if(formulation == null) 
+					formulation = new PiecewisePenaltyFormulation(data, upperBound);
+				else 
+					formulation.setCosts(costs[0], costs[1], costs[2], costs[3]);
+				MILPSolution solution = previous == null ? 
+						solver.solve(formulation.getModel()) : 
+						solver.solve(formulation.getModel(), formulation.start(previous));
+				if(solution.isFeasible()){
+					R = new boolean[T];
+					S = new double[T];
+					for(int t = 0; t < T; t++){
+						R[t] = Math.round(solution.getValue(formulation.getPurchase(t+1))) == 1;
+						S[t] = solution.getValue(formulation.getStock(t+1)) + data.expDemand[t];
+					}
+					surface.objective[point] = solution.getObjective();
+					surface.optimal[point] = solution.isOptimal();
+				}
+			}
+			surface.R[point] = R;
+			surface.S[point] = S;
+			surface.warmStarted[point] = solver != null && previous != null;
+			if(R != null) previous = R;
+			surface.times[point] = (System.nanoTime() - begin)*1e-9;
+		}
+	}
+	
+	/**
+	 * Boustrophedon order of a grid with the given dimensions, first dimension most significant: 
+	 * a digit runs backwards when the number formed by the more significant digits is odd.
+	 */
+	static int[] order(int[] dimensions){
+		int total = 1;
+		for(int d : dimensions) total *= d;
+		int[] order = new int[total];
+		int[] digits = new int[dimensions.length];
+		for(int n = 0; n < total; n++){
+			int prefix = n;
+			for(int i = dimensions.length - 1; i >= 0; i--){
+				digits[i] = prefix % dimensions[i];
+				prefix /= dimensions[i];
+			}
+			prefix = 0;
+			int index = 0;
+			for(int i = 0; i < dimensions.length; i++){
+				int digit = (prefix & 1) == 0 ? digits[i] : dimensions[i] - 1 - digits[i];
+				prefix = prefix*dimensions[i] + digits[i];
+				index = index*dimensions[i] + digit;
+			}
+			order[n] = index;
+		}
+		return order;
+	}
+	
+	/**
+	 * Objective and policy at every grid point, indexed by the positions of the ordering, 
+	 * holding, penalty and unit cost in the arrays passed to {@link CostSweep#sweep}. The 
+	 * policy is null where no feasible solution was found.
+	 */
+	public static class Surface {
+		
+		double[][] values;
+		int[] dimensions;
+		double[] objective;
+		boolean[] optimal;
+		boolean[] warmStarted;
+		boolean[][] R;
+		double[][] S;
+		double[] times;
+		double time;
+		
+		Surface(double[] ordercost, double[] holdingcost, double[] penaltycost, double[] unitcost, int T){
+			this.values = new double[][]{ordercost, holdingcost, penaltycost, unitcost};
+			this.dimensions = new int[]{ordercost.length, holdingcost.length, penaltycost.length, unitcost.length};
+			int points = ordercost.length*holdingcost.length*penaltycost.length*unitcost.length;
+			this.objective = new double[points];
+			Arrays.fill(objective, Double.NaN);
+			this.optimal = new boolean[points];
+			this.warmStarted = new boolean[points];
+			this.R = new boolean[points][];
+			this.S = new double[points][];
+			this.times = new double[points];
+		}
+		
+		double[] costs(int point){
+			double[] costs = new double[4];
+			for(int i = 3; i >= 0; i--){
+				costs[i] = values[i][point % dimensions[i]];
+				point /= dimensions[i];
+			}
+			return costs;
+		}
+		
+		int index(int o, int h, int p, int u){
+			return ((o*dimensions[1] + h)*dimensions[2] + p)*dimensions[3] + u;
+		}
+		
+		public int getPoints(){
+			return objective.length;
+		}
+		
+		public double getObjective(int o, int h, int p, int u){
+			return objective[index(o, h, p, u)];
+		}
+		
+		public boolean isOptimal(int o, int h, int p, int u){
+			return optimal[index(o, h, p, u)];
+		}
+		
+		public boolean isWarmStarted(int o, int h, int p, int u){
+			return warmStarted[index(o, h, p, u)];
+		}
+		
+		public boolean[] getR(int o, int h, int p, int u){
+			return R[index(o, h, p, u)];
+		}
+		
+		public double[] getS(int o, int h, int p, int u){
+			return S[index(o, h, p, u)];
+		}
+		
+		public double getTime(int o, int h, int p, int u){
+			return times[index(o, h, p, u)];
+		}
+		
+		/**
+		 * Wall-clock time of the whole sweep in seconds.
+		 */
+		public double getTime(){
+			return time;
+		}
+	}
+}
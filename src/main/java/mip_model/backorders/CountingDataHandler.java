@@ -0,0 +1,78 @@
+/**
+ * pwlf-milp: Piecewise linear approximations for the static-dynamic 
+ *            uncertainty strategy in stochastic lot-sizing"
+ * 
+ * MIT License
+ * 
+ * Copyright (c) 2016 Roberto Rossi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package mip_model.backorders;
+
+import java.nio.charset.StandardCharsets;
+
+import ilog.opl.IloOplDataHandler;
+
+/**
+ * Forwards the calls made by {@code MILPModelPenalty.feedData} to an OPL data handler and 
+ * counts the items fed and their size: 8 bytes per float, 4 per int, plus the UTF-8 length of 
+ * element names.
+ */
+class CountingDataHandler extends IloOplDataHandler {
+	
+	IloOplDataHandler handler;
+	long items;
+	long bytes;
+	
+	CountingDataHandler(IloOplDataHandler handler){
+		super(0, false);
+		this.handler = handler;
+	}
+	
+	public void startElement(String name){
+		bytes += name.getBytes(StandardCharsets.UTF_8).length;
+		handler.startElement(name);
+	}
+	
+	public void endElement(){
+		handler.endElement();
+	}
+	
+	public void startArray(){
+		handler.startArray();
+	}
+	
+	public void endArray(){
+		handler.endArray();
+	}
+	
+	public void addIntItem(int value){
+		items++;
+		bytes += Integer.BYTES;
+		handler.addIntItem(value);
+	}
+	
+	public void addNumItem(double value){
+		items++;
+		bytes += Double.BYTES;
+		handler.addNumItem(value);
+	}
+}
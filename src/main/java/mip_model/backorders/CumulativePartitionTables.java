@@ -0,0 +1,91 @@
+/**
+ * pwlf-milp: Piecewise linear approximations for the static-dynamic 
+ *            uncertainty strategy in stochastic lot-sizing"
+ * 
+ * MIT License
+ * 
+ * Copyright (c) 2016 Roberto Rossi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package mip_model.backorders;
+
+import linearization.LinearizationParameters;
+
+/**
+ * Partial sums used by the piecewise loss cuts, computed once so that OPL models do not 
+ * recompute them within nested {@code forall} loops:
+ * 
+ * cumulativeMasses[p] = sum_{k <= p} probabilityMasses[k]
+ * cumulativeExpectations[j,t,p] = sum_{k <= p} probabilityMasses[k]*conditionalExpectations[j,t,k]
+ * cycleMeans[j,t] = sum_{k = j..t} expDemand[k]
+ * 
+ * Tables are flat, row major and indexed from 0; entries with j > t are 0.
+ */
+class CumulativePartitionTables {
+	
+	int periods;
+	int partitions;
+	double[] cumulativeMasses;
+	double[] cumulativeExpectations;
+	double[] cycleMeans;
+	
+	CumulativePartitionTables(LinearizationParameters parameters, double[] expDemand, int partitions){
+		this.periods = expDemand.length;
+		this.partitions = partitions;
+		double[] masses = parameters.getProbabilityMasses();
+		
+		cumulativeMasses = new double[partitions];
+		double mass = 0;
+		for(int p = 0; p < partitions; p++){
+			mass += masses[p];
+			cumulativeMasses[p] = mass;
+		}
+		
+		cumulativeExpectations = new double[periods*periods*partitions];
+		cycleMeans = new double[periods*periods];
+		for(int j = 0; j < periods; j++){
+			double mean = 0;
+			for(int t = j; t < periods; t++){
+				mean += expDemand[t];
+				cycleMeans[j*periods + t] = mean;
+				double[] conditionalExpectations = parameters.getConditionalExpectation(j, t);
+				int offset = (j*periods + t)*partitions;
+				double sum = 0;
+				for(int p = 0; p < partitions; p++){
+					sum += masses[p]*conditionalExpectations[p];
+					cumulativeExpectations[offset + p] = sum;
+				}
+			}
+		}
+	}
+	
+	double getCumulativeMass(int p){
+		return cumulativeMasses[p];
+	}
+	
+	double getCumulativeExpectation(int j, int t, int p){
+		return cumulativeExpectations[(j*periods + t)*partitions + p];
+	}
+	
+	double getCycleMean(int j, int t){
+		return cycleMeans[j*periods + t];
+	}
+}
@@ -40,8 +40,20 @@ import ilog.opl.IloOplModelSource;
 import ilog.opl.IloOplSettings;
 
 import java.io.*;
+import java.util.function.Consumer;
 
-import RS.RSCycleLinearizationParameters;
+import linearization.LinearizationMethod;
+import linearization.LinearizationParameters;
+import mip_model.MILPSolution;
+import mip_model.MIPProgressCallback;
+import mip_model.MILPSolver;
+import monitoring.ConsoleListener;
+import monitoring.Instrumentation;
+import monitoring.Instrumentation.Timer;
+import monitoring.Stage;
+import simulation.ExpectedCostEvaluator;
+import simulation.OrderUpToPolisher;
+import simulation.SimulationBudget;
 import simulation.SimulatePoliciesBackorders;
 import umontreal.ssj.probdist.*;
 
@@ -49,7 +61,7 @@ public class MILPModelPenalty {
 	
 	int Nbmonths;
 	Distribution[] demand; 
-	RSCycleLinearizationParameters parameters;
+	LinearizationParameters parameters;
 	double[] expDemand;
 	double ordercost;
 	double holdingcost; 
@@ -58,6 +70,17 @@ public class MILPModelPenalty {
 	double initialStock;
 
 	int Nbpartitions;
+	CumulativePartitionTables tables;
+	
+	public enum PolicyEvaluation { SIMULATION, ANALYTIC }
+	PolicyEvaluation evaluation = PolicyEvaluation.SIMULATION;
+	OrderUpToPolisher polisher;
+	SimulationBudget simulationBudget = new SimulationBudget(0.95, 0.0001);
+	
+	/**
+	 * Suffix of the model variants that read precomputed cumulative tables.
+	 */
+	public static final String CUMULATIVE_SUFFIX = "_cumulative";
 	
 	public MILPModelPenalty(
 			int Nbmonths, 
@@ -71,6 +94,75 @@ public class MILPModelPenalty {
 			long[] seed,
 			int nbSamples,
 			int population){
+		this(Nbmonths, demand, ordercost, holdingcost, penaltycost, unitcost, initialStock, Nbpartitions, seed, nbSamples, population, LinearizationMethod.SAMPLING);
+	}
+	
+	public MILPModelPenalty(
+			int Nbmonths, 
+			Distribution[] demand, 
+			double ordercost, 
+			double holdingcost, 
+			double penaltycost,
+			double unitcost,
+			double initialStock,
+			int Nbpartitions,
+			long[] seed,
+			int nbSamples,
+			int population,
+			LinearizationMethod method){
+		this(Nbmonths, demand, ordercost, holdingcost, penaltycost, unitcost, initialStock, Nbpartitions,
+				build(method, demand, seed, nbSamples, population, Nbpartitions));
+	}
+	
+	private MILPModelPenalty(){
+	}
+	
+	/**
+	 * Model of the same demand, linearization parameters and cumulative tables under other 
+	 * cost parameters; nothing is recomputed.
+	 */
+	MILPModelPenalty withCosts(double ordercost, double holdingcost, double penaltycost, double unitcost){
+		MILPModelPenalty copy = new MILPModelPenalty();
+		copy.Nbmonths = Nbmonths;
+		copy.demand = demand;
+		copy.parameters = parameters;
+		copy.expDemand = expDemand;
+		copy.ordercost = ordercost;
+		copy.holdingcost = holdingcost;
+		copy.penaltycost = penaltycost;
+		copy.unitcost = unitcost;
+		copy.initialStock = initialStock;
+		copy.Nbpartitions = Nbpartitions;
+		copy.tables = getCumulativeTables();
+		copy.evaluation = evaluation;
+		copy.polisher = polisher;
+		copy.simulationBudget = simulationBudget;
+		return copy;
+	}
+	
+	private static LinearizationParameters build(LinearizationMethod method, Distribution[] demand, long[] seed, int nbSamples, int population, int Nbpartitions){
+		Timer timer = Instrumentation.start(Stage.PARAMETER_BUILD);
+		try{
+			return method.build(demand, seed, nbSamples, population, Nbpartitions);
+		}finally{
+			timer.stop();
+		}
+	}
+	
+	/**
+	 * Builds the model on precomputed linearization parameters, e.g. obtained from a 
+	 * {@code LinearizationParametersCache}.
+	 */
+	public MILPModelPenalty(
+			int Nbmonths, 
+			Distribution[] demand, 
+			double ordercost, 
+			double holdingcost, 
+			double penaltycost,
+			double unitcost,
+			double initialStock,
+			int Nbpartitions,
+			LinearizationParameters parameters){
 		this.Nbmonths = Nbmonths;
 		this.demand = demand;
 		this.ordercost = ordercost;
@@ -80,16 +172,15 @@ public class MILPModelPenalty {
 		this.initialStock = initialStock;
 		this.Nbpartitions = Nbpartitions;
 		
-		parameters = new RSCycleLinearizationParameters(demand, seed, nbSamples, population, this.Nbpartitions);
+		this.parameters = parameters;
 		
 		this.expDemand = new double[this.demand.length];
 		for(int i = 0; i < this.demand.length; i++){
 			for(int k = 0; k < this.Nbpartitions; k++){
-				this.expDemand[i] += parameters.getConditionalExpectation(i, i)[k]*parameters.getProbabilityMasses()[k];	
+				this.expDemand[i] += parameters.getConditionalExpectation(i, i, k)*parameters.getProbabilityMasses()[k];	
 			}
-			System.out.print(this.expDemand[i]+"\t");
 		}
-		System.out.println();
+		Instrumentation.expectedDemand(expDemand);
 	}
 	
 	private InputStream getMILPModelStream(File file){
@@ -103,15 +194,55 @@ public class MILPModelPenalty {
 	}
 	
 	public double[] solve(String model_name) throws IloException{
+		return solve(model_name, 4);
+	}
+	
+	/**
+	 * Parses and generates {@code model_name} without solving it, e.g. to time the MODEL_PARSE 
+	 * and MODEL_GENERATE stages, then releases the OPL model.
+	 */
+	public void generate(String model_name) throws IloException{
+		IloOplFactory oplF = new IloOplFactory();
+		try{
+			generate(oplF, oplF.createCplex(), model_name);
+		}finally{
+			oplF.end();
+		}
+	}
+	
+	private IloOplModel generate(IloOplFactory oplF, IloCplex cplex, String model_name) throws IloException{
+		Timer timer = Instrumentation.start(Stage.MODEL_PARSE);
+		IloOplModel opl;
+		try{
+			IloOplErrorHandler errHandler = oplF.createOplErrorHandler(System.out);
+			IloOplModelSource modelSource=oplF.createOplModelSourceFromStream(getMILPModelStream(new File("./opl_models/backorders/"+model_name+".mod")),model_name);
+			IloOplSettings settings = oplF.createOplSettings(errHandler);
+			IloOplModelDefinition def=oplF.createOplModelDefinition(modelSource,settings);
+			opl=oplF.createOplModel(def,cplex);
+		}finally{
+			timer.stop();
+		}
+		IloOplDataSource dataSource = new MILPModelPenalty.MyData(oplF, isCumulative(model_name));
+		opl.addDataSource(dataSource);
+		timer = Instrumentation.start(Stage.MODEL_GENERATE);
+		try{
+			opl.generate();
+		}finally{
+			timer.stop();
+		}
+		return opl;
+	}
+	
+	/**
+	 * Solves {@code model_name} with at most {@code threads} CPLEX threads. The model data is 
+	 * only read, so that several solves may run concurrently on the same instance, see 
+	 * {@link MILPModelPenaltyBounds}.
+	 */
+	public double[] solve(String model_name, int threads) throws IloException{
         IloOplFactory.setDebugMode(true);
         IloOplFactory oplF = new IloOplFactory();
-        IloOplErrorHandler errHandler = oplF.createOplErrorHandler(System.out);
         IloCplex cplex = oplF.createCplex();
-        IloOplModelSource modelSource=oplF.createOplModelSourceFromStream(getMILPModelStream(new File("./opl_models/backorders/"+model_name+".mod")),model_name);
-        IloOplSettings settings = oplF.createOplSettings(errHandler);
-        IloOplModelDefinition def=oplF.createOplModelDefinition(modelSource,settings);
-        IloOplModel opl=oplF.createOplModel(def,cplex);
-        cplex.setParam(IloCplex.IntParam.Threads, 4);
+        cplex.setParam(IloCplex.IntParam.Threads, threads);
         cplex.setParam(IloCplex.IntParam.MIPDisplay, 2);
         /*cplex.setParam(IloCplex.IntParam.VarSel, 1);
         cplex.setParam(IloCplex.IntParam.ZeroHalfCuts, 2);
@@ -126,39 +257,54 @@ public class MILPModelPenalty {
         cplex.setParam(IloCplex.IntParam.MIRCuts, 2);
         cplex.setParam(IloCplex.IntParam.MIPEmphasis, 3);
         */
+        IloOplModel opl = generate(oplF, cplex, model_name);
 
-        IloOplDataSource dataSource = new MILPModelPenalty.MyData(oplF);
-        opl.addDataSource(dataSource);
-        opl.generate();
-
-        //cplex.setOut(null);
+        if(!Instrumentation.hasListener(ConsoleListener.class)) cplex.setOut(null);
+        cplex.use(new MIPProgressCallback());
         
-        double start = cplex.getCplexImpl().getCplexTime();
-        boolean status =  cplex.solve();
-        double end = cplex.getCplexImpl().getCplexTime();
+        Timer timer = Instrumentation.start(Stage.SOLVE);
+        double start, end;
+        boolean status;
+        try{
+        	start = cplex.getCplexImpl().getCplexTime();
+        	status =  cplex.solve();
+        	end = cplex.getCplexImpl().getCplexTime();
+        }finally{
+        	timer.stop();
+        }
         if ( status )
         {	
-        	double objective = cplex.getObjValue();
+        	timer = Instrumentation.start(Stage.POST_PROCESS);
+        	double objective;
         	double time = end - start;
-            System.out.println("OBJECTIVE: " + objective);  
             //s = new double[Nbmonths];
             double[] S = new double[Nbmonths];
             boolean[] R = new boolean[Nbmonths];
-            for(int i = 0; i < Nbmonths; i++){
-            	//s[i] = cplex.getValue(opl.getElement("sValue").asNumVarMap().get(1+i));
-            	S[i] = cplex.getValue(opl.getElement("stock").asNumVarMap().get(1+i))+expDemand[i];
-            	R[i] = Math.round(cplex.getValue(opl.getElement("purchase").asIntVarMap().get(1+i))) == 1 ? true : false;
-            	//System.out.println("S["+(i+1)+"]="+S[i]);
+            try{
+            	objective = cplex.getObjValue();
+            	Instrumentation.objective(objective);
+            	for(int i = 0; i < Nbmonths; i++){
+            		//s[i] = cplex.getValue(opl.getElement("sValue").asNumVarMap().get(1+i));
+            		S[i] = cplex.getValue(opl.getElement("stock").asNumVarMap().get(1+i))+expDemand[i];
+            		R[i] = Math.round(cplex.getValue(opl.getElement("purchase").asIntVarMap().get(1+i))) == 1 ? true : false;
+            		//System.out.println("S["+(i+1)+"]="+S[i]);
+            	}
+            	opl.postProcess();
+            	Instrumentation.solution(new Consumer<PrintStream>(){
+            		public void accept(PrintStream out){
+            			opl.printSolution(out);
+            		}
+            	});
+            }finally{
+            	timer.stop();
             }
-            opl.postProcess();
-            opl.printSolution(System.out);
             //opl.end();
             oplF.end();
             //errHandler.end();
             //cplex.end();
             System.gc();
             
-            double[] centerAndRadius = SimulatePoliciesBackorders.simulatePenalty(demand,R,S,ordercost,holdingcost,penaltycost,unitcost,initialStock,0.95,0.0001);
+            double[] centerAndRadius = evaluate(R,S);
             
             double[] result = new double[4];
             result[0] = objective;
@@ -167,7 +313,7 @@ public class MILPModelPenalty {
             result[3] = centerAndRadius[1];
             return result;
         } else {
-            System.out.println("No solution!");
+            Instrumentation.objective(Double.NaN);
             //opl.end();
             oplF.end();
             //errHandler.end();
@@ -182,85 +328,252 @@ public class MILPModelPenalty {
     }
 	
 	
+	/**
+	 * Solves the formulation built by {@link PiecewisePenaltyFormulation} with {@code solver}, 
+	 * bypassing OPL; returns the same results as {@link #solve(String)}.
+	 */
+	public double[] solve(MILPSolver solver, boolean upperBound){
+		PiecewisePenaltyFormulation formulation = new PiecewisePenaltyFormulation(this, upperBound);
+		MILPSolution solution = solver.solve(formulation.getModel());
+		if(!solution.isFeasible()){
+			Instrumentation.objective(Double.NaN);
+			return new double[]{Double.NaN, Double.NaN};
+		}
+		Instrumentation.objective(solution.getObjective());
+		double[] S = new double[Nbmonths];
+		boolean[] R = new boolean[Nbmonths];
+		for(int i = 0; i < Nbmonths; i++){
+			S[i] = solution.getValue(formulation.getStock(1+i))+expDemand[i];
+			R[i] = Math.round(solution.getValue(formulation.getPurchase(1+i))) == 1;
+		}
+		
+		double[] centerAndRadius = evaluate(R,S);
+		
+		double[] result = new double[4];
+		result[0] = solution.getObjective();
+		result[1] = solution.getTime();
+		result[2] = centerAndRadius[0];
+		result[3] = centerAndRadius[1];
+		return result;
+	}
+	
+	/**
+	 * Solves the lower or upper bound formulation as a shortest path over replenishment cycles 
+	 * with {@link ShortestPathPolicy}, without CPLEX; returns the same results as {@link #solve(String)}.
+	 */
+	public double[] solveShortestPath(boolean upperBound, int workers){
+		Timer timer = Instrumentation.start(Stage.SOLVE);
+		ShortestPathPolicy policy;
+		try{
+			policy = new ShortestPathPolicy(this, upperBound, workers);
+		}finally{
+			timer.stop();
+		}
+		Instrumentation.objective(policy.getObjective());
+		
+		double[] centerAndRadius = evaluate(policy.getR(),policy.getS());
+		
+		double[] result = new double[4];
+		result[0] = policy.getObjective();
+		result[1] = policy.getTime();
+		result[2] = centerAndRadius[0];
+		result[3] = centerAndRadius[1];
+		return result;
+	}
+	
+	/**
+	 * Selects how {@code solve} estimates the cost of the resulting policy. 
+	 * {@link PolicyEvaluation#ANALYTIC} uses {@link ExpectedCostEvaluator} and falls back to 
+	 * simulation for demand it does not cover or when its result is not exact.
+	 */
+	public void setPolicyEvaluation(PolicyEvaluation evaluation){
+		this.evaluation = evaluation;
+	}
+	
+	/**
+	 * Sets a post-optimization stage: {@code solve} keeps the replenishment periods found and 
+	 * polishes the order-up-to levels with {@code polisher} before evaluating the policy. 
+	 * {@code null} disables polishing.
+	 */
+	public void setPolisher(OrderUpToPolisher polisher){
+		this.polisher = polisher;
+	}
+	
+	/**
+	 * Stopping rule of the policy simulation; by default 95% confidence and 0.01% relative error, 
+	 * without replication or time limit.
+	 */
+	public void setSimulationBudget(SimulationBudget simulationBudget){
+		this.simulationBudget = simulationBudget;
+	}
+	
+	/**
+	 * Expected cost of the policy and confidence interval half-width, 0 if computed analytically. 
+	 * If a polisher is set, S is polished in place first.
+	 */
+	double[] evaluate(boolean[] R, double[] S){
+		if(polisher != null){
+			OrderUpToPolisher.Result polished = polisher.polish(demand,R,S,ordercost,holdingcost,penaltycost,unitcost,initialStock);
+			System.arraycopy(polished.getS(), 0, S, 0, S.length);
+			Instrumentation.polished(polished.getInitialCost(), polished.getCost());
+		}
+		if(evaluation == PolicyEvaluation.ANALYTIC && ExpectedCostEvaluator.isApplicable(demand)){
+			ExpectedCostEvaluator evaluator = ExpectedCostEvaluator.evaluate(demand,R,S,ordercost,holdingcost,penaltycost,unitcost,initialStock);
+			if(evaluator.isExact()) 
+				return new double[]{evaluator.getExpectedCost(), 0};
+		}
+		return SimulatePoliciesBackorders.simulatePenalty(demand,R,S,ordercost,holdingcost,penaltycost,unitcost,initialStock,simulationBudget).getCenterAndRadius();
+	}
+	
+	/**
+	 * Feeds model data to an OPL data handler; {@code MyData.customRead} delegates here, so that 
+	 * data feeding can be exercised without an OPL factory.
+	 */
+	void feedData(IloOplDataHandler handler){
+		feedData(handler, false);
+	}
+	
+	/**
+	 * @param cumulative feed the tables of {@link CumulativePartitionTables} in place of the 
+	 * probability masses and conditional expectations, as declared by the {@code _cumulative} 
+	 * model variants.
+	 */
+	void feedData(IloOplDataHandler handler, boolean cumulative){
+		handler.startElement("Nbmonths");
+		handler.addIntItem(Nbmonths);
+		handler.endElement();
+
+		handler.startElement("expDemand");
+		handler.startArray();
+		for (int j = 0 ; j<expDemand.length ; j++)
+			handler.addNumItem(expDemand[j]);
+		handler.endArray();
+		handler.endElement();
+
+		handler.startElement("ordercost");
+		handler.addNumItem(ordercost);
+		handler.endElement();
+
+		handler.startElement("holdingcost");
+		handler.addNumItem(holdingcost);
+		handler.endElement();
+
+		handler.startElement("penaltycost");
+		handler.addNumItem(penaltycost);
+		handler.endElement();
+
+		handler.startElement("unitcost");
+		handler.addNumItem(unitcost);
+		handler.endElement();
+
+		handler.startElement("initialStock");
+		handler.addNumItem(initialStock);
+		handler.endElement();
+
+		handler.startElement("Nbpartitions");
+		handler.addIntItem(Nbpartitions);
+		handler.endElement();
+
+		if(cumulative){
+			CumulativePartitionTables tables = getCumulativeTables();
+			handler.startElement("cumulativeMasses");
+			handler.startArray();
+			for (int p = 0 ; p < Nbpartitions ; p++)
+				handler.addNumItem(tables.cumulativeMasses[p]);
+			handler.endArray();
+			handler.endElement();
+
+			handler.startElement("cumulativeExpectations");
+			handler.startArray();
+			for (int i = 0, offset = 0 ; i < demand.length ; i++){
+				handler.startArray();
+				for (int j = 0 ; j < demand.length ; j++){
+					handler.startArray();
+					for (int k = 0 ; k < Nbpartitions ; k++)
+						handler.addNumItem(tables.cumulativeExpectations[offset++]);
+					handler.endArray();
+				}
+				handler.endArray();
+			}
+			handler.endArray();
+			handler.endElement();
+
+			handler.startElement("cycleMeans");
+			handler.startArray();
+			for (int i = 0, offset = 0 ; i < demand.length ; i++){
+				handler.startArray();
+				for (int j = 0 ; j < demand.length ; j++)
+					handler.addNumItem(tables.cycleMeans[offset++]);
+				handler.endArray();
+			}
+			handler.endArray();
+			handler.endElement();
+		}else{
+			double[] probabilityMasses = parameters.getProbabilityMasses();
+			handler.startElement("probabilityMasses");
+			handler.startArray();
+			for (int j = 0 ; j < probabilityMasses.length ; j++)
+				handler.addNumItem(probabilityMasses[j]);
+			handler.endArray();
+			handler.endElement();
+
+			handler.startElement("conditionalExpectations");
+			handler.startArray();
+			for (int i = 0 ; i < demand.length ; i++){
+				handler.startArray();
+				for (int j = 0 ; j < demand.length ; j++){
+					double[] conditionalExpectations = parameters.getConditionalExpectation(i, j);
+					handler.startArray();
+					for (int k = 0 ; k < Nbpartitions ; k++)
+						handler.addNumItem(conditionalExpectations[k]);
+					handler.endArray();
+				}
+				handler.endArray();
+			}
+			handler.endArray();
+			handler.endElement();
+		}
+
+		handler.startElement("maxApproximationErrors");
+		handler.startArray();
+		for (int i = 0 ; i < demand.length ; i++){
+			handler.startArray();
+			for (int j = 0 ; j < demand.length ; j++){
+				handler.addNumItem(parameters.getMaximumApproximationError(i, j));
+			}
+			handler.endArray();
+		}
+		handler.endArray();
+		handler.endElement();
+	}
+
+	/**
+	 * Cumulative tables, computed on first use and shared by concurrent solves.
+	 */
+	synchronized CumulativePartitionTables getCumulativeTables(){
+		if(tables == null) tables = new CumulativePartitionTables(parameters, expDemand, Nbpartitions);
+		return tables;
+	}
+	
+	static boolean isCumulative(String model_name){
+		return model_name.endsWith(CUMULATIVE_SUFFIX);
+	}
+
 	class MyData extends IloCustomOplDataSource
     {
-        MyData(IloOplFactory oplF)
+        boolean cumulative;
+        
+        MyData(IloOplFactory oplF, boolean cumulative)
         {
             super(oplF);
+            this.cumulative = cumulative;
         }
 
         public void customRead()
         {
-        	IloOplDataHandler handler = getDataHandler();
-        	
-        	handler.startElement("Nbmonths");
-            handler.addIntItem(Nbmonths);
-            handler.endElement();
-            
-            handler.startElement("expDemand");
-        	handler.startArray();
-            for (int j = 0 ; j<expDemand.length ; j++)
-                handler.addNumItem(expDemand[j]);
-            handler.endArray();
-            handler.endElement();
-
-            handler.startElement("ordercost");
-            handler.addNumItem(ordercost);
-            handler.endElement();
-            
-            handler.startElement("holdingcost");
-            handler.addNumItem(holdingcost);
-            handler.endElement();
-            
-            handler.startElement("penaltycost");
-            handler.addNumItem(penaltycost);
-            handler.endElement();
-            
-            handler.startElement("unitcost");
-            handler.addNumItem(unitcost);
-            handler.endElement();
-            
-            handler.startElement("initialStock");
-            handler.addNumItem(initialStock);
-            handler.endElement();
-            
-            handler.startElement("Nbpartitions");
-            handler.addIntItem(Nbpartitions);
-            handler.endElement();
-            
-            handler.startElement("probabilityMasses");
-            handler.startArray();
-            for (int j = 0 ; j < parameters.getProbabilityMasses().length ; j++)
-                handler.addNumItem(parameters.getProbabilityMasses()[j]);
-            handler.endArray();
-            handler.endElement();
-            
-            handler.startElement("conditionalExpectations");
-            handler.startArray();
-            for (int i = 0 ; i < demand.length ; i++){
-            	handler.startArray();
-            	for (int j = 0 ; j < demand.length ; j++){
-            		handler.startArray();
-            			for (int k = 0 ; k < Nbpartitions ; k++)
-            				handler.addNumItem(parameters.getConditionalExpectation(i, j)[k]);
-            		handler.endArray();
-            	}
-            	handler.endArray();
-            }
-            handler.endArray();
-            handler.endElement();
-            
-            handler.startElement("maxApproximationErrors");
-            handler.startArray();
-            for (int i = 0 ; i < demand.length ; i++){
-            	handler.startArray();
-            	for (int j = 0 ; j < demand.length ; j++){
-            		handler.addNumItem(parameters.getMaximumApproximationError(i, j));
-            	}
-            	handler.endArray();
-            }
-            handler.endArray();
-            handler.endElement();
+        	CountingDataHandler handler = new CountingDataHandler(getDataHandler());
+        	feedData(handler, cumulative);
+        	Instrumentation.dataFed(handler.items, handler.bytes);
         }
     };
 }
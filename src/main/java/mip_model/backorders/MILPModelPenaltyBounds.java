@@ -0,0 +1,140 @@
+/**
+ * pwlf-milp: Piecewise linear approximations for the static-dynamic 
+ *            uncertainty strategy in stochastic lot-sizing"
+ * 
+ * MIT License
+ * 
+ * Copyright (c) 2016 Roberto Rossi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package mip_model.backorders;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import ilog.concert.IloException;
+import monitoring.Instrumentation;
+
+/**
+ * Solves the lower and upper bound formulations of one {@code MILPModelPenalty} concurrently: 
+ * both formulations are generated from the same linearization parameters, and a budget of 
+ * CPLEX threads is split between the two solves. The {@code _cumulative} model variants are 
+ * used, so that the cumulative tables are computed once for both. The stages of each solve are 
+ * labelled with its model name, see {@link Instrumentation#setLabel(String)}.
+ */
+public class MILPModelPenaltyBounds {
+	
+	public static final String LB_MODEL = "rs_milp_piecewise_penalty_lb";
+	public static final String UB_MODEL = "rs_milp_piecewise_penalty_ub";
+	public static final String LB_CUMULATIVE_MODEL = LB_MODEL + MILPModelPenalty.CUMULATIVE_SUFFIX;
+	public static final String UB_CUMULATIVE_MODEL = UB_MODEL + MILPModelPenalty.CUMULATIVE_SUFFIX;
+	
+	MILPModelPenalty model;
+	int threads;
+	
+	/**
+	 * @param threads total number of CPLEX threads; the lower bound gets the larger half.
+	 */
+	public MILPModelPenaltyBounds(MILPModelPenalty model, int threads){
+		if(threads < 2) 
+			throw new IllegalArgumentException("At least two threads are required");
+		this.model = model;
+		this.threads = threads;
+	}
+	
+	public Result solve() throws IloException{
+		final int lbThreads = (threads + 1)/2;
+		final int ubThreads = threads - lbThreads;
+		final String parent = Instrumentation.getLabel();
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try{
+			Future<double[]> lb = executor.submit(new Callable<double[]>(){
+				public double[] call() throws IloException{
+					return solve(LB_CUMULATIVE_MODEL, lbThreads, parent);
+				}
+			});
+			Future<double[]> ub = executor.submit(new Callable<double[]>(){
+				public double[] call() throws IloException{
+					return solve(UB_CUMULATIVE_MODEL, ubThreads, parent);
+				}
+			});
+			return new Result(lb.get(), ub.get());
+		}catch(ExecutionException e){
+			if(e.getCause() instanceof IloException) 
+				throw (IloException) e.getCause();
+			throw new IllegalStateException("Bounds solve failed", e.getCause());
+		}catch(InterruptedException e){
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Bounds solve interrupted", e);
+		}finally{
+			executor.shutdownNow();
+		}
+	}
+	
+	/**
+	 * Solves {@code model_name} with its stages labelled by the model name, under the label of 
+	 * the thread that called {@link #solve()} if any.
+	 */
+	private double[] solve(String model_name, int threads, String parent) throws IloException{
+		String previous = Instrumentation.setLabel(parent == null ? model_name : parent + "/" + model_name);
+		try{
+			return model.solve(model_name, threads);
+		}finally{
+			Instrumentation.setLabel(previous);
+		}
+	}
+	
+	/**
+	 * Results of {@code MILPModelPenalty.solve} for both formulations: objective, time, 
+	 * simulated cost and confidence interval half-width.
+	 */
+	public static class Result {
+		double[] lowerBound;
+		double[] upperBound;
+		
+		Result(double[] lowerBound, double[] upperBound){
+			this.lowerBound = lowerBound;
+			this.upperBound = upperBound;
+		}
+		
+		public double[] getLowerBound(){
+			return lowerBound;
+		}
+		
+		public double[] getUpperBound(){
+			return upperBound;
+		}
+		
+		public double getAbsoluteGap(){
+			return upperBound[0] - lowerBound[0];
+		}
+		
+		/**
+		 * Gap relative to the upper bound objective; NaN if either formulation has no solution.
+		 */
+		public double getGap(){
+			return (upperBound[0] - lowerBound[0])/Math.abs(upperBound[0]);
+		}
+	}
+}
@@ -0,0 +1,217 @@
+/**
+ * pwlf-milp: Piecewise linear approximations for the static-dynamic 
+ *            uncertainty strategy in stochastic lot-sizing"
+ * 
+ * MIT License
+ * 
+ * Copyright (c) 2016 Roberto Rossi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package mip_model.backorders;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import linearization.LinearizationMethod;
+import linearization.LinearizationParameters;
+import mip_model.MILPSolution;
+import mip_model.MILPSolver;
+
+/**
+ * Solves an item with an increasing number of partitions, stopping as soon as the relative gap 
+ * between lower and upper bound is within a tolerance, so that fine linearizations are only 
+ * built for the items that need them.
+ * 
+ * Each round only solves the lower bound model. The upper bound cuts are the lower bound cuts 
+ * shifted by the maximum approximation error e(j,t), so the cost of the lower bound policy in 
+ * the upper bound model is the lower bound plus (h+p) sum_t e(j(t),t), where j(t) is the start 
+ * of the cycle covering t. This is a valid upper bound and is known without a second solve. 
+ * With a {@link MILPSolver} each round is warm started from the replenishment plan of the 
+ * previous one; otherwise rounds are solved by {@link ShortestPathPolicy}.
+ */
+public class PartitionRefinement {
+	
+	PlanningItem item;
+	LinearizationMethod method;
+	long[] seed;
+	int nbSamples;
+	int population;
+	MILPSolver solver;
+	
+	public PartitionRefinement(PlanningItem item, LinearizationMethod method, long[] seed, int nbSamples, int population, MILPSolver solver){
+		this.item = item;
+		this.method = method;
+		this.seed = seed;
+		this.nbSamples = nbSamples;
+		this.population = population;
+		this.solver = solver;
+	}
+	
+	/**
+	 * Solves with the number of partitions in {@code schedule}, in order, until the relative gap 
+	 * is at most {@code tolerance}. The last round is returned if the tolerance is never met.
+	 */
+	public Result solve(int[] schedule, double tolerance){
+		if(schedule.length == 0) throw new IllegalArgumentException("Empty partition schedule");
+		List<Round> rounds = new ArrayList<Round>();
+		boolean[] previous = null;
+		Round round = null;
+		for(int partitions : schedule){
+			round = solve(partitions, previous);
+			rounds.add(round);
+			if(round.R == null || round.getGap() <= tolerance) break;
+			previous = round.R;
+		}
+		return new Result(round, rounds);
+	}
+	
+	Round solve(int partitions, boolean[] previous){
+		long begin = System.nanoTime();
+		int T = item.getHorizon();
+		LinearizationParameters parameters = method.build(item.demand, seed, nbSamples, population, partitions);
+		MILPModelPenalty data = new MILPModelPenalty(T, item.demand, item.ordercost, item.holdingcost, 
+				item.penaltycost, item.unitcost, item.initialStock, partitions, parameters);
+		Round round = new Round(partitions);
+		if(solver == null){
+			ShortestPathPolicy policy = new ShortestPathPolicy(data, false, 1);
+			round.R = policy.getR();
+			round.S = policy.getS();
+			round.lowerBound = policy.getObjective();
+			round.optimal = policy.isExact();
+		}else{
+			PiecewisePenaltyFormulation formulation = new PiecewisePenaltyFormulation(data, false);
+			MILPSolution solution = previous == null ? 
+					solver.solve(formulation.getModel()) : 
+					solver.solve(formulation.getModel(), formulation.start(previous));
+			if(solution.isFeasible()){
+				round.R = new boolean[T];
+				round.S = new double[T];
+				for(int t = 0; t < T; t++){
+					round.R[t] = Math.round(solution.getValue(formulation.getPurchase(t+1))) == 1;
+					round.S[t] = solution.getValue(formulation.getStock(t+1)) + data.expDemand[t];
+				}
+				round.lowerBound = solution.getObjective();
+				round.optimal = solution.isOptimal();
+			}
+		}
+		if(round.R != null)
+			round.upperBound = round.lowerBound + (item.holdingcost + item.penaltycost)*error(parameters, round.R);
+		round.time = (System.nanoTime() - begin)*1e-9;
+		return round;
+	}
+	
+	/**
+	 * Sum over periods of the maximum approximation error of the cycle covering each period.
+	 */
+	static double error(LinearizationParameters parameters, boolean[] R){
+		double sum = 0;
+		int cycleStart = 0;
+		for(int t = 0; t < R.length; t++){
+			if(R[t]) cycleStart = t;
+			sum += parameters.getMaximumApproximationError(cycleStart, t);
+		}
+		return sum;
+	}
+	
+	/**
+	 * One refinement round: a lower bound and the upper bound of its policy. If the lower bound 
+	 * model was not solved to optimality, the lower bound is the incumbent's objective and 
+	 * only the upper bound remains valid.
+	 */
+	public static class Round {
+		
+		int partitions;
+		boolean[] R;
+		double[] S;
+		double lowerBound = Double.NaN;
+		double upperBound = Double.NaN;
+		boolean optimal;
+		double time;
+		
+		Round(int partitions){
+			this.partitions = partitions;
+		}
+		
+		public int getPartitions(){
+			return partitions;
+		}
+		
+		public double getLowerBound(){
+			return lowerBound;
+		}
+		
+		public double getUpperBound(){
+			return upperBound;
+		}
+		
+		public double getGap(){
+			return (upperBound - lowerBound)/Math.abs(upperBound);
+		}
+		
+		public boolean isOptimal(){
+			return optimal;
+		}
+		
+		public double getTime(){
+			return time;
+		}
+	}
+	
+	public static class Result {
+		
+		Round last;
+		List<Round> rounds;
+		
+		Result(Round last, List<Round> rounds){
+			this.last = last;
+			this.rounds = Collections.unmodifiableList(rounds);
+		}
+		
+		public int getPartitions(){
+			return last.partitions;
+		}
+		
+		public boolean[] getR(){
+			return last.R;
+		}
+		
+		public double[] getS(){
+			return last.S;
+		}
+		
+		public double getLowerBound(){
+			return last.lowerBound;
+		}
+		
+		public double getUpperBound(){
+			return last.upperBound;
+		}
+		
+		public double getGap(){
+			return last.getGap();
+		}
+		
+		public List<Round> getRounds(){
+			return rounds;
+		}
+	}
+}
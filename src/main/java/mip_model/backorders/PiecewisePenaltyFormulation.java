@@ -0,0 +1,247 @@
+/**
+ * pwlf-milp: Piecewise linear approximations for the static-dynamic 
+ *            uncertainty strategy in stochastic lot-sizing"
+ * 
+ * MIT License
+ * 
+ * Copyright (c) 2016 Roberto Rossi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package mip_model.backorders;
+
+import java.util.Arrays;
+
+import linearization.LinearizationParameters;
+import mip_model.MILPModel;
+import mip_model.MILPModel.Sense;
+import mip_model.MILPModel.VariableType;
+
+/**
+ * Builds {@code rs_milp_piecewise_penalty_lb} or {@code rs_milp_piecewise_penalty_ub} of 
+ * {@code opl_models/backorders} directly as a {@link MILPModel}, without OPL. Variables and 
+ * rows follow the OPL model: {@code stock[0..T]}, {@code stockPlb}/{@code stockNlb} (or 
+ * {@code stockPub}/{@code stockNub}), {@code purchase[1..T]} and the cycle variables 
+ * {@code P[j,t]}, j <= t. Only the cycle variables with j <= t are generated.
+ */
+public class PiecewisePenaltyFormulation {
+	
+	MILPModel model;
+	boolean upperBound;
+	int T;
+	double[] expDemand;
+	
+	int[] stock;
+	int[] stockP;
+	int[] stockN;
+	int[] purchase;
+	int[][] P;
+	
+	public PiecewisePenaltyFormulation(MILPModelPenalty data, boolean upperBound){
+		this.upperBound = upperBound;
+		this.T = data.Nbmonths;
+		this.expDemand = data.expDemand;
+		this.model = new MILPModel(upperBound ? MILPModelPenaltyBounds.UB_MODEL : MILPModelPenaltyBounds.LB_MODEL);
+		build(data);
+	}
+	
+	private void build(MILPModelPenalty data){
+		LinearizationParameters parameters = data.parameters;
+		int N = data.Nbpartitions;
+		String suffix = upperBound ? "ub" : "lb";
+		
+		/* Decision variables */
+		stock = new int[T+1];
+		stockP = new int[T+1];
+		stockN = new int[T+1];
+		for(int t = 0; t <= T; t++)
+			stock[t] = model.addVariable("stock_"+t, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, VariableType.CONTINUOUS, 0);
+		for(int t = 0; t <= T; t++)
+			stockP[t] = model.addVariable("stockP"+suffix+"_"+t, 0, Double.POSITIVE_INFINITY, VariableType.CONTINUOUS, 0);
+		for(int t = 0; t <= T; t++)
+			stockN[t] = model.addVariable("stockN"+suffix+"_"+t, 0, Double.POSITIVE_INFINITY, VariableType.CONTINUOUS, 0);
+		purchase = new int[T+1];
+		for(int t = 1; t <= T; t++)
+			purchase[t] = model.addVariable("purchase_"+t, 0, 1, VariableType.BINARY, 0);
+		P = new int[T+1][T+1];
+		for(int j = 1; j <= T; j++)
+			for(int t = j; t <= T; t++)
+				P[j][t] = model.addVariable("P_"+j+"_"+t, 0, 1, VariableType.BINARY, 0);
+		
+		setCosts(data.ordercost, data.holdingcost, data.penaltycost, data.unitcost);
+		
+		/* Initial conditions */
+		int row = model.addRow("initialStock", Sense.EQ, data.initialStock);
+		model.add(row, stock[0], 1);
+		row = model.addRow("initialStockP", Sense.EQ, Math.max(data.initialStock, 0));
+		model.add(row, stockP[0], 1);
+		row = model.addRow("initialStockN", Sense.EQ, Math.max(-data.initialStock, 0));
+		model.add(row, stockN[0], 1);
+		
+		/* Reorder conditions */
+		for(int t = 1; t <= T; t++){
+			row = model.addRow("noOrder_"+t, Sense.EQ, -expDemand[t-1]);
+			model.add(row, stock[t], 1);
+			model.add(row, stock[t-1], -1);
+			model.setIndicator(row, purchase[t], 0);
+		}
+		for(int t = 1; t <= T; t++){
+			row = model.addRow("order_"+t, Sense.GE, -expDemand[t-1]);
+			model.add(row, stock[t], 1);
+			model.add(row, stock[t-1], -1);
+		}
+		
+		/* Cumulative probabilities, partial expectations over partitions 1..p and cycle means */
+		CumulativePartitionTables tables = data.getCumulativeTables();
+		double[] coefficients = new double[T+1];
+		
+		/* 
+		 * First order loss function and its complement, for each partition p:
+		 * stockN[t] >= - stock[t] + F_p (stock[t] + sum_j D(j,t) P[j,t]) - sum_j C_p(j,t) P[j,t] (+ sum_j e(j,t) P[j,t])
+		 * stockP[t] >= F_p (stock[t] + sum_j D(j,t) P[j,t]) - sum_j C_p(j,t) P[j,t] (+ sum_j e(j,t) P[j,t])
+		 */
+		for(int t = 1; t <= T; t++){
+			for(int p = 0; p < N; p++){
+				double cumulative = tables.getCumulativeMass(p);
+				row = model.addRow("lossN"+suffix+"_"+t+"_"+(p+1), Sense.GE, 0);
+				model.add(row, stockN[t], 1);
+				model.add(row, stock[t], 1 - cumulative);
+				for(int j = 1; j <= t; j++){
+					coefficients[j] = cumulative*tables.getCycleMean(j-1, t-1) - tables.getCumulativeExpectation(j-1, t-1, p) + error(parameters, j, t);
+					model.add(row, P[j][t], -coefficients[j]);
+				}
+				row = model.addRow("lossP"+suffix+"_"+t+"_"+(p+1), Sense.GE, 0);
+				model.add(row, stockP[t], 1);
+				model.add(row, stock[t], -cumulative);
+				for(int j = 1; j <= t; j++)
+					model.add(row, P[j][t], -coefficients[j]);
+			}
+			row = model.addRow("lossN"+suffix+"_"+t+"_0", Sense.GE, 0);
+			model.add(row, stockN[t], 1);
+			model.add(row, stock[t], 1);
+			for(int j = 1; j <= t; j++)
+				model.add(row, P[j][t], -error(parameters, j, t));
+			if(upperBound){
+				row = model.addRow("lossP"+suffix+"_"+t+"_0", Sense.GE, 0);
+				model.add(row, stockP[t], 1);
+				for(int j = 1; j <= t; j++)
+					model.add(row, P[j][t], -error(parameters, j, t));
+			}
+		}
+		
+		/* Replenishment cycles */
+		for(int t = 1; t <= T; t++){
+			row = model.addRow("cycle_"+t, Sense.EQ, 1);
+			for(int j = 1; j <= t; j++) model.add(row, P[j][t], 1);
+		}
+		for(int t = 1; t <= T; t++){
+			for(int j = 1; j <= t; j++){
+				row = model.addRow("cycleStart_"+j+"_"+t, Sense.GE, 0);
+				model.add(row, P[j][t], 1);
+				model.add(row, purchase[j], -1);
+				for(int k = j+1; k <= t; k++) model.add(row, purchase[k], 1);
+			}
+		}
+	}
+	
+	/**
+	 * Sets the objective for the given cost parameters. No row depends on the costs, so one 
+	 * model serves any number of cost parameters, see {@link CostSweep}.
+	 */
+	public void setCosts(double ordercost, double holdingcost, double penaltycost, double unitcost){
+		model.setObjective(stock[0], 0);
+		model.setObjective(stockP[0], 0);
+		model.setObjective(stockN[0], 0);
+		for(int t = 1; t <= T; t++){
+			model.setObjective(stock[t], 0);
+			model.setObjective(stockP[t], holdingcost);
+			model.setObjective(stockN[t], penaltycost);
+			model.setObjective(purchase[t], ordercost);
+		}
+		/* Unit cost of the order quantities stock[t]+expDemand[t]-stock[t-1] */
+		double offset = 0;
+		for(int t = 1; t <= T; t++){
+			model.addObjective(stock[t], unitcost);
+			model.addObjective(stock[t-1], -unitcost);
+			offset += expDemand[t-1]*unitcost;
+		}
+		model.setObjectiveOffset(offset);
+	}
+	
+	private double error(LinearizationParameters parameters, int j, int t){
+		return upperBound ? parameters.getMaximumApproximationError(j-1, t-1) : 0;
+	}
+	
+	/**
+	 * Start for {@link mip_model.MILPSolver#solve(MILPModel, double[])} with orders in the periods 
+	 * t where {@code R[t-1]} holds: purchase and cycle variables are set, the others are NaN. 
+	 * Periods before the first order belong to a cycle starting in period 1.
+	 */
+	public double[] start(boolean[] R){
+		double[] start = new double[model.getColumns()];
+		Arrays.fill(start, Double.NaN);
+		int cycleStart = 1;
+		for(int t = 1; t <= T; t++){
+			start[purchase[t]] = R[t-1] ? 1 : 0;
+			if(R[t-1]) cycleStart = t;
+			for(int j = 1; j <= t; j++) start[P[j][t]] = j == cycleStart ? 1 : 0;
+		}
+		return start;
+	}
+	
+	public MILPModel getModel(){
+		return model;
+	}
+	
+	/**
+	 * Column of {@code stock[t]}, t = 0..T.
+	 */
+	public int getStock(int t){
+		return stock[t];
+	}
+	
+	/**
+	 * Column of {@code stockPlb[t]} or {@code stockPub[t]}, t = 0..T.
+	 */
+	public int getStockP(int t){
+		return stockP[t];
+	}
+	
+	/**
+	 * Column of {@code stockNlb[t]} or {@code stockNub[t]}, t = 0..T.
+	 */
+	public int getStockN(int t){
+		return stockN[t];
+	}
+	
+	/**
+	 * Column of {@code purchase[t]}, t = 1..T.
+	 */
+	public int getPurchase(int t){
+		return purchase[t];
+	}
+	
+	/**
+	 * Column of {@code P[j,t]}, 1 <= j <= t <= T.
+	 */
+	public int getCycle(int j, int t){
+		return P[j][t];
+	}
+}
@@ -0,0 +1,86 @@
+/**
+ * pwlf-milp: Piecewise linear approximations for the static-dynamic 
+ *            uncertainty strategy in stochastic lot-sizing"
+ * 
+ * MIT License
+ * 
+ * Copyright (c) 2016 Roberto Rossi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package mip_model.backorders;
+
+import umontreal.ssj.probdist.Distribution;
+
+/**
+ * One item of a {@link BatchPlanner} batch: demand distributions and cost parameters.
+ */
+public class PlanningItem {
+	
+	String id;
+	Distribution[] demand;
+	double ordercost;
+	double holdingcost;
+	double penaltycost;
+	double unitcost;
+	double initialStock;
+	
+	public PlanningItem(String id, Distribution[] demand, double ordercost, double holdingcost, double penaltycost, double unitcost, double initialStock){
+		this.id = id;
+		this.demand = demand;
+		this.ordercost = ordercost;
+		this.holdingcost = holdingcost;
+		this.penaltycost = penaltycost;
+		this.unitcost = unitcost;
+		this.initialStock = initialStock;
+	}
+	
+	public String getId(){
+		return id;
+	}
+	
+	public Distribution[] getDemand(){
+		return demand;
+	}
+	
+	public int getHorizon(){
+		return demand.length;
+	}
+	
+	public double getOrderCost(){
+		return ordercost;
+	}
+	
+	public double getHoldingCost(){
+		return holdingcost;
+	}
+	
+	public double getPenaltyCost(){
+		return penaltycost;
+	}
+	
+	public double getUnitCost(){
+		return unitcost;
+	}
+	
+	public double getInitialStock(){
+		return initialStock;
+	}
+}
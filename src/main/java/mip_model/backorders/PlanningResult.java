@@ -0,0 +1,130 @@
+/**
+ * pwlf-milp: Piecewise linear approximations for the static-dynamic 
+ *            uncertainty strategy in stochastic lot-sizing"
+ * 
+ * MIT License
+ * 
+ * Copyright (c) 2016 Roberto Rossi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package mip_model.backorders;
+
+import simulation.RiskProfile;
+import simulation.SimulationResult;
+
+/**
+ * Outcome of planning one {@link PlanningItem}: the policy, its objective, the simulated cost 
+ * with confidence interval half-width (NaN if not simulated), stage times in seconds and the 
+ * number of solver threads granted. If planning failed, {@link #getError()} is not null and 
+ * the policy is missing.
+ */
+public class PlanningResult {
+	
+	PlanningItem item;
+	boolean[] R;
+	double[] S;
+	double objective = Double.NaN;
+	boolean optimal;
+	double simulatedCost = Double.NaN;
+	double halfWidth = Double.NaN;
+	long simulationRuns;
+	SimulationResult.StopReason simulationStopReason;
+	RiskProfile riskProfile;
+	double buildTime;
+	double solveTime;
+	double simulationTime;
+	int threads;
+	Exception error;
+	
+	PlanningResult(PlanningItem item){
+		this.item = item;
+	}
+	
+	public PlanningItem getItem(){
+		return item;
+	}
+	
+	public boolean[] getR(){
+		return R;
+	}
+	
+	public double[] getS(){
+		return S;
+	}
+	
+	public double getObjective(){
+		return objective;
+	}
+	
+	/**
+	 * False if the solver hit the per-item time limit; the policy is then the best incumbent.
+	 */
+	public boolean isOptimal(){
+		return optimal;
+	}
+	
+	public double getSimulatedCost(){
+		return simulatedCost;
+	}
+	
+	public double getHalfWidth(){
+		return halfWidth;
+	}
+	
+	public long getSimulationRuns(){
+		return simulationRuns;
+	}
+	
+	/**
+	 * Why the simulation stopped; anything but {@code PRECISION} means the half-width did not 
+	 * reach the target of the budget. Null if not simulated.
+	 */
+	public SimulationResult.StopReason getSimulationStopReason(){
+		return simulationStopReason;
+	}
+	
+	/**
+	 * Simulated cost and service distribution, if requested by the simulation budget.
+	 */
+	public RiskProfile getRiskProfile(){
+		return riskProfile;
+	}
+	
+	public double getBuildTime(){
+		return buildTime;
+	}
+	
+	public double getSolveTime(){
+		return solveTime;
+	}
+	
+	public double getSimulationTime(){
+		return simulationTime;
+	}
+	
+	public int getThreads(){
+		return threads;
+	}
+	
+	public Exception getError(){
+		return error;
+	}
+}
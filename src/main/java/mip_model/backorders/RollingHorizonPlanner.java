@@ -0,0 +1,135 @@
+/**
+ * pwlf-milp: Piecewise linear approximations for the static-dynamic 
+ *            uncertainty strategy in stochastic lot-sizing"
+ * 
+ * MIT License
+ * 
+ * Copyright (c) 2016 Roberto Rossi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package mip_model.backorders;
+
+import linearization.LinearizationMethod;
+import linearization.LinearizationParameters;
+import linearization.RollingLinearizationParameters;
+import mip_model.ConcertSolver;
+import mip_model.MILPSolution;
+import umontreal.ssj.probdist.Distribution;
+
+/**
+ * Re-plans a fixed-length horizon that moves forward one period at a time. After each shift, 
+ * linearization parameters are updated incrementally with {@link RollingLinearizationParameters} 
+ * and the previous solution, shifted by one period, is passed to CPLEX as a MIP start.
+ */
+public class RollingHorizonPlanner {
+	
+	MILPModelPenalty model;
+	boolean upperBound;
+	LinearizationMethod method;
+	long[] seed;
+	int nbSamples;
+	ConcertSolver solver;
+	
+	PiecewisePenaltyFormulation formulation;
+	MILPSolution solution;
+	double[] start;
+	
+	public RollingHorizonPlanner(MILPModelPenalty model, boolean upperBound, LinearizationMethod method, long[] seed, int nbSamples, int threads){
+		this.model = model;
+		this.upperBound = upperBound;
+		this.method = method;
+		this.seed = seed;
+		this.nbSamples = nbSamples;
+		this.solver = new ConcertSolver(threads);
+		this.formulation = new PiecewisePenaltyFormulation(model, upperBound);
+	}
+	
+	/**
+	 * Solves the current horizon, from the shifted previous solution if there is one; the 
+	 * solution reports total time and time to first incumbent.
+	 */
+	public MILPSolution solve(){
+		solution = solver.solve(formulation.getModel(), start);
+		return solution;
+	}
+	
+	/**
+	 * Moves the horizon forward by one period.
+	 * 
+	 * @param next demand of the new last period
+	 * @param initialStock observed stock at the start of the new first period
+	 */
+	public void shift(Distribution next, double initialStock){
+		int T = model.Nbmonths;
+		Distribution[] demand = new Distribution[T];
+		System.arraycopy(model.demand, 1, demand, 0, T-1);
+		demand[T-1] = next;
+		LinearizationParameters parameters = RollingLinearizationParameters.shift(model.parameters, demand, method, seed, nbSamples);
+		MILPModelPenalty shifted = new MILPModelPenalty(T, demand, model.ordercost, model.holdingcost, model.penaltycost, 
+				model.unitcost, initialStock, model.Nbpartitions, parameters);
+		PiecewisePenaltyFormulation previous = formulation;
+		formulation = new PiecewisePenaltyFormulation(shifted, upperBound);
+		start = solution != null && solution.isFeasible() ? shiftedStart(previous, solution.getValues(), formulation) : null;
+		solution = null;
+		model = shifted;
+	}
+	
+	/**
+	 * Orders of periods 2..T become orders of periods 1..T-1 and the last cycle is extended over 
+	 * the new period; cycle variables follow from the orders. Only integer columns are set, the 
+	 * stock levels are completed by CPLEX.
+	 */
+	static double[] shiftedStart(PiecewisePenaltyFormulation previous, double[] values, PiecewisePenaltyFormulation next){
+		int T = next.T;
+		boolean[] R = new boolean[T];
+		for(int t = 1; t < T; t++) R[t-1] = Math.round(values[previous.getPurchase(t+1)]) == 1;
+		return next.start(R);
+	}
+	
+	public MILPModelPenalty getModel(){
+		return model;
+	}
+	
+	/**
+	 * Solution of the current horizon, null until {@link #solve()} is called after a shift.
+	 */
+	public MILPSolution getSolution(){
+		return solution;
+	}
+	
+	/**
+	 * Replenishment periods of the current solution.
+	 */
+	public boolean[] getR(){
+		boolean[] R = new boolean[model.Nbmonths];
+		for(int t = 0; t < R.length; t++) R[t] = Math.round(solution.getValue(formulation.getPurchase(t+1))) == 1;
+		return R;
+	}
+	
+	/**
+	 * Expected opening stock after ordering of the current solution.
+	 */
+	public double[] getS(){
+		double[] S = new double[model.Nbmonths];
+		for(int t = 0; t < S.length; t++) S[t] = solution.getValue(formulation.getStock(t+1)) + model.expDemand[t];
+		return S;
+	}
+}
@@ -0,0 +1,309 @@
+/**
+ * pwlf-milp: Piecewise linear approximations for the static-dynamic 
+ *            uncertainty strategy in stochastic lot-sizing"
+ * 
+ * MIT License
+ * 
+ * Copyright (c) 2016 Roberto Rossi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package mip_model.backorders;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import linearization.LinearizationParameters;
+
+/**
+ * Solves the piecewise formulation of {@link PiecewisePenaltyFormulation} as a shortest path 
+ * over replenishment cycles, without a MILP solver.
+ * 
+ * In cycle (i, j), covering periods i..j with order-up-to level S, the cuts of period t reduce to 
+ * stockP[t] = e(i,t) + sum_k p_k max(S - c_k(i,t), 0) and stockN[t] = stockP[t] - S + D(i,t), where 
+ * c_k are the conditional expectations, D the expected cycle demand and e the maximum 
+ * approximation error (upper bound only). The cost of a cycle is convex and piecewise linear 
+ * in S with breakpoints c_k(i,t), so its minimum is found by a search over the breakpoints; 
+ * arc costs are computed in parallel, one task per starting period.
+ * 
+ * Before the first order the MILP only requires each period t to belong to some cycle (j, t), 
+ * j <= t, and the stock of t is the initial stock less the expected demand whatever the cycle; 
+ * each such period is therefore charged to its cheapest cycle, see {@link #getCycleStarts()}.
+ * 
+ * Non-negativity of the order quantity couples consecutive cycles and is relaxed, except 
+ * for the first cycle. If the shortest path violates it, order-up-to levels are raised to the 
+ * expected closing stock of the previous cycle; the policy is then feasible but not 
+ * necessarily optimal, see {@link #isExact()}.
+ */
+public class ShortestPathPolicy {
+	
+	MILPModelPenalty data;
+	boolean upperBound;
+	int T;
+	
+	double[] cumulativeDemand;
+	double[][] arcCost;
+	double[][] arcLevel;
+	/* Periods 0..j without an order, each charged to its cheapest cycle start */
+	double[] idleCost;
+	int[] idleStart;
+	
+	boolean[] R;
+	double[] S;
+	int[] cycleStart;
+	double objective;
+	boolean exact;
+	double time;
+	
+	/**
+	 * Computes arc costs on a pool of {@code workers} threads created for this policy, or on 
+	 * the calling thread if {@code workers} is 1.
+	 */
+	public ShortestPathPolicy(MILPModelPenalty data, boolean upperBound, int workers){
+		this(data, upperBound, workers == 1 ? null : new ForkJoinPool(workers), true);
+	}
+	
+	/**
+	 * Computes arc costs on {@code executor}, one task per starting period, or on the calling 
+	 * thread if {@code executor} is null; the executor is not shut down.
+	 */
+	public ShortestPathPolicy(MILPModelPenalty data, boolean upperBound, ExecutorService executor){
+		this(data, upperBound, executor, false);
+	}
+	
+	private ShortestPathPolicy(MILPModelPenalty data, boolean upperBound, ExecutorService executor, boolean owned){
+		this.data = data;
+		this.upperBound = upperBound;
+		this.T = data.Nbmonths;
+		long start = System.nanoTime();
+		cumulativeDemand = new double[T+1];
+		for(int t = 0; t < T; t++) cumulativeDemand[t+1] = cumulativeDemand[t] + data.expDemand[t];
+		try{
+			arcCosts(executor);
+		}finally{
+			if(owned && executor != null) executor.shutdown();
+		}
+		idleCosts();
+		shortestPath();
+		time = (System.nanoTime() - start)*1e-9;
+	}
+	
+	private void arcCosts(ExecutorService executor){
+		arcCost = new double[T][T];
+		arcLevel = new double[T][T];
+		if(executor == null){
+			for(int i = 0; i < T; i++)
+				for(int j = i; j < T; j++) arc(i, j);
+			return;
+		}
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(T);
+		for(int i = 0; i < T; i++){
+			final int first = i;
+			tasks.add(new Callable<Void>(){
+				public Void call(){
+					for(int j = first; j < T; j++) arc(first, j);
+					return null;
+				}
+			});
+		}
+		try{
+			for(Future<Void> f : executor.invokeAll(tasks)) f.get();
+		}catch(InterruptedException | ExecutionException e){
+			throw new IllegalStateException("Arc cost computation failed", e);
+		}
+	}
+	
+	/**
+	 * Minimises the cost of cycle (i, j) over the order-up-to level: the right slope is 
+	 * -p L (+ unit cost if j is the last period) plus (h + p) p_k for every breakpoint at or 
+	 * below S, so the minimum is the first breakpoint with non-negative right slope.
+	 */
+	private void arc(int i, int j){
+		LinearizationParameters parameters = data.parameters;
+		double[] masses = parameters.getProbabilityMasses();
+		int N = data.Nbpartitions;
+		int L = j - i + 1;
+		double h = data.holdingcost, p = data.penaltycost;
+		double[] breakpoints = new double[L*N];
+		for(int t = i; t <= j; t++)
+			for(int k = 0; k < N; k++) 
+				breakpoints[(t-i)*N+k] = parameters.getConditionalExpectation(i, t, k);
+		Arrays.sort(breakpoints);
+		int lo = 0, hi = breakpoints.length - 1;
+		while(lo < hi){
+			int mid = (lo + hi) >>> 1;
+			if(rightSlope(i, j, breakpoints[mid], masses) >= 0) hi = mid; else lo = mid + 1;
+		}
+		double level = breakpoints[lo];
+		if(i == 0) level = Math.max(level, data.initialStock);
+		arcLevel[i][j] = level;
+		arcCost[i][j] = data.ordercost + cost(i, j, level);
+	}
+	
+	/**
+	 * Period t without a preceding order, charged to cycle (j, t), has the level 
+	 * initialStock - D(0, j-1); idleCost[t] is the cost of periods 0..t, each at its cheapest j.
+	 */
+	private void idleCosts(){
+		idleCost = new double[T];
+		idleStart = new int[T];
+		double total = 0;
+		for(int t = 0; t < T; t++){
+			double best = Double.POSITIVE_INFINITY;
+			for(int j = 0; j <= t; j++){
+				double c = periodCost(j, t, data.initialStock - cumulativeDemand[j]);
+				if(c < best){
+					best = c;
+					idleStart[t] = j;
+				}
+			}
+			total += best;
+			idleCost[t] = total;
+		}
+	}
+	
+	private double rightSlope(int i, int j, double level, double[] masses){
+		double slope = -data.penaltycost*(j - i + 1) + (j == T-1 ? data.unitcost : 0);
+		double weight = data.holdingcost + data.penaltycost;
+		for(int t = i; t <= j; t++)
+			for(int k = 0; k < masses.length; k++)
+				if(data.parameters.getConditionalExpectation(i, t, k) <= level) slope += weight*masses[k];
+		return slope;
+	}
+	
+	/**
+	 * Holding, penalty and (last cycle) unit cost of cycle (i, j) at level S, as evaluated by the 
+	 * cuts of the MILP: stockP[t] is the largest cut, so that unsorted conditional expectations 
+	 * are handled as in the MILP.
+	 */
+	double cost(int i, int j, double level){
+		double cost = 0;
+		for(int t = i; t <= j; t++) cost += periodCost(i, t, level);
+		return cost;
+	}
+	
+	/**
+	 * Cost of period t in a cycle starting in period i at level S.
+	 */
+	double periodCost(int i, int t, double level){
+		LinearizationParameters parameters = data.parameters;
+		double[] masses = parameters.getProbabilityMasses();
+		double error = upperBound ? parameters.getMaximumApproximationError(i, t) : 0;
+		double cut = 0, mass = 0, partial = 0;
+		for(int k = 0; k < masses.length; k++){
+			mass += masses[k];
+			partial += masses[k]*parameters.getConditionalExpectation(i, t, k);
+			cut = Math.max(cut, mass*level - partial);
+		}
+		double stock = level - (cumulativeDemand[t+1] - cumulativeDemand[i]);
+		double onHand = error + cut;
+		double cost = data.holdingcost*onHand + data.penaltycost*(onHand - stock);
+		if(t == T-1) cost += data.unitcost*stock;
+		return cost;
+	}
+	
+	private void shortestPath(){
+		double[] best = new double[T+1];
+		int[] predecessor = new int[T+1];
+		boolean idle = false;
+		for(int j = 0; j < T; j++){
+			best[j+1] = Double.POSITIVE_INFINITY;
+			for(int i = 0; i <= j; i++){
+				double c = best[i] + (i == 0 ? Math.min(arcCost[0][j], idleCost[j]) : arcCost[i][j]);
+				if(c < best[j+1]){
+					best[j+1] = c;
+					predecessor[j+1] = i;
+				}
+			}
+		}
+		/* Cycle start periods, in order */
+		List<Integer> starts = new ArrayList<Integer>();
+		for(int j = T; j > 0; j = predecessor[j]) starts.add(0, predecessor[j]);
+		starts.add(T);
+		
+		R = new boolean[T];
+		S = new double[T];
+		cycleStart = new int[T];
+		exact = true;
+		objective = data.unitcost*(cumulativeDemand[T] - data.initialStock);
+		double closing = data.initialStock;
+		for(int c = 0; c + 1 < starts.size(); c++){
+			int i = starts.get(c), j = starts.get(c+1) - 1;
+			double level;
+			if(i == 0 && idleCost[j] <= arcCost[0][j]){
+				level = data.initialStock;
+				objective += idleCost[j];
+				System.arraycopy(idleStart, 0, cycleStart, 0, j+1);
+			}else{
+				Arrays.fill(cycleStart, i, j+1, i);
+				level = arcLevel[i][j];
+				if(level < closing){
+					level = closing;
+					exact = false;
+				}
+				R[i] = true;
+				objective += data.ordercost + cost(i, j, level);
+			}
+			for(int t = i; t <= j; t++) S[t] = level - (cumulativeDemand[t] - cumulativeDemand[i]);
+			closing = level - (cumulativeDemand[j+1] - cumulativeDemand[i]);
+		}
+	}
+	
+	public boolean[] getR(){
+		return R;
+	}
+	
+	/**
+	 * Expected opening stock of each period after ordering, i.e. stock[t] + expDemand[t] in the MILP.
+	 */
+	public double[] getS(){
+		return S;
+	}
+	
+	/**
+	 * Start of the cycle each period is charged to, i.e. P[j+1,t+1] = 1 in the MILP for 
+	 * j = getCycleStarts()[t]; before the first order, the cheapest start.
+	 */
+	public int[] getCycleStarts(){
+		return cycleStart;
+	}
+	
+	public double getObjective(){
+		return objective;
+	}
+	
+	/**
+	 * Whether the shortest path satisfied all order quantity constraints, in which case it is 
+	 * an optimal solution of the MILP.
+	 */
+	public boolean isExact(){
+		return exact;
+	}
+	
+	public double getTime(){
+		return time;
+	}
+}
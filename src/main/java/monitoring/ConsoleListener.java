@@ -0,0 +1,85 @@
+/**
+ * pwlf-milp: Piecewise linear approximations for the static-dynamic 
+ *            uncertainty strategy in stochastic lot-sizing"
+ * 
+ * MIT License
+ * 
+ * Copyright (c) 2016 Roberto Rossi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package monitoring;
+
+import java.io.PrintStream;
+import java.util.function.Consumer;
+
+/**
+ * Prints events to a stream in the format of the former console output: expected demands, 
+ * objective, OPL solution, simulation runs and per-period averages. Stage times are printed 
+ * as well, preceded by their label if any; simulation and MIP progress are not.
+ */
+public class ConsoleListener implements PipelineListener {
+	
+	PrintStream out;
+	
+	public ConsoleListener(){
+		this(System.out);
+	}
+	
+	public ConsoleListener(PrintStream out){
+		this.out = out;
+	}
+	
+	public void stage(Stage stage, String label, double seconds){
+		out.println((label == null ? "" : label + " ") + stage + ": " + seconds);
+	}
+	
+	public void expectedDemand(double[] expDemand){
+		StringBuilder line = new StringBuilder();
+		for(double d : expDemand) line.append(d).append('\t');
+		out.println(line);
+	}
+	
+	public void objective(double objective){
+		out.println(Double.isNaN(objective) ? "No solution!" : "OBJECTIVE: " + objective);
+	}
+	
+	public void solution(Consumer<PrintStream> printer){
+		printer.accept(out);
+	}
+	
+	public void simulationCompleted(long runs, double mean, double halfWidth, double varianceReduction, double[] onHand, double[] backorders){
+		out.println("Simulation runs: "+runs);
+		if(varianceReduction != 1) out.println("Variance reduction factor: "+String.format("%.2f", varianceReduction));
+		StringBuilder periods = new StringBuilder(), stockP = new StringBuilder(), stockN = new StringBuilder();
+		for(int i = 0; i < onHand.length; i++){
+			periods.append("Period: ").append(i).append('\t');
+			stockP.append(String.format("%.2f", onHand[i])).append('\t');
+			stockN.append(String.format("%.2f", backorders[i])).append('\t');
+		}
+		out.println(periods);
+		out.println(stockP);
+		out.println(stockN);
+	}
+	
+	public void polished(double initialCost, double cost){
+		out.println("POLISHED: " + initialCost + " -> " + cost);
+	}
+}
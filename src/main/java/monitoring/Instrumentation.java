@@ -0,0 +1,171 @@
+/**
+ * pwlf-milp: Piecewise linear approximations for the static-dynamic 
+ *            uncertainty strategy in stochastic lot-sizing"
+ * 
+ * MIT License
+ * 
+ * Copyright (c) 2016 Roberto Rossi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package monitoring;
+
+import java.io.PrintStream;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Process-wide registry of {@link PipelineListener}s. Instrumented code fires events through 
+ * the static methods below, which forward them to every registered listener in registration 
+ * order. A {@link JfrListener} is registered by default, its events cost a flag check when no 
+ * recording is active; console output is obtained by registering a {@link ConsoleListener}.
+ * 
+ * Stages timed on a thread carry the label set with {@link #setLabel(String)} on that thread, 
+ * e.g. the model or item being processed, so that concurrent solves can be told apart.
+ */
+public final class Instrumentation {
+	
+	private static final List<PipelineListener> listeners = new CopyOnWriteArrayList<PipelineListener>();
+	private static final ThreadLocal<String> label = new ThreadLocal<String>();
+	
+	static {
+		listeners.add(new JfrListener());
+	}
+	
+	private Instrumentation(){}
+	
+	public static void addListener(PipelineListener listener){
+		listeners.add(listener);
+	}
+	
+	public static void removeListener(PipelineListener listener){
+		listeners.remove(listener);
+	}
+	
+	/**
+	 * True if a listener of the given type is registered, e.g. to keep solver logs only when 
+	 * a {@link ConsoleListener} is present.
+	 */
+	public static boolean hasListener(Class<? extends PipelineListener> type){
+		for(PipelineListener listener : listeners) 
+			if(type.isInstance(listener)) return true;
+		return false;
+	}
+	
+	/**
+	 * Labels the stages subsequently started on the current thread; {@code null} clears the label. 
+	 * Returns the previous label, to be restored when the labelled work is done.
+	 */
+	public static String setLabel(String label){
+		String previous = Instrumentation.label.get();
+		if(label == null) Instrumentation.label.remove();
+		else Instrumentation.label.set(label);
+		return previous;
+	}
+	
+	/**
+	 * @return the label of the current thread, {@code null} if none.
+	 */
+	public static String getLabel(){
+		return label.get();
+	}
+	
+	/**
+	 * Starts timing {@code stage} under the label of the current thread; the stage event is 
+	 * fired by {@link Timer#stop()}, which should be called in a {@code finally} block.
+	 */
+	public static Timer start(Stage stage){
+		return new Timer(stage, label.get());
+	}
+	
+	public static void stage(Stage stage, double seconds){
+		stage(stage, label.get(), seconds);
+	}
+	
+	public static void stage(Stage stage, String label, double seconds){
+		for(PipelineListener listener : listeners) listener.stage(stage, label, seconds);
+	}
+	
+	public static void expectedDemand(double[] expDemand){
+		for(PipelineListener listener : listeners) listener.expectedDemand(expDemand);
+	}
+	
+	public static void dataFed(long items, long bytes){
+		for(PipelineListener listener : listeners) listener.dataFed(items, bytes);
+	}
+	
+	public static void mipProgress(double time, double incumbent, double bound, double gap){
+		for(PipelineListener listener : listeners) listener.mipProgress(time, incumbent, bound, gap);
+	}
+	
+	public static void objective(double objective){
+		for(PipelineListener listener : listeners) listener.objective(objective);
+	}
+	
+	public static void solution(Consumer<PrintStream> printer){
+		for(PipelineListener listener : listeners) listener.solution(printer);
+	}
+	
+	public static void simulationProgress(long runs, double mean, double halfWidth, double time){
+		for(PipelineListener listener : listeners) listener.simulationProgress(runs, mean, halfWidth, time);
+	}
+	
+	public static void simulationCompleted(long runs, double mean, double halfWidth, double varianceReduction, double[] onHand, double[] backorders){
+		for(PipelineListener listener : listeners) listener.simulationCompleted(runs, mean, halfWidth, varianceReduction, onHand, backorders);
+	}
+	
+	public static void polished(double initialCost, double cost){
+		for(PipelineListener listener : listeners) listener.polished(initialCost, cost);
+	}
+	
+	/**
+	 * Wall-clock timer of one stage. If a {@link JfrListener} is registered, the JFR stage event 
+	 * begins when the timer starts and ends when it stops.
+	 */
+	public static final class Timer {
+		Stage stage;
+		String label;
+		JfrListener.StageEvent event;
+		long begin;
+		boolean stopped;
+		double seconds;
+		
+		Timer(Stage stage, String label){
+			this.stage = stage;
+			this.label = label;
+			if(hasListener(JfrListener.class)) this.event = JfrListener.begin(stage, label);
+			this.begin = System.nanoTime();
+		}
+		
+		/**
+		 * Fires the stage event and returns the elapsed time in seconds; later calls return the 
+		 * same time and fire nothing.
+		 */
+		public double stop(){
+			if(stopped) return seconds;
+			stopped = true;
+			seconds = (System.nanoTime() - begin)*1e-9;
+			if(event != null) JfrListener.end(event);
+			Instrumentation.stage(stage, label, seconds);
+			return seconds;
+		}
+	}
+}
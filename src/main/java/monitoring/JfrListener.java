@@ -0,0 +1,177 @@
+/**
+ * pwlf-milp: Piecewise linear approximations for the static-dynamic 
+ *            uncertainty strategy in stochastic lot-sizing"
+ * 
+ * MIT License
+ * 
+ * Copyright (c) 2016 Roberto Rossi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Emits pipeline events as custom JDK Flight Recorder events in the "pwlf" category, e.g. 
+ * {@code java -XX:StartFlightRecording=filename=plan.jfr ...}; events are only built when 
+ * enabled in the active recording. Stage events are begun and committed by 
+ * {@link Instrumentation.Timer}, so that they span the stage on the recording timeline and 
+ * carry the thread label.
+ */
+public class JfrListener implements PipelineListener {
+	
+	/**
+	 * @return the begun event, {@code null} if stage events are not enabled.
+	 */
+	static StageEvent begin(Stage stage, String label){
+		StageEvent event = new StageEvent();
+		if(!event.isEnabled()) return null;
+		event.stage = stage.name();
+		event.label = label;
+		event.begin();
+		return event;
+	}
+	
+	static void end(StageEvent event){
+		event.end();
+		if(event.shouldCommit()) event.commit();
+	}
+	
+	public void dataFed(long items, long bytes){
+		DataFeedEvent event = new DataFeedEvent();
+		if(!event.isEnabled()) return;
+		event.items = items;
+		event.bytes = bytes;
+		event.commit();
+	}
+	
+	public void mipProgress(double time, double incumbent, double bound, double gap){
+		MipProgressEvent event = new MipProgressEvent();
+		if(!event.isEnabled()) return;
+		event.time = time;
+		event.incumbent = incumbent;
+		event.bound = bound;
+		event.gap = gap;
+		event.commit();
+	}
+	
+	public void simulationProgress(long runs, double mean, double halfWidth, double time){
+		SimulationProgressEvent event = new SimulationProgressEvent();
+		if(!event.isEnabled()) return;
+		event.runs = runs;
+		event.mean = mean;
+		event.halfWidth = halfWidth;
+		event.time = time;
+		event.commit();
+	}
+	
+	public void simulationCompleted(long runs, double mean, double halfWidth, double varianceReduction, double[] onHand, double[] backorders){
+		SimulationEvent event = new SimulationEvent();
+		if(!event.isEnabled()) return;
+		event.runs = runs;
+		event.mean = mean;
+		event.halfWidth = halfWidth;
+		event.varianceReduction = varianceReduction;
+		event.commit();
+	}
+	
+	@Name("pwlf.Stage")
+	@Label("Pipeline Stage")
+	@Category("pwlf")
+	static class StageEvent extends Event {
+		@Label("Stage")
+		String stage;
+		
+		@Label("Label")
+		@Description("Model or item the stage belongs to")
+		String label;
+	}
+	
+	@Name("pwlf.DataFeed")
+	@Label("OPL Data Feed")
+	@Category("pwlf")
+	static class DataFeedEvent extends Event {
+		@Label("Items")
+		long items;
+		
+		@Label("Bytes")
+		@DataAmount
+		long bytes;
+	}
+	
+	@Name("pwlf.MipProgress")
+	@Label("MIP Progress")
+	@Category("pwlf")
+	static class MipProgressEvent extends Event {
+		@Label("Time")
+		@Description("Seconds since the solve started")
+		double time;
+		
+		@Label("Incumbent")
+		double incumbent;
+		
+		@Label("Bound")
+		double bound;
+		
+		@Label("Gap")
+		double gap;
+	}
+	
+	@Name("pwlf.SimulationProgress")
+	@Label("Simulation Progress")
+	@Category("pwlf")
+	static class SimulationProgressEvent extends Event {
+		@Label("Runs")
+		long runs;
+		
+		@Label("Mean")
+		double mean;
+		
+		@Label("Half-width")
+		double halfWidth;
+		
+		@Label("Time")
+		@Description("Seconds since the simulation started")
+		double time;
+	}
+	
+	@Name("pwlf.Simulation")
+	@Label("Simulation")
+	@Category("pwlf")
+	static class SimulationEvent extends Event {
+		@Label("Runs")
+		long runs;
+		
+		@Label("Mean")
+		double mean;
+		
+		@Label("Half-width")
+		double halfWidth;
+		
+		@Label("Variance Reduction")
+		double varianceReduction;
+	}
+}
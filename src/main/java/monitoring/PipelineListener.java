@@ -0,0 +1,97 @@
+/**
+ * pwlf-milp: Piecewise linear approximations for the static-dynamic 
+ *            uncertainty strategy in stochastic lot-sizing"
+ * 
+ * MIT License
+ * 
+ * Copyright (c) 2016 Roberto Rossi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package monitoring;
+
+import java.io.PrintStream;
+import java.util.function.Consumer;
+
+/**
+ * Receives instrumentation events, see {@link Instrumentation}. All methods do nothing by 
+ * default. Events may be fired concurrently from several threads.
+ */
+public interface PipelineListener {
+	
+	/**
+	 * A stage completed in {@code seconds} of wall-clock time.
+	 */
+	default void stage(Stage stage, double seconds){}
+	
+	/**
+	 * A stage completed in {@code seconds} of wall-clock time on a thread labelled {@code label}, 
+	 * {@code null} if unlabelled, see {@link Instrumentation#setLabel(String)}. Forwards to 
+	 * {@link #stage(Stage, double)} by default.
+	 */
+	default void stage(Stage stage, String label, double seconds){
+		stage(stage, seconds);
+	}
+	
+	/**
+	 * Expected period demands of a model instance, as obtained from the linearization parameters.
+	 */
+	default void expectedDemand(double[] expDemand){}
+	
+	/**
+	 * Model data fed to OPL: number of items and their size in bytes, element names included.
+	 */
+	default void dataFed(long items, long bytes){}
+	
+	/**
+	 * Progress of a MIP solve: seconds since the solve started, incumbent objective (NaN if 
+	 * none), best bound and relative gap.
+	 */
+	default void mipProgress(double time, double incumbent, double bound, double gap){}
+	
+	/**
+	 * Objective of a solved model; {@code NaN} if no solution was found.
+	 */
+	default void objective(double objective){}
+	
+	/**
+	 * A textual solution is available; {@code printer} writes it to a stream and is only worth 
+	 * calling by listeners that print.
+	 */
+	default void solution(Consumer<PrintStream> printer){}
+	
+	/**
+	 * Progress of a simulation: replications so far, current mean cost and confidence interval 
+	 * half-width, seconds since the simulation started.
+	 */
+	default void simulationProgress(long runs, double mean, double halfWidth, double time){}
+	
+	/**
+	 * End of a simulation: replications, mean cost, confidence interval half-width, variance 
+	 * reduction factor (1 for crude Monte Carlo) and per-period average on-hand stock and 
+	 * backorders.
+	 */
+	default void simulationCompleted(long runs, double mean, double halfWidth, double varianceReduction, double[] onHand, double[] backorders){}
+	
+	/**
+	 * Order-up-to levels polished from {@code initialCost} to {@code cost}.
+	 */
+	default void polished(double initialCost, double cost){}
+}
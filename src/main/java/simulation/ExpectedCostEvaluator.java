@@ -0,0 +1,266 @@
+/**
+ * pwlf-milp: Piecewise linear approximations for the static-dynamic 
+ *            uncertainty strategy in stochastic lot-sizing"
+ * 
+ * MIT License
+ * 
+ * Copyright (c) 2016 Roberto Rossi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package simulation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import linearization.AnalyticLinearizationParameters;
+import linearization.Convolution;
+import umontreal.ssj.probdist.DiscreteDistributionInt;
+import umontreal.ssj.probdist.Distribution;
+import umontreal.ssj.probdist.NormalDist;
+
+/**
+ * Exact expected cost of an RS policy with backorders, the analytic counterpart of 
+ * {@link SimulatePoliciesBackorders#simulatePenalty}: same cost structure and same ordering 
+ * rule, stock is raised to max(stock, S[i]) in review periods.
+ * 
+ * Integer demand is handled by propagating the distribution of the inventory level period by 
+ * period, i.e. by prefix convolution of the period demands, so that stock in excess of the 
+ * order-up-to level at a review is accounted for. Normal demand is evaluated in closed form 
+ * through the first order loss function of the cycle demand, assuming that order-up-to levels 
+ * are reached; {@link #getExcessProbability()} is the largest probability that stock exceeds 
+ * the order-up-to level at a review, the result is exact when it is negligible, see 
+ * {@link #isExact()}.
+ */
+public class ExpectedCostEvaluator {
+	
+	/**
+	 * Largest excess probability for which the normal closed form is considered exact.
+	 */
+	public static final double EXCESS_TOLERANCE = 1e-6;
+	
+	boolean discrete;
+	double expectedCost;
+	double[] expectedOnHand;
+	double[] expectedBackorders;
+	double[] expectedOrder;
+	double excessProbability;
+	double time;
+	
+	ExpectedCostEvaluator(int periods){
+		expectedOnHand = new double[periods];
+		expectedBackorders = new double[periods];
+		expectedOrder = new double[periods];
+	}
+	
+	public static boolean isApplicable(Distribution[] demand){
+		return all(demand, NormalDist.class) || all(demand, DiscreteDistributionInt.class);
+	}
+	
+	private static boolean all(Distribution[] demand, Class<?> type){
+		for(Distribution d : demand) 
+			if(!type.isInstance(d)) return false;
+		return true;
+	}
+	
+	public static ExpectedCostEvaluator evaluate(
+			Distribution[] demand,
+			boolean[] R,
+			double[] S,
+			double a,
+			double h,
+			double p,
+			double v,
+			double initialStock){
+		double[] vArray = new double[demand.length];
+		for(int i = 0; i < vArray.length; i++) vArray[i] = v;
+		return evaluate(demand,R,S,a,h,p,vArray,initialStock);
+	}
+	
+	/**
+	 * @throws IllegalArgumentException if demand is neither all normal nor all integer, see 
+	 * {@link #isApplicable(Distribution[])}.
+	 */
+	public static ExpectedCostEvaluator evaluate(
+			Distribution[] demand,
+			boolean[] R,
+			double[] S,
+			double a,
+			double h,
+			double p,
+			double[] v,
+			double initialStock){
+		long begin = System.nanoTime();
+		ExpectedCostEvaluator evaluator = new ExpectedCostEvaluator(demand.length);
+		if(all(demand, NormalDist.class))
+			evaluator.normal(demand, R, S, initialStock);
+		else if(all(demand, DiscreteDistributionInt.class)){
+			evaluator.discrete = true;
+			evaluator.discrete(demand, R, S, initialStock);
+		}
+		else
+			throw new IllegalArgumentException("Demand must be all normal or all integer");
+		for(int i = 0; i < demand.length; i++){
+			if(R[i]) evaluator.expectedCost += a + v[i]*evaluator.expectedOrder[i];
+			evaluator.expectedCost += h*evaluator.expectedOnHand[i] + p*evaluator.expectedBackorders[i];
+		}
+		evaluator.time = (System.nanoTime() - begin)*1e-9;
+		return evaluator;
+	}
+	
+	/**
+	 * Level at the end of period i is b - D(j..i), b the order-up-to level of the last review j 
+	 * or the initial stock, D(j..i) normal with the summed means and variances.
+	 */
+	private void normal(Distribution[] demand, boolean[] R, double[] S, double initialStock){
+		double base = initialStock;
+		double mean = 0;
+		double variance = 0;
+		for(int i = 0; i < demand.length; i++){
+			if(R[i]){
+				/* Level before the order is base - D(j..i-1) */
+				expectedOrder[i] = loss(S[i] - base, -mean, variance);
+				excessProbability = Math.max(excessProbability, variance > 0 ? 
+						NormalDist.cdf01((base - S[i] - mean)/Math.sqrt(variance)) : (base - mean > S[i] ? 1 : 0));
+				base = S[i];
+				mean = 0;
+				variance = 0;
+			}
+			NormalDist d = (NormalDist) demand[i];
+			mean += d.getMu();
+			variance += d.getSigma()*d.getSigma();
+			expectedOnHand[i] = loss(base, mean, variance);
+			expectedBackorders[i] = expectedOnHand[i] - (base - mean);
+		}
+	}
+	
+	/**
+	 * E[max(x - D, 0)] for D normal with the given mean and variance.
+	 */
+	private static double loss(double x, double mean, double variance){
+		if(variance <= 0) return Math.max(x - mean, 0);
+		double sigma = Math.sqrt(variance);
+		double z = (x - mean)/sigma;
+		return sigma*(z*NormalDist.cdf01(z) + NormalDist.density01(z));
+	}
+	
+	/**
+	 * Inventory levels are kept as a list of components, each a probability mass function of 
+	 * base - k for k = lo, lo+1, ...; a review at level S collapses all levels at or below S into 
+	 * a new component with base S, components whose levels all lie above S survive.
+	 */
+	private void discrete(Distribution[] demand, boolean[] R, double[] S, double initialStock){
+		List<Component> components = new ArrayList<Component>();
+		components.add(new Component(initialStock, 0, new double[]{1}));
+		int[] offset = new int[1];
+		for(int i = 0; i < demand.length; i++){
+			if(R[i]){
+				double collapsed = 0;
+				double order = 0;
+				List<Component> survivors = new ArrayList<Component>();
+				for(Component c : components){
+					/* Levels base - k > S[i] for k < base - S[i] */
+					long split = Math.min(Math.max((long) Math.ceil(c.base - S[i]) - c.lo, 0), c.pmf.length);
+					double kept = 0;
+					for(int k = 0; k < c.pmf.length; k++){
+						if(k < split){
+							kept += c.pmf[k];
+						}else{
+							collapsed += c.pmf[k];
+							order += c.pmf[k]*(S[i] - (c.base - c.lo - k));
+						}
+					}
+					if(kept > AnalyticLinearizationParameters.TAIL){
+						double[] pmf = new double[(int) split];
+						System.arraycopy(c.pmf, 0, pmf, 0, pmf.length);
+						survivors.add(new Component(c.base, c.lo, pmf));
+					}
+					excessProbability = Math.max(excessProbability, kept);
+				}
+				survivors.add(new Component(S[i], 0, new double[]{collapsed}));
+				components = survivors;
+				expectedOrder[i] = order;
+			}
+			double[] pmf = AnalyticLinearizationParameters.truncate((DiscreteDistributionInt) demand[i], offset);
+			for(Component c : components){
+				c.pmf = Convolution.convolve(c.pmf, pmf);
+				c.lo += offset[0];
+				for(int k = 0; k < c.pmf.length; k++){
+					double level = c.base - c.lo - k;
+					if(level > 0) expectedOnHand[i] += c.pmf[k]*level;
+					else expectedBackorders[i] -= c.pmf[k]*level;
+				}
+			}
+		}
+	}
+	
+	private static class Component {
+		double base;
+		long lo;
+		double[] pmf;
+		
+		Component(double base, long lo, double[] pmf){
+			this.base = base;
+			this.lo = lo;
+			this.pmf = pmf;
+		}
+	}
+	
+	public double getExpectedCost(){
+		return expectedCost;
+	}
+	
+	/**
+	 * Expected on-hand stock at the end of period i.
+	 */
+	public double getExpectedOnHand(int i){
+		return expectedOnHand[i];
+	}
+	
+	/**
+	 * Expected backorders at the end of period i.
+	 */
+	public double getExpectedBackorders(int i){
+		return expectedBackorders[i];
+	}
+	
+	/**
+	 * Expected order quantity in review period i, 0 in other periods.
+	 */
+	public double getExpectedOrder(int i){
+		return expectedOrder[i];
+	}
+	
+	/**
+	 * True for integer demand, and for normal demand when the excess probability is within 
+	 * {@link #EXCESS_TOLERANCE}.
+	 */
+	public boolean isExact(){
+		return discrete || excessProbability <= EXCESS_TOLERANCE;
+	}
+	
+	public double getExcessProbability(){
+		return excessProbability;
+	}
+	
+	public double getTime(){
+		return time;
+	}
+}
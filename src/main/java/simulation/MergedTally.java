@@ -0,0 +1,115 @@
+/**
+ * pwlf-milp: Piecewise linear approximations for the static-dynamic 
+ *            uncertainty strategy in stochastic lot-sizing"
+ * 
+ * MIT License
+ * 
+ * Copyright (c) 2016 Roberto Rossi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package simulation;
+
+import umontreal.ssj.probdist.NormalDist;
+import umontreal.ssj.stat.Tally;
+
+/**
+ * Mergeable summary of a set of {@code Tally} objects.
+ * 
+ * SSJ {@code Tally} objects cannot be combined, so partial statistics collected by 
+ * independent workers are pooled here using the pairwise update of Chan, Golub and LeVeque. 
+ * Merging the same tallies in the same order always yields the same summary.
+ */
+public class MergedTally {
+	
+	long numObs;
+	double average;
+	double sumSquares;
+	
+	public MergedTally(){
+		init();
+	}
+	
+	public void init(){
+		numObs = 0;
+		average = 0;
+		sumSquares = 0;
+	}
+	
+	public void merge(Tally tally){
+		int n = tally.numberObs();
+		double tallyAverage = n > 0 ? tally.average() : 0;
+		double tallySumSquares = n > 1 ? tally.variance()*(n-1) : 0;
+		merge(n, tallyAverage, tallySumSquares);
+	}
+	
+	public void merge(MergedTally tally){
+		merge(tally.numObs, tally.average, tally.sumSquares);
+	}
+	
+	/**
+	 * Merges statistics kept as a plain running sum and sum of squares.
+	 */
+	public void mergeSums(long n, double sum, double sumSquares){
+		if(n == 0) return;
+		double mean = sum/n;
+		merge(n, mean, Math.max(sumSquares - sum*mean, 0));
+	}
+	
+	void merge(long n, double mean, double m2){
+		if(n == 0) return;
+		if(numObs == 0){
+			numObs = n;
+			average = mean;
+			sumSquares = m2;
+			return;
+		}
+		long total = numObs + n;
+		double delta = mean - average;
+		average += delta*n/total;
+		sumSquares += m2 + delta*delta*((double)numObs*n/total);
+		numObs = total;
+	}
+	
+	public long numberObs(){
+		return numObs;
+	}
+	
+	public double average(){
+		return numObs > 0 ? average : Double.NaN;
+	}
+	
+	public double variance(){
+		return numObs > 1 ? sumSquares/(numObs-1) : Double.NaN;
+	}
+	
+	public double standardDeviation(){
+		return Math.sqrt(variance());
+	}
+	
+	/**
+	 * Same normal confidence interval as {@code Tally.confidenceIntervalNormal}.
+	 */
+	public void confidenceIntervalNormal(double level, double[] centerAndRadius){
+		double z = NormalDist.inverseF01(0.5*(level+1));
+		centerAndRadius[0] = average();
+		centerAndRadius[1] = z*Math.sqrt(variance()/numObs);
+	}
+}
@@ -0,0 +1,264 @@
+/**
+ * pwlf-milp: Piecewise linear approximations for the static-dynamic 
+ *            uncertainty strategy in stochastic lot-sizing"
+ * 
+ * MIT License
+ * 
+ * Copyright (c) 2016 Roberto Rossi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package simulation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import simulation.sampling.InversionTables;
+import umontreal.ssj.probdist.Distribution;
+import umontreal.ssj.rng.MRG32k3a;
+
+/**
+ * Improves the order-up-to levels of an RS policy for a fixed replenishment pattern R by 
+ * sample average approximation: a fixed set of demand paths is simulated at every step, the 
+ * sample average cost and its IPA gradient (see {@link PenaltyKernel#simulate(double[])}) 
+ * are obtained from the same replications, and S moves along the normalized negative gradient. 
+ * A step is accepted if the sample average cost decreases, the step length then grows by half; 
+ * otherwise it is halved. Polishing stops when the step length falls below the tolerance or 
+ * after the maximum number of iterations.
+ * 
+ * Replications are split among workers, worker w simulates its share on substream w of the 
+ * seed; since the same paths are reused at every step and partial sums are combined in worker 
+ * order, the result only depends on the seed and on the number of workers.
+ */
+public class OrderUpToPolisher {
+	
+	int replications;
+	int iterations;
+	long[] seed;
+	int workers;
+	
+	/**
+	 * @param replications number of demand paths of the sample average approximation.
+	 * @param iterations maximum number of steps.
+	 * @param seed MRG32k3a seed (six values); worker w uses substream w of this stream.
+	 * @param workers number of workers in the fork-join pool.
+	 */
+	public OrderUpToPolisher(int replications, int iterations, long[] seed, int workers){
+		this.replications = replications;
+		this.iterations = iterations;
+		this.seed = seed;
+		this.workers = workers;
+	}
+	
+	public Result polish(
+			Distribution[] demand,
+			boolean[] R,
+			double[] S,
+			double a,
+			double h,
+			double p,
+			double v,
+			double initialStock){
+		double[] vArray = new double[demand.length];
+		for(int i = 0; i < vArray.length; i++) vArray[i] = v;
+		return polish(demand,R,S,a,h,p,vArray,initialStock);
+	}
+	
+	public Result polish(
+			Distribution[] demand,
+			boolean[] R,
+			double[] S,
+			double a,
+			double h,
+			double p,
+			double[] v,
+			double initialStock){
+		long begin = System.nanoTime();
+		demand = InversionTables.tabulate(demand);
+		int T = demand.length;
+		double scale = 0;
+		for(Distribution d : demand) scale += d.getMean()/T;
+		double step = 0.5*scale;
+		double tolerance = 1e-3*scale;
+		
+		MRG32k3a stream = new MRG32k3a();
+		stream.setSeed(seed);
+		int batch = (int) Math.ceil((double) replications/workers);
+		int chunks = (batch + PenaltyKernel.DEFAULT_BLOCK - 1)/PenaltyKernel.DEFAULT_BLOCK;
+		int block = (batch + chunks - 1)/chunks;
+		List<GradientWorker> tasks = new ArrayList<GradientWorker>();
+		for(int w = 0; w < workers; w++){
+			tasks.add(new GradientWorker(demand,R,a,h,p,v,initialStock,stream.clone(),block,chunks));
+			stream.resetNextSubstream();
+		}
+		
+		ForkJoinPool pool = new ForkJoinPool(workers);
+		try{
+			double[] current = S.clone();
+			double[] gradient = new double[T];
+			double cost = evaluate(pool, tasks, current, gradient);
+			Result result = new Result(cost);
+			double[] trial = new double[T];
+			double[] trialGradient = new double[T];
+			int k = 0;
+			while(k < iterations && step >= tolerance){
+				k++;
+				double norm = 0;
+				for(int i = 0; i < T; i++) if(R[i]) norm = Math.max(norm, Math.abs(gradient[i]));
+				if(norm == 0) break;
+				for(int i = 0; i < T; i++) trial[i] = R[i] ? current[i] - step*gradient[i]/norm : current[i];
+				double trialCost = evaluate(pool, tasks, trial, trialGradient);
+				if(trialCost < cost){
+					System.arraycopy(trial, 0, current, 0, T);
+					System.arraycopy(trialGradient, 0, gradient, 0, T);
+					cost = trialCost;
+					step *= 1.5;
+				}else{
+					step *= 0.5;
+				}
+			}
+			result.S = current;
+			result.cost = cost;
+			result.iterations = k;
+			result.runs = (long) tasks.size()*block*chunks;
+			result.time = (System.nanoTime() - begin)*1e-9;
+			return result;
+		}catch(InterruptedException | ExecutionException e){
+			throw new IllegalStateException("Parallel polishing failed", e);
+		}finally{
+			pool.shutdown();
+		}
+	}
+	
+	/**
+	 * Sample average cost of {@code S} over the fixed demand paths; its gradient is stored in 
+	 * {@code gradient}.
+	 */
+	private static double evaluate(ForkJoinPool pool, List<GradientWorker> tasks, double[] S, double[] gradient) 
+			throws InterruptedException, ExecutionException{
+		for(GradientWorker task : tasks) task.S = S;
+		for(Future<Void> f : pool.invokeAll(tasks)) f.get();
+		double cost = 0;
+		long runs = 0;
+		Arrays.fill(gradient, 0);
+		for(GradientWorker task : tasks){
+			cost += task.cost;
+			runs += task.runs;
+			for(int i = 0; i < gradient.length; i++) gradient[i] += task.gradient[i];
+		}
+		for(int i = 0; i < gradient.length; i++) gradient[i] /= runs;
+		return cost/runs;
+	}
+	
+	/**
+	 * Simulates a fixed share of the demand paths, re-drawn from the start of its substream at 
+	 * every call.
+	 */
+	private static class GradientWorker implements Callable<Void> {
+		Distribution[] demand;
+		boolean[] R;
+		double a, h, p;
+		double[] v;
+		double initialStock;
+		MRG32k3a stream;
+		int block;
+		int chunks;
+		
+		double[] S;
+		double cost;
+		long runs;
+		double[] gradient;
+		
+		GradientWorker(Distribution[] demand, boolean[] R, double a, double h, double p, double[] v, double initialStock, MRG32k3a stream, int block, int chunks){
+			this.demand = demand;
+			this.R = R;
+			this.a = a;
+			this.h = h;
+			this.p = p;
+			this.v = v;
+			this.initialStock = initialStock;
+			this.stream = stream;
+			this.block = block;
+			this.chunks = chunks;
+			this.gradient = new double[demand.length];
+		}
+		
+		public Void call(){
+			PenaltyKernel kernel = new PenaltyKernel(demand,R,S,a,h,p,v,initialStock,block);
+			stream.resetStartStream();
+			cost = 0;
+			runs = 0;
+			Arrays.fill(gradient, 0);
+			for(int k = 0; k < chunks; k++){
+				kernel.sample(stream);
+				double[] c = kernel.simulate(gradient);
+				for(int r = 0; r < block; r++) cost += c[r];
+				runs += block;
+			}
+			return null;
+		}
+	}
+	
+	/**
+	 * Polished order-up-to levels, sample average cost before and after polishing, number of 
+	 * steps and replications per step, time in seconds.
+	 */
+	public static class Result {
+		double[] S;
+		double initialCost;
+		double cost;
+		int iterations;
+		long runs;
+		double time;
+		
+		Result(double initialCost){
+			this.initialCost = initialCost;
+		}
+		
+		public double[] getS(){
+			return S;
+		}
+		
+		public double getInitialCost(){
+			return initialCost;
+		}
+		
+		public double getCost(){
+			return cost;
+		}
+		
+		public int getIterations(){
+			return iterations;
+		}
+		
+		public long getRuns(){
+			return runs;
+		}
+		
+		public double getTime(){
+			return time;
+		}
+	}
+}
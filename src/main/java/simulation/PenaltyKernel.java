@@ -0,0 +1,289 @@
+/**
+ * pwlf-milp: Piecewise linear approximations for the static-dynamic 
+ *            uncertainty strategy in stochastic lot-sizing"
+ * 
+ * MIT License
+ * 
+ * Copyright (c) 2016 Roberto Rossi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package simulation;
+
+import java.util.Random;
+
+import umontreal.ssj.probdist.Distribution;
+import umontreal.ssj.rng.RandomStream;
+
+/**
+ * Batched replication kernel for {@code SimulatePoliciesBackorders}.
+ * 
+ * A block of replications is simulated at once in structure-of-arrays layout: demand realizations 
+ * and end-of-period inventory levels are stored period-major in flat buffers, so that each period is 
+ * a branch-free loop over the replications of the block. All buffers are allocated once; per-period 
+ * on-hand and backorder statistics are kept as plain running sums and sums of squares.
+ */
+public class PenaltyKernel {
+	
+	public static final int DEFAULT_BLOCK = 128;
+	
+	Distribution[] demand;
+	boolean[] R;
+	double[] S;
+	double a;
+	double h;
+	double p;
+	double[] v;
+	double initialStock;
+	int block;
+	
+	double[] realizations;
+	double[] levels;
+	double[] stock;
+	double[] cost;
+	int[] driver;
+	
+	long runs;
+	double[] sumP;
+	double[] sumSquaresP;
+	double[] sumN;
+	double[] sumSquaresN;
+	RiskProfile risk;
+	
+	public PenaltyKernel(
+			Distribution[] demand,
+			boolean[] R,
+			double[] S,
+			double a,
+			double h,
+			double p,
+			double[] v,
+			double initialStock,
+			int block){
+		this.demand = demand;
+		this.R = R;
+		this.S = S;
+		this.a = a;
+		this.h = h;
+		this.p = p;
+		this.v = v;
+		this.initialStock = initialStock;
+		this.block = block;
+		this.realizations = new double[demand.length*block];
+		this.levels = new double[demand.length*block];
+		this.stock = new double[block];
+		this.cost = new double[block];
+		this.sumP = new double[demand.length];
+		this.sumSquaresP = new double[demand.length];
+		this.sumN = new double[demand.length];
+		this.sumSquaresN = new double[demand.length];
+	}
+	
+	/**
+	 * Makes this kernel simulate the demand paths drawn by {@code source}, which must have the 
+	 * same demand and block size: a block sampled once is then simulated under several policies.
+	 */
+	public void shareRealizations(PenaltyKernel source){
+		if(source.block != block || source.demand.length != demand.length) 
+			throw new IllegalArgumentException("Kernels differ in block size or horizon");
+		this.realizations = source.realizations;
+	}
+	
+	/**
+	 * Also records replication costs and backorders in {@code risk} on every {@link #accumulate(int)}.
+	 */
+	public void setRiskProfile(RiskProfile risk){
+		this.risk = risk;
+	}
+	
+	public RiskProfile getRiskProfile(){
+		return risk;
+	}
+	
+	public int getBlock(){
+		return block;
+	}
+	
+	/**
+	 * Draws a block of demand paths; each replication consumes one uniform per period, in period order.
+	 */
+	public void sample(Random rnd){
+		int periods = demand.length;
+		for(int r = 0; r < block; r++){
+			for(int i = 0; i < periods; i++){
+				realizations[i*block+r] = demand[i].inverseF(rnd.nextDouble());
+			}
+		}
+	}
+	
+	public void sample(RandomStream stream){
+		int periods = demand.length;
+		for(int r = 0; r < block; r++){
+			for(int i = 0; i < periods; i++){
+				realizations[i*block+r] = demand[i].inverseF(stream.nextDouble());
+			}
+		}
+	}
+	
+	/**
+	 * Maps a block of uniforms, given as uniforms[period][run], to demand paths.
+	 */
+	public void sample(double[][] uniforms){
+		for(int i = 0; i < demand.length; i++){
+			int offset = i*block;
+			double[] u = uniforms[i];
+			for(int r = 0; r < block; r++){
+				realizations[offset+r] = demand[i].inverseF(u[r]);
+			}
+		}
+	}
+	
+	/**
+	 * Simulates the current block of demand paths.
+	 * 
+	 * @return the cost of each replication in the block; the buffer is reused by the next call.
+	 */
+	public double[] simulate(){
+		for(int r = 0; r < block; r++){
+			stock[r] = initialStock;
+			cost[r] = 0;
+		}
+		for(int i = 0; i < demand.length; i++){
+			int offset = i*block;
+			double Si = S[i];
+			double vi = v[i];
+			if(R[i]){
+				for(int r = 0; r < block; r++){
+					double st = stock[r];
+					double c = a + Math.max(Si - st, 0)*vi;
+					st = Math.max(st, Si) - realizations[offset+r];
+					c += Math.max(st*h, 0) + Math.max(-st*p, 0);
+					cost[r] += c;
+					stock[r] = st;
+					levels[offset+r] = st;
+				}
+			}else{
+				for(int r = 0; r < block; r++){
+					double st = stock[r] - realizations[offset+r];
+					cost[r] += Math.max(st*h, 0) + Math.max(-st*p, 0);
+					stock[r] = st;
+					levels[offset+r] = st;
+				}
+			}
+		}
+		return cost;
+	}
+	
+	/**
+	 * Simulates the current block of demand paths like {@link #simulate()} and adds to 
+	 * {@code gradient} the infinitesimal perturbation analysis estimate of the derivatives of 
+	 * the block's total cost with respect to S[0..T-1].
+	 * 
+	 * Along a path, the inventory level moves one for one with the order-up-to level of the last 
+	 * review at which an order was placed, S[j] > stock; a unit increase of S[j] therefore costs 
+	 * v[j] at review j, saves v[k] at the next review k with an order, and costs h or -p in 
+	 * every period up to k, according to the sign of the level.
+	 * 
+	 * @return the cost of each replication in the block; the buffer is reused by the next call.
+	 */
+	public double[] simulate(double[] gradient){
+		if(driver == null) driver = new int[block];
+		for(int r = 0; r < block; r++){
+			stock[r] = initialStock;
+			cost[r] = 0;
+			driver[r] = -1;
+		}
+		for(int i = 0; i < demand.length; i++){
+			int offset = i*block;
+			double Si = S[i];
+			double vi = v[i];
+			boolean review = R[i];
+			for(int r = 0; r < block; r++){
+				double st = stock[r];
+				double c = 0;
+				int d = driver[r];
+				if(review){
+					c += a;
+					if(Si > st){
+						c += (Si - st)*vi;
+						if(d >= 0) gradient[d] -= vi;
+						gradient[i] += vi;
+						d = i;
+						driver[r] = i;
+						st = Si;
+					}
+				}
+				st -= realizations[offset+r];
+				c += Math.max(st*h, 0) + Math.max(-st*p, 0);
+				if(d >= 0) gradient[d] += st > 0 ? h : (st < 0 ? -p : 0);
+				cost[r] += c;
+				stock[r] = st;
+				levels[offset+r] = st;
+			}
+		}
+		return cost;
+	}
+	
+	/**
+	 * Adds the inventory levels of the first {@code count} replications of the current block 
+	 * to the per-period statistics, and their costs and levels to the risk profile if one is set.
+	 */
+	public void accumulate(int count){
+		for(int i = 0; i < demand.length; i++){
+			int offset = i*block;
+			double sP = 0, sP2 = 0, sN = 0, sN2 = 0;
+			for(int r = 0; r < count; r++){
+				double st = levels[offset+r];
+				double onHand = Math.max(st, 0);
+				double backorders = Math.max(-st, 0);
+				sP += onHand;
+				sP2 += onHand*onHand;
+				sN += backorders;
+				sN2 += backorders*backorders;
+			}
+			sumP[i] += sP;
+			sumSquaresP[i] += sP2;
+			sumN[i] += sN;
+			sumSquaresN[i] += sN2;
+		}
+		if(risk != null) risk.record(cost, levels, block, count);
+		runs += count;
+	}
+	
+	public long getRuns(){
+		return runs;
+	}
+	
+	public double getAverageOnHand(int period){
+		return sumP[period]/runs;
+	}
+	
+	public double getAverageBackorders(int period){
+		return sumN[period]/runs;
+	}
+	
+	public void mergeOnHand(int period, MergedTally tally){
+		tally.mergeSums(runs, sumP[period], sumSquaresP[period]);
+	}
+	
+	public void mergeBackorders(int period, MergedTally tally){
+		tally.mergeSums(runs, sumN[period], sumSquaresN[period]);
+	}
+}
@@ -0,0 +1,238 @@
+/**
+ * pwlf-milp: Piecewise linear approximations for the static-dynamic 
+ *            uncertainty strategy in stochastic lot-sizing"
+ * 
+ * MIT License
+ * 
+ * Copyright (c) 2016 Roberto Rossi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package simulation;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+import simulation.sampling.InversionTables;
+import umontreal.ssj.probdist.Distribution;
+import umontreal.ssj.rng.MRG32k3a;
+import umontreal.ssj.stat.Tally;
+
+/**
+ * Evaluates several RS policies of the same item with common random numbers: each block of 
+ * demand paths is drawn once and simulated under every policy, so that the cost differences 
+ * between policies are estimated from paired replications.
+ * 
+ * Replications continue until every pair of policies is resolved, i.e. the confidence 
+ * interval of their cost difference excludes 0, or its half-width is below the relative error 
+ * times the smaller of the two mean costs or below the absolute error, unless the maximum 
+ * number of replications or the wall-clock limit of the {@link SimulationBudget} is reached 
+ * first, or its callback cancels the comparison, see {@link #getStopReason()}. The rule is 
+ * checked after each block of {@code PenaltyKernel.DEFAULT_BLOCK} paths once the minimum number 
+ * of replications is reached, so the replication limit may be exceeded by up to one block; the 
+ * callback receives the cost of the currently cheapest policy.
+ */
+public class PolicyComparison {
+	
+	int policies;
+	Tally[] costTally;
+	Tally[][] differenceTally;
+	double confidence;
+	long runs;
+	SimulationResult.StopReason reason;
+	
+	PolicyComparison(int policies, double confidence){
+		this.policies = policies;
+		this.confidence = confidence;
+		costTally = new Tally[policies];
+		differenceTally = new Tally[policies][policies];
+		for(int k = 0; k < policies; k++){
+			costTally[k] = new Tally();
+			for(int l = k+1; l < policies; l++) differenceTally[k][l] = new Tally();
+		}
+	}
+	
+	public static PolicyComparison compare(
+			Distribution[] demand,
+			boolean[][] R,
+			double[][] S,
+			double a,
+			double h,
+			double p,
+			double v,
+			double initialStock,
+			double confidence,
+			double error,
+			long[] seed){
+		double[] vArray = new double[demand.length];
+		for(int i = 0; i < vArray.length; i++) vArray[i] = v;
+		return compare(demand,R,S,a,h,p,vArray,initialStock,confidence,error,seed);
+	}
+	
+	/**
+	 * Compares the policies until every pair is resolved, with at least 1000 replications and 
+	 * no replication or time limit.
+	 */
+	public static PolicyComparison compare(
+			Distribution[] demand,
+			boolean[][] R,
+			double[][] S,
+			double a,
+			double h,
+			double p,
+			double[] v,
+			double initialStock,
+			double confidence,
+			double error,
+			long[] seed){
+		return compare(demand,R,S,a,h,p,v,initialStock,new SimulationBudget(confidence, error),seed);
+	}
+	
+	/**
+	 * @param R replenishment periods of each policy, R[k] for policy k.
+	 * @param S order-up-to levels of each policy, S[k] for policy k.
+	 * @param budget confidence level, errors and limits of the comparison.
+	 * @param seed MRG32k3a seed (six values) of the demand paths shared by all policies.
+	 */
+	public static PolicyComparison compare(
+			Distribution[] demand,
+			boolean[][] R,
+			double[][] S,
+			double a,
+			double h,
+			double p,
+			double[] v,
+			double initialStock,
+			SimulationBudget budget,
+			long[] seed){
+		if(R.length != S.length || R.length == 0) 
+			throw new IllegalArgumentException("One R and one S are required per policy");
+		demand = InversionTables.tabulate(demand);
+		int K = R.length;
+		PenaltyKernel[] kernels = new PenaltyKernel[K];
+		for(int k = 0; k < K; k++){
+			kernels[k] = new PenaltyKernel(demand,R[k],S[k],a,h,p,v,initialStock,PenaltyKernel.DEFAULT_BLOCK);
+			if(k > 0) kernels[k].shareRealizations(kernels[0]);
+		}
+		MRG32k3a stream = new MRG32k3a();
+		stream.setSeed(seed);
+		PolicyComparison comparison = new PolicyComparison(K, budget.confidence);
+		double[][] cost = new double[K][];
+		long begin = System.nanoTime();
+		do{
+			kernels[0].sample(stream);
+			for(int k = 0; k < K; k++) cost[k] = kernels[k].simulate();
+			comparison.add(cost, kernels[0].getBlock());
+			comparison.reason = comparison.check(budget, (System.nanoTime() - begin)*1e-9);
+		}while(comparison.reason == null);
+		return comparison;
+	}
+	
+	/**
+	 * Applies the stopping rule of {@code budget}, with pair resolution as precision criterion; 
+	 * returns null to continue.
+	 */
+	SimulationResult.StopReason check(SimulationBudget budget, double time){
+		if(budget.callback != null){
+			double[] best = getCost(getRanking()[0]);
+			if(!budget.callback.progress(runs, best[0], best[1], time)) return SimulationResult.StopReason.CANCELLED;
+		}
+		if(runs >= budget.minRuns && resolved(budget.relativeError, budget.absoluteError)) return SimulationResult.StopReason.PRECISION;
+		if(runs >= budget.maxRuns) return SimulationResult.StopReason.MAX_RUNS;
+		if(time >= budget.maxTime) return SimulationResult.StopReason.MAX_TIME;
+		return null;
+	}
+	
+	void add(double[][] cost, int count){
+		for(int r = 0; r < count; r++){
+			for(int k = 0; k < policies; k++){
+				double c = cost[k][r];
+				costTally[k].add(c);
+				for(int l = k+1; l < policies; l++) differenceTally[k][l].add(c - cost[l][r]);
+			}
+		}
+		runs += count;
+	}
+	
+	boolean resolved(double error, double absoluteError){
+		double[] centerAndRadius = new double[2];
+		for(int k = 0; k < policies; k++){
+			for(int l = k+1; l < policies; l++){
+				differenceTally[k][l].confidenceIntervalNormal(confidence, centerAndRadius);
+				boolean separated = Math.abs(centerAndRadius[0]) > centerAndRadius[1];
+				boolean negligible = centerAndRadius[1] <= error*Math.min(costTally[k].average(), costTally[l].average()) 
+						|| centerAndRadius[1] <= absoluteError;
+				if(!separated && !negligible) return false;
+			}
+		}
+		return true;
+	}
+	
+	public int getPolicies(){
+		return policies;
+	}
+	
+	public long getRuns(){
+		return runs;
+	}
+	
+	/**
+	 * @return {@code PRECISION} if every pair of policies is resolved, otherwise the budget 
+	 * limit that stopped the comparison.
+	 */
+	public SimulationResult.StopReason getStopReason(){
+		return reason;
+	}
+	
+	/**
+	 * Mean cost of policy k and confidence interval half-width.
+	 */
+	public double[] getCost(int k){
+		double[] centerAndRadius = new double[2];
+		costTally[k].confidenceIntervalNormal(confidence, centerAndRadius);
+		return centerAndRadius;
+	}
+	
+	/**
+	 * Mean cost of policy k minus that of policy l, over paired replications, and confidence 
+	 * interval half-width.
+	 */
+	public double[] getDifference(int k, int l){
+		double[] centerAndRadius = new double[2];
+		if(k == l) return centerAndRadius;
+		differenceTally[Math.min(k, l)][Math.max(k, l)].confidenceIntervalNormal(confidence, centerAndRadius);
+		if(k > l) centerAndRadius[0] = -centerAndRadius[0];
+		return centerAndRadius;
+	}
+	
+	/**
+	 * Policies by increasing mean cost.
+	 */
+	public Integer[] getRanking(){
+		Integer[] ranking = new Integer[policies];
+		for(int k = 0; k < policies; k++) ranking[k] = k;
+		Arrays.sort(ranking, new Comparator<Integer>(){
+			public int compare(Integer k, Integer l){
+				return Double.compare(costTally[k].average(), costTally[l].average());
+			}
+		});
+		return ranking;
+	}
+}
@@ -0,0 +1,196 @@
+/**
+ * pwlf-milp: Piecewise linear approximations for the static-dynamic 
+ *            uncertainty strategy in stochastic lot-sizing"
+ * 
+ * MIT License
+ * 
+ * Copyright (c) 2016 Roberto Rossi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package simulation;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Mergeable streaming quantile sketch after Karnin, Lang and Liberty (KLL).
+ * 
+ * Observations enter level 0; when the sketch exceeds its capacity, the lowest full level is 
+ * sorted and every other item is promoted to the next level with doubled weight. Capacities 
+ * shrink geometrically by 2/3 towards the lower levels, so that memory stays O(k) items and 
+ * the rank error is O(1/k) with high probability; each observation is copied an amortized 
+ * constant number of times. The choice of the promoted half is driven by a fixed xorshift 
+ * sequence, hence adding and merging the same data in the same order always yields the 
+ * same sketch.
+ */
+public class QuantileSketch {
+	
+	public static final int DEFAULT_K = 200;
+	
+	int k;
+	double[][] levels = new double[0][];
+	int[] sizes = new int[0];
+	int size;
+	int maxSize;
+	long count;
+	double min = Double.POSITIVE_INFINITY;
+	double max = Double.NEGATIVE_INFINITY;
+	long coin = 0x9E3779B97F4A7C15L;
+	
+	public QuantileSketch(){
+		this(DEFAULT_K);
+	}
+	
+	/**
+	 * @param k accuracy parameter; the top level retains k items.
+	 */
+	public QuantileSketch(int k){
+		if(k < 8) throw new IllegalArgumentException("k must be at least 8");
+		this.k = k;
+		grow();
+	}
+	
+	int capacity(int level){
+		int depth = levels.length - level - 1;
+		return Math.max((int) Math.ceil(k*Math.pow(2.0/3.0, depth)), 2);
+	}
+	
+	void grow(){
+		int height = levels.length + 1;
+		levels = Arrays.copyOf(levels, height);
+		sizes = Arrays.copyOf(sizes, height);
+		levels[height - 1] = new double[16];
+		maxSize = 0;
+		for(int h = 0; h < height; h++) maxSize += capacity(h);
+	}
+	
+	void append(int level, double x){
+		if(sizes[level] == levels[level].length) 
+			levels[level] = Arrays.copyOf(levels[level], 2*sizes[level]);
+		levels[level][sizes[level]++] = x;
+	}
+	
+	public void add(double x){
+		append(0, x);
+		size++;
+		count++;
+		if(x < min) min = x;
+		if(x > max) max = x;
+		if(size >= maxSize) compress();
+	}
+	
+	/**
+	 * Adds the observations summarized by {@code other}, which is left unchanged.
+	 */
+	public void merge(QuantileSketch other){
+		if(other.k != k) throw new IllegalArgumentException("Sketches differ in k");
+		while(levels.length < other.levels.length) grow();
+		for(int h = 0; h < other.levels.length; h++){
+			for(int i = 0; i < other.sizes[h]; i++) append(h, other.levels[h][i]);
+		}
+		size += other.size;
+		count += other.count;
+		if(other.min < min) min = other.min;
+		if(other.max > max) max = other.max;
+		while(size >= maxSize) compress();
+	}
+	
+	void compress(){
+		for(int h = 0; h < levels.length; h++){
+			if(sizes[h] >= capacity(h)){
+				if(h + 1 >= levels.length) grow();
+				compact(h);
+				if(size < maxSize) break;
+			}
+		}
+	}
+	
+	/**
+	 * Promotes one item of each adjacent pair of level {@code h}; with an odd number of items 
+	 * the smallest one stays.
+	 */
+	void compact(int h){
+		double[] items = levels[h];
+		int n = sizes[h];
+		Arrays.sort(items, 0, n);
+		int odd = n & 1;
+		coin ^= coin << 13;
+		coin ^= coin >>> 7;
+		coin ^= coin << 17;
+		for(int i = odd + (int)(coin & 1); i < n; i += 2) append(h + 1, items[i]);
+		sizes[h] = odd;
+		size -= (n - odd)/2;
+	}
+	
+	public long getCount(){
+		return count;
+	}
+	
+	/**
+	 * Number of items retained.
+	 */
+	public int getRetained(){
+		return size;
+	}
+	
+	public double getMin(){
+		return count > 0 ? min : Double.NaN;
+	}
+	
+	public double getMax(){
+		return count > 0 ? max : Double.NaN;
+	}
+	
+	/**
+	 * Approximate {@code q}-quantile: the smallest retained item whose cumulative weight is at 
+	 * least q times the number of observations; NaN if the sketch is empty.
+	 */
+	public double quantile(double q){
+		if(q < 0 || q > 1) throw new IllegalArgumentException("q must be in [0,1]");
+		if(count == 0) return Double.NaN;
+		if(q == 0) return min;
+		if(q == 1) return max;
+		final double[] values = new double[size];
+		long[] weights = new long[size];
+		Integer[] order = new Integer[size];
+		int j = 0;
+		for(int h = 0; h < levels.length; h++){
+			for(int i = 0; i < sizes[h]; i++){
+				values[j] = levels[h][i];
+				weights[j] = 1L << h;
+				order[j] = j;
+				j++;
+			}
+		}
+		Arrays.sort(order, new Comparator<Integer>(){
+			public int compare(Integer x, Integer y){
+				return Double.compare(values[x], values[y]);
+			}
+		});
+		double target = q*count;
+		long cumulative = 0;
+		for(int i = 0; i < size; i++){
+			cumulative += weights[order[i]];
+			if(cumulative >= target) return values[order[i]];
+		}
+		return max;
+	}
+}
@@ -0,0 +1,115 @@
+/**
+ * pwlf-milp: Piecewise linear approximations for the static-dynamic 
+ *            uncertainty strategy in stochastic lot-sizing"
+ * 
+ * MIT License
+ * 
+ * Copyright (c) 2016 Roberto Rossi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package simulation;
+
+/**
+ * Distributional statistics of a policy simulation: quantile sketches of the total cost and 
+ * of the backorders at the end of each period, and per-period stock-out counts. Profiles 
+ * collected by independent workers are combined with {@link #merge(RiskProfile)}; memory 
+ * does not depend on the number of replications.
+ */
+public class RiskProfile {
+	
+	QuantileSketch cost;
+	QuantileSketch[] backorders;
+	long[] stockOuts;
+	long runs;
+	
+	public RiskProfile(int periods){
+		this(periods, QuantileSketch.DEFAULT_K);
+	}
+	
+	public RiskProfile(int periods, int k){
+		this.cost = new QuantileSketch(k);
+		this.backorders = new QuantileSketch[periods];
+		for(int i = 0; i < periods; i++) backorders[i] = new QuantileSketch(k);
+		this.stockOuts = new long[periods];
+	}
+	
+	/**
+	 * Records the first {@code count} replications of a kernel block: replication costs and 
+	 * end-of-period inventory levels stored period-major with stride {@code block}.
+	 */
+	void record(double[] replicationCost, double[] levels, int block, int count){
+		for(int r = 0; r < count; r++) cost.add(replicationCost[r]);
+		for(int i = 0; i < backorders.length; i++){
+			int offset = i*block;
+			QuantileSketch sketch = backorders[i];
+			long out = 0;
+			for(int r = 0; r < count; r++){
+				double st = levels[offset+r];
+				if(st < 0){
+					out++;
+					sketch.add(-st);
+				}else{
+					sketch.add(0);
+				}
+			}
+			stockOuts[i] += out;
+		}
+		runs += count;
+	}
+	
+	public void merge(RiskProfile other){
+		if(other.backorders.length != backorders.length) 
+			throw new IllegalArgumentException("Profiles differ in horizon");
+		cost.merge(other.cost);
+		for(int i = 0; i < backorders.length; i++){
+			backorders[i].merge(other.backorders[i]);
+			stockOuts[i] += other.stockOuts[i];
+		}
+		runs += other.runs;
+	}
+	
+	public long getRuns(){
+		return runs;
+	}
+	
+	public double getCostQuantile(double q){
+		return cost.quantile(q);
+	}
+	
+	public double getBackorderQuantile(int period, double q){
+		return backorders[period].quantile(q);
+	}
+	
+	/**
+	 * Fraction of replications that end {@code period} without backorders.
+	 */
+	public double getNoStockoutProbability(int period){
+		return runs > 0 ? 1 - (double) stockOuts[period]/runs : Double.NaN;
+	}
+	
+	public QuantileSketch getCostSketch(){
+		return cost;
+	}
+	
+	public QuantileSketch getBackorderSketch(int period){
+		return backorders[period];
+	}
+}
@@ -27,8 +27,21 @@
 
 package simulation;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
+import monitoring.Instrumentation;
+import monitoring.Instrumentation.Timer;
+import monitoring.Stage;
+import simulation.sampling.InversionTables;
+import simulation.sampling.SamplingStrategy;
+import umontreal.ssj.rng.MRG32k3a;
+import umontreal.ssj.rng.MRG32k3aL;
 import umontreal.ssj.stat.Tally;
 import umontreal.ssj.probdist.Distribution;
 import umontreal.ssj.probdist.NormalDist;
@@ -49,7 +62,7 @@ public class SimulatePoliciesBackorders {
 			double error){
 		double[] vArray = new double[demand.length];
 		for(int i = 0; i < vArray.length; i++) vArray[i] = v;
-		return simulatePenalty(demand,R,S,a,h,p,vArray,initialStock,0.95,0.0001);
+		return simulatePenalty(demand,R,S,a,h,p,vArray,initialStock,confidence,error);
 	}
 	
 	public static double[] simulatePenalty(
@@ -63,42 +76,308 @@ public class SimulatePoliciesBackorders {
 			double initialStock,
 			double confidence,
 			double error){
-		Tally costTally = new Tally();
-		Tally[] stockPTally = new Tally[demand.length];
-		Tally[] stockNTally = new Tally[demand.length];
-		Tally[] serviceTally = new Tally[demand.length];
-		for(int i = 0; i < demand.length; i++) {
-			stockPTally[i] = new Tally();
-			stockNTally[i] = new Tally();
-			serviceTally[i] = new Tally();
+		return simulatePenalty(demand,R,S,a,h,p,v,initialStock,new SimulationBudget(confidence, error)).getCenterAndRadius();
+	}
+	
+	public static SimulationResult simulatePenalty(
+			Distribution[] demand,
+			boolean[] R,
+			double[] S,
+			double a,
+			double h,
+			double p,
+			double v,
+			double initialStock,
+			SimulationBudget budget){
+		double[] vArray = new double[demand.length];
+		for(int i = 0; i < vArray.length; i++) vArray[i] = v;
+		return simulatePenalty(demand,R,S,a,h,p,vArray,initialStock,budget);
+	}
+	
+	/**
+	 * Anytime counterpart of {@code simulatePenalty}: replications stop as soon as {@code budget} 
+	 * is exhausted, and the current estimate is returned together with the reason why the 
+	 * simulation stopped. Progress is published to the budget callback and to the registered 
+	 * pipeline listeners at every check.
+	 */
+	public static SimulationResult simulatePenalty(
+			Distribution[] demand,
+			boolean[] R,
+			double[] S,
+			double a,
+			double h,
+			double p,
+			double[] v,
+			double initialStock,
+			SimulationBudget budget){
+		Timer timer = Instrumentation.start(Stage.SIMULATION);
+		try{
+			demand = InversionTables.tabulate(demand);
+			Tally costTally = new Tally();
+			PenaltyKernel kernel = new PenaltyKernel(demand,R,S,a,h,p,v,initialStock,PenaltyKernel.DEFAULT_BLOCK);
+			if(budget.riskProfile) kernel.setRiskProfile(new RiskProfile(demand.length));
+			double[] centerAndRadius = new double[2];
+			Random rnd = new Random();
+			long begin = System.nanoTime();
+			long iterations = 0;
+			SimulationResult.StopReason reason = null;
+			do{
+				kernel.sample(rnd);
+				double[] cost = kernel.simulate();
+				int count = 0;
+				while(count < kernel.getBlock() && reason == null){
+					costTally.add(cost[count++]);
+					iterations++;
+					if((iterations >= budget.minRuns && iterations % budget.checkEvery == 0) || iterations >= budget.maxRuns){
+						costTally.confidenceIntervalNormal(budget.confidence, centerAndRadius);
+						double time = (System.nanoTime() - begin)*1e-9;
+						Instrumentation.simulationProgress(iterations, centerAndRadius[0], centerAndRadius[1], time);
+						reason = budget.check(iterations, centerAndRadius, time);
+					}
+				}
+				kernel.accumulate(count);
+			}while(reason == null);
+			completed(iterations, centerAndRadius, 1, kernel);
+			double[] onHand = new double[demand.length];
+			double[] backorders = new double[demand.length];
+			for(int i = 0; i < demand.length; i++){
+				onHand[i] = kernel.getAverageOnHand(i);
+				backorders[i] = kernel.getAverageBackorders(i);
+			}
+			return new SimulationResult(centerAndRadius, iterations, (System.nanoTime() - begin)*1e-9, reason, onHand, backorders, kernel.getRiskProfile());
+		}finally{
+			timer.stop();
 		}
-		double[] centerAndRadius = new double[2];
-		Random rnd = new Random();
-		int iterations = 0;
-		do{
-			double[] realizations = new double[demand.length];  
-			for(int i = 0; i < realizations.length; i++){
-				realizations[i] = demand[i].inverseF(rnd.nextDouble());
+	}
+	
+	public static double[] simulatePenalty(
+			Distribution[] demand,
+			boolean[] R,
+			double[] S,
+			double a,
+			double h,
+			double p,
+			double v,
+			double initialStock,
+			double confidence,
+			double error,
+			long[] seed,
+			int workers){
+		double[] vArray = new double[demand.length];
+		for(int i = 0; i < vArray.length; i++) vArray[i] = v;
+		return simulatePenalty(demand,R,S,a,h,p,vArray,initialStock,confidence,error,seed,workers);
+	}
+	
+	/**
+	 * Parallel counterpart of {@code simulatePenalty}. 
+	 * 
+	 * Replications are carried out in rounds; in each round every worker simulates a fixed batch of 
+	 * replications on its own MRG32k3a substream, then the per-worker tallies are merged in worker order 
+	 * and the stopping rule is checked on the merged statistics. The result therefore only depends 
+	 * on {@code seed} and {@code workers}, not on thread scheduling.
+	 * 
+	 * @param seed MRG32k3a seed (six values); worker w uses substream w of this stream.
+	 * @param workers number of workers in the fork-join pool.
+	 */
+	public static double[] simulatePenalty(
+			Distribution[] demand,
+			boolean[] R,
+			double[] S,
+			double a,
+			double h,
+			double p,
+			double[] v,
+			double initialStock,
+			double confidence,
+			double error,
+			long[] seed,
+			int workers){
+		SimulationBudget budget = new SimulationBudget(confidence, error);
+		budget.setMinRuns(0);
+		budget.setCheckEvery(1000);
+		return simulatePenalty(demand,R,S,a,h,p,v,initialStock,budget,seed,workers).getCenterAndRadius();
+	}
+	
+	/**
+	 * Anytime counterpart of the parallel {@code simulatePenalty}. Each round carries out 
+	 * {@code budget.getCheckEvery()} replications, split evenly among the workers, and the budget 
+	 * is checked on the merged statistics at the end of the round; the replication and 
+	 * wall-clock limits may therefore be exceeded by up to one round.
+	 */
+	public static SimulationResult simulatePenalty(
+			Distribution[] demand,
+			boolean[] R,
+			double[] S,
+			double a,
+			double h,
+			double p,
+			double[] v,
+			double initialStock,
+			SimulationBudget budget,
+			long[] seed,
+			int workers){
+		Timer timer = Instrumentation.start(Stage.SIMULATION);
+		try{
+			long begin = System.nanoTime();
+			demand = InversionTables.tabulate(demand);
+			MRG32k3a stream = new MRG32k3a();
+			stream.setSeed(seed);
+			int batch = (int) Math.ceil((double) budget.checkEvery/workers);
+			List<PenaltyWorker> tasks = new ArrayList<PenaltyWorker>();
+			for(int w = 0; w < workers; w++){
+				PenaltyWorker task = new PenaltyWorker(demand,R,S,a,h,p,v,initialStock,stream.clone(),batch);
+				if(budget.riskProfile) task.kernel.setRiskProfile(new RiskProfile(demand.length));
+				tasks.add(task);
+				stream.resetNextSubstream();
 			}
-			double cost = simulateOneRunPenalty(realizations,R,S,a,h,p,v,initialStock,stockPTally,stockNTally);
-			costTally.add(cost);
-		}while(iterations++<1000);
 		
-		do{
-			double[] realizations = new double[demand.length];  
-			for(int i = 0; i < realizations.length; i++){
-				realizations[i] = demand[i].inverseF(rnd.nextDouble());
+			MergedTally costTally = new MergedTally();
+			MergedTally[] stockPTally = new MergedTally[demand.length];
+			MergedTally[] stockNTally = new MergedTally[demand.length];
+			for(int i = 0; i < demand.length; i++) {
+				stockPTally[i] = new MergedTally();
+				stockNTally[i] = new MergedTally();
+			}
+			double[] centerAndRadius = new double[2];
+			SimulationResult.StopReason reason = null;
+			ForkJoinPool pool = new ForkJoinPool(workers);
+			try{
+				do{
+					for(Future<Void> f : pool.invokeAll(tasks)) f.get();
+					costTally.init();
+					for(PenaltyWorker task : tasks) costTally.merge(task.costTally);
+					costTally.confidenceIntervalNormal(budget.confidence, centerAndRadius);
+					double time = (System.nanoTime() - begin)*1e-9;
+					Instrumentation.simulationProgress(costTally.numberObs(), centerAndRadius[0], centerAndRadius[1], time);
+					reason = budget.check(costTally.numberObs(), centerAndRadius, time);
+				}while(reason == null);
+			}catch(InterruptedException | ExecutionException e){
+				throw new IllegalStateException("Parallel simulation failed", e);
+			}finally{
+				pool.shutdown();
+			}
+			RiskProfile risk = budget.riskProfile ? new RiskProfile(demand.length) : null;
+			for(PenaltyWorker task : tasks){
+				if(risk != null) risk.merge(task.kernel.getRiskProfile());
+				for(int i = 0; i < demand.length; i++){
+					task.kernel.mergeOnHand(i, stockPTally[i]);
+					task.kernel.mergeBackorders(i, stockNTally[i]);
+				}
+			}
+			double[] onHand = new double[demand.length];
+			double[] backorders = new double[demand.length];
+			for(int i = 0; i < demand.length; i++){
+				onHand[i] = stockPTally[i].average();
+				backorders[i] = stockNTally[i].average();
+			}
+			Instrumentation.simulationCompleted(costTally.numberObs(), centerAndRadius[0], centerAndRadius[1], 1, onHand, backorders);
+			return new SimulationResult(centerAndRadius, costTally.numberObs(), (System.nanoTime() - begin)*1e-9, reason, onHand, backorders, risk);
+		}finally{
+			timer.stop();
+		}
+	}
+	
+	/**
+	 * Simulates batches of replications on a dedicated substream; tallies accumulate across batches.
+	 */
+	private static class PenaltyWorker implements Callable<Void> {
+		PenaltyKernel kernel;
+		MRG32k3a stream;
+		int batch;
+		Tally costTally = new Tally();
+		
+		PenaltyWorker(Distribution[] demand, boolean[] R, double[] S, double a, double h, double p, double[] v, double initialStock, MRG32k3a stream, int batch){
+			int chunks = (batch + PenaltyKernel.DEFAULT_BLOCK - 1)/PenaltyKernel.DEFAULT_BLOCK;
+			this.kernel = new PenaltyKernel(demand,R,S,a,h,p,v,initialStock,(batch + chunks - 1)/chunks);
+			this.stream = stream;
+			this.batch = batch;
+		}
+		
+		public Void call(){
+			for(int k = 0; k < batch; k += kernel.getBlock()){
+				int count = Math.min(kernel.getBlock(), batch - k);
+				kernel.sample(stream);
+				double[] cost = kernel.simulate();
+				for(int r = 0; r < count; r++) costTally.add(cost[r]);
+				kernel.accumulate(count);
 			}
-			double cost = simulateOneRunPenalty(realizations,R,S,a,h,p,v,initialStock,stockPTally,stockNTally);
-			costTally.add(cost);
-			costTally.confidenceIntervalNormal(confidence, centerAndRadius);
-			iterations++;
-		}while(centerAndRadius[1]>=centerAndRadius[0]*error);
-		System.out.println("Simulation runs: "+iterations);
-		for(int i = 0; i < demand.length; i++) System.out.print("Period: "+i+"\t");System.out.println();
-		for(int i = 0; i < demand.length; i++) System.out.print(String.format("%.2f", stockPTally[i].average())+"\t");System.out.println();
-		for(int i = 0; i < demand.length; i++) System.out.print(String.format("%.2f", stockNTally[i].average())+"\t");System.out.println();
-		return centerAndRadius;
+			return null;
+		}
+	}
+	
+	/**
+	 * Variance-reduced counterpart of {@code simulatePenalty}.
+	 * 
+	 * Each replication of the estimator is the average cost over one independent randomization of the point set 
+	 * produced by {@code sampling}; the confidence interval is a Student interval over these replications. At least 
+	 * 10 randomizations are carried out before the stopping rule is checked. The variance reduction factor is the 
+	 * variance of a single-run cost, estimated from all runs, divided by the variance of the point set average 
+	 * times the number of points; it is 1 for crude Monte Carlo.
+	 * 
+	 * @return mean cost, confidence interval half-width, number of simulation runs and variance reduction factor.
+	 */
+	public static double[] simulatePenalty(
+			Distribution[] demand,
+			boolean[] R,
+			double[] S,
+			double a,
+			double h,
+			double p,
+			double[] v,
+			double initialStock,
+			double confidence,
+			double error,
+			long[] seed,
+			SamplingStrategy sampling){
+		Timer timer = Instrumentation.start(Stage.SIMULATION);
+		try{
+			long begin = System.nanoTime();
+			demand = InversionTables.tabulate(demand);
+			MRG32k3aL stream = new MRG32k3aL();
+			stream.setSeed(seed);
+			int points = sampling.getNumPoints();
+			PenaltyKernel kernel = new PenaltyKernel(demand,R,S,a,h,p,v,initialStock,points);
+			Tally costTally = new Tally();
+			Tally runTally = new Tally();
+			double[] centerAndRadius = new double[2];
+			do{
+				kernel.sample(sampling.generate(stream, demand.length));
+				double[] cost = kernel.simulate();
+				double sum = 0;
+				for(int r = 0; r < points; r++){
+					sum += cost[r];
+					runTally.add(cost[r]);
+				}
+				kernel.accumulate(points);
+				costTally.add(sum/points);
+				if(costTally.numberObs() >= 10) 
+					costTally.confidenceIntervalStudent(confidence, centerAndRadius);
+				else 
+					centerAndRadius[1] = Double.POSITIVE_INFINITY;
+				Instrumentation.simulationProgress(kernel.getRuns(), costTally.average(), centerAndRadius[1], (System.nanoTime() - begin)*1e-9);
+			}while(centerAndRadius[1]>=centerAndRadius[0]*error);
+			double varianceReduction = runTally.variance()/(points*costTally.variance());
+			completed(kernel.getRuns(), centerAndRadius, varianceReduction, kernel);
+			double[] result = new double[4];
+			result[0] = centerAndRadius[0];
+			result[1] = centerAndRadius[1];
+			result[2] = kernel.getRuns();
+			result[3] = varianceReduction;
+			return result;
+		}finally{
+			timer.stop();
+		}
+	}
+	
+	private static void completed(long runs, double[] centerAndRadius, double varianceReduction, PenaltyKernel kernel){
+		int periods = kernel.demand.length;
+		double[] onHand = new double[periods];
+		double[] backorders = new double[periods];
+		for(int i = 0; i < periods; i++){
+			onHand[i] = kernel.getAverageOnHand(i);
+			backorders[i] = kernel.getAverageBackorders(i);
+		}
+		Instrumentation.simulationCompleted(runs, centerAndRadius[0], centerAndRadius[1], varianceReduction, onHand, backorders);
 	}
 	
 	public static double simulateOneRunPenalty(
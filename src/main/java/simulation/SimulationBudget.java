@@ -0,0 +1,174 @@
+/**
+ * pwlf-milp: Piecewise linear approximations for the static-dynamic 
+ *            uncertainty strategy in stochastic lot-sizing"
+ * 
+ * MIT License
+ * 
+ * Copyright (c) 2016 Roberto Rossi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package simulation;
+
+/**
+ * Stopping rule of a simulation. Replications continue until the confidence interval 
+ * half-width is within the relative error times the absolute mean cost, or within the 
+ * absolute error, unless the maximum number of replications or the wall-clock limit is reached 
+ * first, or the progress callback cancels the run. The rule is checked every {@code checkEvery} 
+ * replications once {@code minRuns} replications have been carried out; parallel simulations 
+ * check it at the end of each round.
+ * 
+ * Budgets are not modified by simulations and may be shared by concurrent ones; the callback 
+ * must then be thread safe.
+ */
+public class SimulationBudget {
+	
+	/**
+	 * Receives the current estimate at every check.
+	 */
+	public interface ProgressCallback {
+		/**
+		 * @param runs replications so far.
+		 * @param mean current mean cost.
+		 * @param halfWidth current confidence interval half-width.
+		 * @param time seconds since the simulation started.
+		 * @return false to stop the simulation with the current estimate.
+		 */
+		boolean progress(long runs, double mean, double halfWidth, double time);
+	}
+	
+	double confidence;
+	double relativeError;
+	double absoluteError = 0;
+	long minRuns = 1000;
+	long maxRuns = Long.MAX_VALUE;
+	double maxTime = Double.POSITIVE_INFINITY;
+	int checkEvery = PenaltyKernel.DEFAULT_BLOCK;
+	ProgressCallback callback;
+	boolean riskProfile;
+	
+	public SimulationBudget(double confidence, double relativeError){
+		this.confidence = confidence;
+		this.relativeError = relativeError;
+	}
+	
+	/**
+	 * Stops as soon as the half-width is at most {@code absoluteError}, whatever the relative 
+	 * error; useful when the expected cost may be 0. 0 disables the absolute criterion.
+	 */
+	public void setAbsoluteError(double absoluteError){
+		this.absoluteError = absoluteError;
+	}
+	
+	public void setMinRuns(long minRuns){
+		this.minRuns = minRuns;
+	}
+	
+	public void setMaxRuns(long maxRuns){
+		this.maxRuns = maxRuns;
+	}
+	
+	/**
+	 * Wall-clock limit in seconds.
+	 */
+	public void setMaxTime(double maxTime){
+		this.maxTime = maxTime;
+	}
+	
+	public void setCheckEvery(int checkEvery){
+		if(checkEvery < 1) throw new IllegalArgumentException("checkEvery must be positive");
+		this.checkEvery = checkEvery;
+	}
+	
+	public void setProgressCallback(ProgressCallback callback){
+		this.callback = callback;
+	}
+	
+	/**
+	 * Also collects a {@link RiskProfile}, see {@link SimulationResult#getRiskProfile()}.
+	 */
+	public void setRiskProfile(boolean riskProfile){
+		this.riskProfile = riskProfile;
+	}
+	
+	public boolean isRiskProfile(){
+		return riskProfile;
+	}
+	
+	public double getConfidence(){
+		return confidence;
+	}
+	
+	public double getRelativeError(){
+		return relativeError;
+	}
+	
+	public double getAbsoluteError(){
+		return absoluteError;
+	}
+	
+	public long getMinRuns(){
+		return minRuns;
+	}
+	
+	public long getMaxRuns(){
+		return maxRuns;
+	}
+	
+	public double getMaxTime(){
+		return maxTime;
+	}
+	
+	public int getCheckEvery(){
+		return checkEvery;
+	}
+	
+	/**
+	 * Copy of this budget whose wall-clock limit is at most {@code maxTime} seconds; the 
+	 * callback is shared.
+	 */
+	public SimulationBudget withMaxTime(double maxTime){
+		SimulationBudget copy = new SimulationBudget(confidence, relativeError);
+		copy.absoluteError = absoluteError;
+		copy.minRuns = minRuns;
+		copy.maxRuns = maxRuns;
+		copy.maxTime = Math.min(this.maxTime, maxTime);
+		copy.checkEvery = checkEvery;
+		copy.callback = callback;
+		copy.riskProfile = riskProfile;
+		return copy;
+	}
+	
+	boolean precise(double[] centerAndRadius){
+		return centerAndRadius[1] <= relativeError*Math.abs(centerAndRadius[0]) || centerAndRadius[1] <= absoluteError;
+	}
+	
+	/**
+	 * Applies the stopping rule to the current estimate; returns null to continue.
+	 */
+	SimulationResult.StopReason check(long runs, double[] centerAndRadius, double time){
+		if(callback != null && !callback.progress(runs, centerAndRadius[0], centerAndRadius[1], time)) 
+			return SimulationResult.StopReason.CANCELLED;
+		if(runs >= minRuns && precise(centerAndRadius)) return SimulationResult.StopReason.PRECISION;
+		if(runs >= maxRuns) return SimulationResult.StopReason.MAX_RUNS;
+		if(time >= maxTime) return SimulationResult.StopReason.MAX_TIME;
+		return null;
+	}
+}
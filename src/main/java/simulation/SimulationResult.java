@@ -0,0 +1,107 @@
+/**
+ * pwlf-milp: Piecewise linear approximations for the static-dynamic 
+ *            uncertainty strategy in stochastic lot-sizing"
+ * 
+ * MIT License
+ * 
+ * Copyright (c) 2016 Roberto Rossi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package simulation;
+
+/**
+ * Outcome of a budgeted simulation: estimate, number of replications, time and the reason why 
+ * the simulation stopped, with per-period average on-hand stock and backorders.
+ */
+public class SimulationResult {
+	
+	public enum StopReason { PRECISION, MAX_RUNS, MAX_TIME, CANCELLED }
+	
+	double mean;
+	double halfWidth;
+	long runs;
+	double time;
+	StopReason reason;
+	double[] onHand;
+	double[] backorders;
+	RiskProfile riskProfile;
+	
+	SimulationResult(double[] centerAndRadius, long runs, double time, StopReason reason, double[] onHand, double[] backorders, RiskProfile riskProfile){
+		this.mean = centerAndRadius[0];
+		this.halfWidth = centerAndRadius[1];
+		this.runs = runs;
+		this.time = time;
+		this.reason = reason;
+		this.onHand = onHand;
+		this.backorders = backorders;
+		this.riskProfile = riskProfile;
+	}
+	
+	public double getMean(){
+		return mean;
+	}
+	
+	public double getHalfWidth(){
+		return halfWidth;
+	}
+	
+	/**
+	 * Mean and half-width, as returned by the {@code double[]} overloads of 
+	 * {@code SimulatePoliciesBackorders.simulatePenalty}.
+	 */
+	public double[] getCenterAndRadius(){
+		return new double[]{mean, halfWidth};
+	}
+	
+	public long getRuns(){
+		return runs;
+	}
+	
+	public double getTime(){
+		return time;
+	}
+	
+	public StopReason getStopReason(){
+		return reason;
+	}
+	
+	/**
+	 * True if the precision target was met.
+	 */
+	public boolean isPrecise(){
+		return reason == StopReason.PRECISION;
+	}
+	
+	public double getAverageOnHand(int period){
+		return onHand[period];
+	}
+	
+	public double getAverageBackorders(int period){
+		return backorders[period];
+	}
+	
+	/**
+	 * Cost and backorder quantiles and stock-out probabilities; null unless requested by the budget.
+	 */
+	public RiskProfile getRiskProfile(){
+		return riskProfile;
+	}
+}
@@ -0,0 +1,60 @@
+/**
+ * pwlf-milp: Piecewise linear approximations for the static-dynamic 
+ *            uncertainty strategy in stochastic lot-sizing"
+ * 
+ * MIT License
+ * 
+ * Copyright (c) 2016 Roberto Rossi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package simulation.sampling;
+
+import umontreal.ssj.rng.MRG32k3aL;
+
+/**
+ * Antithetic variates: the second half of the point set mirrors the first half, u -> 1-u.
+ */
+public class AntitheticSampling implements SamplingStrategy {
+	
+	int pairs;
+	
+	public AntitheticSampling(int points){
+		if(points < 2 || points % 2 != 0) 
+			throw new IllegalArgumentException("Antithetic sampling requires an even number of points");
+		this.pairs = points/2;
+	}
+	
+	public int getNumPoints(){
+		return 2*pairs;
+	}
+	
+	public double[][] generate(MRG32k3aL stream, int dimension){
+		double[][] uniforms = new double[dimension][2*pairs];
+		for(int r = 0; r < pairs; r++){
+			for(int i = 0; i < dimension; i++){
+				double u = stream.nextDouble();
+				uniforms[i][r] = u;
+				uniforms[i][pairs+r] = 1 - u;
+			}
+		}
+		return uniforms;
+	}
+}
@@ -0,0 +1,141 @@
+/**
+ * pwlf-milp: Piecewise linear approximations for the static-dynamic 
+ *            uncertainty strategy in stochastic lot-sizing"
+ * 
+ * MIT License
+ * 
+ * Copyright (c) 2016 Roberto Rossi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package simulation.sampling;
+
+import umontreal.ssj.probdist.ContinuousDistribution;
+import umontreal.ssj.probdist.Distribution;
+
+/**
+ * Interpolation table for the inversion of a continuous distribution.
+ * 
+ * The quantile function is tabulated on a uniform grid of {@code cells} cells over (0,1) and 
+ * {@code inverseF} interpolates linearly within the cell of u. The interpolation error of each cell is 
+ * measured at build time at the midpoint and the two quarter points of the cell; cells whose error 
+ * exceeds {@code tolerance}, which always include the two unbounded tail cells of distributions with 
+ * infinite support, are not interpolated and are passed to the wrapped distribution instead. The 
+ * measured error is an estimate, see {@code getMaxError()}: it bounds the absolute error of 
+ * {@code inverseF} when the second derivative of the quantile function is nearly constant over a 
+ * cell, where the error peaks at the midpoint, and the quarter points reject cells where the 
+ * curvature changes sign or is concentrated off-centre. The mapping stays monotone. All other 
+ * methods delegate to the wrapped distribution. Since the error is not bounded, simulations only 
+ * use these tables on request, see {@link InversionTables#tabulate(Distribution[], boolean)}.
+ */
+public class ContinuousInversionTable implements Distribution {
+	
+	public static final int DEFAULT_CELLS = 4096;
+	
+	/**
+	 * Default tolerance, relative to the standard deviation of the distribution.
+	 */
+	public static final double DEFAULT_RELATIVE_TOLERANCE = 1e-5;
+	
+	ContinuousDistribution distribution;
+	int cells;
+	double[] quantiles;
+	boolean[] exact;
+	double maxError;
+	int exactCells;
+	
+	public ContinuousInversionTable(ContinuousDistribution distribution, int cells, double tolerance){
+		this.distribution = distribution;
+		this.cells = cells;
+		this.quantiles = new double[cells+1];
+		this.exact = new boolean[cells];
+		for(int k = 0; k <= cells; k++) quantiles[k] = distribution.inverseF((double)k/cells);
+		for(int k = 0; k < cells; k++){
+			double error = Double.POSITIVE_INFINITY;
+			if(!Double.isInfinite(quantiles[k]) && !Double.isInfinite(quantiles[k+1])){
+				error = 0;
+				for(int q = 1; q <= 3; q++){
+					double x = distribution.inverseF((k+0.25*q)/cells);
+					error = Math.max(error, Math.abs(quantiles[k] + 0.25*q*(quantiles[k+1]-quantiles[k]) - x));
+				}
+			}
+			if(error > tolerance || Double.isNaN(error)){
+				exact[k] = true;
+				exactCells++;
+			}else{
+				maxError = Math.max(maxError, error);
+			}
+		}
+	}
+	
+	public static ContinuousInversionTable tabulate(ContinuousDistribution distribution){
+		return new ContinuousInversionTable(distribution, DEFAULT_CELLS, DEFAULT_RELATIVE_TOLERANCE*distribution.getStandardDeviation());
+	}
+	
+	public Distribution getDistribution(){
+		return distribution;
+	}
+	
+	/**
+	 * @return the largest interpolation error measured at the midpoints and quarter points of the 
+	 * interpolated cells; an estimate of the maximum error of {@code inverseF}.
+	 */
+	public double getMaxError(){
+		return maxError;
+	}
+	
+	/**
+	 * @return the share of uniforms that are inverted by the wrapped distribution.
+	 */
+	public double getExactFraction(){
+		return (double)exactCells/cells;
+	}
+	
+	public double inverseF(double u){
+		double t = u*cells;
+		int k = (int)t;
+		if(k >= cells || exact[k]) return distribution.inverseF(u);
+		return quantiles[k] + (t-k)*(quantiles[k+1]-quantiles[k]);
+	}
+	
+	public double cdf(double x){
+		return distribution.cdf(x);
+	}
+	
+	public double barF(double x){
+		return distribution.barF(x);
+	}
+	
+	public double getMean(){
+		return distribution.getMean();
+	}
+	
+	public double getVariance(){
+		return distribution.getVariance();
+	}
+	
+	public double getStandardDeviation(){
+		return distribution.getStandardDeviation();
+	}
+	
+	public double[] getParams(){
+		return distribution.getParams();
+	}
+}
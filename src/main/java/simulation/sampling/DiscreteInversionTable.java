@@ -0,0 +1,149 @@
+/**
+ * pwlf-milp: Piecewise linear approximations for the static-dynamic 
+ *            uncertainty strategy in stochastic lot-sizing"
+ * 
+ * MIT License
+ * 
+ * Copyright (c) 2016 Roberto Rossi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package simulation.sampling;
+
+import umontreal.ssj.probdist.DiscreteDistribution;
+import umontreal.ssj.probdist.DiscreteDistributionInt;
+import umontreal.ssj.probdist.Distribution;
+import umontreal.ssj.probdist.EmpiricalDist;
+
+/**
+ * Guide table (Chen and Asau) for the inversion of a discrete distribution.
+ * 
+ * The support and the cumulative probabilities of the wrapped distribution are tabulated once; 
+ * {@code inverseF} then starts from the guide table entry of u and walks up at most a few table 
+ * entries, returning the smallest tabulated value x such that cdf(x) >= u. Inversion is exact: uniforms 
+ * beyond the tabulated part of the support are passed to the wrapped distribution, and the mapping 
+ * stays monotone, so the table can be used with antithetic, stratified and quasi-Monte Carlo sampling. 
+ * All other methods delegate to the wrapped distribution.
+ */
+public class DiscreteInversionTable implements Distribution {
+	
+	public static final int MAX_SUPPORT = 1 << 20;
+	
+	Distribution distribution;
+	double[] values;
+	double[] cdf;
+	int[] guide;
+	boolean equiprobable;
+	
+	/**
+	 * @param values tabulated part of the support.
+	 * @param cdf cumulative probability of each tabulated value.
+	 */
+	public DiscreteInversionTable(Distribution distribution, double[] values, double[] cdf){
+		this.distribution = distribution;
+		this.values = values;
+		this.cdf = cdf;
+		int m = values.length;
+		this.guide = new int[m+1];
+		int k = 0;
+		for(int j = 0; j <= m; j++){
+			while(k < m-1 && cdf[k] < (double)j/m) k++;
+			guide[j] = k;
+		}
+	}
+	
+	public static DiscreteInversionTable tabulate(DiscreteDistributionInt distribution){
+		int xinf = distribution.getXinf();
+		int xsup = distribution.getXsup();
+		int size = 1;
+		while(size < MAX_SUPPORT && xinf + size - 1 < xsup && distribution.barF(xinf + size) > DiscreteDistributionInt.EPSILON) size++;
+		double[] values = new double[size];
+		double[] cdf = new double[size];
+		for(int k = 0; k < size; k++){
+			values[k] = xinf + k;
+			cdf[k] = distribution.cdf(xinf + k);
+		}
+		return new DiscreteInversionTable(distribution, values, cdf);
+	}
+	
+	/**
+	 * Values are tabulated in the order in which the distribution stores them, with cumulative probabilities 
+	 * obtained from {@code prob}; this reproduces {@code inverseF} also for an {@code EmpiricalDist} built 
+	 * from unsorted observations, whose {@code cdf} is not meaningful. Observations of an {@code EmpiricalDist} 
+	 * are equally likely, so they are indexed directly instead of through the guide table.
+	 */
+	public static DiscreteInversionTable tabulate(DiscreteDistribution distribution){
+		int size = Math.min(distribution.getN(), MAX_SUPPORT);
+		double[] values = new double[size];
+		double[] cdf = new double[size];
+		double cumulative = 0;
+		for(int k = 0; k < size; k++){
+			values[k] = distribution.getValue(k);
+			cumulative += distribution.prob(k);
+			cdf[k] = cumulative;
+		}
+		DiscreteInversionTable table = new DiscreteInversionTable(distribution, values, cdf);
+		table.equiprobable = distribution instanceof EmpiricalDist && size == distribution.getN();
+		return table;
+	}
+	
+	public Distribution getDistribution(){
+		return distribution;
+	}
+	
+	public int getSize(){
+		return values.length;
+	}
+	
+	public double inverseF(double u){
+		if(equiprobable){
+			int k = (int)(u*values.length);
+			return values[k < values.length ? k : values.length-1];
+		}
+		if(u > cdf[cdf.length-1]) return distribution.inverseF(u);
+		int k = guide[(int)(u*values.length)];
+		while(cdf[k] < u) k++;
+		return values[k];
+	}
+	
+	public double cdf(double x){
+		return distribution.cdf(x);
+	}
+	
+	public double barF(double x){
+		return distribution.barF(x);
+	}
+	
+	public double getMean(){
+		return distribution.getMean();
+	}
+	
+	public double getVariance(){
+		return distribution.getVariance();
+	}
+	
+	public double getStandardDeviation(){
+		return distribution.getStandardDeviation();
+	}
+	
+	public double[] getParams(){
+		return distribution.getParams();
+	}
+}
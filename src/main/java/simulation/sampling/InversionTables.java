@@ -0,0 +1,72 @@
+/**
+ * pwlf-milp: Piecewise linear approximations for the static-dynamic 
+ *            uncertainty strategy in stochastic lot-sizing"
+ * 
+ * MIT License
+ * 
+ * Copyright (c) 2016 Roberto Rossi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package simulation.sampling;
+
+import umontreal.ssj.probdist.ContinuousDistribution;
+import umontreal.ssj.probdist.DiscreteDistribution;
+import umontreal.ssj.probdist.DiscreteDistributionInt;
+import umontreal.ssj.probdist.Distribution;
+
+public class InversionTables {
+	
+	/**
+	 * Puts a guide table in front of each discrete period demand distribution. Guide tables invert 
+	 * exactly, so simulations draw the same demands as with the distributions themselves; 
+	 * continuous distributions, distributions of any other kind and distributions that are 
+	 * already tabulated are returned as they are.
+	 */
+	public static Distribution[] tabulate(Distribution[] demand){
+		return tabulate(demand, false);
+	}
+	
+	/**
+	 * As {@link #tabulate(Distribution[])}; if {@code continuous} is true, continuous distributions 
+	 * also get an interpolation table with the default tolerance. Interpolation changes the demands 
+	 * drawn by up to an estimated error, see {@link ContinuousInversionTable}, so it is opt-in: 
+	 * simulations tabulate the demand with {@link #tabulate(Distribution[])}, and demand tabulated 
+	 * here beforehand is used as it is.
+	 */
+	public static Distribution[] tabulate(Distribution[] demand, boolean continuous){
+		Distribution[] tables = new Distribution[demand.length];
+		for(int i = 0; i < demand.length; i++){
+			tables[i] = tabulate(demand[i], continuous);
+		}
+		return tables;
+	}
+	
+	public static Distribution tabulate(Distribution distribution, boolean continuous){
+		if(distribution instanceof DiscreteDistributionInt)
+			return DiscreteInversionTable.tabulate((DiscreteDistributionInt) distribution);
+		else if(distribution instanceof DiscreteDistribution)
+			return DiscreteInversionTable.tabulate((DiscreteDistribution) distribution);
+		else if(continuous && distribution instanceof ContinuousDistribution)
+			return ContinuousInversionTable.tabulate((ContinuousDistribution) distribution);
+		else
+			return distribution;
+	}
+}
@@ -0,0 +1,60 @@
+/**
+ * pwlf-milp: Piecewise linear approximations for the static-dynamic 
+ *            uncertainty strategy in stochastic lot-sizing"
+ * 
+ * MIT License
+ * 
+ * Copyright (c) 2016 Roberto Rossi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package simulation.sampling;
+
+import umontreal.ssj.hups.KorobovLattice;
+import umontreal.ssj.hups.RandomShift;
+import umontreal.ssj.rng.MRG32k3aL;
+
+/**
+ * Randomized quasi-Monte Carlo: a Korobov rank-1 lattice with n points and generator a, 
+ * randomized by a random shift modulo 1. Good generators for a given n and dimension 
+ * are tabulated in the lattice literature or can be searched with Lattice Builder.
+ */
+public class LatticeSampling implements SamplingStrategy {
+	
+	int points;
+	int generator;
+	KorobovLattice pointSet;
+	
+	public LatticeSampling(int points, int generator){
+		this.points = points;
+		this.generator = generator;
+	}
+	
+	public int getNumPoints(){
+		return points;
+	}
+	
+	public double[][] generate(MRG32k3aL stream, int dimension){
+		if(pointSet == null || pointSet.getDimension() != dimension)
+			pointSet = new KorobovLattice(points, generator, dimension);
+		pointSet.randomize(new RandomShift(stream));
+		return RQMCPoints.toUniforms(pointSet.iterator(), points, dimension);
+	}
+}
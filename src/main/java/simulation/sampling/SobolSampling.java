@@ -0,0 +1,57 @@
+/**
+ * pwlf-milp: Piecewise linear approximations for the static-dynamic 
+ *            uncertainty strategy in stochastic lot-sizing"
+ * 
+ * MIT License
+ * 
+ * Copyright (c) 2016 Roberto Rossi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package simulation.sampling;
+
+import umontreal.ssj.hups.LMScrambleShift;
+import umontreal.ssj.hups.SobolSequence;
+import umontreal.ssj.rng.MRG32k3aL;
+
+/**
+ * Randomized quasi-Monte Carlo: the first 2^k points of a Sobol sequence, randomized by 
+ * a left matrix scramble followed by a random digital shift.
+ */
+public class SobolSampling implements SamplingStrategy {
+	
+	int log2Points;
+	SobolSequence pointSet;
+	
+	public SobolSampling(int log2Points){
+		this.log2Points = log2Points;
+	}
+	
+	public int getNumPoints(){
+		return 1 << log2Points;
+	}
+	
+	public double[][] generate(MRG32k3aL stream, int dimension){
+		if(pointSet == null || pointSet.getDimension() != dimension)
+			pointSet = new SobolSequence(log2Points, 31, dimension);
+		pointSet.randomize(new LMScrambleShift(stream));
+		return RQMCPoints.toUniforms(pointSet.iterator(), getNumPoints(), dimension);
+	}
+}
@@ -0,0 +1,228 @@
+/**
+ * pwlf-milp: Piecewise linear approximations for the static-dynamic 
+ *            uncertainty strategy in stochastic lot-sizing"
+ * 
+ * MIT License
+ * 
+ * Copyright (c) 2016 Roberto Rossi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package benchmark;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import io.ForecastFamily;
+import mip_model.backorders.PlanningItem;
+import umontreal.ssj.probdist.Distribution;
+import umontreal.ssj.probdist.EmpiricalDist;
+import umontreal.ssj.probdist.NormalDist;
+import umontreal.ssj.probdist.PoissonDist;
+import umontreal.ssj.rng.MRG32k3a;
+
+/**
+ * Seeded lot-sizing instances over a grid of horizons, demand families, coefficients of 
+ * variation, penalty to holding cost ratios and numbers of partitions. 
+ * 
+ * Mean demand follows a yearly (52 period) seasonal pattern with a random base level, phase 
+ * and per-period noise. Normal demand has standard deviation cv*mean; Poisson demand ignores cv; 
+ * empirical demand holds {@link #OBSERVATIONS} lognormal observations per period with the 
+ * given mean and cv. 
+ * 
+ * Instances are identified by their parameters, e.g. {@code poisson-T52-cv0.25-r10-N10}, and 
+ * demand is drawn from a stream seeded by a hash of the seed, family, horizon and cv, so an 
+ * instance does not depend on the rest of the grid: suites sharing an instance share its id, 
+ * its demand and hence its baseline. Instances differing only in cost ratio or partitions 
+ * share their demand.
+ */
+public class InstanceGenerator {
+   
+   public static final int OBSERVATIONS = 100;
+   
+   long[] seed;
+   int[] horizons = {12, 24, 52, 104, 156};
+   ForecastFamily[] families = ForecastFamily.values();
+   double[] coefficientsOfVariation = {0.1, 0.25, 0.4};
+   double[] costRatios = {5, 10, 20};
+   int[] partitions = {4, 10};
+   double ordercost = 100;
+   double holdingcost = 1;
+   
+   public InstanceGenerator(long[] seed){
+      this.seed = seed.clone();
+   }
+   
+   public InstanceGenerator setHorizons(int... horizons){
+      this.horizons = horizons;
+      return this;
+   }
+   
+   public InstanceGenerator setFamilies(ForecastFamily... families){
+      this.families = families;
+      return this;
+   }
+   
+   public InstanceGenerator setCoefficientsOfVariation(double... coefficientsOfVariation){
+      this.coefficientsOfVariation = coefficientsOfVariation;
+      return this;
+   }
+   
+   /**
+    * Penalty cost to holding cost ratios.
+    */
+   public InstanceGenerator setCostRatios(double... costRatios){
+      this.costRatios = costRatios;
+      return this;
+   }
+   
+   public InstanceGenerator setPartitions(int... partitions){
+      this.partitions = partitions;
+      return this;
+   }
+   
+   public InstanceGenerator setCosts(double ordercost, double holdingcost){
+      this.ordercost = ordercost;
+      this.holdingcost = holdingcost;
+      return this;
+   }
+   
+   /**
+    * @return every instance of the grid, horizons varying slowest and partitions fastest.
+    */
+   public List<Instance> generate(){
+      List<Instance> instances = new ArrayList<Instance>();
+      for(int horizon : horizons)
+         for(ForecastFamily family : families)
+            for(double cv : coefficientsOfVariation)
+               for(double ratio : costRatios)
+                  for(int N : partitions) 
+                     instances.add(instance(horizon, family, cv, ratio, N));
+      return instances;
+   }
+   
+   /**
+    * The instance with the given parameters, independent of the grid.
+    */
+   public Instance instance(int horizon, ForecastFamily family, double cv, double ratio, int N){
+      String demandKey = family.name().toLowerCase()+"-T"+horizon+"-cv"+format(cv);
+      MRG32k3a stream = new MRG32k3a();
+      stream.setSeed(seed(demandKey));
+      double base = 20 + 40*stream.nextDouble();
+      double phase = 2*Math.PI*stream.nextDouble();
+      Distribution[] demand = new Distribution[horizon];
+      for(int t = 0; t < horizon; t++){
+         double mean = base*(1 + 0.5*Math.sin(2*Math.PI*t/52 + phase))*(0.8 + 0.4*stream.nextDouble());
+         switch(family){
+         case POISSON:
+            demand[t] = new PoissonDist(mean);
+            break;
+         case NORMAL:
+            demand[t] = new NormalDist(mean, cv*mean);
+            break;
+         default:
+            double sigma2 = Math.log(1 + cv*cv);
+            double mu = Math.log(mean) - sigma2/2;
+            double[] observations = new double[OBSERVATIONS];
+            for(int i = 0; i < observations.length; i++) 
+               observations[i] = Math.exp(mu + Math.sqrt(sigma2)*NormalDist.inverseF01(stream.nextDouble()));
+            demand[t] = new EmpiricalDist(observations);
+         }
+      }
+      String id = demandKey+"-r"+format(ratio)+"-N"+N;
+      PlanningItem item = new PlanningItem(id, demand, ordercost, holdingcost, ratio*holdingcost, 0, 0);
+      return new Instance(item, family, cv, ratio, N);
+   }
+   
+   /**
+    * Shortest decimal form of x, e.g. 0.25 or 10.
+    */
+   static String format(double x){
+      return new BigDecimal(String.format(Locale.ROOT, "%.6f", x)).stripTrailingZeros().toPlainString();
+   }
+   
+   /**
+    * MRG32k3a seed from a SHA-256 digest of the generator seed and {@code key}; each component 
+    * is in [1, m) for the modulus m of its half of the state.
+    */
+   long[] seed(String key){
+      try{
+         MessageDigest digest = MessageDigest.getInstance("SHA-256");
+         for(long s : seed) digest.update(Long.toString(s).getBytes(StandardCharsets.UTF_8));
+         byte[] hash = digest.digest(key.getBytes(StandardCharsets.UTF_8));
+         long[] state = new long[6];
+         for(int c = 0; c < 6; c++){
+            long bits = 0;
+            for(int b = 0; b < 4; b++) bits = (bits << 8) | (hash[4*c+b] & 0xFF);
+            long m = c < 3 ? 4294967087L : 4294944443L;
+            state[c] = 1 + bits % (m - 1);
+         }
+         return state;
+      }catch(NoSuchAlgorithmException e){
+         throw new IllegalStateException(e);
+      }
+   }
+   
+   public static class Instance {
+      PlanningItem item;
+      ForecastFamily family;
+      double cv;
+      double costRatio;
+      int partitions;
+      
+      Instance(PlanningItem item, ForecastFamily family, double cv, double costRatio, int partitions){
+         this.item = item;
+         this.family = family;
+         this.cv = cv;
+         this.costRatio = costRatio;
+         this.partitions = partitions;
+      }
+      
+      public String getId(){
+         return item.getId();
+      }
+      
+      public PlanningItem getItem(){
+         return item;
+      }
+      
+      public ForecastFamily getFamily(){
+         return family;
+      }
+      
+      public double getCoefficientOfVariation(){
+         return cv;
+      }
+      
+      public double getCostRatio(){
+         return costRatio;
+      }
+      
+      public int getPartitions(){
+         return partitions;
+      }
+   }
+}
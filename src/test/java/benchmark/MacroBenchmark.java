@@ -0,0 +1,382 @@
+/**
+ * pwlf-milp: Piecewise linear approximations for the static-dynamic 
+ *            uncertainty strategy in stochastic lot-sizing"
+ * 
+ * MIT License
+ * 
+ * Copyright (c) 2016 Roberto Rossi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package benchmark;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import ilog.concert.IloException;
+import io.ForecastFamily;
+import linearization.LinearizationMethod;
+import mip_model.backorders.MILPModelPenalty;
+import mip_model.backorders.PlanningItem;
+import monitoring.Instrumentation;
+import monitoring.PipelineListener;
+import monitoring.Stage;
+import simulation.SimulationBudget;
+
+/**
+ * Macro-benchmark of the planning pipeline on {@link InstanceGenerator} instances. For each 
+ * instance the stages reported through {@link Instrumentation} are timed in five steps: the 
+ * linearization parameter build, a shortest path solve with the policy simulation in 
+ * {@code SimulatePoliciesBackorders}, the OPL generation of the lower bound model and of its 
+ * {@code _cumulative} variant, without solve, and an OPL solve of the lower bound model with its 
+ * simulation. The OPL steps are reported as SKIPPED when the CPLEX native libraries cannot be 
+ * loaded. The generation suite times generation over horizons 12 to 120.
+ * 
+ * Each instance is run {@code --repetitions} times and the fastest time of every stage is kept. 
+ * Results are written as CSV and compared with a baseline report of the same suite: a stage 
+ * is a REGRESSION if it is slower than its baseline by more than the tolerance, relative, and 
+ * the slack, in seconds. The exit status is 1 if any regression was found.
+ * 
+ * <pre>
+ * MacroBenchmark [--suite quick|full|generation] [--report file] [--baseline file] [--repetitions 3] [--tolerance 0.5] [--slack 0.05] [--record]
+ * </pre>
+ * {@code --record} stores the report as the new baseline. Run from the project root, where the 
+ * OPL models are found.
+ */
+public class MacroBenchmark {
+   
+   public static final String HEADER = "instance,family,horizon,cv,cost_ratio,partitions,step,stage,seconds,baseline,status";
+   
+   static final String OPL_MODEL = "rs_milp_piecewise_penalty_lb";
+   
+   public static void main(String args[]) throws IOException {
+      String suite = "quick";
+      Path report = Paths.get("target", "macro-benchmark.csv");
+      Path baseline = null;
+      int repetitions = 3;
+      double tolerance = 0.5;
+      double slack = 0.05;
+      boolean record = false;
+      for(int i = 0; i < args.length; i++){
+         switch(args[i]){
+         case "--suite": suite = args[++i]; break;
+         case "--report": report = Paths.get(args[++i]); break;
+         case "--baseline": baseline = Paths.get(args[++i]); break;
+         case "--repetitions": repetitions = Integer.parseInt(args[++i]); break;
+         case "--tolerance": tolerance = Double.parseDouble(args[++i]); break;
+         case "--slack": slack = Double.parseDouble(args[++i]); break;
+         case "--record": record = true; break;
+         default: throw new IllegalArgumentException("Unknown option "+args[i]);
+         }
+      }
+      if(baseline == null) baseline = Paths.get("src", "test", "resources", "benchmark", "baseline-"+suite+".csv");
+      
+      List<InstanceGenerator.Instance> instances = suite(suite).generate();
+      boolean cplex = isCplexAvailable();
+      if(!cplex) System.out.println("CPLEX native libraries not found: OPL stages are skipped");
+      
+      MacroBenchmark benchmark = new MacroBenchmark(cplex);
+      benchmark.warmUp(instances);
+      List<Row> rows = new ArrayList<Row>();
+      for(InstanceGenerator.Instance instance : instances){
+         List<Row> instanceRows = benchmark.run(instance);
+         for(int r = 1; r < repetitions; r++) keepFastest(instanceRows, benchmark.run(instance));
+         for(Row row : instanceRows) System.out.println(row.instance+"\t "+row.step+"/"+row.stage+"\t "+row.format());
+         rows.addAll(instanceRows);
+      }
+      
+      int regressions = 0;
+      if(!record && Files.exists(baseline)){
+         regressions = compare(rows, readBaseline(baseline), tolerance, slack);
+         for(Row row : rows)
+            if(row.status.equals("REGRESSION")) 
+               System.out.println("REGRESSION "+row.instance+" "+row.step+"/"+row.stage+": "+row.format()+" s, baseline "+row.baseline+" s");
+         System.out.println(regressions+" regressions against "+baseline);
+      }else if(!record){
+         System.out.println("No baseline "+baseline+", run with --record to store one");
+      }
+      write(rows, report);
+      System.out.println("Report: "+report);
+      if(record){
+         write(rows, baseline);
+         System.out.println("Baseline recorded: "+baseline);
+      }
+      if(regressions > 0) System.exit(1);
+   }
+   
+   static InstanceGenerator suite(String name){
+      InstanceGenerator generator = new InstanceGenerator(new long[]{1,2,3,4,5,6});
+      switch(name){
+      case "quick":
+         return generator.setHorizons(12, 52, 156).setCoefficientsOfVariation(0.25).setCostRatios(10).setPartitions(10);
+      case "full":
+         return generator;
+      case "generation":
+         return generator.setHorizons(12, 24, 52, 120).setCoefficientsOfVariation(0.25).setCostRatios(10).setPartitions(10);
+      default:
+         throw new IllegalArgumentException("Unknown suite "+name);
+      }
+   }
+   
+   /**
+    * The OPL factory needs the OPL native library; probing it directly avoids the messages the 
+    * factory prints when its initialisation fails.
+    */
+   static boolean isCplexAvailable(){
+      try{
+         System.loadLibrary("opl12100");
+         return true;
+      }catch(UnsatisfiedLinkError e){
+         return false;
+      }
+   }
+   
+   boolean cplex;
+   long[] seed = {1,2,3,4,5,6};
+   int nbSamples = 1000;
+   int population = 10000;
+   StageRecorder recorder = new StageRecorder();
+   
+   MacroBenchmark(boolean cplex){
+      this.cplex = cplex;
+   }
+   
+   /**
+    * Analytic parameters where available; empirical demand is sampled through the mapped 
+    * store, which keeps long horizons within a small heap.
+    */
+   static LinearizationMethod method(ForecastFamily family){
+      return family == ForecastFamily.EMPIRICAL ? LinearizationMethod.MAPPED : LinearizationMethod.ANALYTIC;
+   }
+   
+   static SimulationBudget budget(){
+      SimulationBudget budget = new SimulationBudget(0.95, 0.001);
+      budget.setMaxRuns(100000);
+      return budget;
+   }
+   
+   /**
+    * Runs the shortest instance of each family once, unrecorded, to load and compile the pipeline.
+    */
+   void warmUp(List<InstanceGenerator.Instance> instances){
+      Map<ForecastFamily, InstanceGenerator.Instance> shortest = new EnumMap<ForecastFamily, InstanceGenerator.Instance>(ForecastFamily.class);
+      for(InstanceGenerator.Instance instance : instances){
+         InstanceGenerator.Instance current = shortest.get(instance.getFamily());
+         if(current == null || instance.getItem().getHorizon() < current.getItem().getHorizon()) 
+            shortest.put(instance.getFamily(), instance);
+      }
+      for(InstanceGenerator.Instance instance : shortest.values()) run(instance);
+   }
+   
+   List<Row> run(InstanceGenerator.Instance instance){
+      List<Row> rows = new ArrayList<Row>();
+      PlanningItem item = instance.getItem();
+      Instrumentation.addListener(recorder);
+      try{
+         recorder.clear();
+         long begin = System.nanoTime();
+         MILPModelPenalty model = new MILPModelPenalty(item.getHorizon(), item.getDemand(), item.getOrderCost(), 
+               item.getHoldingCost(), item.getPenaltyCost(), item.getUnitCost(), item.getInitialStock(), 
+               instance.getPartitions(), seed, nbSamples, population, method(instance.getFamily()));
+         model.setPolicyEvaluation(MILPModelPenalty.PolicyEvaluation.SIMULATION);
+         model.setSimulationBudget(budget());
+         rows.addAll(recorder.rows(instance, "build", System.nanoTime() - begin));
+         
+         begin = System.nanoTime();
+         model.solveShortestPath(false, 1);
+         rows.addAll(recorder.rows(instance, "shortest-path", System.nanoTime() - begin));
+         
+         for(String modelName : new String[]{OPL_MODEL, OPL_MODEL + MILPModelPenalty.CUMULATIVE_SUFFIX}){
+            String step = modelName.equals(OPL_MODEL) ? "generate" : "generate-cumulative";
+            if(!cplex){
+               rows.add(new Row(instance, step, "TOTAL", Double.NaN, "SKIPPED"));
+               continue;
+            }
+            begin = System.nanoTime();
+            try{
+               model.generate(modelName);
+               rows.addAll(recorder.rows(instance, step, System.nanoTime() - begin));
+            }catch(IloException e){
+               recorder.clear();
+               rows.add(new Row(instance, step, "TOTAL", Double.NaN, "FAILED"));
+            }
+         }
+         
+         if(cplex){
+            begin = System.nanoTime();
+            try{
+               model.solve(OPL_MODEL, 1);
+               rows.addAll(recorder.rows(instance, "opl", System.nanoTime() - begin));
+            }catch(IloException e){
+               recorder.clear();
+               rows.add(new Row(instance, "opl", "TOTAL", Double.NaN, "FAILED"));
+            }
+         }else{
+            rows.add(new Row(instance, "opl", "TOTAL", Double.NaN, "SKIPPED"));
+         }
+      }finally{
+         Instrumentation.removeListener(recorder);
+      }
+      return rows;
+   }
+   
+   /**
+    * Replaces the times in {@code rows} by those of {@code repetition} where faster.
+    */
+   static void keepFastest(List<Row> rows, List<Row> repetition){
+      Map<String, Row> times = new HashMap<String, Row>();
+      for(Row row : repetition) times.put(row.key(), row);
+      for(Row row : rows){
+         Row other = times.get(row.key());
+         if(other != null && other.seconds < row.seconds) row.seconds = other.seconds;
+      }
+   }
+   
+   /**
+    * Sets the baseline and status of every measured row; returns the number of regressions.
+    */
+   static int compare(List<Row> rows, Map<String, Double> baseline, double tolerance, double slack){
+      int regressions = 0;
+      for(Row row : rows){
+         if(Double.isNaN(row.seconds)) continue;
+         Double reference = baseline.get(row.key());
+         if(reference == null || Double.isNaN(reference)){
+            row.status = "NEW";
+            continue;
+         }
+         row.baseline = reference;
+         if(row.seconds > reference*(1 + tolerance) && row.seconds - reference > slack){
+            row.status = "REGRESSION";
+            regressions++;
+         }else if(row.seconds*(1 + tolerance) < reference && reference - row.seconds > slack){
+            row.status = "IMPROVED";
+         }
+      }
+      return regressions;
+   }
+   
+   static Map<String, Double> readBaseline(Path file) throws IOException {
+      Map<String, Double> baseline = new HashMap<String, Double>();
+      try(BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)){
+         String line = reader.readLine();
+         if(line == null || !line.equals(HEADER)) throw new IOException("Not a macro-benchmark report: "+file);
+         while((line = reader.readLine()) != null){
+            String[] fields = line.split(",", -1);
+            if(fields[8].isEmpty()) continue;
+            baseline.put(fields[0]+"/"+fields[6]+"/"+fields[7], Double.parseDouble(fields[8]));
+         }
+      }
+      return baseline;
+   }
+   
+   static void write(List<Row> rows, Path file) throws IOException {
+      if(file.getParent() != null) Files.createDirectories(file.getParent());
+      try(BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)){
+         writer.write(HEADER);
+         writer.newLine();
+         for(Row row : rows){
+            writer.write(row.toCsv());
+            writer.newLine();
+         }
+      }
+   }
+   
+   /**
+    * Time of one stage, or of a whole step (stage TOTAL), of one instance.
+    */
+   static class Row {
+      String instance;
+      ForecastFamily family;
+      int horizon;
+      double cv;
+      double costRatio;
+      int partitions;
+      String step;
+      String stage;
+      double seconds;
+      double baseline = Double.NaN;
+      String status;
+      
+      Row(InstanceGenerator.Instance instance, String step, String stage, double seconds, String status){
+         this.instance = instance.getId();
+         this.family = instance.getFamily();
+         this.horizon = instance.getItem().getHorizon();
+         this.cv = instance.getCoefficientOfVariation();
+         this.costRatio = instance.getCostRatio();
+         this.partitions = instance.getPartitions();
+         this.step = step;
+         this.stage = stage;
+         this.seconds = seconds;
+         this.status = status;
+      }
+      
+      String key(){
+         return instance+"/"+step+"/"+stage;
+      }
+      
+      String format(){
+         return Double.isNaN(seconds) ? status : String.format("%.4f", seconds);
+      }
+      
+      String toCsv(){
+         return instance+","+family+","+horizon+","+cv+","+costRatio+","+partitions+","+step+","+stage+","
+               +(Double.isNaN(seconds) ? "" : String.format("%.4f", seconds))+","
+               +(Double.isNaN(baseline) ? "" : String.format("%.4f", baseline))+","+status;
+      }
+   }
+   
+   /**
+    * Accumulates stage times between two calls of {@link #rows}.
+    */
+   static class StageRecorder implements PipelineListener {
+      Map<Stage, Double> seconds = new EnumMap<Stage, Double>(Stage.class);
+      
+      public synchronized void stage(Stage stage, double elapsed){
+         seconds.merge(stage, elapsed, Double::sum);
+      }
+      
+      synchronized void clear(){
+         seconds.clear();
+      }
+      
+      /**
+       * One row per recorded stage and one for the whole step, then clears.
+       */
+      synchronized List<Row> rows(InstanceGenerator.Instance instance, String step, long nanos){
+         List<Row> rows = new ArrayList<Row>();
+         for(Map.Entry<Stage, Double> entry : seconds.entrySet()) 
+            rows.add(new Row(instance, step, entry.getKey().name(), entry.getValue(), "OK"));
+         rows.add(new Row(instance, step, "TOTAL", nanos*1e-9, "OK"));
+         seconds.clear();
+         return rows;
+      }
+   }
+}
@@ -0,0 +1,219 @@
+/**
+ * pwlf-milp: Piecewise linear approximations for the static-dynamic 
+ *            uncertainty strategy in stochastic lot-sizing"
+ * 
+ * MIT License
+ * 
+ * Copyright (c) 2016 Roberto Rossi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import mip_model.backorders.BatchPlanner;
+import mip_model.backorders.PlanningItem;
+import mip_model.backorders.PlanningResult;
+import umontreal.ssj.probdist.Distribution;
+import umontreal.ssj.probdist.EmpiricalDist;
+import umontreal.ssj.probdist.NormalDist;
+import umontreal.ssj.probdist.PoissonDist;
+import umontreal.ssj.rng.MRG32k3a;
+
+/**
+ * Round trips of the forecast formats and a catalog streamed through the planner.
+ */
+public class TestForecastPipeline {
+   
+   public static void main(String args[]) throws Exception {
+      checkRoundTrip();
+      checkLargeRecord();
+      checkPipeline(20000);
+      checkSinkFailure();
+   }
+   
+   static void check(boolean condition, String message){
+      if(!condition) throw new IllegalStateException(message);
+   }
+   
+   static PlanningItem item(int n, MRG32k3a stream, boolean poisson){
+      int horizon = 4 + n % 9;
+      Distribution[] demand = new Distribution[horizon];
+      double base = 10 + 40*stream.nextDouble();
+      for(int t = 0; t < horizon; t++){
+         double mean = base*(1 + 0.5*Math.sin(2*Math.PI*t/12));
+         switch(poisson ? 0 : n % 3){
+         case 0: demand[t] = new PoissonDist(mean); break;
+         case 1: demand[t] = new NormalDist(mean, 0.25*mean); break;
+         default:
+            double[] observations = new double[5 + t];
+            for(int i = 0; i < observations.length; i++) observations[i] = Math.round(mean*2*stream.nextDouble());
+            demand[t] = new EmpiricalDist(observations);
+         }
+      }
+      return new PlanningItem("item-"+n, demand, 20 + 80*stream.nextDouble(), 1, 5 + 10*stream.nextDouble(), 0.5, n % 4 == 0 ? 15 : 0);
+   }
+   
+   /**
+    * Items are generated lazily, so that the catalog is never held in memory; with 
+    * {@code poisson} all items have Poisson demand, otherwise families alternate.
+    */
+   static Iterator<PlanningItem> catalog(final int items, final boolean poisson){
+      final MRG32k3a stream = new MRG32k3a();
+      return new Iterator<PlanningItem>(){
+         int n = 0;
+         public boolean hasNext(){
+            return n < items;
+         }
+         public PlanningItem next(){
+            return item(n++, stream, poisson);
+         }
+      };
+   }
+   
+   static void checkSame(PlanningItem a, PlanningItem b){
+      check(a.getId().equals(b.getId()) && a.getHorizon() == b.getHorizon(), "Item "+a.getId()+" differs");
+      check(a.getOrderCost() == b.getOrderCost() && a.getPenaltyCost() == b.getPenaltyCost() && a.getHoldingCost() == b.getHoldingCost()
+            && a.getUnitCost() == b.getUnitCost() && a.getInitialStock() == b.getInitialStock(), "Costs of "+a.getId()+" differ");
+      ForecastFamily family = ForecastFamily.of(a.getDemand());
+      check(family == ForecastFamily.of(b.getDemand()), "Family of "+a.getId()+" differs");
+      for(int t = 0; t < a.getHorizon(); t++)
+         check(Arrays.equals(family.parameters(a.getDemand()[t]), family.parameters(b.getDemand()[t])), "Demand of "+a.getId()+" differs");
+   }
+   
+   static void checkRoundTrip() throws IOException{
+      Path csv = Files.createTempFile("forecast", ".csv");
+      Path binary = Files.createTempFile("forecast", ".bin");
+      List<PlanningItem> items = new ArrayList<PlanningItem>();
+      Iterator<PlanningItem> catalog = catalog(60, false);
+      try(CsvForecastWriter csvWriter = new CsvForecastWriter(csv); BinaryForecastWriter binaryWriter = new BinaryForecastWriter(binary)){
+         while(catalog.hasNext()){
+            PlanningItem item = catalog.next();
+            items.add(item);
+            csvWriter.write(item);
+            binaryWriter.write(item);
+         }
+      }
+      int n = 0;
+      try(CsvForecastReader csvReader = new CsvForecastReader(csv); BinaryForecastReader binaryReader = new BinaryForecastReader(binary)){
+         while(csvReader.hasNext()){
+            PlanningItem item = items.get(n++);
+            checkSame(item, csvReader.next());
+            checkSame(item, binaryReader.next());
+         }
+         check(!binaryReader.hasNext(), "Binary file has extra records");
+      }
+      check(n == items.size(), "CSV file lost records");
+      System.out.println("Round trip: "+n+" items, CSV "+Files.size(csv)+" bytes, binary "+Files.size(binary)+" bytes");
+      Files.delete(csv);
+      Files.delete(binary);
+   }
+   
+   /**
+    * A record larger than the read buffer.
+    */
+   static void checkLargeRecord() throws IOException{
+      Path binary = Files.createTempFile("forecast", ".bin");
+      double[] observations = new double[20000];
+      for(int i = 0; i < observations.length; i++) observations[i] = i % 97;
+      PlanningItem large = new PlanningItem("large", new Distribution[]{new EmpiricalDist(observations), new EmpiricalDist(observations)}, 10, 1, 5, 0, 0);
+      PlanningItem small = item(2, new MRG32k3a(), false);
+      try(BinaryForecastWriter writer = new BinaryForecastWriter(binary)){
+         writer.write(small);
+         writer.write(large);
+         writer.write(small);
+      }
+      try(BinaryForecastReader reader = new BinaryForecastReader(binary)){
+         checkSame(small, reader.next());
+         checkSame(large, reader.next());
+         checkSame(small, reader.next());
+         check(!reader.hasNext(), "Unexpected record");
+      }
+      System.out.println("Large record: "+Files.size(binary)+" bytes");
+      Files.delete(binary);
+   }
+   
+   static void checkPipeline(int items) throws Exception{
+      Path binary = Files.createTempFile("catalog", ".bin");
+      Path results = Files.createTempFile("results", ".csv");
+      Iterator<PlanningItem> catalog = catalog(items, true);
+      try(BinaryForecastWriter writer = new BinaryForecastWriter(binary)){
+         while(catalog.hasNext()) writer.write(catalog.next());
+      }
+      int cores = Runtime.getRuntime().availableProcessors();
+      BatchPlanner planner = new BatchPlanner(cores, 4*cores);
+      planner.setSimulation(false, 0.95, 0.01);
+      ForecastPipeline pipeline = new ForecastPipeline(planner, 64);
+      ForecastPipeline.Summary summary;
+      try(BinaryForecastReader reader = new BinaryForecastReader(binary); CsvResultWriter sink = new CsvResultWriter(results)){
+         summary = pipeline.run(reader, sink);
+      }finally{
+         planner.shutdown();
+      }
+      Runtime runtime = Runtime.getRuntime();
+      System.gc();
+      System.out.println("Pipeline: "+summary.getWritten()+"/"+summary.getRead()+" items, failed "+summary.getFailed()+", "
+            +String.format("%.0f", summary.getThroughput())+" items/s, catalog "+Files.size(binary)/1024+" KB, heap in use "
+            +(runtime.totalMemory() - runtime.freeMemory())/(1024*1024)+" MB");
+      check(summary.getRead() == items && summary.getWritten() == items && summary.getFailed() == 0, "Items lost");
+      try(BufferedReader reader = Files.newBufferedReader(results, StandardCharsets.UTF_8)){
+         check(reader.readLine().equals(CsvResultWriter.HEADER), "Missing header");
+         for(int n = 0; n < items; n++){
+            String[] fields = reader.readLine().split(",", -1);
+            check(fields[0].equals("item-"+n), "Results out of order at "+n);
+            check(fields[13].length() == Integer.parseInt(fields[1]) && !Double.isNaN(Double.parseDouble(fields[2])), "Missing policy for "+fields[0]);
+         }
+         check(reader.readLine() == null, "Extra results");
+      }
+      Files.delete(binary);
+      Files.delete(results);
+   }
+   
+   static void checkSinkFailure() throws Exception{
+      BatchPlanner planner = new BatchPlanner(1, 4);
+      planner.setSimulation(false, 0.95, 0.01);
+      ForecastPipeline pipeline = new ForecastPipeline(planner, 4);
+      ResultSink failing = new ResultSink(){
+         int written;
+         public void write(PlanningResult result) throws IOException{
+            if(++written > 10) throw new IOException("Disk full");
+         }
+         public void close(){
+         }
+      };
+      try{
+         pipeline.run(catalog(1000, true), failing);
+         check(false, "Sink failure not reported");
+      }catch(IOException e){
+         System.out.println("Sink failure reported: "+e.getMessage());
+      }finally{
+         planner.shutdown();
+      }
+   }
+}
@@ -0,0 +1,90 @@
+/**
+ * pwlf-milp: Piecewise linear approximations for the static-dynamic 
+ *            uncertainty strategy in stochastic lot-sizing"
+ * 
+ * MIT License
+ * 
+ * Copyright (c) 2016 Roberto Rossi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package linearization;
+
+import umontreal.ssj.probdist.BinomialDist;
+import umontreal.ssj.probdist.Distribution;
+import umontreal.ssj.probdist.NormalDist;
+import umontreal.ssj.probdist.PoissonDist;
+
+public class TestAnalyticLinearizationParameters {
+   
+   public static void main(String args[]) {
+      double[] meanDemand = {10,20,30,40,50,40,30,20};
+      int T = meanDemand.length;
+      
+      Distribution[] normal = new Distribution[T];
+      Distribution[] poisson = new Distribution[T];
+      Distribution[] binomial = new Distribution[T];
+      for(int i = 0; i < T; i++){
+         normal[i] = new NormalDist(meanDemand[i], 0.25*meanDemand[i]);
+         poisson[i] = new PoissonDist(meanDemand[i]);
+         binomial[i] = new BinomialDist(2*(int)meanDemand[i], 0.5);
+      }
+      
+      compare("Normal", normal);
+      compare("Poisson", poisson);
+      compare("Binomial", binomial);
+      
+      double[] f = AnalyticLinearizationParameters.truncate(new PoissonDist(5000), new int[1]);
+      double[] g = AnalyticLinearizationParameters.truncate(new BinomialDist(4000, 0.3), new int[1]);
+      double[] direct = Convolution.convolveDirect(f, g);
+      double[] fft = Convolution.convolveFFT(f, g);
+      double maxDifference = 0;
+      for(int x = 0; x < direct.length; x++) maxDifference = Math.max(maxDifference, Math.abs(direct[x] - fft[x]));
+      System.out.println("Support "+direct.length+"\t Max difference FFT vs direct convolution: "+maxDifference);
+   }
+   
+   static void compare(String name, Distribution[] demand){
+      int Nbpartitions = 10;
+      long[] seed = {1,2,3,4,5,6};
+      int nbSamples = 10000;
+      int population = 100000;
+      
+      long start = System.currentTimeMillis();
+      LinearizationParameters analytic = LinearizationMethod.ANALYTIC.build(demand, seed, nbSamples, population, Nbpartitions);
+      long analyticTime = System.currentTimeMillis() - start;
+      start = System.currentTimeMillis();
+      LinearizationParameters sampled = LinearizationMethod.SAMPLING.build(demand, seed, nbSamples, population, Nbpartitions);
+      long sampledTime = System.currentTimeMillis() - start;
+      
+      double maxExpectationDifference = 0;
+      double maxErrorDifference = 0;
+      for(int i = 0; i < demand.length; i++){
+         for(int j = i; j < demand.length; j++){
+            for(int k = 0; k < Nbpartitions; k++){
+               maxExpectationDifference = Math.max(maxExpectationDifference, Math.abs(analytic.getConditionalExpectation(i, j, k) - sampled.getConditionalExpectation(i, j, k)));
+            }
+            maxErrorDifference = Math.max(maxErrorDifference, Math.abs(analytic.getMaximumApproximationError(i, j) - sampled.getMaximumApproximationError(i, j)));
+         }
+      }
+      System.out.println(name+"\t Analytic: "+analyticTime+" ms\t Sampling: "+sampledTime+" ms");
+      System.out.println("Max difference: conditional expectation "+maxExpectationDifference+"\t approximation error "+maxErrorDifference);
+      System.out.println("Full horizon analytic error "+analytic.getMaximumApproximationError(0, demand.length-1)+"\t sampled error "+sampled.getMaximumApproximationError(0, demand.length-1));
+   }
+}
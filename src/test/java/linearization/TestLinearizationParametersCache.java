@@ -0,0 +1,108 @@
+/**
+ * pwlf-milp: Piecewise linear approximations for the static-dynamic 
+ *            uncertainty strategy in stochastic lot-sizing"
+ * 
+ * MIT License
+ * 
+ * Copyright (c) 2016 Roberto Rossi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package linearization;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import RS.RSCycleLinearizationParameters;
+import umontreal.ssj.probdist.Distribution;
+import umontreal.ssj.probdist.PoissonDist;
+
+public class TestLinearizationParametersCache {
+   
+   public static void main(String args[]) throws Exception {
+      double[] meanDemand = {10,20,30,40,50,40,30,20};
+      Distribution[] distributions = new Distribution[meanDemand.length];
+      for(int i = 0; i < distributions.length; i++)
+         distributions[i] = new PoissonDist(meanDemand[i]);
+      
+      int Nbpartitions = 10;
+      long[] seed = {1,2,3,4,5,6};
+      int nbSamples = 1000;
+      int population = 100000;
+      
+      File directory = Files.createTempDirectory("linearization").toFile();
+      directory.deleteOnExit();
+      
+      long start = System.currentTimeMillis();
+      LinearizationParameters cold = new LinearizationParametersCache(16, directory).get(distributions, seed, nbSamples, population, Nbpartitions);
+      long coldTime = System.currentTimeMillis() - start;
+      
+      /* New cache instance on the same directory: disk tier */
+      LinearizationParametersCache cache = new LinearizationParametersCache(16, directory);
+      start = System.currentTimeMillis();
+      LinearizationParameters disk = cache.get(distributions, seed, nbSamples, population, Nbpartitions);
+      long diskTime = System.currentTimeMillis() - start;
+      
+      /* Same cache instance: memory tier */
+      start = System.currentTimeMillis();
+      LinearizationParameters memory = cache.get(distributions, seed, nbSamples, population, Nbpartitions);
+      long memoryTime = System.currentTimeMillis() - start;
+      
+      RSCycleLinearizationParameters reference = new RSCycleLinearizationParameters(distributions, seed, nbSamples, population, Nbpartitions);
+      double maxDifference = 0;
+      for(int i = 0; i < distributions.length; i++){
+         for(int j = i; j < distributions.length; j++){
+            for(int k = 0; k < Nbpartitions; k++){
+               maxDifference = Math.max(maxDifference, Math.abs(disk.getConditionalExpectation(i, j, k) - reference.getConditionalExpectation(i, j)[k]));
+            }
+            maxDifference = Math.max(maxDifference, Math.abs(disk.getMaximumApproximationError(i, j) - reference.getMaximumApproximationError(i, j)));
+         }
+      }
+      
+      System.out.println("Cold: "+coldTime+" ms\t Disk: "+diskTime+" ms\t Memory: "+memoryTime+" ms");
+      System.out.println("Same instance from memory: "+(memory == disk)+"\t Max difference from sampling: "+maxDifference);
+      System.out.println("Hits: "+cache.getHits()+"\t Disk hits: "+cache.getDiskHits()+"\t Misses: "+cache.getMisses());
+      if(!((MappedLinearizationParameters) disk).getConditionalExpectations().isDirect())
+         throw new IllegalStateException("Disk entry copied to the heap");
+      
+      /* Concurrent requests for a new key sample it once */
+      final LinearizationParametersCache shared = new LinearizationParametersCache(16, null);
+      final long[] otherSeed = {7,8,9,10,11,12};
+      Thread[] threads = new Thread[4];
+      for(int n = 0; n < threads.length; n++){
+         threads[n] = new Thread(() -> shared.get(distributions, otherSeed, nbSamples, population, Nbpartitions));
+         threads[n].start();
+      }
+      for(Thread thread : threads) thread.join();
+      System.out.println("Concurrent requests: "+threads.length+"\t misses: "+shared.getMisses()+"\t hits: "+shared.getHits());
+      if(shared.getMisses() != 1) throw new IllegalStateException("Concurrent misses sampled more than once");
+      
+      /* Corrupt entry: counted as a failure, resampled and rewritten */
+      for(File file : directory.listFiles()) Files.write(file.toPath(), new byte[]{1,2,3});
+      LinearizationParametersCache corrupt = new LinearizationParametersCache(16, directory);
+      corrupt.get(distributions, seed, nbSamples, population, Nbpartitions);
+      LinearizationParametersCache rewritten = new LinearizationParametersCache(16, directory);
+      rewritten.get(distributions, seed, nbSamples, population, Nbpartitions);
+      System.out.println("Corrupt entry failures: "+corrupt.getFailures()+" ("+corrupt.getLastFailure()+")\t misses: "+corrupt.getMisses()
+            +"\t disk hits after rewrite: "+rewritten.getDiskHits());
+      
+      for(File file : directory.listFiles()) file.delete();
+   }
+}
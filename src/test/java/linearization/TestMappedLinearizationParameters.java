@@ -0,0 +1,121 @@
+/**
+ * pwlf-milp: Piecewise linear approximations for the static-dynamic 
+ *            uncertainty strategy in stochastic lot-sizing"
+ * 
+ * MIT License
+ * 
+ * Copyright (c) 2016 Roberto Rossi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package linearization;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+
+import umontreal.ssj.probdist.Distribution;
+import umontreal.ssj.probdist.NormalDist;
+import umontreal.ssj.probdist.PoissonDist;
+
+public class TestMappedLinearizationParameters {
+   
+   public static void main(String args[]) {
+      int T = 24;
+      Distribution[] poisson = new Distribution[T];
+      Distribution[] normal = new Distribution[T];
+      for(int i = 0; i < T; i++){
+         double mean = 20 + 10*Math.sin(2*Math.PI*i/12);
+         poisson[i] = new PoissonDist(mean);
+         normal[i] = new NormalDist(mean, 0.25*mean);
+      }
+      compare("Poisson", poisson);
+      compare("Normal", normal);
+      
+      int index = 0;
+      for(int i = 0; i < T; i++)
+         for(int j = i; j < T; j++)
+            if(MappedLinearizationParameters.index(T, i, j) != index++)
+               throw new IllegalStateException("Cycle ("+i+","+j+") out of order");
+      
+      long[] seed = {1,2,3,4,5,6};
+      for(int horizon : new int[]{52, 104, 156}){
+         Distribution[] demand = new Distribution[horizon];
+         for(int i = 0; i < horizon; i++) demand[i] = new PoissonDist(20 + 10*Math.sin(2*Math.PI*i/52));
+         System.gc();
+         resetPeaks();
+         long start = System.currentTimeMillis();
+         LinearizationParameters mapped = LinearizationMethod.MAPPED.build(demand, seed, 0, 10000, 10);
+         long time = System.currentTimeMillis() - start;
+         long dense = (long)horizon*horizon*10*8;
+         System.out.println("T="+horizon+"\t "+time+" ms\t Peak heap: "+peakHeap()/1024+" KB\t Dense parameters: "+dense/1024+" KB"
+               +"\t Full horizon error "+mapped.getMaximumApproximationError(0, horizon-1));
+      }
+   }
+   
+   static void compare(String name, Distribution[] demand){
+      int Nbpartitions = 10;
+      long[] seed = {1,2,3,4,5,6};
+      int population = 100000;
+      
+      long start = System.currentTimeMillis();
+      LinearizationParameters analytic = LinearizationMethod.ANALYTIC.build(demand, seed, 1000, population, Nbpartitions);
+      long analyticTime = System.currentTimeMillis() - start;
+      start = System.currentTimeMillis();
+      LinearizationParameters mapped = LinearizationMethod.MAPPED.build(demand, seed, 1000, population, Nbpartitions);
+      long mappedTime = System.currentTimeMillis() - start;
+      
+      double maxRelativeDifference = 0;
+      double maxErrorDifference = 0;
+      for(int i = 0; i < demand.length; i++){
+         for(int j = i; j < demand.length; j++){
+            for(int k = 0; k < Nbpartitions; k++){
+               double a = analytic.getConditionalExpectation(i, j, k);
+               maxRelativeDifference = Math.max(maxRelativeDifference, Math.abs(a - mapped.getConditionalExpectation(i, j, k))/a);
+            }
+            maxErrorDifference = Math.max(maxErrorDifference, Math.abs(analytic.getMaximumApproximationError(i, j) - mapped.getMaximumApproximationError(i, j)));
+         }
+      }
+      System.out.println(name+"\t Analytic: "+analyticTime+" ms\t Mapped: "+mappedTime+" ms");
+      System.out.println("Max difference: relative conditional expectation "+maxRelativeDifference+"\t approximation error "+maxErrorDifference);
+      if(maxRelativeDifference > 0.05) 
+         throw new IllegalStateException(name+": mapped conditional expectations differ from analytic ones");
+      for(int i = 1; i < demand.length; i++){
+         for(int j = 0; j < i; j++){
+            if(mapped.getMaximumApproximationError(i, j) != analytic.getMaximumApproximationError(i, j)
+                  || mapped.getConditionalExpectation(i, j, 0) != analytic.getConditionalExpectation(i, j, 0))
+               throw new IllegalStateException(name+": cycle ("+i+","+j+") below the diagonal differs from analytic");
+         }
+      }
+   }
+   
+   static void resetPeaks(){
+      for(MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+         if(pool.getType() == MemoryType.HEAP) pool.resetPeakUsage();
+   }
+   
+   static long peakHeap(){
+      long peak = 0;
+      for(MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+         if(pool.getType() == MemoryType.HEAP) peak += pool.getPeakUsage().getUsed();
+      return peak;
+   }
+}
@@ -0,0 +1,78 @@
+/**
+ * pwlf-milp: Piecewise linear approximations for the static-dynamic 
+ *            uncertainty strategy in stochastic lot-sizing"
+ * 
+ * MIT License
+ * 
+ * Copyright (c) 2016 Roberto Rossi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package linearization;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import umontreal.ssj.probdist.Distribution;
+import umontreal.ssj.probdist.PoissonDist;
+
+public class TestParallelLinearizationParameters {
+   
+   public static void main(String args[]) {
+      int T = 24;
+      Distribution[] distributions = new Distribution[T];
+      for(int i = 0; i < T; i++)
+         distributions[i] = new PoissonDist(20 + 10*Math.sin(2*Math.PI*i/12));
+      
+      int Nbpartitions = 10;
+      long[] seed = {1,2,3,4,5,6};
+      int nbSamples = 1000;
+      int population = 100000;
+      
+      long start = System.currentTimeMillis();
+      LinearizationParameters serial = LinearizationMethod.SAMPLING.build(distributions, seed, nbSamples, population, Nbpartitions);
+      long serialTime = System.currentTimeMillis() - start;
+      System.out.println("RSCycleLinearizationParameters: "+serialTime+" ms");
+      
+      LinearizationParameters reference = null;
+      for(int threads : new int[]{1, 2, 4, 8}){
+         ExecutorService executor = Executors.newFixedThreadPool(threads);
+         start = System.currentTimeMillis();
+         LinearizationParameters parallel = ParallelLinearizationParameters.build(distributions, seed, nbSamples, Nbpartitions, executor);
+         long parallelTime = System.currentTimeMillis() - start;
+         executor.shutdown();
+         if(reference == null) reference = parallel;
+         System.out.println("Threads: "+threads+"\t "+parallelTime+" ms\t Max difference from 1 thread: "+maxDifference(reference, parallel, T, Nbpartitions)
+               +"\t from RSCycleLinearizationParameters: "+maxDifference(serial, parallel, T, Nbpartitions));
+      }
+   }
+   
+   static double maxDifference(LinearizationParameters a, LinearizationParameters b, int T, int Nbpartitions){
+      double maxDifference = 0;
+      for(int i = 0; i < T; i++){
+         for(int j = i; j < T; j++){
+            for(int k = 0; k < Nbpartitions; k++)
+               maxDifference = Math.max(maxDifference, Math.abs(a.getConditionalExpectation(i, j, k) - b.getConditionalExpectation(i, j, k)));
+            maxDifference = Math.max(maxDifference, Math.abs(a.getMaximumApproximationError(i, j) - b.getMaximumApproximationError(i, j)));
+         }
+      }
+      return maxDifference;
+   }
+}
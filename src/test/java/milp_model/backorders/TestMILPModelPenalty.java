@@ -28,7 +28,11 @@
 package milp_model.backorders;
 
 import ilog.concert.IloException;
+import linearization.LinearizationParametersCache;
 import mip_model.backorders.MILPModelPenalty;
+import mip_model.backorders.MILPModelPenaltyBounds;
+import monitoring.ConsoleListener;
+import monitoring.Instrumentation;
 import umontreal.ssj.probdist.Distribution;
 import umontreal.ssj.probdist.EmpiricalDist;
 import umontreal.ssj.probdist.ExponentialDist;
@@ -54,6 +58,8 @@ public class TestMILPModelPenalty {
    
    public static void main(String[] args){
       
+      Instrumentation.addListener(new ConsoleListener());
+      
       /**
        * mu: mean demand
        * sigma: standard deviation demand
@@ -87,8 +93,13 @@ public class TestMILPModelPenalty {
       int nbSamples = 1000;
       int population = 100000;
       
+      /* LB and UB models share the same linearization parameters and are solved concurrently */
+      LinearizationParametersCache cache = new LinearizationParametersCache(16, null);
+      int threads = 8;
+      
       double[] lb = null;
       double[] ub = null;
+      double gap = Double.NaN;
       try{
          MILPModelPenalty model = new MILPModelPenalty(
                Nbmonths, 
@@ -99,35 +110,18 @@ public class TestMILPModelPenalty {
                unitcost, 
                initialStock, 
                Nbpartitions,
-               seed,
-               nbSamples,
-               population);
-         lb = model.solve("rs_milp_piecewise_penalty_lb");
-         
-      }catch(IloException e){
-         e.printStackTrace();
-      }
-      
-      try{
-         MILPModelPenalty model = new MILPModelPenalty(
-               Nbmonths, 
-               distributions, 
-               ordercost, 
-               holdingcost, 
-               penaltycost,
-               unitcost, 
-               initialStock, 
-               Nbpartitions,
-               seed,
-               nbSamples,
-               population);
-         ub = model.solve("rs_milp_piecewise_penalty_ub");
+               cache.get(distributions, seed, nbSamples, population, Nbpartitions));
+         MILPModelPenaltyBounds.Result bounds = new MILPModelPenaltyBounds(model, threads).solve();
+         lb = bounds.getLowerBound();
+         ub = bounds.getUpperBound();
+         gap = bounds.getGap();
       }catch(IloException e){
          e.printStackTrace();
       }
       
       System.out.println("LB: "+String.format("%.2f", lb[0])+"\t Time: "+String.format("%.2f", lb[1])+"\t Sim: "+String.format("%.2f", lb[2])+"+/-"+String.format("%.2f", lb[3])+"@ 95% confidence");
       System.out.println("UB: "+String.format("%.2f", ub[0])+"\t Time: "+String.format("%.2f", ub[1])+"\t Sim: "+String.format("%.2f", ub[2])+"+/-"+String.format("%.2f", ub[3])+"@ 95% confidence");
+      System.out.println("Gap: "+String.format("%.2f", 100*gap)+"%");
    }
    
    private static final double[] observations = {28.0741, 37.0565, 17.8413, 36.5158, 21.6293, 20.4246, 71.4112, 
@@ -0,0 +1,219 @@
+/**
+ * pwlf-milp: Piecewise linear approximations for the static-dynamic 
+ *            uncertainty strategy in stochastic lot-sizing"
+ * 
+ * MIT License
+ * 
+ * Copyright (c) 2016 Roberto Rossi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package mip_model.backorders;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import RS.RSCycleLinearizationParameters;
+import linearization.LinearizationMethod;
+import ilog.opl.IloOplDataHandler;
+import umontreal.ssj.probdist.Distribution;
+import umontreal.ssj.probdist.PoissonDist;
+
+/**
+ * JMH benchmarks for linearization parameters, OPL data feeding and in-memory model generation; no CPLEX 
+ * native library is required.
+ */
+@Fork(1)
+public class MILPModelPenaltyBenchmark {
+   
+   static Distribution[] poissonDemand(int horizon){
+      double[] meanDemand = {10,20,30,40};
+      Distribution[] demand = new Distribution[horizon];
+      for(int i = 0; i < horizon; i++) demand[i] = new PoissonDist(meanDemand[i % meanDemand.length]);
+      return demand;
+   }
+   
+   /**
+    * pwlf's builder samples {@code nbSamples} cycle demands per cycle (i,j); {@code population} is passed through as-is.
+    */
+   @State(Scope.Benchmark)
+   public static class Linearization {
+      @Param({"4", "12", "24"})
+      int horizon;
+      
+      @Param({"4", "10"})
+      int partitions;
+      
+      @Param({"1000", "10000"})
+      int nbSamples;
+      
+      @Param({"100000"})
+      int population;
+      
+      Distribution[] demand;
+      long[] seed = {1,2,3,4,5,6};
+      
+      @Setup
+      public void setup(){
+         demand = poissonDemand(horizon);
+      }
+   }
+   
+   @Benchmark
+   @BenchmarkMode(Mode.SingleShotTime)
+   @OutputTimeUnit(TimeUnit.MILLISECONDS)
+   @Warmup(iterations = 1)
+   @Measurement(iterations = 3)
+   public RSCycleLinearizationParameters linearizationParameters(Linearization state){
+      return new RSCycleLinearizationParameters(state.demand, state.seed, state.nbSamples, state.population, state.partitions);
+   }
+   
+   @State(Scope.Benchmark)
+   public static class DataFeed {
+      @Param({"12", "52"})
+      int horizon;
+      
+      @Param({"10"})
+      int partitions;
+      
+      MILPModelPenalty model;
+      
+      @Setup(Level.Trial)
+      public void setup(){
+         long[] seed = {1,2,3,4,5,6};
+         model = new MILPModelPenalty(horizon, poissonDemand(horizon), 30, 1, 5, 0, 0, partitions, seed, 100, 1000);
+      }
+   }
+   
+   @Benchmark
+   @BenchmarkMode(Mode.AverageTime)
+   @OutputTimeUnit(TimeUnit.MICROSECONDS)
+   @Warmup(iterations = 3, time = 1)
+   @Measurement(iterations = 5, time = 1)
+   public void customRead(DataFeed state, Blackhole blackhole){
+      state.model.feedData(new StubDataHandler(blackhole));
+   }
+   
+   @Benchmark
+   @BenchmarkMode(Mode.AverageTime)
+   @OutputTimeUnit(TimeUnit.MICROSECONDS)
+   @Warmup(iterations = 3, time = 1)
+   @Measurement(iterations = 5, time = 1)
+   public int buildModel(DataFeed state){
+      return new PiecewisePenaltyFormulation(state.model, false).getModel().getNonZeros();
+   }
+   
+   /**
+    * OPL model data for T = 12..120, analytic parameters: raw masses and conditional expectations 
+    * for the original models, or the cumulative tables for the {@code _cumulative} variants; the 
+    * tables are computed once per trial and timed on their own by {@link #cumulativeTables}. 
+    * {@code opl.generate()} itself needs the CPLEX native library and is timed by the generate 
+    * steps of {@code benchmark.MacroBenchmark}, e.g. {@code --suite generation}.
+    */
+   @State(Scope.Benchmark)
+   public static class Generation {
+      @Param({"12", "24", "52", "120"})
+      int horizon;
+      
+      @Param({"10"})
+      int partitions;
+      
+      @Param({"false", "true"})
+      boolean cumulative;
+      
+      MILPModelPenalty model;
+      
+      @Setup(Level.Trial)
+      public void setup(){
+         long[] seed = {1,2,3,4,5,6};
+         model = new MILPModelPenalty(horizon, poissonDemand(horizon), 30, 1, 5, 0, 0, partitions, seed, 100, 1000, LinearizationMethod.ANALYTIC);
+      }
+   }
+   
+   @Benchmark
+   @BenchmarkMode(Mode.AverageTime)
+   @OutputTimeUnit(TimeUnit.MICROSECONDS)
+   @Warmup(iterations = 3, time = 1)
+   @Measurement(iterations = 5, time = 1)
+   public void generationData(Generation state, Blackhole blackhole){
+      state.model.feedData(new StubDataHandler(blackhole), state.cumulative);
+   }
+   
+   /**
+    * Cumulative tables of the {@code _cumulative} variants over the horizons of {@link Generation}.
+    */
+   @State(Scope.Benchmark)
+   public static class Tables {
+      @Param({"12", "24", "52", "120"})
+      int horizon;
+      
+      @Param({"10"})
+      int partitions;
+      
+      MILPModelPenalty model;
+      
+      @Setup(Level.Trial)
+      public void setup(){
+         long[] seed = {1,2,3,4,5,6};
+         model = new MILPModelPenalty(horizon, poissonDemand(horizon), 30, 1, 5, 0, 0, partitions, seed, 100, 1000, LinearizationMethod.ANALYTIC);
+      }
+   }
+   
+   @Benchmark
+   @BenchmarkMode(Mode.AverageTime)
+   @OutputTimeUnit(TimeUnit.MICROSECONDS)
+   @Warmup(iterations = 3, time = 1)
+   @Measurement(iterations = 5, time = 1)
+   public CumulativePartitionTables cumulativeTables(Tables state){
+      return new CumulativePartitionTables(state.model.parameters, state.model.expDemand, state.model.Nbpartitions);
+   }
+   
+   /**
+    * Data handler that is not backed by OPL: items are consumed by a JMH blackhole.
+    */
+   static class StubDataHandler extends IloOplDataHandler {
+      Blackhole blackhole;
+      
+      StubDataHandler(Blackhole blackhole){
+         super(0, false);
+         this.blackhole = blackhole;
+      }
+      
+      public void startElement(String name){ blackhole.consume(name); }
+      public void endElement(){}
+      public void startArray(){}
+      public void endArray(){}
+      public void addIntItem(int value){ blackhole.consume(value); }
+      public void addNumItem(double value){ blackhole.consume(value); }
+   }
+}
@@ -0,0 +1,121 @@
+/**
+ * pwlf-milp: Piecewise linear approximations for the static-dynamic 
+ *            uncertainty strategy in stochastic lot-sizing"
+ * 
+ * MIT License
+ * 
+ * Copyright (c) 2016 Roberto Rossi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package mip_model.backorders;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import linearization.LinearizationMethod;
+import simulation.SimulationResult;
+import umontreal.ssj.probdist.Distribution;
+import umontreal.ssj.probdist.PoissonDist;
+import umontreal.ssj.rng.MRG32k3a;
+
+/**
+ * Plans a batch of random items with the shortest path solver and reports throughput; the 
+ * core budget must be fully returned at the end.
+ */
+public class TestBatchPlanner {
+   
+   public static void main(String args[]) throws Exception {
+      int cores = Runtime.getRuntime().availableProcessors();
+      
+      /* Throughput of parameter builds and solves */
+      BatchPlanner planner = new BatchPlanner(cores, 4*cores);
+      planner.setThreads(24, cores);
+      planner.setSimulation(false, 0.95, 0.01);
+      run(planner, batch(1000), cores);
+      
+      /* Full pipeline, simulated policies must be close to the objective */
+      planner = new BatchPlanner(cores, 4*cores);
+      planner.setThreads(24, cores);
+      planner.setSimulation(true, 0.95, 0.02);
+      List<PlanningResult> results = run(planner, batch(20), cores);
+      int covered = 0;
+      for(PlanningResult result : results)
+         if(Math.abs(result.getSimulatedCost() - result.getObjective()) <= 0.05*result.getObjective()) covered++;
+      System.out.println("Simulated within 5% of objective: "+covered+"/"+results.size());
+      
+      /* A stage holding n permits never runs more than n tasks on the shared pool */
+      ForkJoinPool pool = new ForkJoinPool(8);
+      final AtomicInteger running = new AtomicInteger();
+      final AtomicInteger peak = new AtomicInteger();
+      List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+      for(int n = 0; n < 40; n++){
+         tasks.add(() -> {
+            peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep(2);
+            running.decrementAndGet();
+            return null;
+         });
+      }
+      new BatchPlanner.BoundedExecutor(pool, 3).invokeAll(tasks);
+      pool.shutdown();
+      System.out.println("Peak concurrency with 3 permits: "+peak.get());
+      if(peak.get() > 3) throw new IllegalStateException("Bounded executor exceeded its permits");
+      
+      /* Parallel builds and solves on 4 permits; the time limit caps the simulations */
+      planner = new BatchPlanner(4, 16);
+      planner.setThreads(12, 4);
+      planner.setLinearization(LinearizationMethod.PARALLEL, new long[]{1,2,3,4,5,6}, 200, 100000, 10);
+      planner.setTimeLimit(0.001);
+      planner.setSimulation(true, 0.95, 1e-6);
+      results = run(planner, batch(10), 4);
+      for(PlanningResult result : results)
+         if(result.getSimulationStopReason() != SimulationResult.StopReason.MAX_TIME) 
+            throw new IllegalStateException(result.getItem().getId()+": simulation not stopped by the time limit");
+   }
+   
+   static List<PlanningItem> batch(int items){
+      MRG32k3a stream = new MRG32k3a();
+      List<PlanningItem> batch = new ArrayList<PlanningItem>();
+      for(int n = 0; n < items; n++){
+         int horizon = n % 10 == 0 ? 52 : 12;
+         Distribution[] demand = new Distribution[horizon];
+         double base = 10 + 40*stream.nextDouble();
+         for(int t = 0; t < horizon; t++) demand[t] = new PoissonDist(base*(1 + 0.5*Math.sin(2*Math.PI*t/12)));
+         batch.add(new PlanningItem("item-"+n, demand, 20 + 80*stream.nextDouble(), 1, 5 + 10*stream.nextDouble(), 0, 0));
+      }
+      return batch;
+   }
+   
+   static List<PlanningResult> run(BatchPlanner planner, List<PlanningItem> batch, int cores) throws Exception {
+      List<PlanningResult> results = planner.planAll(batch.iterator());
+      planner.shutdown();
+      for(PlanningResult result : results)
+         if(result.getError() != null) result.getError().printStackTrace();
+      System.out.println("Items: "+planner.getCompleted()+"/"+planner.getSubmitted()+"\t failed: "+planner.getFailed()+"\t suboptimal: "+planner.getSuboptimal()
+            +"\t core budget returned: "+(planner.budget.availablePermits() == cores));
+      System.out.println("Throughput: "+String.format("%.1f", planner.getThroughput())+" items/s\t build: "+String.format("%.2f", 1000*planner.getAverageBuildTime())
+            +" ms\t solve: "+String.format("%.2f", 1000*planner.getAverageSolveTime())+" ms\t simulation: "+String.format("%.2f", 1000*planner.getAverageSimulationTime())+" ms");
+      return results;
+   }
+}
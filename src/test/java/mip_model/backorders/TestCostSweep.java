@@ -0,0 +1,167 @@
+/**
+ * pwlf-milp: Piecewise linear approximations for the static-dynamic 
+ *            uncertainty strategy in stochastic lot-sizing"
+ * 
+ * MIT License
+ * 
+ * Copyright (c) 2016 Roberto Rossi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package mip_model.backorders;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+import linearization.LinearizationMethod;
+import linearization.LinearizationParameters;
+import mip_model.MILPModel;
+import mip_model.MILPSolution;
+import mip_model.MILPSolver;
+import umontreal.ssj.probdist.Distribution;
+import umontreal.ssj.probdist.PoissonDist;
+
+/**
+ * Checks the sweep order, objective updates and the sweep against independent solves.
+ */
+public class TestCostSweep {
+   
+   static int horizon = 12;
+   static long[] seed = {1,2,3,4,5,6};
+   
+   public static void main(String args[]){
+      checkOrder();
+      checkCosts();
+      checkSurface();
+      checkModelReuse();
+   }
+   
+   static void check(boolean condition, String message){
+      if(!condition) throw new IllegalStateException(message);
+   }
+   
+   static Distribution[] demand(){
+      double[] meanDemand = {10,20,30,40};
+      Distribution[] demand = new Distribution[horizon];
+      for(int i = 0; i < horizon; i++) demand[i] = new PoissonDist(meanDemand[i % meanDemand.length]);
+      return demand;
+   }
+   
+   static void checkOrder(){
+      int[] dimensions = {3,4,2,5};
+      int[] order = CostSweep.order(dimensions);
+      int[] sorted = order.clone();
+      Arrays.sort(sorted);
+      for(int n = 0; n < sorted.length; n++) check(sorted[n] == n, "Order is not a permutation");
+      for(int n = 1; n < order.length; n++){
+         int distance = 0;
+         int a = order[n-1], b = order[n];
+         for(int i = dimensions.length - 1; i >= 0; i--){
+            distance += Math.abs(a % dimensions[i] - b % dimensions[i]);
+            a /= dimensions[i];
+            b /= dimensions[i];
+         }
+         check(distance == 1, "Points "+order[n-1]+" and "+order[n]+" are not neighbours");
+      }
+      System.out.println("Order: "+order.length+" points, consecutive points are neighbours");
+   }
+   
+   static void checkCosts(){
+      MILPModelPenalty data = new MILPModelPenalty(horizon, demand(), 30, 1, 5, 2, 0, 10, seed, 1000, 100000, LinearizationMethod.ANALYTIC);
+      PiecewisePenaltyFormulation fresh = new PiecewisePenaltyFormulation(data.withCosts(80, 2, 12, 1), false);
+      PiecewisePenaltyFormulation updated = new PiecewisePenaltyFormulation(data, false);
+      updated.setCosts(80, 2, 12, 1);
+      MILPModel a = fresh.getModel(), b = updated.getModel();
+      for(int j = 0; j < a.getColumns(); j++) 
+         check(Math.abs(a.getObjective(j) - b.getObjective(j)) < 1e-12, "Objective of "+a.getColumnName(j)+" differs");
+      check(Math.abs(a.getObjectiveOffset() - b.getObjectiveOffset()) < 1e-9, "Objective offset differs");
+      System.out.println("Costs: updated objective matches a fresh model");
+   }
+   
+   static void checkSurface(){
+      Distribution[] demand = demand();
+      LinearizationParameters parameters = LinearizationMethod.ANALYTIC.build(demand, seed, 1000, 100000, 10);
+      double[] ordercost = {10, 30, 60, 100, 150, 250};
+      double[] holdingcost = {1};
+      double[] penaltycost = {2, 5, 10, 20, 40};
+      double[] unitcost = {0, 2};
+      CostSweep sweep = new CostSweep(demand, 0, 10, parameters);
+      sweep.setWorkers(1);
+      CostSweep.Surface serial = sweep.sweep(ordercost, holdingcost, penaltycost, unitcost);
+      sweep.setWorkers(3);
+      CostSweep.Surface parallel = sweep.sweep(ordercost, holdingcost, penaltycost, unitcost);
+      for(int o = 0; o < ordercost.length; o++){
+         StringBuilder line = new StringBuilder("a="+ordercost[o]+":");
+         for(int p = 0; p < penaltycost.length; p++){
+            for(int u = 0; u < unitcost.length; u++){
+               MILPModelPenalty data = new MILPModelPenalty(horizon, demand, ordercost[o], 1, penaltycost[p], unitcost[u], 0, 10, parameters);
+               ShortestPathPolicy policy = new ShortestPathPolicy(data, false, 1);
+               check(Math.abs(policy.getObjective() - serial.getObjective(o, 0, p, u)) < 1e-9, "Objective differs from an independent solve");
+               check(Arrays.equals(policy.getR(), serial.getR(o, 0, p, u)), "Policy differs from an independent solve");
+               check(serial.getObjective(o, 0, p, u) == parallel.getObjective(o, 0, p, u), "Parallel sweep differs");
+            }
+            line.append(String.format(" %9.2f", serial.getObjective(o, 0, p, 0)));
+         }
+         System.out.println(line);
+      }
+      System.out.println("Surface: "+serial.getPoints()+" points, serial "+String.format("%.3f", serial.getTime())+"s, parallel "+String.format("%.3f", parallel.getTime())+"s");
+   }
+   
+   /**
+    * Solver stub ordering every period; records the models it is given and the warm starts.
+    */
+   static class RecordingSolver implements MILPSolver {
+      Set<MILPModel> models = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<MILPModel, Boolean>()));
+      int cold;
+      int warm;
+      
+      public MILPSolution solve(MILPModel model){
+         return solve(model, null);
+      }
+      
+      public synchronized MILPSolution solve(MILPModel model, double[] start){
+         models.add(model);
+         if(start == null) cold++; else warm++;
+         double[] x = new double[model.getColumns()];
+         for(int j = 0; j < x.length; j++){
+            String name = model.getColumnName(j);
+            if(name.startsWith("purchase_")) x[j] = 1;
+            if(name.startsWith("P_")){
+               String[] jt = name.split("_");
+               x[j] = jt[1].equals(jt[2]) ? 1 : 0;
+            }
+         }
+         return new MILPSolution(true, model.evaluateObjective(x), x, 0);
+      }
+   }
+   
+   static void checkModelReuse(){
+      RecordingSolver solver = new RecordingSolver();
+      CostSweep sweep = new CostSweep(demand(), 0, 10, LinearizationMethod.ANALYTIC, seed, 1000, 100000);
+      sweep.setSolver(solver, false);
+      sweep.setWorkers(4);
+      CostSweep.Surface surface = sweep.sweep(new double[]{10,20,30,40,50}, new double[]{1}, new double[]{5,10,15,20}, new double[]{0});
+      System.out.println("Models: "+solver.models.size()+", cold solves "+solver.cold+", warm solves "+solver.warm);
+      check(solver.models.size() == 4 && solver.cold == 4 && solver.warm == 16, "Models not reused per worker");
+      check(!surface.isWarmStarted(0, 0, 0, 0) && surface.getR(4, 0, 3, 0)[0], "Unexpected surface");
+   }
+}
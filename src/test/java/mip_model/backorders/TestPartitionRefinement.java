@@ -0,0 +1,69 @@
+/**
+ * pwlf-milp: Piecewise linear approximations for the static-dynamic 
+ *            uncertainty strategy in stochastic lot-sizing"
+ * 
+ * MIT License
+ * 
+ * Copyright (c) 2016 Roberto Rossi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package mip_model.backorders;
+
+import linearization.LinearizationMethod;
+import linearization.LinearizationParameters;
+import umontreal.ssj.probdist.Distribution;
+import umontreal.ssj.probdist.NormalDist;
+
+/**
+ * Refines the number of partitions on a seasonal normal instance. At every round the upper 
+ * bound of the lower bound policy must not be below the optimal upper bound model, and the 
+ * lower bound must not be above it.
+ */
+public class TestPartitionRefinement {
+   
+   public static void main(String args[]) {
+      int T = 24;
+      Distribution[] demand = new Distribution[T];
+      for(int t = 0; t < T; t++){
+         double mean = 50*(1 + 0.5*Math.sin(2*Math.PI*t/12));
+         demand[t] = new NormalDist(mean, 0.25*mean);
+      }
+      PlanningItem item = new PlanningItem("seasonal", demand, 100, 1, 10, 0, 0);
+      long[] seed = {1,2,3,4,5,6};
+      int[] schedule = {2,4,8,16,32,64};
+      
+      PartitionRefinement refinement = new PartitionRefinement(item, LinearizationMethod.ANALYTIC, seed, 1000, 100000, null);
+      PartitionRefinement.Result result = refinement.solve(schedule, 0.01);
+      
+      int violations = 0;
+      System.out.println("N\tLB\tUB\tgap\tUB model\ttime");
+      for(PartitionRefinement.Round round : result.getRounds()){
+         int N = round.getPartitions();
+         LinearizationParameters parameters = LinearizationMethod.ANALYTIC.build(demand, seed, 1000, 100000, N);
+         MILPModelPenalty data = new MILPModelPenalty(T, demand, item.ordercost, item.holdingcost, 
+               item.penaltycost, item.unitcost, item.initialStock, N, parameters);
+         double upperModel = new ShortestPathPolicy(data, true, 1).getObjective();
+         if(round.getLowerBound() > upperModel + 1e-6 || round.getUpperBound() < upperModel - 1e-6) violations++;
+         System.out.println(N+"\t"+round.getLowerBound()+"\t"+round.getUpperBound()+"\t"+round.getGap()+"\t"+upperModel+"\t"+round.getTime());
+      }
+      System.out.println("Stopped at N="+result.getPartitions()+" gap="+result.getGap()+" bound violations: "+violations);
+   }
+}
@@ -0,0 +1,119 @@
+/**
+ * pwlf-milp: Piecewise linear approximations for the static-dynamic 
+ *            uncertainty strategy in stochastic lot-sizing"
+ * 
+ * MIT License
+ * 
+ * Copyright (c) 2016 Roberto Rossi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package mip_model.backorders;
+
+import java.io.File;
+
+import linearization.LinearizationMethod;
+import mip_model.LPWriter;
+import mip_model.MILPModel;
+import mip_model.MPSWriter;
+import umontreal.ssj.probdist.Distribution;
+import umontreal.ssj.probdist.PoissonDist;
+
+/**
+ * Builds the piecewise formulation without OPL or CPLEX, checks its rows on the policy that 
+ * orders every period, and exports it in MPS and LP format.
+ */
+public class TestPiecewisePenaltyFormulation {
+   
+   public static void main(String args[]) throws Exception {
+      checkPolicy(false);
+      checkPolicy(true);
+      for(int horizon : new int[]{4, 12, 52, 120})
+         generate(horizon);
+   }
+   
+   static MILPModelPenalty model(int horizon){
+      double[] meanDemand = {10,20,30,40};
+      Distribution[] demand = new Distribution[horizon];
+      for(int i = 0; i < horizon; i++) demand[i] = new PoissonDist(meanDemand[i % meanDemand.length]);
+      long[] seed = {1,2,3,4,5,6};
+      return new MILPModelPenalty(horizon, demand, 30, 1, 5, 0, 0, 10, seed, 1000, 100000, LinearizationMethod.ANALYTIC);
+   }
+   
+   /**
+    * Order every period up to expected demand plus a safety stock; the smallest stockP[t] 
+    * allowed by the rows must bracket E[max(S-D,0)] from below (LB) or above (UB).
+    */
+   static void checkPolicy(boolean upperBound){
+      int T = 4;
+      double safetyStock = 5;
+      MILPModelPenalty data = model(T);
+      PiecewisePenaltyFormulation formulation = new PiecewisePenaltyFormulation(data, upperBound);
+      MILPModel model = formulation.getModel();
+      double[] x = new double[model.getColumns()];
+      for(int t = 1; t <= T; t++){
+         x[formulation.getStock(t)] = safetyStock;
+         x[formulation.getPurchase(t)] = 1;
+         x[formulation.getCycle(t, t)] = 1;
+      }
+      double[] activity = model.evaluateRows(x);
+      double[] stockP = new double[T+1];
+      int violated = 0;
+      for(int r = 0; r < model.getRows(); r++){
+         String name = model.getRowName(r);
+         double slack = activity[r] - model.getRightHandSide(r);
+         if(name.startsWith("lossP")){
+            int t = Integer.parseInt(name.split("_")[1]);
+            stockP[t] = Math.max(stockP[t], -slack);
+         }else if(!name.startsWith("lossN") && !name.startsWith("initialStock")){
+            boolean holds = model.getSense(r) == MILPModel.Sense.EQ ? Math.abs(slack) < 1e-9 : 
+               (model.getSense(r) == MILPModel.Sense.GE ? slack > -1e-9 : slack < 1e-9);
+            if(!holds && model.getIndicatorVariable(r) < 0) violated++;
+         }
+      }
+      System.out.println((upperBound ? "UB" : "LB")+" rows violated: "+violated);
+      for(int t = 1; t <= T; t++){
+         double S = data.expDemand[t-1] + safetyStock;
+         PoissonDist d = (PoissonDist) data.demand[t-1];
+         double loss = 0;
+         for(int k = 0; k < S; k++) loss += (S - k)*d.prob(k);
+         System.out.println("t="+t+"\t stockP: "+String.format("%.4f", stockP[t])+"\t E[max(S-D,0)]: "+String.format("%.4f", loss)
+               +"\t max error: "+String.format("%.4f", data.parameters.getMaximumApproximationError(t-1, t-1)));
+      }
+   }
+   
+   static void generate(int horizon) throws Exception {
+      MILPModelPenalty data = model(horizon);
+      long start = System.nanoTime();
+      MILPModel model = new PiecewisePenaltyFormulation(data, false).getModel();
+      int nonZeros = model.getNonZeros();
+      double buildTime = (System.nanoTime() - start)*1e-6;
+      File mps = File.createTempFile("piecewise", ".mps");
+      File lp = File.createTempFile("piecewise", ".lp");
+      start = System.nanoTime();
+      MPSWriter.write(model, mps);
+      LPWriter.write(model, lp);
+      double writeTime = (System.nanoTime() - start)*1e-6;
+      System.out.println("T="+horizon+"\t columns: "+model.getColumns()+"\t rows: "+model.getRows()+"\t non-zeros: "+nonZeros
+            +"\t build: "+String.format("%.1f", buildTime)+" ms\t MPS: "+mps.length()/1024+" KB\t LP: "+lp.length()/1024+" KB\t write: "+String.format("%.1f", writeTime)+" ms");
+      mps.delete();
+      lp.delete();
+   }
+}
@@ -0,0 +1,117 @@
+/**
+ * pwlf-milp: Piecewise linear approximations for the static-dynamic 
+ *            uncertainty strategy in stochastic lot-sizing"
+ * 
+ * MIT License
+ * 
+ * Copyright (c) 2016 Roberto Rossi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package mip_model.backorders;
+
+import linearization.LinearizationMethod;
+import linearization.LinearizationParameters;
+import linearization.RollingLinearizationParameters;
+import umontreal.ssj.probdist.BinomialDist;
+import umontreal.ssj.probdist.Distribution;
+import umontreal.ssj.probdist.NormalDist;
+import umontreal.ssj.probdist.PoissonDist;
+
+/**
+ * Rolling horizon without CPLEX: shifted linearization parameters against a full rebuild, and 
+ * feasibility of the shifted MIP start, using the shortest path policy as previous solution.
+ */
+public class TestRollingHorizonPlanner {
+   
+   public static void main(String args[]) {
+      int T = 12;
+      long[] seed = {1,2,3,4,5,6};
+      int nbSamples = 1000;
+      int population = 100000;
+      int Nbpartitions = 10;
+      
+      Distribution[] poisson = new Distribution[T+1];
+      Distribution[] normal = new Distribution[T+1];
+      Distribution[] binomial = new Distribution[T+1];
+      for(int t = 0; t <= T; t++){
+         double mean = 20 + 10*Math.sin(2*Math.PI*t/6);
+         poisson[t] = new PoissonDist(mean);
+         normal[t] = new NormalDist(mean, 0.25*mean);
+         binomial[t] = new BinomialDist((int)(2*mean), 0.5);
+      }
+      compare("Poisson sampling", poisson, LinearizationMethod.SAMPLING, seed, nbSamples, population, Nbpartitions);
+      compare("Poisson analytic", poisson, LinearizationMethod.ANALYTIC, seed, nbSamples, population, Nbpartitions);
+      compare("Normal analytic", normal, LinearizationMethod.ANALYTIC, seed, nbSamples, population, Nbpartitions);
+      compare("Binomial analytic", binomial, LinearizationMethod.ANALYTIC, seed, nbSamples, population, Nbpartitions);
+      
+      /* Shifted start built from the shortest path policy of the first horizon */
+      Distribution[] first = new Distribution[T];
+      System.arraycopy(poisson, 0, first, 0, T);
+      MILPModelPenalty model = new MILPModelPenalty(T, first, 30, 1, 5, 0, 0, Nbpartitions, seed, nbSamples, population, LinearizationMethod.ANALYTIC);
+      ShortestPathPolicy policy = new ShortestPathPolicy(model, false, 1);
+      PiecewisePenaltyFormulation previous = new PiecewisePenaltyFormulation(model, false);
+      double[] values = TestShortestPathPolicy.toSolution(previous, model, policy.getR(), policy.getS());
+      
+      RollingHorizonPlanner planner = new RollingHorizonPlanner(model, false, LinearizationMethod.ANALYTIC, seed, nbSamples, 1);
+      planner.shift(poisson[T], policy.getS()[0] - model.expDemand[0]);
+      MILPModelPenalty shifted = planner.getModel();
+      double[] start = RollingHorizonPlanner.shiftedStart(previous, values, planner.formulation);
+      /* Complete stock levels: order up to the previous level, never below the current stock */
+      double[] x = new double[start.length];
+      double stock = shifted.initialStock;
+      x[planner.formulation.getStock(0)] = stock;
+      for(int t = 1; t <= T; t++){
+         x[planner.formulation.getPurchase(t)] = start[planner.formulation.getPurchase(t)];
+         for(int j = 1; j <= t; j++) x[planner.formulation.getCycle(j, t)] = start[planner.formulation.getCycle(j, t)];
+         boolean order = x[planner.formulation.getPurchase(t)] == 1;
+         stock = order ? Math.max(values[previous.getStock(t+1)], stock - shifted.expDemand[t-1]) : stock - shifted.expDemand[t-1];
+         x[planner.formulation.getStock(t)] = stock;
+      }
+      double[] check = TestShortestPathPolicy.evaluate(planner.formulation, x);
+      System.out.println("Shifted start objective: "+check[0]+"\t rows violated: "+(int)check[1]);
+   }
+   
+   static void compare(String name, Distribution[] demand, LinearizationMethod method, long[] seed, int nbSamples, int population, int Nbpartitions){
+      int T = demand.length - 1;
+      Distribution[] first = new Distribution[T];
+      Distribution[] second = new Distribution[T];
+      System.arraycopy(demand, 0, first, 0, T);
+      System.arraycopy(demand, 1, second, 0, T);
+      LinearizationParameters previous = method.build(first, seed, nbSamples, population, Nbpartitions);
+      
+      long start = System.nanoTime();
+      LinearizationParameters shifted = RollingLinearizationParameters.shift(previous, second, method, seed, nbSamples);
+      double shiftTime = (System.nanoTime() - start)*1e-6;
+      start = System.nanoTime();
+      LinearizationParameters rebuilt = method.build(second, seed, nbSamples, population, Nbpartitions);
+      double rebuildTime = (System.nanoTime() - start)*1e-6;
+      
+      double maxDifference = 0;
+      for(int i = 0; i < T; i++){
+         for(int j = i; j < T; j++){
+            for(int k = 0; k < Nbpartitions; k++)
+               maxDifference = Math.max(maxDifference, Math.abs(shifted.getConditionalExpectation(i, j, k) - rebuilt.getConditionalExpectation(i, j, k)));
+            maxDifference = Math.max(maxDifference, Math.abs(shifted.getMaximumApproximationError(i, j) - rebuilt.getMaximumApproximationError(i, j)));
+         }
+      }
+      System.out.println(name+"\t shift: "+String.format("%.1f", shiftTime)+" ms\t rebuild: "+String.format("%.1f", rebuildTime)+" ms\t max difference: "+maxDifference);
+   }
+}
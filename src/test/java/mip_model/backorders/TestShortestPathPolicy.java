@@ -0,0 +1,208 @@
+/**
+ * pwlf-milp: Piecewise linear approximations for the static-dynamic 
+ *            uncertainty strategy in stochastic lot-sizing"
+ * 
+ * MIT License
+ * 
+ * Copyright (c) 2016 Roberto Rossi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package mip_model.backorders;
+
+import linearization.LinearizationMethod;
+import mip_model.MILPModel;
+import umontreal.ssj.probdist.Distribution;
+import umontreal.ssj.probdist.PoissonDist;
+
+/**
+ * Checks the shortest path policy against the in-memory MILP: the policy must satisfy every 
+ * row with the same objective, and no order pattern may do better (exhaustive search, 
+ * cycle levels restricted to the breakpoints, periods before the first order charged to 
+ * every possible cycle start), with and without initial stock.
+ */
+public class TestShortestPathPolicy {
+   
+   public static void main(String args[]) {
+      for(double initialStock : new double[]{0, 30}){
+         for(boolean upperBound : new boolean[]{false, true}){
+            MILPModelPenalty data = model(6, 10, initialStock);
+            ShortestPathPolicy policy = new ShortestPathPolicy(data, upperBound, 2);
+            PiecewisePenaltyFormulation formulation = new PiecewisePenaltyFormulation(data, upperBound);
+            double[] x = toSolution(formulation, data, policy.getR(), policy.getS(), policy.getCycleStarts());
+            double[] check = evaluate(formulation, x);
+            double enumerated = enumerate(formulation, data);
+            System.out.println((upperBound ? "UB" : "LB")+" initial stock "+initialStock+"\t objective: "+policy.getObjective()
+                  +"\t MILP objective: "+check[0]+"\t rows violated: "+(int)check[1]+"\t exact: "+policy.isExact()
+                  +"\t best enumerated: "+enumerated);
+            if(policy.isExact() && enumerated < policy.getObjective() - 1e-6)
+               throw new IllegalStateException("Exact policy beaten by enumeration");
+         }
+      }
+      
+      for(int horizon : new int[]{12, 52, 120}){
+         MILPModelPenalty data = model(horizon, 10);
+         ShortestPathPolicy policy = new ShortestPathPolicy(data, false, Runtime.getRuntime().availableProcessors());
+         System.out.println("T="+horizon+"\t objective: "+String.format("%.2f", policy.getObjective())+"\t exact: "+policy.isExact()
+               +"\t time: "+String.format("%.2f", policy.getTime()*1000)+" ms");
+      }
+   }
+   
+   static MILPModelPenalty model(int horizon, int partitions){
+      return model(horizon, partitions, 0);
+   }
+   
+   static MILPModelPenalty model(int horizon, int partitions, double initialStock){
+      double[] meanDemand = {10,20,30,40};
+      Distribution[] demand = new Distribution[horizon];
+      for(int i = 0; i < horizon; i++) demand[i] = new PoissonDist(meanDemand[i % meanDemand.length]);
+      long[] seed = {1,2,3,4,5,6};
+      return new MILPModelPenalty(horizon, demand, 30, 1, 5, 0, initialStock, partitions, seed, 1000, 100000, LinearizationMethod.ANALYTIC);
+   }
+   
+   /**
+    * MILP solution of a policy: stock, purchase and cycle variables; loss variables are set 
+    * by {@link #evaluate}. Periods before the first order are charged to cycle start 0.
+    */
+   static double[] toSolution(PiecewisePenaltyFormulation formulation, MILPModelPenalty data, boolean[] R, double[] S){
+      int[] starts = new int[R.length];
+      int start = 0;
+      for(int t = 0; t < R.length; t++){
+         if(R[t]) start = t;
+         starts[t] = start;
+      }
+      return toSolution(formulation, data, R, S, starts);
+   }
+   
+   static double[] toSolution(PiecewisePenaltyFormulation formulation, MILPModelPenalty data, boolean[] R, double[] S, int[] starts){
+      int T = R.length;
+      double[] x = new double[formulation.getModel().getColumns()];
+      x[formulation.getStock(0)] = data.initialStock;
+      for(int t = 0; t < T; t++){
+         x[formulation.getStock(t+1)] = S[t] - data.expDemand[t];
+         x[formulation.getPurchase(t+1)] = R[t] ? 1 : 0;
+         x[formulation.getCycle(starts[t]+1, t+1)] = 1;
+      }
+      return x;
+   }
+   
+   /**
+    * Sets each loss variable to the smallest value its rows allow and returns the objective 
+    * and the number of other rows that are violated.
+    */
+   static double[] evaluate(PiecewisePenaltyFormulation formulation, double[] x){
+      MILPModel model = formulation.getModel();
+      int T = formulation.T;
+      for(int t = 0; t <= T; t++){
+         x[formulation.getStockP(t)] = 0;
+         x[formulation.getStockN(t)] = 0;
+      }
+      double[] activity = model.evaluateRows(x);
+      int violated = 0;
+      for(int r = 0; r < model.getRows(); r++){
+         String name = model.getRowName(r);
+         double slack = activity[r] - model.getRightHandSide(r);
+         if(name.startsWith("lossP") || name.startsWith("lossN")){
+            int t = Integer.parseInt(name.split("_")[1]);
+            int column = name.startsWith("lossP") ? formulation.getStockP(t) : formulation.getStockN(t);
+            x[column] = Math.max(x[column], -slack);
+         }else if(!name.startsWith("initialStock")){
+            int indicator = model.getIndicatorVariable(r);
+            if(indicator >= 0 && x[indicator] != model.getIndicatorValue(r)) continue;
+            boolean holds = model.getSense(r) == MILPModel.Sense.EQ ? Math.abs(slack) < 1e-9 : 
+               (model.getSense(r) == MILPModel.Sense.GE ? slack > -1e-9 : slack < 1e-9);
+            if(!holds) violated++;
+         }
+      }
+      return new double[]{model.evaluateObjective(x), violated};
+   }
+   
+   /**
+    * Best objective over all order patterns; each cycle level is chosen among its breakpoints 
+    * (and the initial stock for an idle first cycle), one cycle at a time since cycle costs are separable. 
+    * Each period before the first order is charged to every cycle start j <= t in turn, one 
+    * period at a time since the costs of these periods are separable as well.
+    */
+   static double enumerate(PiecewisePenaltyFormulation formulation, MILPModelPenalty data){
+      int T = data.Nbmonths;
+      double best = Double.POSITIVE_INFINITY;
+      for(int pattern = 0; pattern < (1 << T); pattern++){
+         boolean[] R = new boolean[T];
+         for(int t = 0; t < T; t++) R[t] = (pattern & (1 << t)) != 0;
+         double[] level = new double[T];
+         for(int t = 0; t < T; t++) level[t] = data.initialStock;
+         double[] x = null;
+         double cost = Double.POSITIVE_INFINITY;
+         for(int i = 0; i < T; i++){
+            if(!R[i]) continue;
+            int j = i;
+            while(j + 1 < T && !R[j+1]) j++;
+            double bestLevel = Double.NaN;
+            for(int t = i; t <= j; t++){
+               for(int k = 0; k < data.Nbpartitions; k++){
+                  double candidate = data.parameters.getConditionalExpectation(i, t, k);
+                  if(i == 0) candidate = Math.max(candidate, data.initialStock);
+                  level[i] = candidate;
+                  x = toSolution(formulation, data, R, levels(R, level, data));
+                  double c = evaluate(formulation, x)[0];
+                  if(c < cost || Double.isNaN(bestLevel)){
+                     cost = c;
+                     bestLevel = candidate;
+                  }
+               }
+            }
+            level[i] = bestLevel;
+         }
+         double[] S = levels(R, level, data);
+         int[] starts = new int[T];
+         int start = 0;
+         for(int t = 0; t < T; t++){
+            if(R[t]) start = t;
+            starts[t] = start;
+         }
+         cost = evaluate(formulation, toSolution(formulation, data, R, S, starts))[0];
+         for(int t = 0; t < T && !R[t]; t++){
+            int bestStart = 0;
+            for(int j = 1; j <= t; j++){
+               starts[t] = j;
+               double c = evaluate(formulation, toSolution(formulation, data, R, S, starts))[0];
+               if(c < cost){
+                  cost = c;
+                  bestStart = j;
+               }
+            }
+            starts[t] = bestStart;
+         }
+         best = Math.min(best, cost);
+      }
+      return best;
+   }
+   
+   static double[] levels(boolean[] R, double[] level, MILPModelPenalty data){
+      double[] S = new double[R.length];
+      double current = data.initialStock;
+      for(int t = 0; t < R.length; t++){
+         if(R[t]) current = level[t];
+         else if(t > 0) current -= data.expDemand[t-1];
+         S[t] = current;
+      }
+      return S;
+   }
+}
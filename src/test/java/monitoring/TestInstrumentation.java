@@ -0,0 +1,143 @@
+/**
+ * pwlf-milp: Piecewise linear approximations for the static-dynamic 
+ *            uncertainty strategy in stochastic lot-sizing"
+ * 
+ * MIT License
+ * 
+ * Copyright (c) 2016 Roberto Rossi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package monitoring;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import linearization.LinearizationMethod;
+import mip_model.backorders.MILPModelPenalty;
+import simulation.SimulatePoliciesBackorders;
+import umontreal.ssj.probdist.Distribution;
+import umontreal.ssj.probdist.PoissonDist;
+
+/**
+ * Runs a parameter build, a shortest path solve and a simulation with a counting listener and 
+ * a JFR recording: every stage must be reported once, simulation half-widths must shrink, and 
+ * the recording must contain the corresponding pwlf events. Stage events must span their stage, 
+ * carry the thread label and be reported when the stage throws. Nothing is printed by the pipeline.
+ */
+public class TestInstrumentation {
+   
+   public static void main(String args[]) throws Exception {
+      CountingListener counter = new CountingListener();
+      Instrumentation.addListener(counter);
+      Recording recording = new Recording();
+      recording.enable("pwlf.Stage");
+      recording.enable("pwlf.SimulationProgress");
+      recording.enable("pwlf.Simulation");
+      recording.start();
+      String previous = Instrumentation.setLabel("item-1");
+      
+      double[] meanDemand = {20,40,60,40,20,40,60,40};
+      Distribution[] demand = new Distribution[meanDemand.length];
+      for(int i = 0; i < demand.length; i++) demand[i] = new PoissonDist(meanDemand[i]);
+      long[] seed = {1,2,3,4,5,6};
+      MILPModelPenalty model = new MILPModelPenalty(demand.length, demand, 100, 1, 10, 0, 0, 10, seed, 1000, 100000, LinearizationMethod.ANALYTIC);
+      model.setPolicyEvaluation(MILPModelPenalty.PolicyEvaluation.ANALYTIC);
+      model.solveShortestPath(false, 1);
+      boolean[] R = {true,false,true,false,true,false,true,false};
+      double[] S = {70,0,110,0,70,0,110,0};
+      SimulatePoliciesBackorders.simulatePenalty(demand, R, S, 100, 1, 10, 0, 0, 0.95, 0.002, seed, 1);
+      boolean failed = false;
+      try{
+         SimulatePoliciesBackorders.simulatePenalty(demand, new boolean[2], S, 100, 1, 10, 0, 0, 0.95, 0.002, seed, 1);
+      }catch(IllegalStateException e){
+         /* The stage is reported nonetheless */
+         failed = true;
+      }
+      if(!failed) throw new IllegalStateException("Simulation of a truncated policy did not fail");
+      Instrumentation.setLabel(previous);
+      
+      recording.stop();
+      Path file = Files.createTempFile("instrumentation", ".jfr");
+      recording.dump(file);
+      recording.close();
+      int jfrEvents = 0;
+      boolean spanning = true;
+      for(RecordedEvent event : RecordingFile.readAllEvents(file)){
+         if(event.getEventType().getName().startsWith("pwlf.")) jfrEvents++;
+         if(event.getEventType().getName().equals("pwlf.Stage") 
+               && (event.getDuration().isZero() || !"item-1".equals(event.getString("label")))) spanning = false;
+      }
+      Files.delete(file);
+      Instrumentation.removeListener(counter);
+      
+      System.out.println("Stages: "+counter.stages+"\t labels: "+counter.labels);
+      System.out.println("Expected demand events: "+counter.expectedDemand+"\t objectives: "+counter.objectives);
+      System.out.println("Simulation progress events: "+counter.progress+"\t half-width shrinking: "+counter.shrinking
+            +"\t completed: "+counter.simulations);
+      System.out.println("JFR events: "+jfrEvents+"\t listener events: "+(counter.stageEvents + counter.progress + counter.simulations)
+            +"\t stage events spanning and labelled: "+spanning);
+      if(counter.stages.get(Stage.SIMULATION) != 2 || !spanning || !counter.labels.equals(Set.of("item-1")))
+         throw new IllegalStateException("Stage events missing, unlabelled or instantaneous");
+   }
+   
+   static class CountingListener implements PipelineListener {
+      Map<Stage, Integer> stages = new EnumMap<Stage, Integer>(Stage.class);
+      Set<String> labels = new TreeSet<String>();
+      int stageEvents;
+      int expectedDemand;
+      int objectives;
+      int progress;
+      int simulations;
+      boolean shrinking = true;
+      double lastHalfWidth = Double.POSITIVE_INFINITY;
+      
+      public synchronized void stage(Stage stage, String label, double seconds){
+         stages.merge(stage, 1, Integer::sum);
+         labels.add(label);
+         stageEvents++;
+      }
+      
+      public synchronized void expectedDemand(double[] expDemand){
+         expectedDemand++;
+      }
+      
+      public synchronized void objective(double objective){
+         objectives++;
+      }
+      
+      public synchronized void simulationProgress(long runs, double mean, double halfWidth, double time){
+         if(progress > 2 && halfWidth > lastHalfWidth*1.5) shrinking = false;
+         lastHalfWidth = halfWidth;
+         progress++;
+      }
+      
+      public synchronized void simulationCompleted(long runs, double mean, double halfWidth, double varianceReduction, double[] onHand, double[] backorders){
+         simulations++;
+      }
+   }
+}
@@ -0,0 +1,158 @@
+/**
+ * pwlf-milp: Piecewise linear approximations for the static-dynamic 
+ *            uncertainty strategy in stochastic lot-sizing"
+ * 
+ * MIT License
+ * 
+ * Copyright (c) 2016 Roberto Rossi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package simulation;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import umontreal.ssj.probdist.Distribution;
+import umontreal.ssj.probdist.NormalDist;
+import umontreal.ssj.probdist.PoissonDist;
+import umontreal.ssj.stat.Tally;
+
+/**
+ * JMH benchmarks for policy simulation. 
+ * 
+ * The instance repeats the demand pattern of {@code TestSimulatePoliciesBackorders} over 
+ * {@code horizon} periods, with an order every other period.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SimulationBenchmark {
+   
+   static final double[] demandMean = {110,40,10,62,12,80,122,130};
+   
+   @Param({"8", "52", "104"})
+   int horizon;
+   
+   @Param({"normal", "poisson"})
+   String family;
+   
+   Distribution[] demand;
+   boolean[] R;
+   double[] S;
+   double a = 48;
+   double h = 0.5;
+   double p = 12;
+   double[] v;
+   double initialStock = 98;
+   
+   double[][] paths;
+   int path;
+   Tally[] stockPTally;
+   Tally[] stockNTally;
+   PenaltyKernel kernel;
+   
+   @Setup
+   public void setup(){
+      demand = new Distribution[horizon];
+      R = new boolean[horizon];
+      S = new double[horizon];
+      v = new double[horizon];
+      for(int i = 0; i < horizon; i++){
+         double mean = demandMean[i % demandMean.length];
+         demand[i] = family.equals("normal") ? new NormalDist(mean, 0.2*mean) : new PoissonDist(mean);
+         R[i] = i % 2 == 0;
+      }
+      for(int i = 0; i < horizon; i += 2){
+         double cycleMean = demandMean[i % demandMean.length] + (i+1 < horizon ? demandMean[(i+1) % demandMean.length] : 0);
+         S[i] = 1.2*cycleMean;
+      }
+      
+      Random rnd = new Random(1);
+      paths = new double[1024][horizon];
+      for(double[] realizations : paths)
+         for(int i = 0; i < horizon; i++) realizations[i] = demand[i].inverseF(rnd.nextDouble());
+      stockPTally = new Tally[horizon];
+      stockNTally = new Tally[horizon];
+      for(int i = 0; i < horizon; i++){
+         stockPTally[i] = new Tally();
+         stockNTally[i] = new Tally();
+      }
+      
+      kernel = new PenaltyKernel(demand,R,S,a,h,p,v,initialStock,PenaltyKernel.DEFAULT_BLOCK);
+      kernel.sample(rnd);
+   }
+   
+   @Benchmark
+   public double simulateOneRunPenalty(){
+      double[] realizations = paths[path++ & 1023];
+      return SimulatePoliciesBackorders.simulateOneRunPenalty(realizations,R,S,a,h,p,v,initialStock,stockPTally,stockNTally);
+   }
+   
+   /**
+    * One block of {@code PenaltyKernel.DEFAULT_BLOCK} replications on pre-sampled demand.
+    */
+   @Benchmark
+   public double[] simulateKernelBlock(){
+      return kernel.simulate();
+   }
+   
+   /**
+    * Fixed replication counts: the budget stops at {@code replications} runs, its error target 
+    * of 0 is never met.
+    */
+   @State(Scope.Thread)
+   public static class Replications {
+      @Param({"10000", "100000"})
+      int replications;
+      
+      SimulationBudget budget;
+      
+      @Setup
+      public void setup(){
+         budget = new SimulationBudget(0.95, 0);
+         budget.setMaxRuns(replications);
+      }
+   }
+   
+   @Benchmark
+   @BenchmarkMode(Mode.SingleShotTime)
+   @OutputTimeUnit(TimeUnit.MILLISECONDS)
+   @Warmup(iterations = 2)
+   @Measurement(iterations = 5)
+   public SimulationResult simulatePenalty(Replications replications){
+      return SimulatePoliciesBackorders.simulatePenalty(demand,R,S,a,h,p,v,initialStock,replications.budget);
+   }
+}
@@ -0,0 +1,105 @@
+/**
+ * pwlf-milp: Piecewise linear approximations for the static-dynamic 
+ *            uncertainty strategy in stochastic lot-sizing"
+ * 
+ * MIT License
+ * 
+ * Copyright (c) 2016 Roberto Rossi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package simulation;
+
+import umontreal.ssj.probdist.Distribution;
+import umontreal.ssj.probdist.NormalDist;
+import umontreal.ssj.probdist.PoissonDist;
+import umontreal.ssj.rng.MRG32k3a;
+import umontreal.ssj.stat.Tally;
+
+/**
+ * Cross-checks the exact expected cost against simulation: when the evaluator reports an exact 
+ * result the expected cost must lie within the simulated confidence interval, and per-period 
+ * on-hand and backorder levels must agree with the simulated averages.
+ */
+public class TestExpectedCostEvaluator {
+   
+   public static void main(String args[]){
+      double[] demandMean = {110,40,10,62,12,80,122,130};
+      double[] demandStd = {22,8,2,12.4,2.4,16,24.4,26};
+      double a = 48;
+      double h = 0.5;
+      double p = 12;
+      double[] v = {5.6,4.2,3.0,2.0,1.2,0.6,0.2,0};
+      double initialStock = 98;
+      boolean[] R = {true,true,false,true,false,true,true,true};
+      double[] S = {128.5,56.9,0,84.6,0,101.9,155.4,165.6};
+      
+      Distribution[] normal = new Distribution[demandMean.length];
+      for(int i = 0; i < demandMean.length; i++) normal[i] = new NormalDist(demandMean[i],demandStd[i]);
+      compare("Normal", normal, R, S, a, h, p, v, initialStock);
+      
+      /* Order-up-to levels well above the stock carried over */
+      boolean[] RReached = {true,false,false,true,false,true,false,false};
+      double[] SReached = {130,0,0,150,0,200,0,0};
+      compare("Normal, levels reached", normal, RReached, SReached, a, h, p, v, initialStock);
+      
+      Distribution[] poisson = new Distribution[demandMean.length];
+      for(int i = 0; i < demandMean.length; i++) poisson[i] = new PoissonDist(demandMean[i]);
+      compare("Poisson", poisson, R, S, a, h, p, v, initialStock);
+      
+      /* Order-up-to levels often exceeded: stock in excess must be carried over exactly */
+      boolean[] RExcess = {true,true,true,true,true,true,true,true};
+      double[] SExcess = {250,120,60,80,40,120,150,160};
+      compare("Poisson, excess stock", poisson, RExcess, SExcess, a, h, p, v, initialStock);
+   }
+   
+   static void compare(String name, Distribution[] demand, boolean[] R, double[] S, double a, double h, double p, double[] v, double initialStock){
+      ExpectedCostEvaluator evaluator = ExpectedCostEvaluator.evaluate(demand,R,S,a,h,p,v,initialStock);
+      
+      int runs = 1000000;
+      PenaltyKernel kernel = new PenaltyKernel(demand,R,S,a,h,p,v,initialStock,PenaltyKernel.DEFAULT_BLOCK);
+      MRG32k3a stream = new MRG32k3a();
+      Tally costTally = new Tally();
+      long begin = System.nanoTime();
+      for(int k = 0; k < runs; k += kernel.getBlock()){
+         kernel.sample(stream);
+         double[] cost = kernel.simulate();
+         for(int r = 0; r < kernel.getBlock(); r++) costTally.add(cost[r]);
+         kernel.accumulate(kernel.getBlock());
+      }
+      double simulationTime = (System.nanoTime() - begin)*1e-9;
+      double[] centerAndRadius = new double[2];
+      costTally.confidenceIntervalNormal(0.99, centerAndRadius);
+      
+      double onHand = 0;
+      double backorders = 0;
+      for(int i = 0; i < demand.length; i++){
+         onHand = Math.max(onHand, Math.abs(evaluator.getExpectedOnHand(i) - kernel.getAverageOnHand(i)));
+         backorders = Math.max(backorders, Math.abs(evaluator.getExpectedBackorders(i) - kernel.getAverageBackorders(i)));
+      }
+      boolean covered = Math.abs(evaluator.getExpectedCost() - centerAndRadius[0]) <= centerAndRadius[1];
+      System.out.println(name);
+      System.out.println("Expected cost: "+evaluator.getExpectedCost()+"\t time: "+String.format("%.3f", evaluator.getTime()*1000)+" ms"
+            +"\t excess probability: "+String.format("%.2e", evaluator.getExcessProbability())+"\t exact: "+evaluator.isExact());
+      System.out.println("Simulated cost: "+centerAndRadius[0]+" +/- "+centerAndRadius[1]+"\t time: "+String.format("%.3f", simulationTime*1000)+" ms"
+            +"\t covered: "+covered);
+      System.out.println("Max deviation on hand: "+String.format("%.4f", onHand)+"\t backorders: "+String.format("%.4f", backorders));
+   }
+}
@@ -0,0 +1,130 @@
+/**
+ * pwlf-milp: Piecewise linear approximations for the static-dynamic 
+ *            uncertainty strategy in stochastic lot-sizing"
+ * 
+ * MIT License
+ * 
+ * Copyright (c) 2016 Roberto Rossi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package simulation;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import linearization.LinearizationMethod;
+import mip_model.backorders.MILPModelPenalty;
+import monitoring.Instrumentation;
+import monitoring.PipelineListener;
+import umontreal.ssj.probdist.Distribution;
+import umontreal.ssj.probdist.PoissonDist;
+import umontreal.ssj.rng.MRG32k3a;
+
+/**
+ * Checks IPA gradients against finite differences of the exact expected cost, then polishes 
+ * the order-up-to levels of a policy: the exact cost of the polished policy must not exceed 
+ * that of the original one. A solve with a polisher must report the polishing stage through 
+ * {@link Instrumentation} only, without console output.
+ */
+public class TestOrderUpToPolisher {
+   
+   public static void main(String args[]){
+      double[] demandMean = {110,40,10,62,12,80,122,130};
+      Distribution[] demand = new Distribution[demandMean.length];
+      for(int i = 0; i < demandMean.length; i++) demand[i] = new PoissonDist(demandMean[i]);
+      double a = 48;
+      double h = 0.5;
+      double p = 12;
+      double[] v = {5.6,4.2,3.0,2.0,1.2,0.6,0.2,0};
+      double initialStock = 98;
+      boolean[] R = {true,true,false,true,false,true,true,true};
+      double[] S = {128.5,56.9,0,84.6,0,101.9,155.4,165.6};
+      
+      testGradient(demand, R, S, a, h, p, v, initialStock);
+      testPolish(demand, R, S, a, h, p, v, initialStock);
+      testSilentPipeline(demand);
+   }
+   
+   static void testGradient(Distribution[] demand, boolean[] R, double[] S, double a, double h, double p, double[] v, double initialStock){
+      int T = demand.length;
+      PenaltyKernel kernel = new PenaltyKernel(demand,R,S,a,h,p,v,initialStock,PenaltyKernel.DEFAULT_BLOCK);
+      MRG32k3a stream = new MRG32k3a();
+      double[] gradient = new double[T];
+      long runs = 0;
+      for(; runs < 400000; runs += kernel.getBlock()){
+         kernel.sample(stream);
+         kernel.simulate(gradient);
+      }
+      double delta = 0.05;
+      System.out.println("Period\tIPA\tfinite difference");
+      for(int i = 0; i < T; i++){
+         if(!R[i]) continue;
+         double[] up = S.clone();
+         double[] down = S.clone();
+         up[i] += delta;
+         down[i] -= delta;
+         double difference = (ExpectedCostEvaluator.evaluate(demand,R,up,a,h,p,v,initialStock).getExpectedCost()
+               - ExpectedCostEvaluator.evaluate(demand,R,down,a,h,p,v,initialStock).getExpectedCost())/(2*delta);
+         System.out.println(i+"\t"+String.format("%.4f", gradient[i]/runs)+"\t"+String.format("%.4f", difference));
+      }
+   }
+   
+   static void testPolish(Distribution[] demand, boolean[] R, double[] S, double a, double h, double p, double[] v, double initialStock){
+      long[] seed = {12345,12345,12345,12345,12345,12345};
+      int workers = Runtime.getRuntime().availableProcessors();
+      OrderUpToPolisher polisher = new OrderUpToPolisher(20000, 200, seed, workers);
+      OrderUpToPolisher.Result result = polisher.polish(demand, R, S, a, h, p, v, initialStock);
+      double before = ExpectedCostEvaluator.evaluate(demand,R,S,a,h,p,v,initialStock).getExpectedCost();
+      double after = ExpectedCostEvaluator.evaluate(demand,R,result.getS(),a,h,p,v,initialStock).getExpectedCost();
+      System.out.println("Sample average cost: "+result.getInitialCost()+" -> "+result.getCost()
+            +"\t steps: "+result.getIterations()+"\t runs per step: "+result.getRuns()+"\t time: "+String.format("%.3f", result.getTime())+" s");
+      System.out.println("Exact cost: "+before+" -> "+after+"\t improved: "+(after <= before));
+      for(int i = 0; i < S.length; i++) 
+         if(R[i]) System.out.print(String.format("%.1f->%.1f", S[i], result.getS()[i])+"\t");
+      System.out.println();
+   }
+   
+   static void testSilentPipeline(Distribution[] demand){
+      long[] seed = {1,2,3,4,5,6};
+      MILPModelPenalty model = new MILPModelPenalty(demand.length, demand, 48, 0.5, 12, 0, 98, 10, seed, 1000, 100000, LinearizationMethod.ANALYTIC);
+      model.setPolicyEvaluation(MILPModelPenalty.PolicyEvaluation.ANALYTIC);
+      model.setPolisher(new OrderUpToPolisher(2000, 20, seed, 1));
+      final int[] polished = new int[1];
+      PipelineListener listener = new PipelineListener(){
+         public void polished(double initialCost, double cost){
+            polished[0]++;
+         }
+      };
+      Instrumentation.addListener(listener);
+      ByteArrayOutputStream captured = new ByteArrayOutputStream();
+      PrintStream out = System.out;
+      System.setOut(new PrintStream(captured));
+      try{
+         model.solveShortestPath(false, 1);
+      }finally{
+         System.setOut(out);
+         Instrumentation.removeListener(listener);
+      }
+      System.out.println("Polished events: "+polished[0]+"\t console output: "+captured.size()+" bytes");
+      if(polished[0] != 1 || captured.size() != 0) 
+         throw new IllegalStateException("Polishing must be reported through Instrumentation only");
+   }
+}
@@ -0,0 +1,99 @@
+/**
+ * pwlf-milp: Piecewise linear approximations for the static-dynamic 
+ *            uncertainty strategy in stochastic lot-sizing"
+ * 
+ * MIT License
+ * 
+ * Copyright (c) 2016 Roberto Rossi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package simulation;
+
+import umontreal.ssj.probdist.Distribution;
+import umontreal.ssj.probdist.PoissonDist;
+
+/**
+ * Compares three close policies with common random numbers. Paired-difference intervals must 
+ * cover the exact differences given by {@link ExpectedCostEvaluator}, and are compared with the 
+ * half-width of a difference of two independent estimates over the same number of runs. A 
+ * comparison that cannot meet its precision target must stop at the replication limit of the budget.
+ */
+public class TestPolicyComparison {
+   
+   public static void main(String args[]){
+      double[] demandMean = {110,40,10,62,12,80,122,130};
+      Distribution[] demand = new Distribution[demandMean.length];
+      for(int i = 0; i < demandMean.length; i++) demand[i] = new PoissonDist(demandMean[i]);
+      double a = 48;
+      double h = 0.5;
+      double p = 12;
+      double[] v = {5.6,4.2,3.0,2.0,1.2,0.6,0.2,0};
+      double initialStock = 98;
+      
+      boolean[][] R = {
+            {true,true,false,true,false,true,true,true},
+            {true,true,false,true,false,true,true,true},
+            {true,false,false,true,false,true,true,true}};
+      double[][] S = {
+            {128.5,56.9,0,84.6,0,101.9,155.4,165.6},
+            {130.5,58.9,0,86.6,0,103.9,157.4,167.6},
+            {180.0,0,0,84.6,0,101.9,155.4,165.6}};
+      long[] seed = {12345,12345,12345,12345,12345,12345};
+      
+      long begin = System.nanoTime();
+      PolicyComparison comparison = PolicyComparison.compare(demand, R, S, a, h, p, v, initialStock, 0.95, 0.0001, seed);
+      double time = (System.nanoTime() - begin)*1e-9;
+      System.out.println("Runs: "+comparison.getRuns()+"\t time: "+String.format("%.3f", time)+" s\t stop reason: "+comparison.getStopReason());
+      
+      double[] exact = new double[R.length];
+      for(int k = 0; k < R.length; k++){
+         exact[k] = ExpectedCostEvaluator.evaluate(demand, R[k], S[k], a, h, p, v, initialStock).getExpectedCost();
+         double[] cost = comparison.getCost(k);
+         System.out.println("Policy "+k+": "+cost[0]+" +/- "+cost[1]+"\t exact: "+exact[k]);
+      }
+      int covered = 0, pairs = 0;
+      for(int k = 0; k < R.length; k++){
+         for(int l = k+1; l < R.length; l++){
+            double[] difference = comparison.getDifference(k, l);
+            double independent = Math.hypot(comparison.getCost(k)[1], comparison.getCost(l)[1]);
+            boolean cover = Math.abs(difference[0] - (exact[k] - exact[l])) <= difference[1];
+            if(cover) covered++;
+            pairs++;
+            System.out.println("Policy "+k+" - policy "+l+": "+difference[0]+" +/- "+difference[1]
+                  +"\t exact: "+(exact[k] - exact[l])+"\t independent half-width: "+independent
+                  +"\t variance reduction: "+String.format("%.1f", Math.pow(independent/difference[1], 2)));
+         }
+      }
+      System.out.print("Ranking:");
+      for(int k : comparison.getRanking()) System.out.print(" "+k);
+      System.out.println();
+      System.out.println("Exact differences covered: "+covered+"/"+pairs);
+      
+      /* Precision is never checked below the minimum number of replications */
+      SimulationBudget budget = new SimulationBudget(0.95, 0.0001);
+      budget.setMinRuns(Long.MAX_VALUE);
+      budget.setMaxRuns(20000);
+      PolicyComparison capped = PolicyComparison.compare(demand, R, S, a, h, p, v, initialStock, budget, seed);
+      System.out.println("Capped runs: "+capped.getRuns()+"\t stop reason: "+capped.getStopReason());
+      if(capped.getStopReason() != SimulationResult.StopReason.MAX_RUNS || capped.getRuns() >= budget.getMaxRuns() + PenaltyKernel.DEFAULT_BLOCK)
+         throw new IllegalStateException("Comparison not stopped by the replication limit");
+   }
+}
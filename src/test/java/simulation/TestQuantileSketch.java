@@ -0,0 +1,134 @@
+/**
+ * pwlf-milp: Piecewise linear approximations for the static-dynamic 
+ *            uncertainty strategy in stochastic lot-sizing"
+ * 
+ * MIT License
+ * 
+ * Copyright (c) 2016 Roberto Rossi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package simulation;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import umontreal.ssj.probdist.Distribution;
+import umontreal.ssj.probdist.NormalDist;
+
+public class TestQuantileSketch {
+   
+   static double[] levels = {0.01, 0.05, 0.25, 0.5, 0.75, 0.95, 0.99};
+   
+   public static void main(String args[]){
+      testAccuracy();
+      testMerge();
+      testRiskProfile();
+   }
+   
+   static void check(boolean condition, String message){
+      if(!condition) throw new IllegalStateException(message);
+   }
+   
+   /**
+    * Rank of the sketch quantiles against the sorted data.
+    */
+   public static void testAccuracy(){
+      int n = 1000000;
+      double[] data = new double[n];
+      Random rnd = new Random(1);
+      QuantileSketch sketch = new QuantileSketch();
+      for(int i = 0; i < n; i++){
+         data[i] = Math.exp(rnd.nextGaussian());
+         sketch.add(data[i]);
+      }
+      Arrays.sort(data);
+      double worst = 0;
+      for(double q : levels){
+         double estimate = sketch.quantile(q);
+         double rank = (double) Math.abs(Arrays.binarySearch(data, estimate))/n;
+         worst = Math.max(worst, Math.abs(rank - q));
+         System.out.println("q="+q+" exact="+data[(int)(q*n)]+" sketch="+estimate+" rank="+rank);
+      }
+      System.out.println("Retained: "+sketch.getRetained()+" of "+sketch.getCount()+", worst rank error "+worst);
+      check(worst < 0.01, "Rank error too large");
+      check(sketch.getRetained() < 3*QuantileSketch.DEFAULT_K + 64, "Sketch not memory bounded");
+      check(sketch.getMin() == data[0] && sketch.getMax() == data[n-1], "Wrong extremes");
+   }
+   
+   public static void testMerge(){
+      Random rnd = new Random(2);
+      QuantileSketch whole = new QuantileSketch();
+      QuantileSketch[] parts = new QuantileSketch[4];
+      for(int w = 0; w < parts.length; w++) parts[w] = new QuantileSketch();
+      for(int i = 0; i < 400000; i++){
+         double x = rnd.nextGaussian();
+         whole.add(x);
+         parts[i % parts.length].add(x);
+      }
+      QuantileSketch merged = new QuantileSketch();
+      QuantileSketch again = new QuantileSketch();
+      for(QuantileSketch part : parts){
+         merged.merge(part);
+         again.merge(part);
+      }
+      check(merged.getCount() == whole.getCount(), "Merge lost observations");
+      for(double q : levels){
+         double exact = NormalDist.inverseF01(q);
+         System.out.println("q="+q+" whole="+whole.quantile(q)+" merged="+merged.quantile(q)+" normal="+exact);
+         check(Math.abs(NormalDist.cdf01(merged.quantile(q)) - q) < 0.01, "Merged sketch inaccurate");
+         check(merged.quantile(q) == again.quantile(q), "Merge not reproducible");
+      }
+   }
+   
+   public static void testRiskProfile(){
+      double[] demandMean = {110,40,10,62,12,80,122,130};
+      double[] demandStd = {22,8,2,12.4,2.4,16,24.4,26};
+      Distribution[] demand = new Distribution[demandMean.length];
+      for(int i = 0; i < demandMean.length; i++) demand[i] = new NormalDist(demandMean[i],demandStd[i]);
+      boolean[] R = {true,true,false,true,false,true,true,true};
+      double[] S = {128.5,56.9,0,84.6,0,101.9,155.4,165.6};
+      double[] v = new double[demandMean.length];
+      long[] seed = {12345,24513,24531,42531,35124,32451};
+      
+      SimulationBudget budget = new SimulationBudget(0.95, 0);
+      budget.setMaxRuns(200000);
+      budget.setCheckEvery(10000);
+      budget.setRiskProfile(true);
+      SimulationResult result = SimulatePoliciesBackorders.simulatePenalty(demand,R,S,48,0.5,12,v,98,budget,seed,2);
+      RiskProfile risk = result.getRiskProfile();
+      check(risk.getRuns() == result.getRuns(), "Profile missed replications");
+      System.out.println("Cost mean "+result.getMean()+" P50 "+risk.getCostQuantile(0.5)+" P95 "+risk.getCostQuantile(0.95)+" P99 "+risk.getCostQuantile(0.99));
+      check(risk.getCostQuantile(0.5) < risk.getCostQuantile(0.95) && risk.getCostQuantile(0.95) < risk.getCostQuantile(0.99), "Quantiles not ordered");
+      for(int i = 0; i < demand.length; i++){
+         double service = risk.getNoStockoutProbability(i);
+         System.out.println("Period "+i+": no stock-out "+service+" backorders P95 "+risk.getBackorderQuantile(i, 0.95)+" P99 "+risk.getBackorderQuantile(i, 0.99));
+         check(service > 0 && service < 1, "Implausible service level");
+         if(service > 0.96) check(risk.getBackorderQuantile(i, 0.95) == 0, "P95 backorders should be 0");
+         if(service < 0.94) check(risk.getBackorderQuantile(i, 0.95) > 0, "P95 backorders should be positive");
+      }
+      // Period 0: order up to 128.5 from 98, stock-out iff demand exceeds 128.5
+      double exact = new NormalDist(demandMean[0], demandStd[0]).cdf(S[0]);
+      check(Math.abs(risk.getNoStockoutProbability(0) - exact) < 0.005, "Service level of period 0 off: "+exact);
+      
+      SimulationResult again = SimulatePoliciesBackorders.simulatePenalty(demand,R,S,48,0.5,12,v,98,budget,seed,2);
+      check(again.getRiskProfile().getCostQuantile(0.99) == risk.getCostQuantile(0.99), "Profile not reproducible");
+   }
+}
@@ -27,33 +27,109 @@
 
 package simulation;
 
+import java.util.Random;
+
+import monitoring.ConsoleListener;
+import monitoring.Instrumentation;
+import simulation.sampling.AntitheticSampling;
+import simulation.sampling.LatinHypercubeSampling;
+import simulation.sampling.LatticeSampling;
+import simulation.sampling.MonteCarloSampling;
+import simulation.sampling.SamplingStrategy;
+import simulation.sampling.SobolSampling;
 import umontreal.ssj.probdist.Distribution;
 import umontreal.ssj.probdist.NormalDist;
+import umontreal.ssj.stat.Tally;
 
 public class TestSimulatePoliciesBackorders {
    public static void main(String args[]){
+      Instrumentation.addListener(new ConsoleListener());
       testPenalty();
+      testPenaltyParallel();
+      testPenaltyKernel();
+      testPenaltyVarianceReduction();
    }
    
-   public static void testPenalty(){
-      double[] demandMean = {110,40,10,62,12,80,122,130};
-      double[] demandStd = {22,8,2,12.4,2.4,16,24.4,26};
+   /* Shared instance: eight periods of normal demand and an order in six of them */
+   static final double[] demandMean = {110,40,10,62,12,80,122,130};
+   static final double[] demandStd = {22,8,2,12.4,2.4,16,24.4,26};
+   static final double a = 48;
+   static final double h = 0.5;
+   static final double p = 12;
+   static final double[] v = {5.6,4.2,3.0,2.0,1.2,0.6,0.2,0};
+   static final double initialStock = 98;
+   static final boolean[] R = {true,true,false,true,false,true,true,true};
+   //static final double[] S = {130.2,57.072,0,85.597,0,102.363,156.103,185.484};
+   static final double[] S = {128.5,56.9,0,84.6,0,101.9,155.4,165.6};
+   
+   static Distribution[] demand(){
       Distribution[] distribution = new Distribution[demandMean.length];
       for(int i = 0; i < demandMean.length; i++){
          distribution[i] = new NormalDist(demandMean[i],demandStd[i]);
       }
-      
-      double a = 48;
-      double h = 0.5;
-      double p = 12;
-      double[] v = {5.6,4.2,3.0,2.0,1.2,0.6,0.2,0};
-      double initialStock = 98;
-      
-      boolean[] R = {true,true,false,true,false,true,true,true};
-      //double[] S = {130.2,57.072,0,85.597,0,102.363,156.103,185.484};
-      double[] S = {128.5,56.9,0,84.6,0,101.9,155.4,165.6};
+      return distribution;
+   }
+   
+   public static void testPenalty(){
+      Distribution[] distribution = demand();
       
       double[] centerAndRadius = SimulatePoliciesBackorders.simulatePenalty(distribution,R,S,a,h,p,v,initialStock,0.95,0.0001);
       System.out.println(centerAndRadius[0]+" "+centerAndRadius[1]);
    }
+   
+   public static void testPenaltyParallel(){
+      Distribution[] distribution = demand();
+      
+      long[] seed = {1,2,3,4,5,6};
+      int workers = Runtime.getRuntime().availableProcessors();
+      
+      double[] first = SimulatePoliciesBackorders.simulatePenalty(distribution,R,S,a,h,p,v,initialStock,0.95,0.0001,seed,workers);
+      double[] second = SimulatePoliciesBackorders.simulatePenalty(distribution,R,S,a,h,p,v,initialStock,0.95,0.0001,seed,workers);
+      System.out.println(first[0]+" "+first[1]);
+      System.out.println("Reproducible: "+(first[0] == second[0] && first[1] == second[1]));
+   }
+   
+   public static void testPenaltyKernel(){
+      Distribution[] distribution = demand();
+      
+      PenaltyKernel kernel = new PenaltyKernel(distribution,R,S,a,h,p,v,initialStock,PenaltyKernel.DEFAULT_BLOCK);
+      kernel.sample(new Random(1));
+      double[] cost = kernel.simulate();
+      
+      Random rnd = new Random(1);
+      Tally[] stockPTally = new Tally[demandMean.length];
+      Tally[] stockNTally = new Tally[demandMean.length];
+      for(int i = 0; i < demandMean.length; i++) {
+         stockPTally[i] = new Tally();
+         stockNTally[i] = new Tally();
+      }
+      double maxDifference = 0;
+      for(int r = 0; r < kernel.getBlock(); r++){
+         double[] realizations = new double[demandMean.length];
+         for(int i = 0; i < realizations.length; i++){
+            realizations[i] = distribution[i].inverseF(rnd.nextDouble());
+         }
+         double expected = SimulatePoliciesBackorders.simulateOneRunPenalty(realizations,R,S,a,h,p,v,initialStock,stockPTally,stockNTally);
+         maxDifference = Math.max(maxDifference, Math.abs(expected - cost[r]));
+      }
+      System.out.println("Kernel max cost difference: "+maxDifference);
+   }
+   
+   public static void testPenaltyVarianceReduction(){
+      Distribution[] distribution = demand();
+      
+      long[] seed = {1,2,3,4,5,6};
+      
+      SamplingStrategy[] strategies = {
+            new MonteCarloSampling(1024),
+            new AntitheticSampling(1024),
+            new LatinHypercubeSampling(1024),
+            new SobolSampling(10),
+            new LatticeSampling(1021, 76)
+      };
+      for(SamplingStrategy sampling : strategies){
+         double[] result = SimulatePoliciesBackorders.simulatePenalty(distribution,R,S,a,h,p,v,initialStock,0.95,0.0001,seed,sampling);
+         System.out.println(sampling.getClass().getSimpleName()+": "+result[0]+" +/- "+result[1]+" runs: "+(long)result[2]+" VRF: "+String.format("%.2f", result[3]));
+      }
+   }
 }
@@ -0,0 +1,134 @@
+/**
+ * pwlf-milp: Piecewise linear approximations for the static-dynamic 
+ *            uncertainty strategy in stochastic lot-sizing"
+ * 
+ * MIT License
+ * 
+ * Copyright (c) 2016 Roberto Rossi
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy 
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package simulation;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import umontreal.ssj.probdist.Distribution;
+import umontreal.ssj.probdist.NormalDist;
+
+public class TestSimulationBudget {
+   
+   static double[] demandMean = {110,40,10,62,12,80,122,130};
+   static double[] demandStd = {22,8,2,12.4,2.4,16,24.4,26};
+   static boolean[] R = {true,true,false,true,false,true,true,true};
+   static double[] S = {128.5,56.9,0,84.6,0,101.9,155.4,165.6};
+   
+   public static void main(String args[]){
+      testRelativeError();
+      testMaxRuns();
+      testMaxTime();
+      testAbsoluteError();
+      testCallback();
+      testParallel();
+   }
+   
+   static Distribution[] demand(){
+      Distribution[] distribution = new Distribution[demandMean.length];
+      for(int i = 0; i < demandMean.length; i++){
+         distribution[i] = new NormalDist(demandMean[i],demandStd[i]);
+      }
+      return distribution;
+   }
+   
+   static void check(boolean condition, String message){
+      if(!condition) throw new IllegalStateException(message);
+   }
+   
+   /**
+    * The public overload used to ignore its confidence and error arguments.
+    */
+   public static void testRelativeError(){
+      double[] centerAndRadius = SimulatePoliciesBackorders.simulatePenalty(demand(),R,S,48,0.5,12,1,98,0.9,0.01);
+      System.out.println("Relative error: "+centerAndRadius[0]+" "+centerAndRadius[1]);
+      check(centerAndRadius[1] <= 0.01*centerAndRadius[0], "Relative error not met");
+      check(centerAndRadius[1] > 0.0001*centerAndRadius[0], "Error argument ignored");
+   }
+   
+   public static void testMaxRuns(){
+      SimulationBudget budget = new SimulationBudget(0.95, 0);
+      budget.setMaxRuns(5000);
+      SimulationResult result = SimulatePoliciesBackorders.simulatePenalty(demand(),R,S,48,0.5,12,1,98,budget);
+      System.out.println("Max runs: "+result.getMean()+" "+result.getHalfWidth()+" "+result.getRuns()+" "+result.getStopReason());
+      check(result.getRuns() == 5000, "Replication limit not honoured");
+      check(result.getStopReason() == SimulationResult.StopReason.MAX_RUNS, "Wrong stop reason");
+      check(!result.isPrecise(), "Result should not be precise");
+   }
+   
+   public static void testMaxTime(){
+      SimulationBudget budget = new SimulationBudget(0.95, 0);
+      budget.setMaxTime(0.2);
+      SimulationResult result = SimulatePoliciesBackorders.simulatePenalty(demand(),R,S,48,0.5,12,1,98,budget);
+      System.out.println("Max time: "+result.getMean()+" "+result.getHalfWidth()+" "+result.getRuns()+" "+result.getTime());
+      check(result.getStopReason() == SimulationResult.StopReason.MAX_TIME, "Wrong stop reason");
+      check(result.getTime() < 1, "Wall-clock limit not honoured");
+      check(result.getHalfWidth() < result.getMean(), "No estimate");
+   }
+   
+   /**
+    * A policy without costs has mean 0; only the absolute criterion can stop it.
+    */
+   public static void testAbsoluteError(){
+      SimulationBudget budget = new SimulationBudget(0.95, 0.01);
+      budget.setAbsoluteError(1e-9);
+      SimulationResult result = SimulatePoliciesBackorders.simulatePenalty(demand(),R,S,0,0,0,0,98,budget);
+      System.out.println("Absolute error: "+result.getMean()+" "+result.getHalfWidth()+" "+result.getRuns());
+      check(result.isPrecise() && result.getRuns() < budget.getMinRuns() + budget.getCheckEvery(), "Zero-cost policy did not stop at the first check");
+   }
+   
+   public static void testCallback(){
+      final AtomicInteger calls = new AtomicInteger();
+      SimulationBudget budget = new SimulationBudget(0.95, 0);
+      budget.setCheckEvery(500);
+      budget.setProgressCallback(new SimulationBudget.ProgressCallback(){
+         public boolean progress(long runs, double mean, double halfWidth, double time){
+            check(runs % 500 == 0, "Check not aligned: "+runs);
+            return calls.incrementAndGet() < 3;
+         }
+      });
+      SimulationResult result = SimulatePoliciesBackorders.simulatePenalty(demand(),R,S,48,0.5,12,1,98,budget);
+      System.out.println("Callback: "+result.getRuns()+" "+result.getStopReason());
+      check(calls.get() == 3 && result.getRuns() == 2000, "Unexpected checks");
+      check(result.getStopReason() == SimulationResult.StopReason.CANCELLED, "Wrong stop reason");
+   }
+   
+   public static void testParallel(){
+      long[] seed = {12345,24513,24531,42531,35124,32451};
+      SimulationBudget budget = new SimulationBudget(0.95, 0);
+      budget.setMaxRuns(4000);
+      budget.setCheckEvery(1000);
+      double[] v = new double[demandMean.length];
+      Arrays.fill(v, 1);
+      SimulationResult first = SimulatePoliciesBackorders.simulatePenalty(demand(),R,S,48,0.5,12,v,98,budget,seed,2);
+      SimulationResult second = SimulatePoliciesBackorders.simulatePenalty(demand(),R,S,48,0.5,12,v,98,budget,seed,2);
+      System.out.println("Parallel: "+first.getMean()+" "+first.getHalfWidth()+" "+first.getRuns());
+      check(first.getRuns() == 4000 && first.getStopReason() == SimulationResult.StopReason.MAX_RUNS, "Replication limit not honoured");
+      check(first.getMean() == second.getMean(), "Parallel result not reproducible");
+   }
+}